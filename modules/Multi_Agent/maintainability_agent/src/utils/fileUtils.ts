@@ -1,5 +1,6 @@
 import fs from "fs";
 import path from "path";
+import { isArtifactFile, readArtifactSync } from "../../../../../shared/binaryFormat.js";
 
 // 🧩 Recreate __dirname and __filename for ESM (still used by saveReport)
 // const __filename = fileURLToPath(import.meta.url);
@@ -9,7 +10,12 @@ import path from "path";
 // export const AST_FOLDER = ...
 // export const JAVA_FOLDER = ...
 
-/** 📦 Load all AST JSON files from a given directory */
+/** AST file name without its .json or .gcb extension */
+function baseName(fileName: string): string {
+  return fileName.replace(/\.(json|gcb)$/, "");
+}
+
+/** 📦 Load all AST files (JSON or .gcb) from a given directory */
 export function loadAllASTFiles(astDir: string): any[] {
   if (!fs.existsSync(astDir)) {
     console.error(`❌ AST folder not found: ${astDir}`);
@@ -18,15 +24,14 @@ export function loadAllASTFiles(astDir: string): any[] {
 
   const files = fs
     .readdirSync(astDir)
-    .filter((f) => f.endsWith(".json"));
+    .filter((f) => isArtifactFile(f));
 
   const asts: any[] = [];
 
   for (const file of files) {
     const filePath = path.join(astDir, file);
-    const content = fs.readFileSync(filePath, "utf-8");
     try {
-      const json = JSON.parse(content);
+      const json = readArtifactSync(filePath);
       asts.push({ fileName: file, data: json });
     } catch (err) {
       console.error(`⚠️ Failed to parse ${file}:`, err);
@@ -40,7 +45,7 @@ export function loadAllASTFiles(astDir: string): any[] {
 export function saveReport(fileName: string, data: any, outDir: string) {
   if (!fs.existsSync(outDir)) fs.mkdirSync(outDir, { recursive: true });
 
-  const outPath = path.join(outDir, fileName.replace(".json", "_report.json"));
+  const outPath = path.join(outDir, baseName(fileName) + "_report.json");
   fs.writeFileSync(outPath, JSON.stringify(data, null, 2));
   console.log(` Report saved → ${outPath}`);
 }
@@ -54,7 +59,7 @@ export function getRealLOCAndComments(
   fileName: string,
   javaDir: string
 ): { loc: number; comments: number } {
-  const javaFileName = fileName.replace(".json", ".java");
+  const javaFileName = baseName(fileName) + ".java";
   const javaFilePath = path.join(javaDir, javaFileName);
 
   if (!fs.existsSync(javaFilePath)) {
@@ -1,3 +0,0 @@
-"use strict";
-// Common types used across the module
-Object.defineProperty(exports, "__esModule", { value: true });
@@ -0,0 +1,570 @@
+package com.greencode.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Static cost analysis over compiled .class files.
+ *
+ * Walks every class under a classes directory (e.g. benchmark-project/target/classes),
+ * decodes each method's Code attribute and counts allocations, invokes by resolved
+ * owner, boxing calls, monitor ops and loop back-edges. Output is one JSON entry per
+ * method, keyed by className/methodName like the energy analyzer's MethodReport.
+ *
+ * Uses only the JDK so it can be launched directly from source:
+ *   java BytecodeCostAnalyzer.java target/classes bytecode-metrics.json
+ */
+public class BytecodeCostAnalyzer {
+
+    private static final String HARNESS_PREFIX = "com/greencode/benchmarks/";
+
+    private static final int ACC_SYNCHRONIZED = 0x0020;
+    private static final int ACC_BRIDGE = 0x0040;
+    private static final int ACC_SYNTHETIC = 0x1000;
+
+    private static final String[] IO_OWNER_PREFIXES = {
+        "java/io/", "java/nio/file/", "java/nio/channels/", "java/net/",
+        "java/util/logging/", "org/slf4j/", "org/apache/logging/", "org/apache/log4j/"
+    };
+
+    private static final String[] IN_MEMORY_IO_OWNERS = {
+        "java/io/StringReader", "java/io/StringWriter", "java/io/ByteArrayInputStream",
+        "java/io/ByteArrayOutputStream", "java/io/CharArrayReader", "java/io/CharArrayWriter",
+        "java/io/Serializable", "java/io/Closeable", "java/io/IOException", "java/io/UncheckedIOException"
+    };
+
+    private static final String[] DB_OWNER_PREFIXES = {
+        "java/sql/", "javax/sql/", "javax/persistence/", "jakarta/persistence/", "org/hibernate/"
+    };
+
+    private static final String[] BOX_OWNERS = {
+        "java/lang/Integer", "java/lang/Long", "java/lang/Short", "java/lang/Byte",
+        "java/lang/Character", "java/lang/Boolean", "java/lang/Float", "java/lang/Double"
+    };
+
+    private static final String[] UNBOX_NAMES = {
+        "intValue", "longValue", "shortValue", "byteValue",
+        "charValue", "booleanValue", "floatValue", "doubleValue"
+    };
+
+    /** Per-method counters emitted as one JSON object. */
+    public static class MethodMetrics {
+        String className;
+        String methodName;
+        String descriptor;
+        int bytecodeSize;
+        int allocations;
+        int arrayAllocations;
+        int invokes;
+        final Map<String, Integer> invokesByOwner = new TreeMap<>();
+        int ioCalls;
+        int dbCalls;
+        int boxingCalls;
+        int unboxingCalls;
+        int monitorOps;
+        boolean synchronizedMethod;
+        int loopBackEdges;
+        int invokesInLoops;
+        boolean recursive;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java BytecodeCostAnalyzer.java <classesDir> [output.json]");
+            System.exit(1);
+        }
+
+        Path classesDir = Paths.get(args[0]);
+        Path output = Paths.get(args.length > 1 ? args[1] : "bytecode-metrics.json");
+
+        if (!Files.isDirectory(classesDir)) {
+            System.err.println("❌ Classes directory not found: " + classesDir);
+            System.exit(2);
+        }
+
+        List<Path> classFiles;
+        try (Stream<Path> walk = Files.walk(classesDir)) {
+            classFiles = walk
+                .filter(p -> p.toString().endsWith(".class"))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+
+        List<MethodMetrics> methods = new ArrayList<>();
+        int analyzedClasses = 0;
+        for (Path classFile : classFiles) {
+            try {
+                List<MethodMetrics> classMethods = analyzeClass(Files.readAllBytes(classFile));
+                if (classMethods != null) {
+                    methods.addAll(classMethods);
+                    analyzedClasses++;
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("⚠️  Skipping " + classFile + ": " + e.getMessage());
+            }
+        }
+
+        try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            writeJson(writer, classesDir, methods);
+        }
+
+        System.out.println("✅ Bytecode metrics for " + methods.size() + " methods in "
+            + analyzedClasses + " classes saved to: " + output);
+    }
+
+    /**
+     * Decode one class file. Returns null for harness, anonymous and module/package-info classes.
+     */
+    static List<MethodMetrics> analyzeClass(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != 0xCAFEBABE) {
+            throw new IOException("not a class file");
+        }
+        in.readUnsignedShort(); // minor
+        in.readUnsignedShort(); // major
+
+        ConstantPool cp = ConstantPool.read(in);
+
+        in.readUnsignedShort(); // access flags
+        String internalName = cp.className(in.readUnsignedShort());
+        in.readUnsignedShort(); // super class
+        int interfaces = in.readUnsignedShort();
+        for (int i = 0; i < interfaces; i++) in.readUnsignedShort();
+
+        String simpleName = simpleName(internalName);
+        if (internalName.startsWith(HARNESS_PREFIX)
+            || simpleName.isEmpty()
+            || Character.isDigit(simpleName.charAt(0))
+            || simpleName.equals("module-info")
+            || simpleName.equals("package-info")) {
+            return null;
+        }
+
+        int fields = in.readUnsignedShort();
+        for (int i = 0; i < fields; i++) {
+            in.readUnsignedShort();
+            in.readUnsignedShort();
+            in.readUnsignedShort();
+            skipAttributes(in);
+        }
+
+        Map<String, MethodMetrics> byKey = new LinkedHashMap<>();
+        List<MethodMetrics> lambdas = new ArrayList<>();
+
+        int methodCount = in.readUnsignedShort();
+        for (int i = 0; i < methodCount; i++) {
+            int access = in.readUnsignedShort();
+            String name = cp.utf8(in.readUnsignedShort());
+            String descriptor = cp.utf8(in.readUnsignedShort());
+
+            byte[] code = null;
+            int attributes = in.readUnsignedShort();
+            for (int a = 0; a < attributes; a++) {
+                String attrName = cp.utf8(in.readUnsignedShort());
+                int length = in.readInt();
+                if ("Code".equals(attrName)) {
+                    in.readUnsignedShort(); // max stack
+                    in.readUnsignedShort(); // max locals
+                    int codeLength = in.readInt();
+                    code = new byte[codeLength];
+                    in.readFully(code);
+                    int rest = length - 8 - codeLength;
+                    in.skipBytes(rest);
+                } else {
+                    in.skipBytes(length);
+                }
+            }
+
+            boolean isLambda = name.startsWith("lambda$");
+            if (code == null || (!isLambda && (access & (ACC_SYNTHETIC | ACC_BRIDGE)) != 0)) {
+                continue;
+            }
+
+            MethodMetrics m = new MethodMetrics();
+            m.className = simpleName;
+            m.methodName = "<init>".equals(name) ? simpleName : name;
+            m.descriptor = descriptor;
+            m.synchronizedMethod = (access & ACC_SYNCHRONIZED) != 0;
+            scanCode(code, cp, internalName, name, descriptor, m);
+
+            if (isLambda) {
+                // lambda$enclosing$N: fold the body cost into the enclosing method;
+                // javac names constructor lambdas "new" and static-initializer ones "static"
+                String[] parts = name.split("\\$");
+                String enclosing = parts.length > 1 ? parts[1] : name;
+                if ("new".equals(enclosing)) {
+                    m.methodName = simpleName;
+                } else if ("static".equals(enclosing)) {
+                    m.methodName = "<clinit>";
+                } else {
+                    m.methodName = enclosing;
+                }
+                lambdas.add(m);
+            } else {
+                byKey.put(m.methodName + m.descriptor, m);
+            }
+        }
+
+        for (MethodMetrics lambda : lambdas) {
+            MethodMetrics target = byKey.values().stream()
+                .filter(m -> m.methodName.equals(lambda.methodName))
+                .findFirst()
+                .orElse(null);
+            if (target == null) continue;
+            target.bytecodeSize += lambda.bytecodeSize;
+            target.allocations += lambda.allocations;
+            target.arrayAllocations += lambda.arrayAllocations;
+            target.invokes += lambda.invokes;
+            lambda.invokesByOwner.forEach((owner, count) -> target.invokesByOwner.merge(owner, count, Integer::sum));
+            target.ioCalls += lambda.ioCalls;
+            target.dbCalls += lambda.dbCalls;
+            target.boxingCalls += lambda.boxingCalls;
+            target.unboxingCalls += lambda.unboxingCalls;
+            target.monitorOps += lambda.monitorOps;
+            target.loopBackEdges += lambda.loopBackEdges;
+            target.invokesInLoops += lambda.invokesInLoops;
+        }
+
+        return new ArrayList<>(byKey.values());
+    }
+
+    /**
+     * Linear walk over one method's bytecode.
+     */
+    static void scanCode(byte[] code, ConstantPool cp, String ownerClass,
+                         String methodName, String descriptor, MethodMetrics m) {
+        m.bytecodeSize = code.length;
+
+        List<Integer> invokePcs = new ArrayList<>();
+        List<int[]> backEdges = new ArrayList<>();
+
+        int pc = 0;
+        while (pc < code.length) {
+            int opcode = code[pc] & 0xFF;
+            int length;
+
+            switch (opcode) {
+                case 0xbb: // new
+                    m.allocations++;
+                    length = 3;
+                    break;
+                case 0xbc: // newarray
+                    m.arrayAllocations++;
+                    length = 2;
+                    break;
+                case 0xbd: // anewarray
+                    m.arrayAllocations++;
+                    length = 3;
+                    break;
+                case 0xc5: // multianewarray
+                    m.arrayAllocations++;
+                    length = 4;
+                    break;
+                case 0xc2: // monitorenter
+                case 0xc3: // monitorexit
+                    m.monitorOps++;
+                    length = 1;
+                    break;
+                case 0xb6: // invokevirtual
+                case 0xb7: // invokespecial
+                case 0xb8: // invokestatic
+                case 0xb9: { // invokeinterface
+                    String[] ref = cp.memberRef(u2(code, pc + 1));
+                    recordInvoke(m, ref[0], ref[1], ref[2], opcode, ownerClass, methodName, descriptor);
+                    invokePcs.add(pc);
+                    length = opcode == 0xb9 ? 5 : 3;
+                    break;
+                }
+                case 0xba: // invokedynamic
+                    m.invokes++;
+                    m.invokesByOwner.merge("invokedynamic", 1, Integer::sum);
+                    invokePcs.add(pc);
+                    length = 5;
+                    break;
+                case 0xc8: // goto_w
+                case 0xc9: { // jsr_w
+                    int target = pc + s4(code, pc + 1);
+                    if (target <= pc) backEdges.add(new int[]{target, pc});
+                    length = 5;
+                    break;
+                }
+                case 0xaa: { // tableswitch
+                    int base = pc;
+                    int p = (pc + 4) & ~3;
+                    int low = s4(code, p + 4);
+                    int high = s4(code, p + 8);
+                    length = (p + 12 + (high - low + 1) * 4) - base;
+                    break;
+                }
+                case 0xab: { // lookupswitch
+                    int base = pc;
+                    int p = (pc + 4) & ~3;
+                    int pairs = s4(code, p + 4);
+                    length = (p + 8 + pairs * 8) - base;
+                    break;
+                }
+                case 0xc4: // wide
+                    length = (code[pc + 1] & 0xFF) == 0x84 ? 6 : 4;
+                    break;
+                default:
+                    if ((opcode >= 0x99 && opcode <= 0xa8) || opcode == 0xc6 || opcode == 0xc7) {
+                        // if<cond>, if_icmp<cond>, if_acmp<cond>, goto, jsr, ifnull, ifnonnull
+                        int target = pc + s2(code, pc + 1);
+                        if (target <= pc) backEdges.add(new int[]{target, pc});
+                    }
+                    length = OPCODE_LENGTHS[opcode];
+                    break;
+            }
+
+            if (length <= 0) {
+                throw new IllegalStateException("unknown opcode 0x" + Integer.toHexString(opcode) + " at pc " + pc);
+            }
+            pc += length;
+        }
+
+        m.loopBackEdges = backEdges.size();
+        for (int invokePc : invokePcs) {
+            for (int[] edge : backEdges) {
+                if (invokePc >= edge[0] && invokePc <= edge[1]) {
+                    m.invokesInLoops++;
+                    break;
+                }
+            }
+        }
+    }
+
+    private static void recordInvoke(MethodMetrics m, String owner, String name, String desc, int opcode,
+                                     String ownerClass, String methodName, String descriptor) {
+        m.invokes++;
+        m.invokesByOwner.merge(owner.replace('/', '.'), 1, Integer::sum);
+
+        if (owner.equals(ownerClass) && name.equals(methodName) && desc.equals(descriptor)) {
+            m.recursive = true;
+        }
+
+        if (startsWithAny(owner, DB_OWNER_PREFIXES)) {
+            m.dbCalls++;
+            m.ioCalls++; // DB calls are also IO calls
+        } else if (startsWithAny(owner, IO_OWNER_PREFIXES) && !Arrays.asList(IN_MEMORY_IO_OWNERS).contains(owner)) {
+            m.ioCalls++;
+        }
+
+        if (Arrays.asList(BOX_OWNERS).contains(owner)) {
+            if (opcode == 0xb8 && name.equals("valueOf")
+                && "IJSBCZFD".indexOf(desc.charAt(1)) >= 0 && desc.charAt(2) == ')') {
+                m.boxingCalls++;
+            } else if (opcode == 0xb6 && Arrays.asList(UNBOX_NAMES).contains(name)) {
+                m.unboxingCalls++;
+            }
+        }
+    }
+
+    private static boolean startsWithAny(String value, String[] prefixes) {
+        for (String prefix : prefixes) {
+            if (value.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    private static String simpleName(String internalName) {
+        String name = internalName.substring(internalName.lastIndexOf('/') + 1);
+        return name.substring(name.lastIndexOf('$') + 1);
+    }
+
+    private static void skipAttributes(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            in.readUnsignedShort();
+            in.skipBytes(in.readInt());
+        }
+    }
+
+    private static int u2(byte[] b, int i) {
+        return ((b[i] & 0xFF) << 8) | (b[i + 1] & 0xFF);
+    }
+
+    private static int s2(byte[] b, int i) {
+        return (short) u2(b, i);
+    }
+
+    private static int s4(byte[] b, int i) {
+        return ((b[i] & 0xFF) << 24) | ((b[i + 1] & 0xFF) << 16) | ((b[i + 2] & 0xFF) << 8) | (b[i + 3] & 0xFF);
+    }
+
+    /** Fixed instruction lengths (opcode + operands); 0 marks variable-length or unknown opcodes. */
+    private static final int[] OPCODE_LENGTHS = new int[256];
+
+    static {
+        Arrays.fill(OPCODE_LENGTHS, 0, 0xca, 1);
+        OPCODE_LENGTHS[0x10] = 2; // bipush
+        OPCODE_LENGTHS[0x11] = 3; // sipush
+        OPCODE_LENGTHS[0x12] = 2; // ldc
+        OPCODE_LENGTHS[0x13] = 3; // ldc_w
+        OPCODE_LENGTHS[0x14] = 3; // ldc2_w
+        for (int op = 0x15; op <= 0x19; op++) OPCODE_LENGTHS[op] = 2; // xload
+        for (int op = 0x36; op <= 0x3a; op++) OPCODE_LENGTHS[op] = 2; // xstore
+        OPCODE_LENGTHS[0x84] = 3; // iinc
+        for (int op = 0x99; op <= 0xa8; op++) OPCODE_LENGTHS[op] = 3; // branches, goto, jsr
+        OPCODE_LENGTHS[0xa9] = 2; // ret
+        OPCODE_LENGTHS[0xaa] = 0; // tableswitch
+        OPCODE_LENGTHS[0xab] = 0; // lookupswitch
+        for (int op = 0xb2; op <= 0xb8; op++) OPCODE_LENGTHS[op] = 3; // field access, invokes
+        OPCODE_LENGTHS[0xb9] = 5; // invokeinterface
+        OPCODE_LENGTHS[0xba] = 5; // invokedynamic
+        OPCODE_LENGTHS[0xbb] = 3; // new
+        OPCODE_LENGTHS[0xbc] = 2; // newarray
+        OPCODE_LENGTHS[0xbd] = 3; // anewarray
+        OPCODE_LENGTHS[0xc0] = 3; // checkcast
+        OPCODE_LENGTHS[0xc1] = 3; // instanceof
+        OPCODE_LENGTHS[0xc4] = 0; // wide
+        OPCODE_LENGTHS[0xc5] = 4; // multianewarray
+        OPCODE_LENGTHS[0xc6] = 3; // ifnull
+        OPCODE_LENGTHS[0xc7] = 3; // ifnonnull
+        OPCODE_LENGTHS[0xc8] = 5; // goto_w
+        OPCODE_LENGTHS[0xc9] = 5; // jsr_w
+    }
+
+    /** Minimal constant pool: only the entries needed to resolve class and member references. */
+    static final class ConstantPool {
+        private final int[] tags;
+        private final Object[] values;
+
+        private ConstantPool(int size) {
+            tags = new int[size];
+            values = new Object[size];
+        }
+
+        static ConstantPool read(DataInputStream in) throws IOException {
+            int count = in.readUnsignedShort();
+            ConstantPool cp = new ConstantPool(count);
+            for (int i = 1; i < count; i++) {
+                int tag = in.readUnsignedByte();
+                cp.tags[i] = tag;
+                switch (tag) {
+                    case 1: // Utf8
+                        cp.values[i] = in.readUTF();
+                        break;
+                    case 7: // Class
+                    case 8: // String
+                    case 16: // MethodType
+                    case 19: // Module
+                    case 20: // Package
+                        cp.values[i] = new int[]{in.readUnsignedShort()};
+                        break;
+                    case 9: // Fieldref
+                    case 10: // Methodref
+                    case 11: // InterfaceMethodref
+                    case 12: // NameAndType
+                    case 17: // Dynamic
+                    case 18: // InvokeDynamic
+                        cp.values[i] = new int[]{in.readUnsignedShort(), in.readUnsignedShort()};
+                        break;
+                    case 3: // Integer
+                    case 4: // Float
+                        in.readInt();
+                        break;
+                    case 5: // Long
+                    case 6: // Double
+                        in.readLong();
+                        i++; // 8-byte constants take two slots
+                        break;
+                    case 15: // MethodHandle
+                        in.readUnsignedByte();
+                        in.readUnsignedShort();
+                        break;
+                    default:
+                        throw new IOException("bad constant pool tag " + tag + " at " + i);
+                }
+            }
+            return cp;
+        }
+
+        String utf8(int index) {
+            return (String) values[index];
+        }
+
+        String className(int index) {
+            return utf8(((int[]) values[index])[0]);
+        }
+
+        /** Resolve a Methodref/InterfaceMethodref to {owner, name, descriptor}. */
+        String[] memberRef(int index) {
+            int[] ref = (int[]) values[index];
+            int[] nameAndType = (int[]) values[ref[1]];
+            return new String[]{className(ref[0]), utf8(nameAndType[0]), utf8(nameAndType[1])};
+        }
+    }
+
+    /* ---------------- JSON output (no external dependencies) ---------------- */
+
+    private static void writeJson(Writer w, Path classesDir, List<MethodMetrics> methods) throws IOException {
+        w.write("{\n");
+        w.write("  \"generatedAt\": " + quote(Instant.now().toString()) + ",\n");
+        w.write("  \"tool\": \"BytecodeCostAnalyzer\",\n");
+        w.write("  \"classesDir\": " + quote(classesDir.toAbsolutePath().toString()) + ",\n");
+        w.write("  \"methods\": [");
+        for (int i = 0; i < methods.size(); i++) {
+            MethodMetrics m = methods.get(i);
+            w.write(i == 0 ? "\n" : ",\n");
+            w.write("    {");
+            w.write("\"className\": " + quote(m.className));
+            w.write(", \"methodName\": " + quote(m.methodName));
+            w.write(", \"descriptor\": " + quote(m.descriptor));
+            w.write(", \"bytecodeSize\": " + m.bytecodeSize);
+            w.write(", \"allocations\": " + m.allocations);
+            w.write(", \"arrayAllocations\": " + m.arrayAllocations);
+            w.write(", \"invokes\": " + m.invokes);
+            w.write(", \"invokesByOwner\": {");
+            int j = 0;
+            for (Map.Entry<String, Integer> e : m.invokesByOwner.entrySet()) {
+                if (j++ > 0) w.write(", ");
+                w.write(quote(e.getKey()) + ": " + e.getValue());
+            }
+            w.write("}");
+            w.write(", \"ioCalls\": " + m.ioCalls);
+            w.write(", \"dbCalls\": " + m.dbCalls);
+            w.write(", \"boxingCalls\": " + m.boxingCalls);
+            w.write(", \"unboxingCalls\": " + m.unboxingCalls);
+            w.write(", \"monitorOps\": " + m.monitorOps);
+            w.write(", \"synchronizedMethod\": " + m.synchronizedMethod);
+            w.write(", \"loopBackEdges\": " + m.loopBackEdges);
+            w.write(", \"invokesInLoops\": " + m.invokesInLoops);
+            w.write(", \"recursive\": " + m.recursive);
+            w.write("}");
+        }
+        w.write(methods.isEmpty() ? "]\n" : "\n  ]\n");
+        w.write("}\n");
+    }
+
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
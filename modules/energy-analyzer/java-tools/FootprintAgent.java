@@ -0,0 +1,177 @@
+package com.greencode.benchmarks;
+
+import java.lang.instrument.Instrumentation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Java agent that measures the heap footprint of benchmark receivers.
+ *
+ * Load with -javaagent:target/benchmarks.jar (Premain-Class is set by the
+ * generated pom). Without the agent every measurement returns null and the
+ * runner simply omits the footprint fields.
+ *
+ * shallowBytes  - Instrumentation.getObjectSize of the receiver itself
+ * retainedBytes - deep size of everything reachable through instance fields,
+ *                 which equals the retained size unless sub-objects are also
+ *                 referenced from outside the receiver. Static fields, Class
+ *                 objects, class loaders, threads and enum constants are
+ *                 treated as shared and not counted.
+ */
+public final class FootprintAgent {
+
+    /** Safety cap so a receiver pointing at a huge shared graph cannot stall the run */
+    private static final int MAX_OBJECTS = 2_000_000;
+
+    private static volatile Instrumentation instrumentation;
+
+    private static final Map<Class<?>, Field[]> REFERENCE_FIELDS = new ConcurrentHashMap<>();
+
+    public static final class Footprint {
+        public long shallowBytes;
+        public long retainedBytes;
+        public int objectCount;
+        public boolean truncated;
+    }
+
+    private FootprintAgent() {
+    }
+
+    public static void premain(String args, Instrumentation inst) {
+        install(inst);
+    }
+
+    public static void agentmain(String args, Instrumentation inst) {
+        install(inst);
+    }
+
+    private static void install(Instrumentation inst) {
+        instrumentation = inst;
+        openJavaBase(inst);
+    }
+
+    /**
+     * Open java.base to this agent so the walker can read JDK internals such as
+     * ArrayList.elementData without --add-opens on the command line.
+     */
+    private static void openJavaBase(Instrumentation inst) {
+        try {
+            Module base = Object.class.getModule();
+            Module self = FootprintAgent.class.getModule();
+            Map<String, Set<Module>> opens = new HashMap<>();
+            for (String pkg : base.getPackages()) {
+                opens.put(pkg, Set.of(self));
+            }
+            inst.redefineModule(base, Set.of(), Map.of(), opens, Set.of(), Map.of());
+        } catch (Throwable t) {
+            System.err.println("FootprintAgent: could not open java.base (" + t + "), JDK internals will be skipped");
+        }
+    }
+
+    public static boolean isAvailable() {
+        return instrumentation != null;
+    }
+
+    public static long shallowSize(Object obj) {
+        Instrumentation inst = instrumentation;
+        return inst == null || obj == null ? 0 : inst.getObjectSize(obj);
+    }
+
+    /**
+     * Measure shallow and retained size of a root object, or null if the agent is not loaded.
+     */
+    public static Footprint measure(Object root) {
+        Instrumentation inst = instrumentation;
+        if (inst == null || root == null) {
+            return null;
+        }
+
+        Footprint fp = new Footprint();
+        fp.shallowBytes = inst.getObjectSize(root);
+
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Object> stack = new ArrayDeque<>();
+        visited.add(root);
+        stack.push(root);
+
+        while (!stack.isEmpty()) {
+            Object obj = stack.pop();
+            fp.retainedBytes += inst.getObjectSize(obj);
+            fp.objectCount++;
+
+            if (fp.objectCount >= MAX_OBJECTS) {
+                fp.truncated = true;
+                break;
+            }
+
+            Class<?> type = obj.getClass();
+            if (type.isArray()) {
+                if (type.getComponentType().isPrimitive()) {
+                    continue;
+                }
+                int length = Array.getLength(obj);
+                for (int i = 0; i < length; i++) {
+                    enqueue(Array.get(obj, i), visited, stack);
+                }
+                continue;
+            }
+
+            for (Field field : referenceFields(type)) {
+                try {
+                    enqueue(field.get(obj), visited, stack);
+                } catch (IllegalAccessException e) {
+                    // Inaccessible field: counted as shallow only
+                }
+            }
+        }
+
+        return fp;
+    }
+
+    private static void enqueue(Object value, Set<Object> visited, Deque<Object> stack) {
+        if (value == null || isShared(value)) {
+            return;
+        }
+        if (visited.add(value)) {
+            stack.push(value);
+        }
+    }
+
+    private static boolean isShared(Object value) {
+        return value instanceof Class
+            || value instanceof ClassLoader
+            || value instanceof Thread
+            || value instanceof Enum;
+    }
+
+    private static Field[] referenceFields(Class<?> type) {
+        return REFERENCE_FIELDS.computeIfAbsent(type, t -> {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c = t; c != null; c = c.getSuperclass()) {
+                for (Field f : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(f.getModifiers()) || f.getType().isPrimitive()) {
+                        continue;
+                    }
+                    try {
+                        f.setAccessible(true);
+                        fields.add(f);
+                    } catch (RuntimeException e) {
+                        // InaccessibleObjectException when the module is not open to us
+                    }
+                }
+            }
+            return fields.toArray(new Field[0]);
+        });
+    }
+}
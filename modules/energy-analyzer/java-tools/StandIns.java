@@ -0,0 +1,197 @@
+package com.greencode.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.concurrent.locks.LockSupport;
+import javax.sql.DataSource;
+
+/**
+ * Local stand-ins for I/O and JDBC parameters of benchmarked methods.
+ *
+ * - tempFile()/tempDir(): a real temp-file store, created once per run
+ * - connection()/dataSource(): an in-memory JDBC-like stub built from
+ *   dynamic proxies; every java.sql interface it returns is itself a stub.
+ *   Query/update/commit calls park for a simulated round trip
+ *   (-Dgreencode.standin.latencyMicros, default 200) so blocking behaves
+ *   like a remote database without needing one.
+ */
+public final class StandIns {
+
+    private static final long LATENCY_NANOS =
+        Long.getLong("greencode.standin.latencyMicros", 200L) * 1_000L;
+
+    private static final int RESULT_ROWS = 10;
+
+    private static final String SAMPLE_TEXT = "alpha,1\nbeta,2\ngamma,3\n";
+
+    private static volatile Path tempDir;
+    private static volatile Path tempFile;
+
+    private StandIns() {
+    }
+
+    // ---- temp-file store ----
+
+    public static synchronized Path tempDir() {
+        if (tempDir == null) {
+            try {
+                tempDir = Files.createTempDirectory("greencode-standin");
+                tempDir.toFile().deleteOnExit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return tempDir;
+    }
+
+    public static synchronized Path tempFile() {
+        if (tempFile == null) {
+            try {
+                tempFile = Files.createTempFile(tempDir(), "data", ".txt");
+                Files.write(tempFile, SAMPLE_TEXT.getBytes(StandardCharsets.UTF_8));
+                tempFile.toFile().deleteOnExit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return tempFile;
+    }
+
+    public static InputStream inputStream() {
+        return new ByteArrayInputStream(SAMPLE_TEXT.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static OutputStream outputStream() {
+        return new ByteArrayOutputStream();
+    }
+
+    public static BufferedReader reader() {
+        return new BufferedReader(new StringReader(SAMPLE_TEXT));
+    }
+
+    public static BufferedWriter writer() {
+        return new BufferedWriter(new StringWriter());
+    }
+
+    public static PrintWriter printWriter() {
+        return new PrintWriter(new StringWriter());
+    }
+
+    // ---- JDBC-like stub ----
+
+    public static Connection connection() {
+        return stub(Connection.class);
+    }
+
+    public static DataSource dataSource() {
+        return stub(DataSource.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type) {
+        InvocationHandler handler = type == ResultSet.class ? new ResultSetHandler() : StandIns::handle;
+        return (T) Proxy.newProxyInstance(StandIns.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object handle(Object proxy, java.lang.reflect.Method method, Object[] args) {
+        String name = method.getName();
+        switch (name) {
+            case "executeQuery":
+            case "executeUpdate":
+            case "executeLargeUpdate":
+            case "execute":
+            case "executeBatch":
+            case "commit":
+            case "rollback":
+                roundTrip();
+                break;
+            case "toString":
+                return "StandIn" + proxy.getClass().getInterfaces()[0].getSimpleName();
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "isValid":
+            case "getAutoCommit":
+                return true;
+            default:
+                break;
+        }
+
+        if (name.startsWith("executeUpdate") || name.equals("executeLargeUpdate")) {
+            return method.getReturnType() == long.class ? 1L : 1;
+        }
+        if (name.equals("executeBatch")) {
+            return new int[]{1};
+        }
+        return defaultValue(method.getReturnType());
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == void.class) return null;
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0.0;
+        if (type == float.class) return 0.0f;
+        if (type == short.class) return (short) 0;
+        if (type == byte.class) return (byte) 0;
+        if (type == char.class) return '\0';
+        if (type == String.class) return "value";
+        if (type.isInterface() && type.getName().startsWith("java.sql.")) return stub(type);
+        return null;
+    }
+
+    private static void roundTrip() {
+        if (LATENCY_NANOS > 0) {
+            LockSupport.parkNanos(LATENCY_NANOS);
+        }
+    }
+
+    /** ResultSet with RESULT_ROWS rows of sample values */
+    private static final class ResultSetHandler implements InvocationHandler {
+        private int row;
+
+        @Override
+        public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) {
+            switch (method.getName()) {
+                case "next":
+                    return ++row <= RESULT_ROWS;
+                case "wasNull":
+                case "isClosed":
+                    return false;
+                case "getRow":
+                    return row;
+                case "getObject":
+                    return "value" + row;
+                case "getInt":
+                case "getShort":
+                    return method.getReturnType() == short.class ? (short) row : row;
+                case "getLong":
+                    return (long) row;
+                case "getDouble":
+                    return (double) row;
+                case "getBoolean":
+                    return row % 2 == 0;
+                default:
+                    return handle(proxy, method, args);
+            }
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.greencode.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Sampling profiler for one workload run of the analyzed project.
+ *
+ * Loads the project's classes, runs a driver's main(String[]) and samples
+ * every RUNNABLE thread's stack at a fixed interval. Only frames of project
+ * classes are kept, so time spent in JDK or library code is charged to the
+ * project method that called it. Stacks are aggregated in folded form
+ * (outermost frame first), from which the energy analyzer derives each
+ * method's self and inclusive share of program time.
+ *
+ * Uses only the JDK so it can be launched directly from source:
+ *   java WorkloadProfiler.java target/classes samples.Main workload-profile.json [--interval <ms>] [-- args...]
+ *
+ * The profile is written from a shutdown hook, so a workload that ends with
+ * System.exit still produces one. Stacks are taken at safepoints, so time in
+ * a JIT-compiled counted loop can show up in its caller; longer runs and a
+ * driver that calls the hot code from several places reduce the skew.
+ */
+public class WorkloadProfiler {
+
+    private static final int DEFAULT_INTERVAL_MS = 2;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: java WorkloadProfiler.java <classpath> <mainClass> <output.json> [--interval <ms>] [-- args...]");
+            System.exit(1);
+        }
+
+        String classpath = args[0];
+        String mainClass = args[1];
+        Path output = Paths.get(args[2]);
+        int intervalMs = DEFAULT_INTERVAL_MS;
+        String[] programArgs = new String[0];
+        for (int i = 3; i < args.length; i++) {
+            if ("--interval".equals(args[i]) && i + 1 < args.length) {
+                intervalMs = Math.max(1, Integer.parseInt(args[++i]));
+            } else if ("--".equals(args[i])) {
+                programArgs = Arrays.copyOfRange(args, i + 1, args.length);
+                break;
+            }
+        }
+
+        List<URL> urls = new ArrayList<>();
+        Set<String> projectClasses = new HashSet<>();
+        for (String entry : classpath.split(File.pathSeparator)) {
+            if (entry.isEmpty()) continue;
+            Path p = Paths.get(entry);
+            urls.add(p.toUri().toURL());
+            indexClasses(p, projectClasses);
+        }
+        if (projectClasses.isEmpty()) {
+            System.err.println("❌ No classes found on: " + classpath);
+            System.exit(2);
+        }
+
+        URLClassLoader loader = new URLClassLoader(urls.toArray(new URL[0]), WorkloadProfiler.class.getClassLoader());
+        Method entryPoint = Class.forName(mainClass, true, loader).getMethod("main", String[].class);
+
+        Profile profile = new Profile(mainClass, intervalMs);
+        String[] driverArgs = programArgs;
+        // Threads the workload starts inherit this group; JVM service threads are not sampled
+        ThreadGroup group = new ThreadGroup("workload");
+        Thread workload = new Thread(group, () -> {
+            try {
+                entryPoint.invoke(null, (Object) driverArgs);
+            } catch (InvocationTargetException e) {
+                profile.failure = String.valueOf(e.getCause());
+                e.getCause().printStackTrace();
+            } catch (ReflectiveOperationException e) {
+                profile.failure = String.valueOf(e);
+            }
+        }, "workload-main");
+        workload.setContextClassLoader(loader);
+
+        AtomicBoolean written = new AtomicBoolean();
+        Runnable writeOnce = () -> {
+            if (!written.compareAndSet(false, true)) return;
+            try {
+                profile.write(output);
+                System.out.println("✅ Workload profile (" + profile.samples + " samples, "
+                    + profile.stacks.size() + " stacks) saved to: " + output);
+            } catch (IOException e) {
+                System.err.println("❌ Could not write profile: " + e.getMessage());
+            }
+        };
+        Runtime.getRuntime().addShutdownHook(new Thread(writeOnce));
+
+        long start = System.nanoTime();
+        long cpuStart = processCpuNanos();
+        workload.start();
+        while (workload.isAlive()) {
+            profile.sample(group, projectClasses);
+            Thread.sleep(intervalMs);
+        }
+        profile.wallNanos = System.nanoTime() - start;
+        long cpuEnd = processCpuNanos();
+        profile.cpuNanos = cpuStart < 0 ? -1 : cpuEnd - cpuStart;
+
+        writeOnce.run();
+        System.exit(profile.failure == null ? 0 : 3);
+    }
+
+    static final class Profile {
+        final String mainClass;
+        final int intervalMs;
+        final Map<String, Long> stacks = new HashMap<>();
+        long ticks;
+        long samples;
+        long wallNanos;
+        long cpuNanos = -1;
+        volatile String failure;
+
+        Profile(String mainClass, int intervalMs) {
+            this.mainClass = mainClass;
+            this.intervalMs = intervalMs;
+        }
+
+        /** One sample per RUNNABLE workload thread; samples without project frames are folded under "" */
+        synchronized void sample(ThreadGroup group, Set<String> projectClasses) {
+            ticks++;
+            for (Map.Entry<Thread, StackTraceElement[]> e : Thread.getAllStackTraces().entrySet()) {
+                Thread t = e.getKey();
+                if (t.getState() != Thread.State.RUNNABLE || !inGroup(t, group)) continue;
+                StackTraceElement[] trace = e.getValue();
+                StringBuilder folded = new StringBuilder();
+                for (int i = trace.length - 1; i >= 0; i--) {
+                    StackTraceElement frame = trace[i];
+                    if (!projectClasses.contains(frame.getClassName())) continue;
+                    if (folded.length() > 0) folded.append(';');
+                    folded.append(frameName(frame));
+                }
+                stacks.merge(folded.toString(), 1L, Long::sum);
+                samples++;
+            }
+        }
+
+        synchronized void write(Path output) throws IOException {
+            if (output.getParent() != null) Files.createDirectories(output.getParent());
+            try (Writer w = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+                w.write("{\n");
+                w.write("  \"kind\": \"workload-profile\",\n");
+                w.write("  \"version\": 1,\n");
+                w.write("  \"generatedAt\": " + quote(Instant.now().toString()) + ",\n");
+                w.write("  \"mainClass\": " + quote(mainClass) + ",\n");
+                w.write("  \"intervalMs\": " + intervalMs + ",\n");
+                w.write("  \"wallMs\": " + (wallNanos / 1_000_000.0) + ",\n");
+                w.write("  \"cpuMs\": " + (cpuNanos < 0 ? "null" : String.valueOf(cpuNanos / 1_000_000.0)) + ",\n");
+                w.write("  \"ticks\": " + ticks + ",\n");
+                w.write("  \"samples\": " + samples + ",\n");
+                w.write("  \"failure\": " + (failure == null ? "null" : quote(failure)) + ",\n");
+                w.write("  \"stacks\": [");
+                int i = 0;
+                for (Map.Entry<String, Long> e : stacks.entrySet()) {
+                    w.write(i++ == 0 ? "\n" : ",\n");
+                    w.write("    {\"frames\": [");
+                    if (!e.getKey().isEmpty()) {
+                        String[] frames = e.getKey().split(";");
+                        for (int j = 0; j < frames.length; j++) {
+                            if (j > 0) w.write(", ");
+                            w.write(quote(frames[j]));
+                        }
+                    }
+                    w.write("], \"count\": " + e.getValue() + "}");
+                }
+                w.write(stacks.isEmpty() ? "]\n" : "\n  ]\n");
+                w.write("}\n");
+            }
+        }
+    }
+
+    private static boolean inGroup(Thread t, ThreadGroup group) {
+        for (ThreadGroup g = t.getThreadGroup(); g != null; g = g.getParent()) {
+            if (g == group) return true;
+        }
+        return false;
+    }
+
+    /** "Class.method" with the simple class name, as in the energy reports */
+    private static String frameName(StackTraceElement frame) {
+        String className = frame.getClassName();
+        String simple = className.substring(className.lastIndexOf('.') + 1);
+        // Anonymous classes (Outer$1) are charged to the enclosing class
+        String[] parts = simple.split("\\$");
+        String name = parts[0];
+        for (String part : parts) {
+            if (!part.isEmpty() && !Character.isDigit(part.charAt(0))) name = part;
+        }
+        String method = frame.getMethodName();
+        if (method.startsWith("lambda$")) {
+            // lambda$enclosing$N is charged to the enclosing method, as BytecodeCostAnalyzer
+            // folds it; javac names constructor lambdas "new" and static-initializer ones "static"
+            String[] lambda = method.split("\\$");
+            method = lambda.length > 1 ? lambda[1] : method;
+            if ("new".equals(method)) method = "<init>";
+            else if ("static".equals(method)) method = "<clinit>";
+        }
+        if ("<init>".equals(method)) method = name;
+        return name + "." + method;
+    }
+
+    /** Binary names of the classes in a classes directory or jar */
+    private static void indexClasses(Path entry, Set<String> names) throws IOException {
+        if (Files.isDirectory(entry)) {
+            try (Stream<Path> walk = Files.walk(entry)) {
+                walk.filter(p -> p.toString().endsWith(".class")).forEach(p -> {
+                    String rel = entry.relativize(p).toString().replace(File.separatorChar, '.');
+                    names.add(rel.substring(0, rel.length() - ".class".length()));
+                });
+            }
+        } else if (entry.toString().endsWith(".jar") && Files.isRegularFile(entry)) {
+            try (JarFile jar = new JarFile(entry.toFile())) {
+                Enumeration<JarEntry> entries = jar.entries();
+                while (entries.hasMoreElements()) {
+                    String name = entries.nextElement().getName();
+                    if (name.endsWith(".class") && !name.startsWith("META-INF/")) {
+                        names.add(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+                    }
+                }
+            }
+        }
+    }
+
+    private static long processCpuNanos() {
+        java.lang.management.OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
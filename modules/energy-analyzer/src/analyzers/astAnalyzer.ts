@@ -1,5 +1,5 @@
 // src/analyzers/astAnalyzer.ts
-import fs from "fs";
+import { readArtifactSync } from "../../../../shared/binaryFormat";
 
 export type JavaASTMethod = {
   name: string;
@@ -8,12 +8,16 @@ export type JavaASTMethod = {
   conditionals?: string[]; // e.g. ["if","switch"]
   calls?: Array<{ name?: string; line?: number }>;
   objectCreations?: number;
+  invocations?: Array<{ name?: string; line?: number; loop?: number }>; // parser call sites; loop: id of the enclosing flow loop
+  allocations?: number;        // parser count of new / array creations
   modifiers?: string[];
   returnType?: string;
   // NEW FIELDS from updated parser
   loopNestingDepth?: number;  // Maximum nesting depth
   totalLoopCount?: number;     // Total count of all loops
   loopsTree?: any[];           // Detailed loop structure
+  localVariables?: string[];   // "Type name" per declaration
+  flow?: any[];                // Statement-level control flow (loops carry id + head)
   // optional richer shape
   bodyNodes?: any[];
   isRecursive?: boolean;
@@ -24,6 +28,7 @@ export type JavaASTClass = {
   name: string;
   methods: JavaASTMethod[];
   fields?: string[];
+  extends?: string;
 };
 
 export type JavaASTFile = {
@@ -149,8 +154,7 @@ export function analyzeJavaASTMethod(m: JavaASTMethod) {
   };
 }
 
-/** Helper to load an AST JSON file from disk and parse as JavaASTFile */
+/** Helper to load an AST file (JSON or .gcb) from disk as JavaASTFile */
 export function loadASTFile(path: string): JavaASTFile {
-  const txt = fs.readFileSync(path, "utf8");
-  return JSON.parse(txt) as JavaASTFile;
+  return readArtifactSync(path) as JavaASTFile;
 }
\ No newline at end of file
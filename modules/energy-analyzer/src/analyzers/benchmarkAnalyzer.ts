@@ -1,6 +1,7 @@
 // src/analyzers/benchmarkAnalyzer.ts
 import fs from "fs";
 import path from "path";
+import { bootstrapQuantiles, hashSeed } from "../history/historyStore";
 
 /**
  * Import benchmark results from external Java benchmark tools (JMH, custom runners)
@@ -27,9 +28,96 @@ export type JavaBenchmarkResult = {
   maxMs?: number;
   stdDev?: number;
   runs: number;
+  samplesMs?: number[]; // raw measurement times, used for history comparisons
+  histogram?: SampleHistogram; // compact form of the samples written by the runner
   benchmarkTool?: string; // e.g., "JMH", "custom"
+  // Receiver footprint, present when the runner was started with FootprintAgent
+  shallowBytes?: number;
+  retainedBytesBefore?: number;
+  retainedBytesAfter?: number;
+  growthBytesPerOp?: number;
+  footprintOps?: number;
+  // Bytes allocated per call, from the runner's thread allocation counter
+  allocBytesPerOp?: number;
+  // Throughput under concurrency, present for I/O-bound methods in concurrency mode
+  platformThreads?: ConcurrencyResult;
+  virtualThreads?: ConcurrencyResult;
+  preferredModel?: "virtual" | "platform";
+};
+
+export type ConcurrencyResult = {
+  model: "virtual" | "platform";
+  threads: number;
+  ops: number;
+  opsPerSec: number;
+  cpuNsPerOp: number; // -1 when process CPU time is unavailable
+  errors: number;
 };
 
+/**
+ * Measurement times in log-spaced buckets: bucket i covers
+ * [baseMs·ratio^i, baseMs·ratio^(i+1)). Only non-empty buckets are listed.
+ * With ratio 1.02 every sample is kept to within 1%, in a few dozen numbers.
+ */
+export type SampleHistogram = {
+  baseMs: number;
+  ratio: number;
+  buckets: number[];
+  counts: number[];
+};
+
+export const HISTOGRAM_RATIO = 1.02;
+
+export function histogramFromSamples(samplesMs: number[], ratio: number = HISTOGRAM_RATIO): SampleHistogram {
+  const positive = samplesMs.filter(v => v > 0).sort((a, b) => a - b);
+  const histogram: SampleHistogram = { baseMs: positive[0] ?? 0, ratio, buckets: [], counts: [] };
+  for (const v of positive) {
+    const bucket = Math.floor(Math.log(v / histogram.baseMs) / Math.log(ratio));
+    const last = histogram.buckets.length - 1;
+    if (last >= 0 && histogram.buckets[last] === bucket) histogram.counts[last]++;
+    else {
+      histogram.buckets.push(bucket);
+      histogram.counts.push(1);
+    }
+  }
+  return histogram;
+}
+
+/** Expand a histogram back into samples at each bucket's geometric midpoint */
+export function samplesFromHistogram(histogram: SampleHistogram): number[] {
+  const samples: number[] = [];
+  histogram.buckets.forEach((bucket, i) => {
+    const value = histogram.baseMs * Math.pow(histogram.ratio, bucket + 0.5);
+    for (let n = 0; n < histogram.counts[i]; n++) samples.push(value);
+  });
+  return samples;
+}
+
+/** Raw samples of a result, from samplesMs or the runner's histogram */
+export function benchmarkSamples(result: JavaBenchmarkResult): number[] | null {
+  if (Array.isArray(result.samplesMs) && result.samplesMs.length > 0) return result.samplesMs;
+  if (result.histogram && Array.isArray(result.histogram.buckets)) return samplesFromHistogram(result.histogram);
+  return null;
+}
+
+/** Retained growth per operation above which a method is flagged as leaking */
+export const MEMORY_GROWTH_BYTES_PER_OP = 4;
+
+/**
+ * Normalize a measured receiver footprint to a memory score (0-1)
+ * Logarithmic like computeBenchmarkEnergyScore: 1KB ≈ 0.3, 1MB = 1.0;
+ * growth per op is projected over 1000 calls.
+ */
+export function computeFootprintMemScore(
+  retainedBytes: number,
+  growthBytesPerOp: number = 0,
+  maxExpectedBytes: number = 1024 * 1024
+): number {
+  const projected = retainedBytes + Math.max(0, growthBytesPerOp) * 1000;
+  const score = Math.log10(projected + 1) / Math.log10(maxExpectedBytes + 1);
+  return Math.max(0, Math.min(1, score));
+}
+
 /**
  * Load benchmark results from a JSON file or directory
  */
@@ -74,6 +162,11 @@ export function loadJavaBenchmarkResults(benchmarkPath: string): JavaBenchmarkRe
     }
   }
 
+  // Histograms stand in for raw samples (history comparisons use samplesMs)
+  for (const r of results) {
+    if (r && !r.samplesMs && r.histogram) r.samplesMs = benchmarkSamples(r) ?? undefined;
+  }
+
   return results;
 }
 
@@ -108,6 +201,7 @@ export type EnhancedMethodReport = {
   ioCalls: number;
   dbCalls: number;
   recursion: boolean;
+  sourceHash?: string;
   
   // Static Scores (preserved from original analysis)
   staticCpuScore: number;
@@ -131,12 +225,183 @@ export type EnhancedMethodReport = {
   benchmarkRuns?: number;
   benchmarkTool?: string;
   runtimeEnergyScore?: number;
+  // Bootstrap 95% intervals from the raw samples, and how much the runtime
+  // score was trusted in the combined score because of them
+  medianCI?: [number, number];
+  p95CI?: [number, number];
+  runtimeEnergyInterval?: [number, number];
+  runtimeWeight?: number;
+  combinedEnergyInterval?: [number, number];
+  
+  // Measured receiver footprint (optional)
+  shallowBytes?: number;
+  retainedBytes?: number;
+  growthBytesPerOp?: number;
+  memoryGrowthDetected?: boolean;
+  allocBytesPerOp?: number;
+  
+  // Virtual vs platform thread throughput (optional)
+  concurrency?: {
+    platform: ConcurrencyResult;
+    virtual: ConcurrencyResult;
+    preferredModel: "virtual" | "platform";
+    throughputGain: number; // virtual ops/sec over platform ops/sec
+  };
   
   // Combined Score
   combinedEnergyScore: number;
   confidenceLevel: "high" | "medium" | "low";
 };
 
+/** Runtime share of the combined score for a precisely measured method */
+export const RUNTIME_WEIGHT = 0.4;
+/**
+ * Runtime-score uncertainty (one sigma) at which the runtime share is halved;
+ * around 10 ms that is a median known to about ±20%. A method whose median is
+ * pinned down keeps the full 40%, a noisy one falls back towards its static score.
+ */
+export const RUNTIME_SCORE_TOLERANCE = 0.02;
+const MIN_BOOTSTRAP_SAMPLES = 10;
+const BOOTSTRAP_ITERATIONS = 1000;
+
+/**
+ * Bootstrap intervals for median and p95, and the runtime weight they
+ * support. Without enough samples the runtime score gets the full weight,
+ * as before samples were recorded.
+ */
+export function runtimeUncertainty(benchmark: JavaBenchmarkResult): {
+  runtimeWeight: number;
+  medianCI?: [number, number];
+  p95CI?: [number, number];
+  runtimeEnergyInterval?: [number, number];
+} {
+  const samples = benchmarkSamples(benchmark);
+  if (!samples || samples.length < MIN_BOOTSTRAP_SAMPLES) return { runtimeWeight: RUNTIME_WEIGHT };
+
+  const seed = hashSeed(`${benchmark.className}.${benchmark.methodName}`.toLowerCase());
+  const [med, p95] = bootstrapQuantiles(samples, [0.5, 0.95], seed, BOOTSTRAP_ITERATIONS);
+  const low = computeBenchmarkEnergyScore(med.ciLow);
+  const high = computeBenchmarkEnergyScore(med.ciHigh);
+  const sigma = (high - low) / (2 * 1.96);
+  const tolerance2 = RUNTIME_SCORE_TOLERANCE * RUNTIME_SCORE_TOLERANCE;
+
+  return {
+    runtimeWeight: RUNTIME_WEIGHT * tolerance2 / (tolerance2 + sigma * sigma),
+    medianCI: [med.ciLow, med.ciHigh],
+    p95CI: [p95.ciLow, p95.ciHigh],
+    runtimeEnergyInterval: [low, high]
+  };
+}
+
+/**
+ * One static report, with its benchmark merged in when there is one
+ */
+export function enhanceReport(staticReport: any, benchmark?: JavaBenchmarkResult): EnhancedMethodReport {
+  const enhanced: EnhancedMethodReport = {
+    className: staticReport.className,
+    methodName: staticReport.methodName,
+
+    // Static analysis data
+    loopCount: staticReport.loopCount || 0,
+    loops: staticReport.loops || [],
+    nestingDepth: staticReport.nestingDepth || 1,
+    cyclomatic: staticReport.cyclomatic || 1,
+    conditionalsCount: staticReport.conditionalsCount || 0,
+    methodCalls: staticReport.methodCalls || 0,
+    objectCreations: staticReport.objectCreations || 0,
+    ioCalls: staticReport.ioCalls || 0,
+    dbCalls: staticReport.dbCalls || 0,
+    recursion: staticReport.recursion || false,
+    sourceHash: staticReport.sourceHash,
+
+    // Preserve static scores
+    staticCpuScore: staticReport.cpuScore || 0,
+    staticMemScore: staticReport.memScore || 0,
+    staticIoScore: staticReport.ioScore || 0,
+    staticEnergyScore: staticReport.energyScore || 0,
+
+    // Default combined score to static only
+    combinedEnergyScore: staticReport.energyScore || 0,
+    confidenceLevel: "low",
+    
+    // Backward compatibility
+    cpuScore: staticReport.cpuScore || 0,
+    memScore: staticReport.memScore || 0,
+    ioScore: staticReport.ioScore || 0,
+    energyScore: staticReport.energyScore || 0
+  };
+
+  // Merge benchmark data if available
+  if (benchmark) {
+    enhanced.medianMs = benchmark.medianMs;
+    enhanced.meanMs = benchmark.meanMs;
+    enhanced.p95Ms = benchmark.p95Ms;
+    enhanced.minMs = benchmark.minMs;
+    enhanced.maxMs = benchmark.maxMs;
+    enhanced.stdDev = benchmark.stdDev;
+    enhanced.benchmarkRuns = benchmark.runs;
+    enhanced.benchmarkTool = benchmark.benchmarkTool || "Unknown";
+    
+    // Compute runtime energy score from benchmark timing
+    enhanced.runtimeEnergyScore = computeBenchmarkEnergyScore(benchmark.medianMs);
+    
+    // Combined score: static and runtime, the runtime share (at most 40%)
+    // shrinking as the bootstrap interval of the median widens
+    const uncertainty = runtimeUncertainty(benchmark);
+    const w = uncertainty.runtimeWeight;
+    enhanced.runtimeWeight = w;
+    enhanced.combinedEnergyScore = 
+      (1 - w) * enhanced.staticEnergyScore + 
+      w * enhanced.runtimeEnergyScore;
+    if (uncertainty.runtimeEnergyInterval) {
+      const [low, high] = uncertainty.runtimeEnergyInterval;
+      enhanced.medianCI = uncertainty.medianCI;
+      enhanced.p95CI = uncertainty.p95CI;
+      enhanced.runtimeEnergyInterval = [low, high];
+      enhanced.combinedEnergyInterval = [
+        (1 - w) * enhanced.staticEnergyScore + w * low,
+        (1 - w) * enhanced.staticEnergyScore + w * high
+      ];
+    }
+    
+    // Update backward compatibility scores with combined values
+    enhanced.energyScore = enhanced.combinedEnergyScore;
+    
+    enhanced.confidenceLevel = "high";
+
+    if (typeof benchmark.retainedBytesBefore === "number") {
+      const growth = benchmark.growthBytesPerOp || 0;
+      enhanced.shallowBytes = benchmark.shallowBytes;
+      enhanced.retainedBytes = benchmark.retainedBytesAfter ?? benchmark.retainedBytesBefore;
+      enhanced.growthBytesPerOp = growth;
+      enhanced.memoryGrowthDetected = growth >= MEMORY_GROWTH_BYTES_PER_OP;
+      enhanced.memScore = Math.max(
+        enhanced.staticMemScore,
+        computeFootprintMemScore(benchmark.retainedBytesBefore, growth)
+      );
+
+      if (enhanced.memoryGrowthDetected) {
+        console.log(`   🧠 ${enhanced.className}.${enhanced.methodName} grows receiver by ${growth.toFixed(1)} B/op`);
+      }
+    }
+
+    if (typeof benchmark.allocBytesPerOp === "number") {
+      enhanced.allocBytesPerOp = benchmark.allocBytesPerOp;
+    }
+
+    if (benchmark.platformThreads && benchmark.virtualThreads && benchmark.preferredModel) {
+      enhanced.concurrency = {
+        platform: benchmark.platformThreads,
+        virtual: benchmark.virtualThreads,
+        preferredModel: benchmark.preferredModel,
+        throughputGain: benchmark.virtualThreads.opsPerSec / Math.max(benchmark.platformThreads.opsPerSec, 1e-9)
+      };
+    }
+  }
+
+  return enhanced;
+}
+
 /**
  * Merge static analysis reports with Java benchmark results
  */
@@ -165,64 +430,10 @@ export function mergeStaticWithBenchmarks(
     const key = `${staticReport.className}.${staticReport.methodName}`.toLowerCase();
     const benchmark = benchmarkMap.get(key);
 
-    const enhanced: EnhancedMethodReport = {
-      className: staticReport.className,
-      methodName: staticReport.methodName,
-
-      // Static analysis data
-      loopCount: staticReport.loopCount || 0,
-      loops: staticReport.loops || [],
-      nestingDepth: staticReport.nestingDepth || 1,
-      cyclomatic: staticReport.cyclomatic || 1,
-      conditionalsCount: staticReport.conditionalsCount || 0,
-      methodCalls: staticReport.methodCalls || 0,
-      objectCreations: staticReport.objectCreations || 0,
-      ioCalls: staticReport.ioCalls || 0,
-      dbCalls: staticReport.dbCalls || 0,
-      recursion: staticReport.recursion || false,
-
-      // Preserve static scores
-      staticCpuScore: staticReport.cpuScore || 0,
-      staticMemScore: staticReport.memScore || 0,
-      staticIoScore: staticReport.ioScore || 0,
-      staticEnergyScore: staticReport.energyScore || 0,
-
-      // Default combined score to static only
-      combinedEnergyScore: staticReport.energyScore || 0,
-      confidenceLevel: "low",
-      
-      // Backward compatibility
-      cpuScore: staticReport.cpuScore || 0,
-      memScore: staticReport.memScore || 0,
-      ioScore: staticReport.ioScore || 0,
-      energyScore: staticReport.energyScore || 0
-    };
+    const enhanced = enhanceReport(staticReport, benchmark);
 
-    // Merge benchmark data if available
     if (benchmark) {
-      enhanced.medianMs = benchmark.medianMs;
-      enhanced.meanMs = benchmark.meanMs;
-      enhanced.p95Ms = benchmark.p95Ms;
-      enhanced.minMs = benchmark.minMs;
-      enhanced.maxMs = benchmark.maxMs;
-      enhanced.stdDev = benchmark.stdDev;
-      enhanced.benchmarkRuns = benchmark.runs;
-      enhanced.benchmarkTool = benchmark.benchmarkTool || "Unknown";
-      
-      // Compute runtime energy score from benchmark timing
-      enhanced.runtimeEnergyScore = computeBenchmarkEnergyScore(benchmark.medianMs);
-      
-      // Combined score: weighted average of static (60%) and runtime (40%)
-      enhanced.combinedEnergyScore = 
-        0.6 * enhanced.staticEnergyScore + 
-        0.4 * enhanced.runtimeEnergyScore;
-      
-      // Update backward compatibility scores with combined values
-      enhanced.energyScore = enhanced.combinedEnergyScore;
-      
-      enhanced.confidenceLevel = "high";
       mergedCount++;
-      
       console.log(`   ✅ ${enhanced.className}.${enhanced.methodName}`);
       console.log(`      Runtime: ${benchmark.medianMs.toFixed(2)}ms | Static: ${enhanced.staticEnergyScore.toFixed(3)} | Combined: ${enhanced.combinedEnergyScore.toFixed(3)}`);
     } else {
@@ -266,6 +477,19 @@ export function saveEnhancedReport(
       maxMedian: Math.max(...highConfidence.map(r => r.medianMs || 0)),
       minMedian: Math.min(...highConfidence.map(r => r.medianMs || 0)),
     } : null,
+    memoryGrowth: reports
+      .filter(r => r.memoryGrowthDetected)
+      .map(r => ({
+        method: `${r.className}.${r.methodName}`,
+        growthBytesPerOp: r.growthBytesPerOp,
+        retainedBytes: r.retainedBytes
+      })),
+    concurrency: {
+      compared: reports.filter(r => r.concurrency).length,
+      preferVirtual: reports
+        .filter(r => r.concurrency?.preferredModel === "virtual")
+        .map(r => `${r.className}.${r.methodName}`)
+    },
     distribution: {
       high: reports.filter(r => r.combinedEnergyScore > 0.5).length,
       medium: reports.filter(r => r.combinedEnergyScore >= 0.3 && r.combinedEnergyScore <= 0.5).length,
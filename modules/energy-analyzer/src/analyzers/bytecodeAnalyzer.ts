@@ -0,0 +1,99 @@
+// src/analyzers/bytecodeAnalyzer.ts
+import fs from "fs";
+import path from "path";
+import { spawnSync } from "child_process";
+import { JAVA_TOOLS_DIR } from "../config";
+
+/**
+ * Per-method counters produced by java-tools/BytecodeCostAnalyzer.java.
+ * Keyed by className/methodName the same way as MethodReport.
+ */
+export type BytecodeMethodMetrics = {
+  className: string;
+  methodName: string;
+  descriptor?: string;
+  bytecodeSize: number;
+  allocations: number;
+  arrayAllocations: number;
+  invokes: number;
+  invokesByOwner: Record<string, number>;
+  ioCalls: number;
+  dbCalls: number;
+  boxingCalls: number;
+  unboxingCalls: number;
+  monitorOps: number;
+  synchronizedMethod: boolean;
+  loopBackEdges: number;
+  invokesInLoops: number;
+  recursive: boolean;
+};
+
+const ANALYZER_SOURCE = path.join(JAVA_TOOLS_DIR, "BytecodeCostAnalyzer.java");
+
+/**
+ * Run the bytecode analyzer over a compiled classes directory (e.g. target/classes).
+ * Uses the JDK single-file source launcher, so no separate build step is needed.
+ * Returns the path of the written JSON file.
+ */
+export function runBytecodeAnalysis(classesDir: string, outputPath: string): string {
+  if (!fs.existsSync(classesDir)) {
+    throw new Error(`Classes directory not found: ${classesDir}`);
+  }
+  if (!fs.existsSync(ANALYZER_SOURCE)) {
+    throw new Error(`Bytecode analyzer source not found: ${ANALYZER_SOURCE}`);
+  }
+
+  const proc = spawnSync("java", [ANALYZER_SOURCE, classesDir, outputPath], {
+    stdio: "pipe",
+    encoding: "utf8"
+  });
+
+  if (proc.error) {
+    throw new Error(`Failed to launch java: ${proc.error.message}`);
+  }
+  if (proc.status !== 0 || !fs.existsSync(outputPath)) {
+    throw new Error(`Bytecode analysis failed (exit ${proc.status}): ${(proc.stderr || "").trim()}`);
+  }
+
+  return outputPath;
+}
+
+/**
+ * Load bytecode metrics into a lookup keyed by normalized `Class.method`.
+ * Overloads share a key in the AST/CFG reports, so the largest overload wins.
+ */
+export function loadBytecodeMetrics(metricsPath: string): Map<string, BytecodeMethodMetrics> {
+  const data = JSON.parse(fs.readFileSync(metricsPath, "utf8"));
+  const methods: BytecodeMethodMetrics[] = Array.isArray(data) ? data : (data.methods || []);
+  const map = new Map<string, BytecodeMethodMetrics>();
+
+  for (const m of methods) {
+    if (!m || !m.className || !m.methodName) continue;
+    const key = `${m.className}.${m.methodName}`.toLowerCase().trim();
+    const existing = map.get(key);
+    if (!existing || m.bytecodeSize > existing.bytecodeSize) {
+      map.set(key, m);
+    }
+  }
+
+  return map;
+}
+
+/**
+ * Resolve the --bytecode argument: a classes directory is analyzed first,
+ * a JSON file is loaded as-is.
+ */
+export function resolveBytecodeMetrics(
+  bytecodePath: string,
+  outputDir: string
+): Map<string, BytecodeMethodMetrics> {
+  const stat = fs.statSync(bytecodePath);
+  let metricsPath = bytecodePath;
+
+  if (stat.isDirectory()) {
+    fs.mkdirSync(outputDir, { recursive: true });
+    metricsPath = runBytecodeAnalysis(bytecodePath, path.join(outputDir, "bytecode-metrics.json"));
+  }
+
+  return loadBytecodeMetrics(metricsPath);
+}
@@ -1,10 +1,23 @@
 // src/analyzers/cfgAnalyzer.ts
-import fs from "fs";
+import { readArtifact, readArtifactSync } from "../../../../shared/binaryFormat";
 
 export type CFG = {
   methodName: string;
-  nodes: Array<{ id: string; label?: string; type?: string; next?: string[]; [k: string]: any }>;
-  edges: Array<[string, string]>;
+  // Basic blocks; per-block fields below are written by the static analyzer's CFG builder
+  nodes: Array<{
+    id: string | number;
+    label?: string;
+    type?: string;
+    next?: Array<string | number>;
+    calls?: number;
+    allocs?: number;
+    loopDepth?: number;
+    [k: string]: any;
+  }>;
+  edges: Array<[string | number, string | number, string?]>;
+  // Loop-nesting forest; absent in CFGs written before loop analysis existed
+  loops?: Array<{ header: number; parent: number; depth: number; blocks: number[] }>;
+  maxLoopDepth?: number;
 };
 
 /** Compute cyclomatic complexity M = E - N + 2P (P=1 assumed) */
@@ -17,9 +30,10 @@ export function computeCyclomatic(cfg: CFG | null | undefined): number {
   return Math.max(1, M);
 }
 
-/** Heuristic nesting depth: count loop-like node labels. */
+/** Loop nesting depth from the CFG's loop forest, else a heuristic count of loop-like node labels. */
 export function estimateNestingDepth(cfg: CFG | null | undefined): number {
   if (!cfg || !Array.isArray(cfg.nodes)) return 1;
+  if (typeof cfg.maxLoopDepth === "number") return Math.max(1, cfg.maxLoopDepth);
   let depth = 1;
   for (const n of cfg.nodes) {
     const lab = ((n.label || n.type || "") as string).toLowerCase();
@@ -28,38 +42,28 @@ export function estimateNestingDepth(cfg: CFG | null | undefined): number {
   return depth;
 }
 
-/** Detect cycles in CFG (simple DFS). If cycle present, may indicate loops/recursion in control-flow. */
-export function hasCycle(cfg: CFG | null | undefined): boolean {
-  if (!cfg || !Array.isArray(cfg.nodes) || !Array.isArray(cfg.edges)) return false;
-  const adj: Record<string, string[]> = {};
-  for (const n of cfg.nodes) adj[n.id] = [];
-  for (const e of cfg.edges || []) {
-    const [from, to] = e;
-    if (!adj[from]) adj[from] = [];
-    adj[from].push(to);
+/**
+ * Calls and allocations inside loops, each weighted by the loop depth of its
+ * block: a call in a doubly nested loop counts twice. Zero for CFGs without
+ * per-block loop depth.
+ */
+export function loopWeightedCounts(cfg: CFG | null | undefined): { calls: number; allocations: number } {
+  let calls = 0;
+  let allocations = 0;
+  for (const n of cfg?.nodes || []) {
+    const depth = n.loopDepth || 0;
+    calls += (n.calls || 0) * depth;
+    allocations += (n.allocs || 0) * depth;
   }
-  const visited: Record<string, boolean> = {};
-  const inStack: Record<string, boolean> = {};
-  let found = false;
-  function dfs(u: string) {
-    if (found) return;
-    visited[u] = true;
-    inStack[u] = true;
-    for (const v of adj[u] || []) {
-      if (!visited[v]) dfs(v);
-      else if (inStack[v]) { found = true; return; }
-    }
-    inStack[u] = false;
-  }
-  for (const nid of Object.keys(adj)) {
-    if (!visited[nid]) dfs(nid);
-    if (found) break;
-  }
-  return found;
+  return { calls, allocations };
 }
 
-/** Helper to load a CFG JSON file from disk */
+/** Helper to load a CFG file (JSON or .gcb) from disk */
 export function loadCFGFile(path: string): CFG {
-  const txt = fs.readFileSync(path, "utf8");
-  return JSON.parse(txt) as CFG;
+  return readArtifactSync(path) as CFG;
+}
+
+/** Async variant, for loading many CFG files concurrently */
+export async function loadCFGFileAsync(path: string): Promise<CFG> {
+  return (await readArtifact(path)) as CFG;
 }
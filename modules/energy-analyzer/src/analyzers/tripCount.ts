@@ -0,0 +1,293 @@
+// src/analyzers/tripCount.ts
+import { CFG } from "./cfgAnalyzer";
+import { DEFAULT_CONFIG } from "../config";
+
+/** Loop header source as written by the static analyzer, e.g. { init: "int i=0", cond: "i<n", update: "i++" } */
+export type LoopHead = { init?: string; cond?: string; update?: string; iterable?: string };
+
+/**
+ * constant: fixed trip count (`value`); bounded: grows with a parameter or
+ * field (`bound`); data: walks data produced inside the method (locals,
+ * iterators, query results); unknown: no recognisable shape, e.g. `while (running)`.
+ */
+export type TripKind = "constant" | "bounded" | "data" | "unknown";
+
+export type TripCount = {
+  kind: TripKind;
+  value?: number;
+  bound?: string;
+  /** Counter multiplied/divided each step (i *= 2): log of the bound */
+  logarithmic?: boolean;
+};
+
+export type LoopCostContext = {
+  params: string[];
+  fields: string[];
+  /** Integer constants visible to the method, e.g. `static final int SIZE = 8` */
+  constants: Record<string, number>;
+};
+
+export type LoopTrip = TripCount & {
+  header: number;
+  parent: number;
+  /** Estimated body executions, including the trips of enclosing loops */
+  executions: number;
+};
+
+export type LoopCost = {
+  loops: LoopTrip[];
+  /** Body executions summed over all loops */
+  iterations: number;
+  /** Non-constant loops on the deepest nesting chain: the n in O(n^k) */
+  degree: number;
+  /** Replaces loopCount in scoring; a single loop over input-sized data weighs 1 */
+  weight: number;
+};
+
+const COMPARISON = /^(.+?)(<=|>=|!=|<|>)(.+)$/;
+const INT_LITERAL = /^-?\d+$/;
+const KEYWORDS = new Set(["new", "null", "true", "false", "this", "super", "instanceof"]);
+const DATA_CALLS = /\b(hasNext|next|hasMoreElements|isEmpty|poll|pop|read\w*|readLine)\s*\(/;
+
+/** Parameter and field names plus integer constants of the method's class */
+export function loopCostContext(params: Array<{ name?: string }> = [], fieldDecls: string[] = []): LoopCostContext {
+  const fields: string[] = [];
+  const constants: Record<string, number> = {};
+  for (const decl of fieldDecls) {
+    let text = decl.replace(/;\s*$/, "");
+    while (/<[^<>]*>/.test(text)) text = text.replace(/<[^<>]*>/g, "");
+    // "private static final int SIZE = 8, HALF = 4"
+    for (const part of text.split(",")) {
+      const [lhs, ...rhs] = part.split("=");
+      const name = /([A-Za-z_]\w*)\s*(?:\[\s*\])*\s*$/.exec(lhs)?.[1];
+      if (!name) continue;
+      fields.push(name);
+      const init = rhs.join("=").trim();
+      if (/\bfinal\b/.test(decl) && INT_LITERAL.test(init)) constants[name] = Number(init);
+    }
+  }
+  return { params: params.map(p => p.name || "").filter(Boolean), fields, constants };
+}
+
+/** Classifies one loop header */
+export function classifyTripCount(head: LoopHead | undefined, ctx: LoopCostContext): TripCount {
+  if (!head) return { kind: "unknown" };
+  if (head.iterable !== undefined) return classifyIterable(head.iterable, ctx);
+  if (head.init !== undefined || head.update !== undefined) return classifyCounted(head, ctx);
+  return classifyCondition(head.cond, ctx);
+}
+
+/**
+ * Trip counts for every natural loop of the CFG, multiplied down the
+ * loop-nesting forest. Null for CFGs without loop analysis.
+ */
+export function analyzeLoopCost(cfg: CFG | null | undefined, ctx: LoopCostContext): LoopCost | null {
+  if (!cfg || !Array.isArray(cfg.loops)) return null;
+  const n = DEFAULT_CONFIG.loopInputSize;
+  const loops: LoopTrip[] = [];
+  const degrees: number[] = [];
+  let iterations = 0;
+  let weight = 0;
+
+  // cfg.loops lists outer loops before the loops they contain
+  cfg.loops.forEach((loop, i) => {
+    const head = cfg.nodes[loop.header]?.head as LoopHead | undefined;
+    const trip = classifyTripCount(head, ctx);
+    const trips = tripsOf(trip, n);
+    const outer = loop.parent >= 0 && loop.parent < i ? loops[loop.parent].executions : 1;
+    const executions = outer * trips;
+
+    loops.push({ ...trip, header: loop.header, parent: loop.parent, executions });
+    degrees.push((loop.parent >= 0 ? degrees[loop.parent] : 0) + (trip.kind === "constant" || trip.logarithmic ? 0 : 1));
+    iterations += executions;
+    weight += Math.log10(1 + executions) / Math.log10(1 + n);
+  });
+
+  return { loops, iterations, degree: Math.max(0, ...degrees), weight };
+}
+
+/**
+ * Executions of each loop of a method's flow tree (keyed by loop id),
+ * multiplied through the enclosing loops. Calls carry the id of their
+ * innermost loop, so this is the per-invocation count of a call site.
+ */
+export function flowLoopExecutions(flow: any[] | undefined, ctx: LoopCostContext): Map<number, number> {
+  const n = DEFAULT_CONFIG.loopInputSize;
+  const executions = new Map<number, number>();
+  const walk = (list: any[] | undefined, outer: number) => {
+    for (const f of list || []) {
+      let inner = outer;
+      if (typeof f.id === "number") {
+        inner = outer * tripsOf(classifyTripCount(f.head, ctx), n);
+        executions.set(f.id, inner);
+      }
+      walk(f.body, inner);
+      walk(f.then, outer);
+      walk(f.else, outer);
+      walk(f.finally, outer);
+      for (const part of [...(f.cases || []), ...(f.catches || [])]) walk(part, outer);
+    }
+  };
+  walk(flow, 1);
+  return executions;
+}
+
+function tripsOf(trip: TripCount, n: number): number {
+  return trip.kind === "constant" ? trip.value ?? 0 : trip.logarithmic ? Math.log2(n) : n;
+}
+
+/** "O(1)", "O(n)", "O(n^2)", ... */
+export function complexityLabel(degree: number): string {
+  return degree === 0 ? "O(1)" : degree === 1 ? "O(n)" : `O(n^${degree})`;
+}
+
+/* ---------------- header shapes ---------------- */
+
+/** for (init; cond; update) */
+function classifyCounted(head: LoopHead, ctx: LoopCostContext): TripCount {
+  const init = /(\w+)=([^,]+)/.exec(head.init ?? "");
+  const cond = counterClause(head.cond, init?.[1]);
+  const variable = cond?.variable ?? init?.[1];
+  if (!cond || !variable) return classifyCondition(head.cond, ctx);
+
+  const step = counterStep(head.update ?? "", variable);
+  if (!step) return { kind: boundKind([cond.bound], ctx), bound: cond.bound };
+
+  const start = init && init[1] === variable ? init[2] : undefined;
+  const from = start !== undefined ? evaluate(start, ctx) : null;
+  const to = evaluate(cond.bound, ctx);
+  if (from !== null && to !== null) {
+    const value = constantTrips(from, to, cond.op, step);
+    if (value !== null) return { kind: "constant", value };
+    return { kind: "unknown" };
+  }
+
+  // A constant side only fixes the count when the other side is constant too
+  const exprs = [from === null ? start : undefined, to === null ? cond.bound : undefined].filter(
+    (e): e is string => e !== undefined
+  );
+  const kind = boundKind(exprs, ctx);
+  const trip: TripCount = { kind, bound: exprs.join(", ") };
+  if (step.geometric) trip.logarithmic = true;
+  return trip;
+}
+
+/** for (T x : iterable) */
+function classifyIterable(iterable: string, ctx: LoopCostContext): TripCount {
+  const literal = /^(?:List|Set|Stream)\.of\((.*)\)$|^Arrays\.asList\((.*)\)$|^new \w+(?:\[\])+\{(.*)\}$/.exec(iterable);
+  const args = literal ? literal[1] ?? literal[2] ?? literal[3] : undefined;
+  if (args !== undefined) return { kind: "constant", value: args.trim() ? splitTopLevel(args).length : 0 };
+  return { kind: boundKind([iterable], ctx), bound: iterable };
+}
+
+/** while (cond) / do ... while (cond): the counter update is in the body, so only the data source is known */
+function classifyCondition(cond: string | undefined, ctx: LoopCostContext): TripCount {
+  if (!cond || cond === "true") return { kind: "unknown" };
+  if (DATA_CALLS.test(cond)) return { kind: "data", bound: cond };
+  const clause = counterClause(cond);
+  if (clause && boundKind([clause.bound], ctx) === "bounded") return { kind: "bounded", bound: clause.bound };
+  return { kind: "unknown" };
+}
+
+/**
+ * `i<n` / `n>i` (first such clause of an && chain), normalised to
+ * variable-op-bound; `prefer` is the counter declared in the for-init.
+ */
+function counterClause(cond: string | undefined, prefer?: string): { variable: string; op: string; bound: string } | null {
+  if (!cond || cond.includes("||")) return null;
+  for (const clause of cond.split("&&")) {
+    const m = COMPARISON.exec(clause.replace(/^\(|\)$/g, ""));
+    if (!m) continue;
+    const [, left, op, right] = m;
+    if (prefer && right === prefer) return { variable: right, op: flip(op), bound: left };
+    if (/^\w+$/.test(left) && !INT_LITERAL.test(left)) return { variable: left, op, bound: right };
+    if (/^\w+$/.test(right) && !INT_LITERAL.test(right)) return { variable: right, op: flip(op), bound: left };
+  }
+  return null;
+}
+
+function flip(op: string): string {
+  return ({ "<": ">", ">": "<", "<=": ">=", ">=": "<=" } as Record<string, string>)[op] ?? op;
+}
+
+/** Additive step (i++, i-=2) or multiplicative step (i*=2, i/=2, i>>=1) of the counter */
+function counterStep(update: string, v: string): { delta: number; geometric?: number } | null {
+  const u = update.split(",").find(part => new RegExp(`\\b${v}\\b`).test(part)) ?? "";
+  if (u === `${v}++` || u === `++${v}`) return { delta: 1 };
+  if (u === `${v}--` || u === `--${v}`) return { delta: -1 };
+  let m = new RegExp(`^${v}(\\+|-)=(\\d+)$`).exec(u) ?? new RegExp(`^${v}=${v}(\\+|-)(\\d+)$`).exec(u);
+  if (m) return { delta: (m[1] === "-" ? -1 : 1) * Number(m[2]) };
+  m = new RegExp(`^${v}(\\*|/)=(\\d+)$`).exec(u) ?? new RegExp(`^${v}=${v}(\\*|/)(\\d+)$`).exec(u);
+  if (m && Number(m[2]) > 1) return { delta: 0, geometric: m[1] === "*" ? Number(m[2]) : 1 / Number(m[2]) };
+  m = new RegExp(`^${v}(<<|>>>?)=(\\d+)$`).exec(u);
+  if (m && Number(m[2]) > 0) return { delta: 0, geometric: m[1] === "<<" ? 2 ** Number(m[2]) : 2 ** -Number(m[2]) };
+  return null;
+}
+
+/** Iterations of for (i = from; i op to; step), or null if it may not terminate */
+function constantTrips(from: number, to: number, op: string, step: { delta: number; geometric?: number }): number | null {
+  const holds = (i: number) =>
+    op === "<" ? i < to : op === "<=" ? i <= to : op === ">" ? i > to : op === ">=" ? i >= to : i !== to;
+  if (step.geometric) {
+    let count = 0;
+    for (let i = from; holds(i); i = Math.trunc(i * step.geometric)) {
+      if (++count > 64 || i === 0) return null;
+    }
+    return count;
+  }
+  const d = step.delta;
+  if (!holds(from)) return 0;
+  if (op === "!=") return (to - from) % d === 0 && (to - from) / d > 0 ? (to - from) / d : null;
+  if ((d > 0 && (op === ">" || op === ">=")) || (d < 0 && (op === "<" || op === "<="))) return null;
+  const span = Math.abs(to - from) + (op === "<=" || op === ">=" ? 1 : 0);
+  return Math.ceil(span / Math.abs(d));
+}
+
+/** Integer value of a literal, a known constant, or constant ± literal */
+function evaluate(expr: string, ctx: LoopCostContext): number | null {
+  const e = expr.trim();
+  if (INT_LITERAL.test(e)) return Number(e);
+  const name = /^(?:this\.|[A-Z]\w*\.)?(\w+)$/.exec(e)?.[1];
+  if (name && name in ctx.constants) return ctx.constants[name];
+  const m = /^(.+?)([+-])(\d+)$/.exec(e);
+  if (m) {
+    const base = evaluate(m[1], ctx);
+    if (base !== null) return m[2] === "+" ? base + Number(m[3]) : base - Number(m[3]);
+  }
+  return null;
+}
+
+/** bounded when every root identifier is a parameter or field, data when one is a local */
+function boundKind(exprs: string[], ctx: LoopCostContext): TripKind {
+  let kind: TripKind = "unknown";
+  for (const expr of exprs) {
+    // Roots of dotted chains, ignoring member names after a dot
+    for (const m of expr.matchAll(/(?:^|[^.\w])(this\.)?([A-Za-z_]\w*)/g)) {
+      const root = m[2];
+      if (m[1] || ctx.params.includes(root) || ctx.fields.includes(root)) {
+        if (kind === "unknown") kind = "bounded";
+      } else if (!KEYWORDS.has(root) && !/^[A-Z]/.test(root)) {
+        return "data";
+      }
+    }
+  }
+  return kind;
+}
+
+function splitTopLevel(args: string): string[] {
+  const parts: string[] = [];
+  let depth = 0;
+  let current = "";
+  for (const ch of args) {
+    if (ch === "(" || ch === "{" || ch === "[") depth++;
+    if (ch === ")" || ch === "}" || ch === "]") depth--;
+    if (ch === "," && depth === 0) {
+      parts.push(current);
+      current = "";
+    } else {
+      current += ch;
+    }
+  }
+  parts.push(current);
+  return parts;
+}
@@ -0,0 +1,202 @@
+// src/analyzers/workloadProfile.ts
+import fs from "fs";
+import path from "path";
+import { spawnSync } from "child_process";
+import { JAVA_TOOLS_DIR } from "../config";
+import type { MethodReport } from "../core/orchestrator";
+
+/**
+ * Folded stack samples from one run of a workload driver, as written by
+ * java-tools/WorkloadProfiler.java. Frames are "Class.method", outermost
+ * first, and only include project classes; a sample spent entirely outside
+ * project code has no frames.
+ */
+export type WorkloadProfile = {
+  kind: "workload-profile";
+  version: number;
+  mainClass: string;
+  intervalMs: number;
+  wallMs: number;
+  cpuMs: number | null;
+  samples: number;
+  failure?: string | null;
+  stacks: Array<{ frames: string[]; count: number }>;
+};
+
+export type OptimizationPriority = {
+  rank: number;
+  method: string;
+  criticality: number;
+  maxSavingPct: number;
+  timeShare: number;
+  selfTimeShare: number;
+  energyShare: number;
+  amdahlSpeedup: number;
+  selfEnergyScore: number;
+  inclusiveEnergyScore: number;
+};
+
+export type WorkloadSummary = {
+  mainClass: string;
+  samples: number;
+  wallMs: number;
+  cpuMs: number | null;
+  /** Share of samples whose innermost project frame has a report */
+  coverage: number;
+  profiledMethods: number;
+  priorities: OptimizationPriority[];
+};
+
+const PROFILER_SOURCE = path.join(JAVA_TOOLS_DIR, "WorkloadProfiler.java");
+const PROFILE_FORMAT_VERSION = 1;
+/** Power assumed for a frame whose method has no (or a zero) static score */
+const MIN_FRAME_POWER = 0.05;
+const PRIORITY_LIST_SIZE = 20;
+
+/**
+ * Run `mainClass` from `classpath` under the sampling profiler and return the
+ * profile path. A workload that throws or calls System.exit still leaves a
+ * profile behind (with `failure` set when it threw).
+ */
+export function runWorkloadProfile(
+  classpath: string,
+  mainClass: string,
+  outputPath: string,
+  options: { args?: string[]; intervalMs?: number } = {}
+): string {
+  if (!fs.existsSync(PROFILER_SOURCE)) {
+    throw new Error(`Workload profiler source not found: ${PROFILER_SOURCE}`);
+  }
+
+  const args = [PROFILER_SOURCE, classpath, mainClass, outputPath];
+  if (options.intervalMs) args.push("--interval", String(options.intervalMs));
+  if (options.args && options.args.length > 0) args.push("--", ...options.args);
+
+  fs.rmSync(outputPath, { force: true });
+  const proc = spawnSync("java", args, { stdio: "pipe", encoding: "utf8", maxBuffer: 64 * 1024 * 1024 });
+
+  if (proc.error) {
+    throw new Error(`Failed to launch java: ${proc.error.message}`);
+  }
+  if (!fs.existsSync(outputPath)) {
+    throw new Error(`Workload profiling failed (exit ${proc.status}): ${(proc.stderr || "").trim()}`);
+  }
+  return outputPath;
+}
+
+export function loadWorkloadProfile(profilePath: string): WorkloadProfile {
+  const data = JSON.parse(fs.readFileSync(profilePath, "utf8"));
+  if (data?.kind !== "workload-profile" || !Array.isArray(data.stacks)) {
+    throw new Error(`Not a workload profile: ${profilePath}`);
+  }
+  if (data.version > PROFILE_FORMAT_VERSION) {
+    throw new Error(`Unsupported workload profile version ${data.version} (expected ${PROFILE_FORMAT_VERSION})`);
+  }
+  return data as WorkloadProfile;
+}
+
+function round(v: number, digits = 4): number {
+  return Number(v.toFixed(digits));
+}
+
+/**
+ * Attribute the profiled run to the reports and rank them by criticality.
+ *
+ * Every sample is charged to its innermost project frame (self) and to each
+ * distinct method on its stack (inclusive). Energy weights a sample by the
+ * static energy score of the method executing it, so a tight numeric loop
+ * and a blocked-on-allocation loop taking the same time are not treated as
+ * equal. For a method:
+ *
+ *   timeShare / energyShare   inclusive share of the whole run
+ *   maxSavingPct              energyShare as a percentage: the most the run
+ *                             can save by making the method free (Amdahl)
+ *   amdahlSpeedup             1 / (1 - selfTimeShare), the whole-run speedup
+ *                             bound from optimizing the method's own code
+ *   criticality               maxSavingPct x the part of the method's cost that
+ *                             is its own code, averaged over the measured
+ *                             (self/inclusive energy) and static
+ *                             (selfEnergyScore/inclusiveEnergyScore) views
+ *
+ * Methods that never appear in the profile get zero shares and are not ranked.
+ */
+export function applyWorkloadProfile(reports: MethodReport[], profile: WorkloadProfile): WorkloadSummary {
+  const byKey = new Map(reports.map(r => [`${r.className}.${r.methodName}`.toLowerCase(), r] as [string, MethodReport]));
+  const power = (frame: string | undefined) => {
+    const report = frame ? byKey.get(frame.toLowerCase()) : undefined;
+    return Math.max(report?.energyScore ?? 0, MIN_FRAME_POWER);
+  };
+
+  const selfTime = new Map<string, number>();
+  const inclTime = new Map<string, number>();
+  const selfEnergy = new Map<string, number>();
+  const inclEnergy = new Map<string, number>();
+  let totalTime = 0;
+  let totalEnergy = 0;
+  let matched = 0;
+
+  for (const stack of profile.stacks) {
+    const count = stack.count || 0;
+    if (count <= 0) continue;
+    const keys = (stack.frames || []).map(f => f.toLowerCase());
+    const top = keys[keys.length - 1];
+    const energy = count * power(top);
+    totalTime += count;
+    totalEnergy += energy;
+    if (!top) continue;
+    if (byKey.has(top)) matched += count;
+
+    selfTime.set(top, (selfTime.get(top) || 0) + count);
+    selfEnergy.set(top, (selfEnergy.get(top) || 0) + energy);
+    // Recursive frames count once per sample
+    for (const key of new Set(keys)) {
+      inclTime.set(key, (inclTime.get(key) || 0) + count);
+      inclEnergy.set(key, (inclEnergy.get(key) || 0) + energy);
+    }
+  }
+
+  const ranked: Array<{ report: MethodReport; criticality: number }> = [];
+  for (const [key, report] of byKey) {
+    const time = totalTime > 0 ? inclTime.get(key) || 0 : 0;
+    const energy = totalEnergy > 0 ? inclEnergy.get(key) || 0 : 0;
+    report.selfTimeShare = totalTime > 0 ? round((selfTime.get(key) || 0) / totalTime) : 0;
+    report.timeShare = totalTime > 0 ? round(time / totalTime) : 0;
+    report.selfEnergyShare = totalEnergy > 0 ? round((selfEnergy.get(key) || 0) / totalEnergy) : 0;
+    report.energyShare = totalEnergy > 0 ? round(energy / totalEnergy) : 0;
+    report.maxSavingPct = round(report.energyShare * 100, 2);
+    report.amdahlSpeedup = round(1 / Math.max(1 - report.selfTimeShare, 1e-3), 3);
+
+    const owns: number[] = [];
+    if (energy > 0) owns.push((selfEnergy.get(key) || 0) / energy);
+    const inclusiveScore = report.inclusiveEnergyScore ?? report.energyScore;
+    if (inclusiveScore > 0) owns.push(Math.min(1, (report.selfEnergyScore ?? report.energyScore) / inclusiveScore));
+    const ownCost = owns.length > 0 ? owns.reduce((s, v) => s + v, 0) / owns.length : 0;
+    report.criticality = round(report.maxSavingPct * ownCost, 3);
+
+    if (time > 0) ranked.push({ report, criticality: report.criticality });
+  }
+
+  ranked.sort((a, b) => b.criticality - a.criticality || (b.report.maxSavingPct ?? 0) - (a.report.maxSavingPct ?? 0));
+  const priorities = ranked.slice(0, PRIORITY_LIST_SIZE).map(({ report: r }, i) => ({
+    rank: i + 1,
+    method: `${r.className}.${r.methodName}`,
+    criticality: r.criticality!,
+    maxSavingPct: r.maxSavingPct!,
+    timeShare: r.timeShare!,
+    selfTimeShare: r.selfTimeShare!,
+    energyShare: r.energyShare!,
+    amdahlSpeedup: r.amdahlSpeedup!,
+    selfEnergyScore: r.selfEnergyScore ?? r.energyScore,
+    inclusiveEnergyScore: r.inclusiveEnergyScore ?? r.energyScore
+  }));
+
+  return {
+    mainClass: profile.mainClass,
+    samples: totalTime,
+    wallMs: profile.wallMs,
+    cpuMs: profile.cpuMs,
+    coverage: totalTime > 0 ? round(matched / totalTime) : 0,
+    profiledMethods: ranked.length,
+    priorities
+  };
+}
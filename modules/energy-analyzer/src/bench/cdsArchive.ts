@@ -0,0 +1,256 @@
+// src/bench/cdsArchive.ts
+import fs from "fs";
+import os from "os";
+import path from "path";
+import crypto from "crypto";
+import { spawnSync } from "child_process";
+import { JAVA_TOOLS_DIR } from "../config";
+
+/**
+ * AppCDS (class-data sharing) support for the CustomBenchmarkRunner JVM.
+ *
+ * The harness = FootprintAgent + CdsTrainer + the runtime dependency jars
+ * (Gson, JMH). It is stable across scans, so it is copied once into a cache
+ * directory keyed by a hash of its contents and archived with
+ * -XX:ArchiveClassesAtExit. Later scans start with -XX:SharedArchiveFile and
+ * append their own target/classes after the harness jars (CDS accepts a
+ * longer runtime classpath as long as the dump-time one is a prefix).
+ */
+
+const HARNESS_SOURCES = ["FootprintAgent.java", "CdsTrainer.java"];
+const HARNESS_MAIN = "com.greencode.benchmarks.CdsTrainer";
+const AGENT_CLASS = "com.greencode.benchmarks.FootprintAgent";
+const MIN_DYNAMIC_ARCHIVE_JDK = 13;
+const KEEP_ARCHIVES = 3;
+
+export type RunnerLaunch = {
+  /** JVM options to put before -cp (agent, CDS flags) */
+  jvmArgs: string[];
+  /** Classpath entries that must come first (the archived harness) */
+  classpathPrefix: string[];
+  cdsStatus: "reused" | "created" | "disabled";
+  archivePath?: string;
+};
+
+export function resolveCdsCacheDir(): string {
+  return process.env.GREENCODE_CDS_DIR || path.join(os.homedir(), ".greencode", "cds");
+}
+
+/**
+ * Returns the full `java -version` banner and the feature version (8, 11, 17, ...)
+ */
+export function detectJavaVersion(): { banner: string; major: number } | null {
+  const proc = spawnSync("java", ["-version"], { stdio: "pipe", encoding: "utf8" });
+  if (proc.error || proc.status !== 0) return null;
+
+  const banner = `${proc.stderr || ""}${proc.stdout || ""}`.trim();
+  const match = banner.match(/version "(\d+)(?:\.(\d+))?/);
+  if (!match) return null;
+
+  const first = parseInt(match[1], 10);
+  const major = first === 1 && match[2] ? parseInt(match[2], 10) : first;
+  return { banner, major };
+}
+
+/**
+ * Make sure target/dependency holds the runtime jars; returns them sorted by name
+ * so the archived classpath order is deterministic.
+ */
+function collectDependencyJars(benchmarkDir: string): string[] {
+  const depDir = path.join(benchmarkDir, "target", "dependency");
+
+  if (!fs.existsSync(depDir) || fs.readdirSync(depDir).length === 0) {
+    spawnSync("mvn", ["-q", "dependency:copy-dependencies", "-DincludeScope=runtime"], {
+      cwd: benchmarkDir,
+      stdio: "pipe",
+      shell: true
+    });
+  }
+
+  if (!fs.existsSync(depDir)) return [];
+
+  return fs.readdirSync(depDir)
+    .filter(f => f.endsWith(".jar"))
+    .sort()
+    .map(f => path.join(depDir, f));
+}
+
+function computeHarnessHash(dependencyJars: string[], javaBanner: string): string {
+  const hash = crypto.createHash("sha256");
+  hash.update(javaBanner);
+
+  for (const source of HARNESS_SOURCES) {
+    hash.update(source);
+    hash.update(fs.readFileSync(path.join(JAVA_TOOLS_DIR, source)));
+  }
+  for (const jar of dependencyJars) {
+    hash.update(path.basename(jar));
+    hash.update(fs.readFileSync(jar));
+  }
+
+  return hash.digest("hex").slice(0, 16);
+}
+
+/**
+ * Build <cacheDir>/harness-<hash>/{harness.jar, lib/*.jar}. Built in a temp
+ * directory and renamed into place so concurrent scans never see a partial harness.
+ */
+function buildHarness(harnessDir: string, dependencyJars: string[]): boolean {
+  const tmpDir = `${harnessDir}.tmp-${process.pid}`;
+  fs.rmSync(tmpDir, { recursive: true, force: true });
+
+  const libDir = path.join(tmpDir, "lib");
+  const classesDir = path.join(tmpDir, "classes");
+  fs.mkdirSync(libDir, { recursive: true });
+  fs.mkdirSync(classesDir, { recursive: true });
+
+  for (const jar of dependencyJars) {
+    fs.copyFileSync(jar, path.join(libDir, path.basename(jar)));
+  }
+
+  const javac = spawnSync("javac", [
+    "-encoding", "UTF-8",
+    "-cp", dependencyJars.join(path.delimiter),
+    "-d", classesDir,
+    ...HARNESS_SOURCES.map(s => path.join(JAVA_TOOLS_DIR, s))
+  ], { stdio: "pipe", encoding: "utf8" });
+
+  if (javac.status !== 0) {
+    console.log(`   ⚠️  Could not compile CDS harness: ${(javac.stderr || "").trim()}`);
+    fs.rmSync(tmpDir, { recursive: true, force: true });
+    return false;
+  }
+
+  const manifestPath = path.join(tmpDir, "MANIFEST.MF");
+  fs.writeFileSync(manifestPath, `Premain-Class: ${AGENT_CLASS}\nAgent-Class: ${AGENT_CLASS}\n`);
+
+  const jar = spawnSync("jar", [
+    "cfm", path.join(tmpDir, "harness.jar"), manifestPath, "-C", classesDir, "."
+  ], { stdio: "pipe", encoding: "utf8" });
+
+  fs.rmSync(classesDir, { recursive: true, force: true });
+
+  if (jar.status !== 0) {
+    console.log(`   ⚠️  Could not package CDS harness: ${(jar.stderr || "").trim()}`);
+    fs.rmSync(tmpDir, { recursive: true, force: true });
+    return false;
+  }
+
+  try {
+    fs.renameSync(tmpDir, harnessDir);
+  } catch {
+    // Another scan won the race; use its harness
+    fs.rmSync(tmpDir, { recursive: true, force: true });
+  }
+  return fs.existsSync(harnessDir);
+}
+
+function harnessClasspath(harnessDir: string): string[] {
+  const libDir = path.join(harnessDir, "lib");
+  const libs = fs.existsSync(libDir)
+    ? fs.readdirSync(libDir).filter(f => f.endsWith(".jar")).sort().map(f => path.join(libDir, f))
+    : [];
+  return [path.join(harnessDir, "harness.jar"), ...libs];
+}
+
+/**
+ * Dump the dynamic archive with a training run over the harness classpath only
+ */
+function createArchive(harnessDir: string, archivePath: string): boolean {
+  const tmpArchive = `${archivePath}.tmp-${process.pid}`;
+  const cp = harnessClasspath(harnessDir);
+
+  // No -javaagent here: the JVM refuses to dump while an agent is attached,
+  // but the archive is still usable by runs that load FootprintAgent.
+  const proc = spawnSync("java", [
+    `-XX:ArchiveClassesAtExit=${tmpArchive}`,
+    "-cp", cp.join(path.delimiter),
+    HARNESS_MAIN
+  ], { stdio: "pipe", encoding: "utf8" });
+
+  if (proc.status !== 0 || !fs.existsSync(tmpArchive)) {
+    console.log(`   ⚠️  CDS archive dump failed: ${(proc.stderr || "").trim().split("\n")[0]}`);
+    fs.rmSync(tmpArchive, { force: true });
+    return false;
+  }
+
+  fs.renameSync(tmpArchive, archivePath);
+  return true;
+}
+
+/**
+ * Keep only the most recently used harness directories
+ */
+export function pruneCdsCache(cacheDir: string, keep: number = KEEP_ARCHIVES): void {
+  if (!fs.existsSync(cacheDir)) return;
+
+  const harnesses = fs.readdirSync(cacheDir)
+    .filter(d => /^harness-[0-9a-f]+$/.test(d))
+    .map(d => ({ dir: path.join(cacheDir, d), mtime: fs.statSync(path.join(cacheDir, d)).mtimeMs }))
+    .sort((a, b) => b.mtime - a.mtime);
+
+  for (const stale of harnesses.slice(keep)) {
+    fs.rmSync(stale.dir, { recursive: true, force: true });
+  }
+}
+
+/**
+ * Work out how to launch CustomBenchmarkRunner: with a reused or freshly
+ * created CDS archive when possible, plain otherwise. Never throws; any
+ * failure degrades to `cdsStatus: "disabled"`.
+ */
+export function prepareRunnerLaunch(benchmarkDir: string): RunnerLaunch {
+  const disabled: RunnerLaunch = { jvmArgs: [], classpathPrefix: [], cdsStatus: "disabled" };
+
+  if (process.env.GREENCODE_DISABLE_CDS === "1") return disabled;
+
+  try {
+    const java = detectJavaVersion();
+    if (!java) return disabled;
+
+    const dependencyJars = collectDependencyJars(benchmarkDir);
+    if (dependencyJars.length === 0) return disabled;
+
+    const cacheDir = resolveCdsCacheDir();
+    fs.mkdirSync(cacheDir, { recursive: true });
+
+    const harnessDir = path.join(cacheDir, `harness-${computeHarnessHash(dependencyJars, java.banner)}`);
+    if (!fs.existsSync(harnessDir) && !buildHarness(harnessDir, dependencyJars)) {
+      return disabled;
+    }
+
+    const classpathPrefix = harnessClasspath(harnessDir);
+    const jvmArgs = [`-javaagent:${classpathPrefix[0]}`];
+
+    // Mark as recently used for pruning
+    const now = new Date();
+    fs.utimesSync(harnessDir, now, now);
+
+    if (java.major < MIN_DYNAMIC_ARCHIVE_JDK) {
+      console.log(`   ℹ️  JDK ${java.major} has no dynamic CDS archives (needs ${MIN_DYNAMIC_ARCHIVE_JDK}+)`);
+      return { jvmArgs, classpathPrefix, cdsStatus: "disabled" };
+    }
+
+    const archivePath = path.join(harnessDir, "runner.jsa");
+    let cdsStatus: RunnerLaunch["cdsStatus"] = "reused";
+
+    if (!fs.existsSync(archivePath)) {
+      if (!createArchive(harnessDir, archivePath)) {
+        return { jvmArgs, classpathPrefix, cdsStatus: "disabled" };
+      }
+      cdsStatus = "created";
+    }
+
+    pruneCdsCache(cacheDir);
+
+    return {
+      jvmArgs: [...jvmArgs, `-XX:SharedArchiveFile=${archivePath}`, "-Xshare:auto", "-Xlog:cds=off"],
+      classpathPrefix,
+      cdsStatus,
+      archivePath
+    };
+  } catch (error: any) {
+    console.log(`   ⚠️  CDS setup skipped: ${error.message}`);
+    return disabled;
+  }
+}
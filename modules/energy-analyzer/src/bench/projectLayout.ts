@@ -0,0 +1,688 @@
+// src/bench/projectLayout.ts
+import fs from "fs";
+import os from "os";
+import path from "path";
+
+/**
+ * Module layout of a Maven or Gradle project and an offline classpath per module.
+ *
+ * The benchmark project used to receive every .java file under --source-code
+ * in one flat src/main/java, with no dependencies: packages ended up under the
+ * wrong directories and anything importing a library failed to compile. Here
+ * each module's source roots are found from its build file, and its dependency
+ * jars are looked up in the local Maven repository, the Gradle cache and lib/
+ * directories only. Nothing is downloaded; coordinates not found locally are
+ * reported as missing.
+ */
+
+export type BuildTool = "maven" | "gradle" | "none";
+
+export type DependencyCoordinate = {
+  groupId: string;
+  artifactId: string;
+  /** Unset when it could not be resolved; the newest local version is used */
+  version?: string;
+  /** Maven scope; Gradle configurations are mapped (compileOnly → provided, runtimeOnly → runtime) */
+  scope?: string;
+  optional?: boolean;
+  systemPath?: string;
+  /** "group:artifact" exclusions of its transitive dependencies ("*" matches any part) */
+  exclusions?: string[];
+};
+
+export type ProjectModule = {
+  /** Directory relative to the project root, "." for the root project */
+  name: string;
+  dir: string;
+  buildTool: BuildTool;
+  /** Main (not test) Java source roots that exist on disk */
+  sourceRoots: string[];
+  dependencies: DependencyCoordinate[];
+  /** Names of the modules of this project it depends on */
+  moduleDependencies: string[];
+  /** group:artifact → version from the module's (inherited) dependencyManagement */
+  managedVersions?: Record<string, string>;
+};
+
+export type ProjectLayout = {
+  root: string;
+  buildTool: BuildTool;
+  modules: ProjectModule[];
+};
+
+export type LocalRepositories = {
+  mavenRepo: string;
+  /** Gradle's modules-2/files-2.1 cache (<group>/<artifact>/<version>/<sha1>/<file>) */
+  gradleCache: string;
+};
+
+export type ResolvedClasspath = {
+  jars: string[];
+  /** group:artifact[:version] of dependencies with no jar on disk */
+  missing: string[];
+};
+
+export type ModuleClass = {
+  module: ProjectModule;
+  packageName: string | null;
+  file: string;
+};
+
+const SKIPPED_DIRS = new Set(["target", "build", "out", "bin", "node_modules", ".git", ".gradle", ".idea", ".mvn"]);
+const LIB_DIRS = ["lib", "libs"];
+const COMPILE_SCOPES = new Set(["compile", "provided", "runtime", "system"]);
+const TRANSITIVE_SCOPES = new Set(["compile", "runtime"]);
+const MAX_TRANSITIVE_DEPTH = 12;
+const MAX_PARENT_DEPTH = 10;
+
+export function defaultLocalRepositories(): LocalRepositories {
+  const gradleHome = process.env.GRADLE_USER_HOME || path.join(os.homedir(), ".gradle");
+  return {
+    mavenRepo: process.env.GREENCODE_M2_REPO || path.join(os.homedir(), ".m2", "repository"),
+    gradleCache: path.join(gradleHome, "caches", "modules-2", "files-2.1")
+  };
+}
+
+// ---------------------------------------------------------------------------
+// Maven POMs (regex-level reading: enough for coordinates, modules and deps)
+// ---------------------------------------------------------------------------
+
+type PomModel = {
+  groupId?: string;
+  artifactId?: string;
+  version?: string;
+  parent?: { groupId?: string; artifactId?: string; version?: string; relativePath?: string };
+  properties: Record<string, string>;
+  /** group:artifact → version from dependencyManagement */
+  managed: Map<string, string>;
+  /** scope=import BOMs in dependencyManagement */
+  imports: DependencyCoordinate[];
+  dependencies: DependencyCoordinate[];
+  modules: string[];
+  sourceDirectory?: string;
+};
+
+function blocks(xml: string, tag: string): string[] {
+  const re = new RegExp(`<${tag}(?:\\s[^>]*)?>([\\s\\S]*?)</${tag}>`, "g");
+  return [...xml.matchAll(re)].map(m => m[1]);
+}
+
+function stripBlocks(xml: string, tags: string[]): string {
+  return tags.reduce((text, tag) => text.replace(new RegExp(`<${tag}(?:\\s[^>]*)?>[\\s\\S]*?</${tag}>`, "g"), ""), xml);
+}
+
+function tagValue(xml: string, tag: string): string | undefined {
+  const m = xml.match(new RegExp(`<${tag}>\\s*([^<]*?)\\s*</${tag}>`));
+  return m ? m[1] : undefined;
+}
+
+function readDependency(xml: string): DependencyCoordinate & { type?: string } {
+  const body = stripBlocks(xml, ["exclusions"]);
+  const exclusions = blocks(blocks(xml, "exclusions")[0] || "", "exclusion")
+    .map(e => `${tagValue(e, "groupId") || "*"}:${tagValue(e, "artifactId") || "*"}`);
+  return {
+    groupId: tagValue(body, "groupId") || "",
+    artifactId: tagValue(body, "artifactId") || "",
+    version: tagValue(body, "version"),
+    scope: tagValue(body, "scope"),
+    optional: tagValue(body, "optional") === "true",
+    systemPath: tagValue(body, "systemPath"),
+    type: tagValue(body, "type"),
+    ...(exclusions.length > 0 ? { exclusions } : {})
+  };
+}
+
+function parsePom(text: string): PomModel {
+  const xml = text.replace(/<!--[\s\S]*?-->/g, "");
+  const parentXml = blocks(xml, "parent")[0];
+  const build = blocks(xml, "build")[0] || "";
+  const management = blocks(xml, "dependencyManagement")[0] || "";
+  const top = stripBlocks(xml, ["parent", "build", "dependencyManagement", "profiles", "reporting"]);
+  const identity = stripBlocks(top, ["dependencies", "properties", "modules"]);
+
+  const properties: Record<string, string> = {};
+  for (const m of (blocks(top, "properties")[0] || "").matchAll(/<([\w.\-]+)>([^<]*)<\/\1>/g)) {
+    properties[m[1]] = m[2].trim();
+  }
+
+  const managed = new Map<string, string>();
+  const imports: DependencyCoordinate[] = [];
+  for (const dep of blocks(management, "dependency").map(readDependency)) {
+    if (dep.scope === "import") imports.push(dep);
+    else if (dep.version) managed.set(`${dep.groupId}:${dep.artifactId}`, dep.version);
+  }
+
+  return {
+    groupId: tagValue(identity, "groupId"),
+    artifactId: tagValue(identity, "artifactId"),
+    version: tagValue(identity, "version"),
+    parent: parentXml ? {
+      groupId: tagValue(parentXml, "groupId"),
+      artifactId: tagValue(parentXml, "artifactId"),
+      version: tagValue(parentXml, "version"),
+      relativePath: tagValue(parentXml, "relativePath")
+    } : undefined,
+    properties,
+    managed,
+    imports,
+    dependencies: blocks(blocks(top, "dependencies")[0] || "", "dependency")
+      .map(readDependency)
+      .filter(d => !d.type || d.type === "jar" || d.type === "bundle"),
+    modules: [...(blocks(top, "modules")[0] || "").matchAll(/<module>\s*([^<]+?)\s*<\/module>/g)].map(m => m[1]),
+    sourceDirectory: tagValue(build, "sourceDirectory")
+  };
+}
+
+function interpolate(value: string | undefined, props: Record<string, string>): string | undefined {
+  if (value === undefined) return undefined;
+  let out = value;
+  for (let pass = 0; pass < 5 && out.includes("${"); pass++) {
+    out = out.replace(/\$\{([^}]+)\}/g, (whole, key) => props[key] ?? whole);
+  }
+  return out;
+}
+
+/** A version Maven would resolve without a range or a missing property */
+function concreteVersion(version: string | undefined): string | undefined {
+  return version && !/[${}\[\](),]/.test(version) ? version : undefined;
+}
+
+type EffectivePom = {
+  groupId?: string;
+  artifactId?: string;
+  version?: string;
+  properties: Record<string, string>;
+  managed: Map<string, string>;
+  dependencies: DependencyCoordinate[];
+  modules: string[];
+  sourceDirectory?: string;
+};
+
+/**
+ * POM with its parents applied: inherited properties, dependencyManagement and
+ * dependencies, interpolated. Parents are read from the reactor (relativePath)
+ * first and from the local repositories otherwise.
+ */
+class PomReader {
+  private cache = new Map<string, EffectivePom | null>();
+
+  constructor(private repos: LocalRepositories) {}
+
+  read(pomFile: string, depth = 0): EffectivePom | null {
+    const key = path.resolve(pomFile);
+    if (this.cache.has(key)) return this.cache.get(key)!;
+    this.cache.set(key, null); // guards parent cycles
+
+    let own: PomModel;
+    try {
+      own = parsePom(fs.readFileSync(key, "utf8"));
+    } catch {
+      return null;
+    }
+
+    const parent = own.parent && depth < MAX_PARENT_DEPTH ? this.readParent(key, own.parent, depth) : null;
+    const groupId = own.groupId || own.parent?.groupId;
+    const version = own.version || own.parent?.version;
+    const properties: Record<string, string> = {
+      ...(parent?.properties || {}),
+      ...own.properties,
+      "project.groupId": groupId || "",
+      "project.artifactId": own.artifactId || "",
+      "project.version": version || "",
+      "project.basedir": path.dirname(key),
+      "basedir": path.dirname(key),
+      "groupId": groupId || "",
+      "version": version || "",
+      "project.parent.groupId": own.parent?.groupId || "",
+      "project.parent.version": own.parent?.version || ""
+    };
+
+    const managed = new Map(parent?.managed || []);
+    for (const bom of own.imports) {
+      const bomVersion = concreteVersion(interpolate(bom.version, properties));
+      const bomFile = bomVersion && findArtifact(this.repos, interpolate(bom.groupId, properties)!, interpolate(bom.artifactId, properties)!, bomVersion, "pom");
+      const imported = bomFile && depth < MAX_PARENT_DEPTH ? this.read(bomFile, depth + 1) : null;
+      imported?.managed.forEach((v, k) => managed.set(k, v));
+    }
+    own.managed.forEach((v, k) => managed.set(interpolate(k, properties)!, interpolate(v, properties)!));
+
+    const dependencies = [...(parent?.dependencies || [])];
+    for (const dep of own.dependencies) {
+      const depGroupId = interpolate(dep.groupId, properties)!;
+      const depArtifactId = interpolate(dep.artifactId, properties)!;
+      dependencies.push({
+        groupId: depGroupId,
+        artifactId: depArtifactId,
+        version: concreteVersion(interpolate(dep.version, properties) ?? managed.get(`${depGroupId}:${depArtifactId}`)),
+        scope: dep.scope || "compile",
+        optional: dep.optional,
+        systemPath: interpolate(dep.systemPath, properties),
+        ...(dep.exclusions ? { exclusions: dep.exclusions.map(e => interpolate(e, properties)!) } : {})
+      });
+    }
+
+    const effective: EffectivePom = {
+      groupId,
+      artifactId: own.artifactId,
+      version: concreteVersion(interpolate(version, properties)),
+      properties,
+      managed,
+      dependencies,
+      modules: own.modules,
+      sourceDirectory: interpolate(own.sourceDirectory, properties)
+    };
+    this.cache.set(key, effective);
+    return effective;
+  }
+
+  private readParent(pomFile: string, parent: NonNullable<PomModel["parent"]>, depth: number): EffectivePom | null {
+    const relative = path.resolve(path.dirname(pomFile), parent.relativePath ?? "..");
+    const reactorPom = relative.endsWith(".xml") ? relative : path.join(relative, "pom.xml");
+    if (fs.existsSync(reactorPom)) {
+      const candidate = this.read(reactorPom, depth + 1);
+      if (candidate && candidate.artifactId === parent.artifactId) return candidate;
+    }
+    const version = concreteVersion(parent.version);
+    const repoPom = parent.groupId && parent.artifactId && version
+      ? findArtifact(this.repos, parent.groupId, parent.artifactId, version, "pom")
+      : null;
+    return repoPom ? this.read(repoPom, depth + 1) : null;
+  }
+}
+
+// ---------------------------------------------------------------------------
+// Gradle build scripts (string notation and project(...) dependencies)
+// ---------------------------------------------------------------------------
+
+const GRADLE_SCOPES: Record<string, string> = {
+  implementation: "compile",
+  api: "compile",
+  compile: "compile",
+  compileOnly: "provided",
+  compileOnlyApi: "provided",
+  annotationProcessor: "provided",
+  runtimeOnly: "runtime",
+  runtime: "runtime"
+};
+
+function readGradleFile(dir: string, base: string): string | null {
+  for (const name of [`${base}.gradle`, `${base}.gradle.kts`]) {
+    const file = path.join(dir, name);
+    if (fs.existsSync(file)) return fs.readFileSync(file, "utf8");
+  }
+  return null;
+}
+
+/** Project paths from settings.gradle include(...) statements (":a:b" → "a/b") */
+function gradleIncludes(settings: string): string[] {
+  const text = settings.replace(/\/\/.*$/gm, "");
+  const includes: string[] = [];
+  for (const m of text.matchAll(/^\s*include\b\s*\(?([^\n]*)/gm)) {
+    for (const q of m[1].matchAll(/['"]([^'"]+)['"]/g)) {
+      includes.push(q[1].replace(/^:/, "").split(":").join("/"));
+    }
+  }
+  return includes;
+}
+
+function gradleDependencies(script: string): { dependencies: DependencyCoordinate[]; projects: string[] } {
+  const text = script.replace(/\/\/.*$/gm, "");
+  const dependencies: DependencyCoordinate[] = [];
+  const projects: string[] = [];
+  const configurations = Object.keys(GRADLE_SCOPES).join("|");
+  const line = new RegExp(`^\\s*(${configurations})\\b\\s*\\(?\\s*(.*)$`, "gm");
+
+  for (const m of text.matchAll(line)) {
+    const scope = GRADLE_SCOPES[m[1]];
+    const rest = m[2];
+    const project = rest.match(/project\s*\(\s*(?:path\s*[:=]\s*)?['"]:?([^'"]+)['"]/);
+    if (project) {
+      projects.push(project[1].split(":").join("/"));
+      continue;
+    }
+    const notation = rest.match(/^['"]([^'":]+):([^'":]+)(?::([^'":@]+))?[^'"]*['"]/);
+    if (notation) {
+      dependencies.push({ groupId: notation[1], artifactId: notation[2], version: concreteVersion(notation[3]), scope });
+      continue;
+    }
+    const group = rest.match(/group\s*[:=]\s*['"]([^'"]+)['"]/);
+    const name = rest.match(/name\s*[:=]\s*['"]([^'"]+)['"]/);
+    const version = rest.match(/version\s*[:=]\s*['"]([^'"]+)['"]/);
+    if (group && name) {
+      dependencies.push({ groupId: group[1], artifactId: name[1], version: concreteVersion(version?.[1]), scope });
+    }
+  }
+  return { dependencies, projects };
+}
+
+// ---------------------------------------------------------------------------
+// Layout detection
+// ---------------------------------------------------------------------------
+
+function existingDir(dir: string): string | null {
+  return fs.existsSync(dir) && fs.statSync(dir).isDirectory() ? dir : null;
+}
+
+function conventionalSourceRoots(dir: string): string[] {
+  const main = existingDir(path.join(dir, "src", "main", "java"));
+  return main ? [main] : [];
+}
+
+function moduleName(root: string, dir: string): string {
+  return path.relative(root, dir).split(path.sep).join("/") || ".";
+}
+
+function detectMavenModules(root: string, repos: LocalRepositories): ProjectModule[] {
+  const reader = new PomReader(repos);
+  const found: Array<{ dir: string; pom: EffectivePom }> = [];
+  const visit = (dir: string) => {
+    if (found.some(f => f.dir === dir)) return;
+    const pom = reader.read(path.join(dir, "pom.xml"));
+    if (!pom) return;
+    found.push({ dir, pom });
+    for (const child of pom.modules) {
+      const childDir = path.resolve(dir, child.endsWith(".xml") ? path.dirname(child) : child);
+      if (fs.existsSync(path.join(childDir, "pom.xml"))) visit(childDir);
+    }
+  };
+  visit(root);
+
+  const byCoordinates = new Map(found.map(f => [`${f.pom.groupId}:${f.pom.artifactId}`, moduleName(root, f.dir)]));
+  return found.map(({ dir, pom }) => {
+    const sourceDirectory = pom.sourceDirectory ? existingDir(path.resolve(dir, pom.sourceDirectory)) : null;
+    const siblings = pom.dependencies
+      .map(d => byCoordinates.get(`${d.groupId}:${d.artifactId}`))
+      .filter((name): name is string => !!name);
+    return {
+      name: moduleName(root, dir),
+      dir,
+      buildTool: "maven" as BuildTool,
+      sourceRoots: sourceDirectory ? [sourceDirectory] : conventionalSourceRoots(dir),
+      dependencies: pom.dependencies.filter(d => !byCoordinates.has(`${d.groupId}:${d.artifactId}`)),
+      moduleDependencies: [...new Set(siblings)],
+      managedVersions: Object.fromEntries(pom.managed)
+    };
+  });
+}
+
+function detectGradleModules(root: string): ProjectModule[] {
+  const settings = readGradleFile(root, "settings");
+  const dirs = [root, ...(settings ? gradleIncludes(settings) : []).map(p => path.join(root, p))];
+
+  return [...new Set(dirs)].filter(dir => existingDir(dir)).map(dir => {
+    const script = readGradleFile(dir, "build");
+    const { dependencies, projects } = script ? gradleDependencies(script) : { dependencies: [], projects: [] };
+    return {
+      name: moduleName(root, dir),
+      dir,
+      buildTool: "gradle" as BuildTool,
+      sourceRoots: conventionalSourceRoots(dir),
+      dependencies,
+      moduleDependencies: projects
+    };
+  });
+}
+
+/**
+ * Modules of the project at `root`. Without a pom.xml or Gradle build the whole
+ * directory is one module whose source root is src/main/java, or the directory
+ * itself (a plain folder of .java files).
+ */
+export function detectProjectLayout(root: string, repos: LocalRepositories = defaultLocalRepositories()): ProjectLayout {
+  const dir = path.resolve(root);
+
+  if (fs.existsSync(path.join(dir, "pom.xml"))) {
+    return { root: dir, buildTool: "maven", modules: detectMavenModules(dir, repos) };
+  }
+  if (readGradleFile(dir, "settings") !== null || readGradleFile(dir, "build") !== null) {
+    return { root: dir, buildTool: "gradle", modules: detectGradleModules(dir) };
+  }
+
+  const sourceRoots = conventionalSourceRoots(dir);
+  return {
+    root: dir,
+    buildTool: "none",
+    modules: [{
+      name: ".",
+      dir,
+      buildTool: "none",
+      sourceRoots: sourceRoots.length > 0 ? sourceRoots : [dir],
+      dependencies: [],
+      moduleDependencies: []
+    }]
+  };
+}
+
+/** The module followed by the project modules it depends on, transitively */
+export function moduleClosure(layout: ProjectLayout, module: ProjectModule): ProjectModule[] {
+  const byName = new Map(layout.modules.map(m => [m.name, m]));
+  const closure: ProjectModule[] = [];
+  const visit = (m: ProjectModule) => {
+    if (closure.includes(m)) return;
+    closure.push(m);
+    for (const name of m.moduleDependencies) {
+      const dep = byName.get(name);
+      if (dep) visit(dep);
+    }
+  };
+  visit(module);
+  return closure;
+}
+
+/** Source roots needed to compile `module`: its own and those of the modules it depends on */
+export function moduleSourceRoots(layout: ProjectLayout, module: ProjectModule): string[] {
+  return [...new Set(moduleClosure(layout, module).flatMap(m => m.sourceRoots))];
+}
+
+function walkJavaFiles(dir: string, visit: (file: string) => void): void {
+  let entries: fs.Dirent[];
+  try {
+    entries = fs.readdirSync(dir, { withFileTypes: true });
+  } catch {
+    return;
+  }
+  for (const entry of entries) {
+    const full = path.join(dir, entry.name);
+    if (entry.isDirectory()) {
+      if (!SKIPPED_DIRS.has(entry.name) && !entry.name.startsWith(".")) walkJavaFiles(full, visit);
+    } else if (entry.name.endsWith(".java") && entry.name !== "module-info.java" && entry.name !== "package-info.java") {
+      visit(full);
+    }
+  }
+}
+
+/**
+ * Top-level classes by simple name (one entry per source file), with the
+ * module that owns them and the package they declare.
+ */
+export function indexModuleClasses(layout: ProjectLayout): Map<string, ModuleClass[]> {
+  const index = new Map<string, ModuleClass[]>();
+  for (const module of layout.modules) {
+    for (const root of module.sourceRoots) {
+      walkJavaFiles(root, file => {
+        const head = fs.readFileSync(file, "utf8").slice(0, 4096);
+        const pkg = head.match(/^\s*package\s+([\w.]+)\s*;/m);
+        const simpleName = path.basename(file, ".java");
+        const entries = index.get(simpleName) || [];
+        if (!entries.some(e => e.file === file)) entries.push({ module, packageName: pkg ? pkg[1] : null, file });
+        index.set(simpleName, entries);
+      });
+    }
+  }
+  return index;
+}
+
+/** Whether the source file declares a method (or constructor) named `methodName` */
+function declaresMethod(file: string, methodName: string): boolean {
+  const name = methodName.replace(/[^\w$]/g, "").replace(/\$/g, "\\$");
+  try {
+    return new RegExp(`[\\w>\\]]\\s+${name}\\s*\\([^)]*\\)\\s*(?:throws\\s[^{;]*)?\\{`).test(fs.readFileSync(file, "utf8"));
+  } catch {
+    return false;
+  }
+}
+
+/**
+ * Declarations that may be `className` (simple or fully qualified). When a
+ * simple name is declared in several files, only those declaring `methodName`
+ * are kept (if any do).
+ */
+export function classCandidates(index: Map<string, ModuleClass[]>, className: string, methodName?: string): ModuleClass[] {
+  const dot = className.lastIndexOf(".");
+  const simpleName = dot >= 0 ? className.slice(dot + 1) : className;
+  const entries = index.get(simpleName) || [];
+  if (dot >= 0) return entries.filter(e => e.packageName === className.slice(0, dot));
+  if (entries.length <= 1 || !methodName) return entries;
+  const declaring = entries.filter(e => declaresMethod(e.file, methodName));
+  return declaring.length > 0 ? declaring : entries;
+}
+
+/** Where `className` is declared, or null when it is not found or still ambiguous */
+export function locateClass(index: Map<string, ModuleClass[]>, className: string, methodName?: string): ModuleClass | null {
+  const candidates = classCandidates(index, className, methodName);
+  return candidates.length === 1 ? candidates[0] : null;
+}
+
+// ---------------------------------------------------------------------------
+// Offline classpath
+// ---------------------------------------------------------------------------
+
+function compareVersions(a: string, b: string): number {
+  const pa = a.split(/[.\-]/);
+  const pb = b.split(/[.\-]/);
+  for (let i = 0; i < Math.max(pa.length, pb.length); i++) {
+    const x = pa[i] ?? "0";
+    const y = pb[i] ?? "0";
+    const nx = /^\d+$/.test(x) ? parseInt(x, 10) : NaN;
+    const ny = /^\d+$/.test(y) ? parseInt(y, 10) : NaN;
+    if (!isNaN(nx) && !isNaN(ny)) {
+      if (nx !== ny) return nx - ny;
+    } else if (x !== y) {
+      // A qualifier (-SNAPSHOT, -rc1) sorts before the release it precedes
+      return isNaN(nx) === isNaN(ny) ? x.localeCompare(y) : isNaN(nx) ? -1 : 1;
+    }
+  }
+  return 0;
+}
+
+function listDirs(dir: string): string[] {
+  try {
+    return fs.readdirSync(dir, { withFileTypes: true }).filter(e => e.isDirectory()).map(e => e.name);
+  } catch {
+    return [];
+  }
+}
+
+/** Jar or pom of group:artifact:version in the local Maven repository or the Gradle cache */
+export function findArtifact(
+  repos: LocalRepositories,
+  groupId: string,
+  artifactId: string,
+  version: string,
+  extension: "jar" | "pom"
+): string | null {
+  const fileName = `${artifactId}-${version}.${extension}`;
+  const mavenFile = path.join(repos.mavenRepo, ...groupId.split("."), artifactId, version, fileName);
+  if (fs.existsSync(mavenFile)) return mavenFile;
+
+  const gradleDir = path.join(repos.gradleCache, groupId, artifactId, version);
+  for (const hash of listDirs(gradleDir)) {
+    const file = path.join(gradleDir, hash, fileName);
+    if (fs.existsSync(file)) return file;
+  }
+  return null;
+}
+
+/** Versions of group:artifact present locally, newest first */
+function localVersions(repos: LocalRepositories, groupId: string, artifactId: string): string[] {
+  const versions = new Set([
+    ...listDirs(path.join(repos.mavenRepo, ...groupId.split("."), artifactId)),
+    ...listDirs(path.join(repos.gradleCache, groupId, artifactId))
+  ]);
+  return [...versions].sort((a, b) => compareVersions(b, a));
+}
+
+/** "group:artifact" exclusion, either part may be "*" */
+function matchesExclusion(pattern: string, dep: DependencyCoordinate): boolean {
+  const [groupId, artifactId] = pattern.split(":");
+  return (groupId === "*" || groupId === dep.groupId) && (artifactId === "*" || artifactId === dep.artifactId);
+}
+
+function libJars(dir: string): string[] {
+  return LIB_DIRS.flatMap(lib => {
+    const libDir = path.join(dir, lib);
+    if (!existingDir(libDir)) return [];
+    return fs.readdirSync(libDir).filter(f => f.endsWith(".jar")).sort().map(f => path.join(libDir, f));
+  });
+}
+
+/**
+ * Jars needed to compile and run `module` (and the project modules it depends
+ * on), from disk only: declared dependencies and their compile/runtime
+ * dependencies read from the local POMs (nearest declaration wins, as in Maven),
+ * plus every jar in lib/ or libs/ of the module, its module dependencies and the
+ * project root. As in Maven, the module's dependencyManagement also pins the
+ * versions of transitive dependencies, and a dependency's exclusions apply to
+ * everything below it.
+ */
+export function resolveOfflineClasspath(
+  layout: ProjectLayout,
+  module: ProjectModule,
+  repos: LocalRepositories = defaultLocalRepositories()
+): ResolvedClasspath {
+  const closure = moduleClosure(layout, module);
+  const reader = new PomReader(repos);
+  const jars: string[] = [];
+  const missing: string[] = [];
+  const seen = new Set<string>();
+
+  // The consuming module's management wins over that of the modules it depends on
+  const managed = new Map<string, string>();
+  for (const m of [...closure].reverse()) {
+    for (const [key, version] of Object.entries(m.managedVersions || {})) managed.set(key, version);
+  }
+
+  const queue = closure.flatMap(m => m.dependencies
+    .filter(d => !d.optional && COMPILE_SCOPES.has(d.scope || "compile"))
+    .map(d => ({ dep: d, depth: 0, excluded: d.exclusions || [] })));
+
+  while (queue.length > 0) {
+    const { dep, depth, excluded } = queue.shift()!;
+    const key = `${dep.groupId}:${dep.artifactId}`;
+    if (seen.has(key)) continue;
+    seen.add(key);
+
+    if (dep.scope === "system") {
+      if (dep.systemPath && fs.existsSync(dep.systemPath)) jars.push(dep.systemPath);
+      else missing.push(key);
+      continue;
+    }
+
+    const versions = dep.version ? [dep.version] : localVersions(repos, dep.groupId, dep.artifactId);
+    const version = versions.find(v => findArtifact(repos, dep.groupId, dep.artifactId, v, "jar"));
+    if (!version) {
+      missing.push(dep.version ? `${key}:${dep.version}` : key);
+      continue;
+    }
+    jars.push(findArtifact(repos, dep.groupId, dep.artifactId, version, "jar")!);
+
+    const pomFile = depth < MAX_TRANSITIVE_DEPTH ? findArtifact(repos, dep.groupId, dep.artifactId, version, "pom") : null;
+    const pom = pomFile ? reader.read(pomFile) : null;
+    for (const transitive of pom?.dependencies || []) {
+      if (transitive.optional || !TRANSITIVE_SCOPES.has(transitive.scope || "compile")) continue;
+      if (excluded.some(pattern => matchesExclusion(pattern, transitive))) continue;
+      const version = managed.get(`${transitive.groupId}:${transitive.artifactId}`) ?? transitive.version;
+      queue.push({
+        dep: { ...transitive, version },
+        depth: depth + 1,
+        excluded: [...excluded, ...(transitive.exclusions || [])]
+      });
+    }
+  }
+
+  const dirs = [...closure.map(m => m.dir), layout.root];
+  for (const jar of [...new Set(dirs)].flatMap(libJars)) {
+    if (!jars.includes(jar)) jars.push(jar);
+  }
+  return { jars, missing };
+}
@@ -0,0 +1,46 @@
+#!/usr/bin/env node
+import { Command } from "commander";
+import path from "path";
+import { resolveHistoryDir } from "../history/historyStore";
+import {
+  MODEL_FILE_NAME,
+  collectTrainingSamples,
+  fitEnergyModel,
+  saveModel
+} from "../estimators/calibratedModel";
+
+const program = new Command();
+program.name("greencode-energy-calibrate")
+  .description("Fit the energy model on measured benchmarks recorded in the benchmark history")
+  .option("--history-dir <path>", "Benchmark history directory (default: $GREENCODE_HISTORY_DIR or ~/.greencode/history)")
+  .option("-o, --out <path>", `Model file to write (default: <history-dir>/${MODEL_FILE_NAME})`)
+  .option("--project <names...>", "Only train on these projects (default: every project in the history)")
+  .option("--folds <n>", "Cross-validation folds for choosing the ridge penalty", "5")
+  .option("--min-samples <n>", "Minimum measured methods required to fit", "10")
+  .action((opts: any) => {
+    const historyDir = resolveHistoryDir(opts.historyDir);
+    const modelPath = path.resolve(opts.out || path.join(historyDir, MODEL_FILE_NAME));
+
+    console.log(`📚 Reading benchmark history from ${historyDir}`);
+    const { samples, runs } = collectTrainingSamples(historyDir, opts.project);
+    console.log(`   ✅ ${samples.length} measured methods from ${runs} runs`);
+
+    try {
+      const model = fitEnergyModel(samples, runs, {
+        folds: parseInt(opts.folds, 10),
+        minSamples: parseInt(opts.minSamples, 10)
+      });
+      saveModel(model, modelPath);
+
+      const { training } = model;
+      console.log(`   🧮 Ridge λ=${model.lambda}, CV RMSE ${training.cvRmse.toFixed(3)} (log ms), R² ${training.r2.toFixed(3)}`);
+      console.log(`   📈 Typical 95% interval: ×/÷ ${Math.exp(1.96 * model.residualSigma).toFixed(2)} around the predicted median`);
+      console.log(`   💾 Saved model ${model.modelId} to ${modelPath}`);
+    } catch (error: any) {
+      console.error(`❌ Calibration failed: ${error.message}`);
+      console.log("   ℹ️  Run analyses with --run-benchmarks or --benchmark to record measured results");
+      process.exit(1);
+    }
+  });
+
+program.parse(process.argv);
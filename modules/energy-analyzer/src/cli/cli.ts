@@ -3,16 +3,44 @@ import { Command } from "commander";
 import path from "path";
 import fs from "fs";
 import { spawn, spawnSync } from "child_process";
-import { generateReportsFromASTandCFGs, collectCFGPathsFromDir } from "../core/orchestrator";
+import { collectCFGPathsFromDir } from "../core/orchestrator";
+import { scoreProject } from "../core/scoringPool";
+import type { MethodReport } from "../core/orchestrator";
+import { CFGIndex } from "../core/cfgIndex";
 // Add this import at the top of your CLI file, near other imports
-import { MethodInfo } from "../generators/jmhBenchmarkGenerator";
+import { MethodInfo, BenchmarkGeneratorOptions } from "../generators/jmhBenchmarkGenerator";
 import { 
+  JavaBenchmarkResult,
+  enhanceReport,
   loadJavaBenchmarkResults, 
   mergeStaticWithBenchmarks, 
   saveEnhancedReport,
   calculateCorrelation
 } from "../analyzers/benchmarkAnalyzer";
 import { extractMethodsFromReports } from "../generators/jmhBenchmarkGenerator";
+import { BytecodeMethodMetrics, resolveBytecodeMetrics } from "../analyzers/bytecodeAnalyzer";
+import { prepareRunnerLaunch, detectJavaVersion } from "../bench/cdsArchive";
+import {
+  ProjectLayout,
+  ProjectModule,
+  classCandidates,
+  detectProjectLayout,
+  indexModuleClasses,
+  locateClass,
+  moduleSourceRoots,
+  resolveOfflineClasspath
+} from "../bench/projectLayout";
+import { ESTIMATED_BENCHMARK_SOURCES, HistoryEvent, buildRun, recordAndCompare, resolveHistoryDir } from "../history/historyStore";
+import { isArtifactFile } from "../../../../shared/binaryFormat";
+import { JavaASTFile, loadASTFile } from "../analyzers/astAnalyzer";
+import { applyCallGraph } from "../core/callGraph";
+import { EnergyModel, MODEL_FILE_NAME, loadModel, methodFeatures, predictEnergy, predictMedianMs } from "../estimators/calibratedModel";
+import { ReportStream, STREAM_REPORTS_FILE, STREAM_SUMMARY_FILE } from "../report/reportStream";
+import { WorkloadSummary, applyWorkloadProfile, loadWorkloadProfile, runWorkloadProfile } from "../analyzers/workloadProfile";
+import type { WarmCaches } from "../core/warmCache";
+import { DeploymentProjection, loadDeploymentProfile, projectDeployment } from "../estimators/deploymentProjection";
+import type { CallGraph } from "../core/callGraph";
+import { METHOD_INDEX_FILE, MethodIndexWriter } from "../report/methodIndex";
 
 // Define the CombinedReport interface
 interface CombinedReport {
@@ -65,6 +93,22 @@ interface CombinedReport {
     };
     performanceMetrics: any;
   };
+  history: {
+    project: string;
+    historyPath: string;
+    previousRuns: number;
+    regressions: number;
+    improvements: number;
+    events: HistoryEvent[];
+  } | null;
+  energyModel: {
+    modelId: string;
+    trainingSamples: number;
+    predictedMethods: number;
+  } | null;
+  workload: Omit<WorkloadSummary, "priorities"> | null;
+  optimizationPriorities: WorkloadSummary["priorities"];
+  deployment: DeploymentProjection | null;
   topEnergyConsumers: Array<{
     className: string;
     methodName: string;
@@ -79,11 +123,23 @@ interface CombinedReport {
   reports: any[];
 }
 
-const program = new Command();
-program.name("greencode-energy-analyze")
-  .description("Generate energy/perf reports from Java ASTs + CFGs with optional runtime benchmarks")
-  .version("0.5.0")  // Updated version
-  .addHelpText('after', `
+/** Thrown by analyze() where the one-shot CLI exits with `code`; the reason has already been logged */
+export class AnalysisExit extends Error {
+  constructor(readonly code: number) {
+    super(`Energy analysis stopped (exit ${code})`);
+  }
+}
+
+/**
+ * The analyzer's command line. `run` receives the parsed options; the
+ * daemon (cli/daemon.ts) passes one that reuses its warm caches.
+ */
+export function createProgram(run: (opts: any) => Promise<void> = runOnce): Command {
+  const program = new Command();
+  program.name("greencode-energy-analyze")
+    .description("Generate energy/perf reports from Java ASTs + CFGs with optional runtime benchmarks")
+    .version("0.5.0")  // Updated version
+    .addHelpText('after', `
 
 EXAMPLES:
   # Static analysis only
@@ -104,554 +160,961 @@ EXAMPLES:
   # Include zero-energy methods
   $ greencode-energy-analyze -A ./ast-files -c ./cfg-files --include-zero
 
+  # Very large projects: stream reports to NDJSON with one-pass summaries
+  $ greencode-energy-analyze -A ./ast-files -c ./cfg-files --stream
+
+  # Rank methods by their share of a real run (Amdahl-style optimization priorities)
+  $ greencode-energy-analyze -A ./ast-files -c ./cfg-files --bytecode ./target/classes --workload com.acme.Main
+
+  # Project monthly kWh, CO2e and cost from production call rates
+  $ greencode-energy-analyze -A ./ast-files -c ./cfg-files --run-benchmarks --source-code ./src --deployment-profile ./prod.json
+
 BENCHMARK OPTIONS:
   --benchmark <path>       : Use existing benchmark file
   --run-benchmarks         : Auto-generate and run REAL benchmarks (requires --source-code)
-  --source-code <path>     : Path to Java source code (required for --run-benchmarks)
+  --source-code <path>     : Path to Java source code or a Maven/Gradle project root (one benchmark project per module)
+  --offline                : Run Maven with -o (dependency jars are only ever taken from disk)
   --estimate-benchmarks    : Generate realistic estimated data based on complexity
 
 AUTO-BENCHMARK REQUIREMENTS:
   • Java 11+ installed
   • Maven installed (mvn command)
-  • Java source code directory
+  • Java source code directory, or a (multi-module) Maven/Gradle project whose
+    dependency jars are already in ~/.m2, the Gradle cache or lib/ directories
 `);
 
-program
-  .option("-a, --ast <path>", "Path to single AST JSON file")
-  .option("-A, --ast-dir <path>", "Path to directory containing AST JSON files")
-  .requiredOption("-c, --cfg <path>", "Path to a CFG JSON file OR directory")
-  .option("-b, --benchmark <path>", "Path to benchmark JSON file or directory (optional)")
-  .option("--run-benchmarks", "Auto-generate and run REAL benchmarks (requires Java & Maven)", false)
-  .option("--source-code <path>", "Path to Java source code directory (required for --run-benchmarks)")
-  .option("--estimate-benchmarks", "Generate realistic estimated data based on complexity", false)
-  .option("-o, --out <path>", "Output directory for energy reports", "energy-reports")
-  .option("--per-method", "Generate separate report for each method", false)
-  .option("--per-class", "Generate separate report for each class", true)
-  .option("--include-zero", "Include methods with zero energy score", false)
-  .action(async (opts: any) => {
-    console.log("🚀 GreenCode Energy Analyzer v0.5.0 - REAL BENCHMARKS");
-    console.log("=".repeat(70));
-    
-    // Handle AST inputs
-    let astPaths: string[] = [];
-    
-    if (opts.ast) {
-      astPaths = [path.resolve(opts.ast)];
-      console.log(`📄 Single AST file: ${path.basename(astPaths[0])}`);
-    } else if (opts.astDir) {
-      const astDir = path.resolve(opts.astDir);
-      
-      if (!fs.existsSync(astDir)) {
-        console.error(`❌ Error: AST directory not found: ${astDir}`);
-        process.exit(1);
-      }
-      
-      const astFiles = fs.readdirSync(astDir).filter(f => f.endsWith(".json"));
-      
-      if (astFiles.length === 0) {
-        console.error(`❌ Error: No JSON files found in: ${astDir}`);
-        process.exit(1);
-      }
-      
-      astPaths = astFiles.map(f => path.join(astDir, f));
-      console.log(`📁 Found ${astPaths.length} AST files`);
-    } else {
-      console.error("❌ Error: Either --ast or --ast-dir must be provided");
-      process.exit(1);
-    }
+  program
+    .option("-a, --ast <path>", "Path to single AST JSON file")
+    .option("-A, --ast-dir <path>", "Path to directory containing AST JSON files")
+    .requiredOption("-c, --cfg <path>", "Path to a CFG JSON file OR directory")
+    .option("-b, --benchmark <path>", "Path to benchmark JSON file or directory (optional)")
+    .option("--run-benchmarks", "Auto-generate and run REAL benchmarks (requires Java & Maven)", false)
+    .option("--source-code <path>", "Path to Java source code directory (required for --run-benchmarks)")
+    .option("--estimate-benchmarks", "Generate realistic estimated data based on complexity", false)
+    .option("--offline", "Run Maven offline (-o) for --run-benchmarks; project dependencies always come from ~/.m2, the Gradle cache and lib/", false)
+    .option("-o, --out <path>", "Output directory for energy reports", "energy-reports")
+    .option("--per-method", "Generate separate report for each method", false)
+    .option("--per-class", "Generate separate report for each class", true)
+    .option("--include-zero", "Include methods with zero energy score", false)
+    .option("--concurrency-bench", "Also compare virtual vs platform threads for I/O-bound methods (JDK 21+)", false)
+    .option("--project <name>", "Project id for benchmark history (defaults to the --source-code folder name)")
+    .option("--history-dir <path>", "Benchmark history directory (default: $GREENCODE_HISTORY_DIR or ~/.greencode/history)")
+    .option("--no-history", "Do not record or compare benchmark history")
+    .option("--bytecode <path>", "Compiled classes directory (e.g. target/classes) or bytecode-metrics.json to replace name-based call heuristics")
+    .option("-v, --verbose", "Log every CFG loaded and every method scored", false)
+    .option("--workers <n>", "Worker threads for method scoring (default: available cores, $GREENCODE_SCORE_WORKERS)")
+    .option("--model <path>", `Calibrated energy model for unbenchmarked methods (default: <history-dir>/${MODEL_FILE_NAME} if present)`)
+    .option("--no-model", "Do not use a calibrated energy model")
+    .option("--stream", "Write reports as NDJSON while scoring, with one-pass summary statistics (for very large projects)", false)
+    .option("--workload <mainClass>", "Profile a run of this driver class to rank methods by their share of the whole program")
+    .option("--workload-classpath <path>", "Classpath for --workload (default: the --bytecode classes directory)")
+    .option("--workload-args <args>", "Space-separated arguments passed to the --workload main method")
+    .option("--workload-profile <path>", "Use an existing workload-profile.json instead of running --workload")
+    .option("--deployment-profile <path>", "JSON with calls/sec per entry point, grid carbon intensity and cost per kWh; projects monthly kWh, CO2e and $")
+    .action((opts: any) => run(opts));
+  return program;
+}
 
-    // Handle CFG inputs
-    const cfgArg = path.resolve(opts.cfg);
-    let cfgPaths: string[] = [];
+async function runOnce(opts: any): Promise<void> {
+  try {
+    await analyze(opts);
+  } catch (error) {
+    if (error instanceof AnalysisExit) process.exit(error.code);
+    throw error;
+  }
+}
+
+/**
+ * One analysis run. Failures that end the run throw AnalysisExit; `warm`
+ * supplies CFG, model and history caches kept across runs by the daemon.
+ */
+export async function analyze(opts: any, warm?: WarmCaches): Promise<void> {
+  console.log("🚀 GreenCode Energy Analyzer v0.5.0 - REAL BENCHMARKS");
+  console.log("=".repeat(70));
+  
+  // Handle AST inputs
+  let astPaths: string[] = [];
+  
+  if (opts.ast) {
+    astPaths = [path.resolve(opts.ast)];
+    console.log(`📄 Single AST file: ${path.basename(astPaths[0])}`);
+  } else if (opts.astDir) {
+    const astDir = path.resolve(opts.astDir);
     
-    if (!fs.existsSync(cfgArg)) {
-      console.error("❌ CFG path not found:", cfgArg);
-      process.exit(2);
+    if (!fs.existsSync(astDir)) {
+      console.error(`❌ Error: AST directory not found: ${astDir}`);
+      throw new AnalysisExit(1);
     }
     
-    const stat = fs.statSync(cfgArg);
-    if (stat.isDirectory()) {
-      cfgPaths = collectCFGPathsFromDir(cfgArg);
-      console.log(`📁 Found ${cfgPaths.length} CFG files`);
-    } else {
-      cfgPaths = [cfgArg];
-      console.log(`📄 Single CFG file`);
-    }
-
-    console.log("=".repeat(70));
-    console.log();
-
-    // STEP 1: Generate static analysis reports
-    console.log("📊 STEP 1: Static Analysis");
-    console.log("-".repeat(70));
+    const astFiles = fs.readdirSync(astDir).filter(isArtifactFile);
     
-    const allReports = [];
-    let processedCount = 0;
-    let errorCount = 0;
+    if (astFiles.length === 0) {
+      console.error(`❌ Error: No AST files (.json/.gcb) found in: ${astDir}`);
+      throw new AnalysisExit(1);
+    }
     
-    for (const astPath of astPaths) {
-      if (!fs.existsSync(astPath)) {
-        console.warn("⚠️  AST file not found:", astPath);
-        errorCount++;
-        continue;
-      }
+    astPaths = astFiles.map(f => path.join(astDir, f));
+    console.log(`📁 Found ${astPaths.length} AST files`);
+  } else {
+    console.error("❌ Error: Either --ast or --ast-dir must be provided");
+    throw new AnalysisExit(1);
+  }
 
-      try {
-        console.log(`   🔄 Processing: ${path.basename(astPath)}`);
-        const reports = generateReportsFromASTandCFGs(astPath, cfgPaths);
-        allReports.push(...reports);
-        processedCount++;
-      } catch (error) {
-        console.error(`   ❌ Failed: ${path.basename(astPath)}`, error);
-        errorCount++;
-      }
-    }
+  // Handle CFG inputs
+  const cfgArg = path.resolve(opts.cfg);
+  let cfgPaths: string[] = [];
+  
+  if (!fs.existsSync(cfgArg)) {
+    console.error("❌ CFG path not found:", cfgArg);
+    throw new AnalysisExit(2);
+  }
+  
+  const stat = fs.statSync(cfgArg);
+  if (stat.isDirectory()) {
+    cfgPaths = collectCFGPathsFromDir(cfgArg);
+    console.log(`📁 Found ${cfgPaths.length} CFG files`);
+  } else {
+    cfgPaths = [cfgArg];
+    console.log(`📄 Single CFG file`);
+  }
 
-    console.log(`\n   ✅ Processed ${processedCount} AST files`);
-    console.log(`   📊 Generated ${allReports.length} method reports`);
-    
-    // Deduplicate reports
-    const deduplicatedReports = [];
-    const reportMap = new Map();
-    
-    for (const report of allReports) {
-      const key = `${report.className}.${report.methodName}`;
-      const existing = reportMap.get(key);
-      
-      if (!existing || report.energyScore > existing.energyScore) {
-        reportMap.set(key, report);
-      }
+  // Handle bytecode metrics (optional)
+  let bytecodeMetrics: Map<string, BytecodeMethodMetrics> | undefined;
+  if (opts.bytecode) {
+    const bytecodeArg = path.resolve(opts.bytecode);
+    if (!fs.existsSync(bytecodeArg)) {
+      console.error("❌ Bytecode path not found:", bytecodeArg);
+      throw new AnalysisExit(2);
     }
-    
-    deduplicatedReports.push(...reportMap.values());
-    
-    const duplicateCount = allReports.length - deduplicatedReports.length;
-    if (duplicateCount > 0) {
-      console.log(`   ✅ Deduplicated: ${deduplicatedReports.length} unique methods (removed ${duplicateCount} duplicates)`);
+    try {
+      bytecodeMetrics = resolveBytecodeMetrics(bytecodeArg, path.resolve(opts.out));
+      console.log(`🧬 Bytecode metrics loaded for ${bytecodeMetrics.size} methods`);
+    } catch (error: any) {
+      console.warn(`⚠️  Bytecode analysis unavailable, using AST heuristics: ${error.message}`);
     }
+  }
 
-    // Filter out zero energy methods if requested
-    let staticReports = deduplicatedReports;
-    if (!opts.includeZero) {
-      const beforeCount = staticReports.length;
-      staticReports = staticReports.filter(r => r.energyScore > 0);
-      const removedCount = beforeCount - staticReports.length;
-      
-      if (removedCount > 0) {
-        console.log(`   ℹ️  Filtered out ${removedCount} methods with zero energy`);
-      }
+  console.log("=".repeat(70));
+  console.log();
+
+  // STEP 1: Generate static analysis reports
+  console.log("📊 STEP 1: Static Analysis");
+  console.log("-".repeat(70));
+  
+  // Every CFG is read once into a shared index; AST files look methods up by key
+  const cfgCache = warm?.cfgs;
+  const cfgIndex = await CFGIndex.load(cfgPaths, {
+    verbose: opts.verbose,
+    loader: cfgCache && (cfgPath => cfgCache.load(cfgPath))
+  });
+  console.log(`   📊 CFG index: ${cfgIndex.size} methods from ${cfgIndex.files} files` +
+    (cfgIndex.duplicates > 0 ? ` (${cfgIndex.duplicates} duplicates skipped)` : "") +
+    (cfgIndex.failed > 0 ? `, ${cfgIndex.failed} unreadable` : "") +
+    (cfgIndex.unnamed > 0 ? `, ${cfgIndex.unnamed} without a method name` : ""));
+
+  const existingAstPaths = astPaths.filter(astPath => {
+    if (fs.existsSync(astPath)) return true;
+    console.warn("⚠️  AST file not found:", astPath);
+    return false;
+  });
+
+  if (opts.stream) {
+    await streamAnalysis(opts, existingAstPaths, cfgIndex, bytecodeMetrics, astPaths.length - existingAstPaths.length, warm);
+    return;
+  }
+
+  // Scoring runs in a worker pool; reports are de-duplicated by Class.method as they arrive
+  const scoring = await scoreProject(existingAstPaths, cfgIndex, bytecodeMetrics, {
+    workers: opts.workers ? parseInt(opts.workers, 10) : undefined,
+    verbose: opts.verbose
+  });
+  const errorCount = astPaths.length - existingAstPaths.length + scoring.failedFiles;
+  const deduplicatedReports = [...scoring.reports.values()];
+
+  console.log(`\n   ✅ Processed ${scoring.processedFiles} AST files`);
+  console.log(`   📊 Generated ${scoring.scored} method reports`);
+
+  const duplicateCount = scoring.scored - deduplicatedReports.length;
+  if (duplicateCount > 0) {
+    console.log(`   ✅ Deduplicated: ${deduplicatedReports.length} unique methods (removed ${duplicateCount} duplicates)`);
+  }
+
+  // Interprocedural pass: inclusive cost = own score + what each method triggers
+  const projectAsts: JavaASTFile[] = [];
+  for (const astPath of astPaths) {
+    try {
+      projectAsts.push(loadASTFile(astPath));
+    } catch {
+      // already reported above
     }
+  }
+  const graphStats = applyCallGraph(deduplicatedReports, projectAsts);
+  console.log(`   🔗 Call graph: ${graphStats.edges} edges between ${graphStats.methods} methods ` +
+    `(${graphStats.unresolvedCalls} unresolved calls, ${graphStats.recursiveMethods} on call cycles)`);
+
+  // Whole-program view: each method's share of a profiled run, ranked by achievable saving
+  const workload = profileWorkload(opts, deduplicatedReports);
 
-    if (staticReports.length === 0) {
-      console.error("❌ No methods found to analyze after filtering");
-      process.exit(1);
+  // Filter out zero energy methods if requested
+  let staticReports = deduplicatedReports;
+  if (!opts.includeZero) {
+    const beforeCount = staticReports.length;
+    staticReports = staticReports.filter(r => r.energyScore > 0);
+    const removedCount = beforeCount - staticReports.length;
+    
+    if (removedCount > 0) {
+      console.log(`   ℹ️  Filtered out ${removedCount} methods with zero energy`);
     }
+  }
 
-    // Create output directory
-    const outputDir = path.resolve(opts.out);
-    fs.mkdirSync(outputDir, { recursive: true });
+  if (staticReports.length === 0) {
+    console.error("❌ No methods found to analyze after filtering");
+    throw new AnalysisExit(1);
+  }
 
-    // Save static-only report first
-    const staticReportPath = path.join(outputDir, "static-analysis-report.json");
-    fs.writeFileSync(staticReportPath, JSON.stringify({
-      generatedAt: new Date().toISOString(),
-      analysisType: "static_only",
-      totalMethods: staticReports.length,
-      totalClasses: new Set(staticReports.map(r => r.className)).size,
-      statistics: {
-        totalEnergy: staticReports.reduce((sum, r) => sum + r.energyScore, 0),
-        avgEnergy: staticReports.reduce((sum, r) => sum + r.energyScore, 0) / staticReports.length,
-        methodsWithLoops: staticReports.filter(r => r.loopCount > 0).length,
-        methodsWithRecursion: staticReports.filter(r => r.recursion).length
-      },
-      reports: staticReports.sort((a, b) => b.energyScore - a.energyScore)
-    }, null, 2));
-
-    console.log(`   💾 Saved static analysis report: ${path.basename(staticReportPath)}`);
-
-    // STEP 2: Handle benchmarks - REAL EXECUTION ONLY
-    let finalReports = staticReports;
-    let hasBenchmarks = false;
-    let benchmarkResults: any[] = [];
-    let correlationResult: any = null;
-    let enhancedReports: any[] = [];
-    let benchmarkSource = "none";
-    let benchmarkFilePath = "";
-    
-    // Check for benchmark options
-    const shouldRunBenchmarks = opts.runBenchmarks || opts.estimateBenchmarks;
-    const hasBenchmarkFile = opts.benchmark && fs.existsSync(path.resolve(opts.benchmark));
-    
-    if (shouldRunBenchmarks || hasBenchmarkFile) {
-      console.log("\n📊 STEP 2: Benchmark Processing");
-      console.log("-".repeat(70));
+  // Create output directory
+  const outputDir = path.resolve(opts.out);
+  fs.mkdirSync(outputDir, { recursive: true });
+
+  // Save static-only report first
+  const staticReportPath = path.join(outputDir, "static-analysis-report.json");
+  fs.writeFileSync(staticReportPath, JSON.stringify({
+    generatedAt: new Date().toISOString(),
+    analysisType: "static_only",
+    totalMethods: staticReports.length,
+    totalClasses: new Set(staticReports.map(r => r.className)).size,
+    statistics: {
+      totalEnergy: staticReports.reduce((sum, r) => sum + r.energyScore, 0),
+      avgEnergy: staticReports.reduce((sum, r) => sum + r.energyScore, 0) / staticReports.length,
+      methodsWithLoops: staticReports.filter(r => r.loopCount > 0).length,
+      methodsWithRecursion: staticReports.filter(r => r.recursion).length
+    },
+    hotspots: [...staticReports]
+      .sort((a, b) => (b.inclusiveEnergyScore ?? b.energyScore) - (a.inclusiveEnergyScore ?? a.energyScore))
+      .slice(0, 10)
+      .map(r => ({
+        method: `${r.className}.${r.methodName}`,
+        selfEnergyScore: r.energyScore,
+        inclusiveEnergyScore: r.inclusiveEnergyScore ?? r.energyScore
+      })),
+    optimizationPriorities: workload?.priorities ?? [],
+    reports: staticReports.sort((a, b) => b.energyScore - a.energyScore)
+  }, null, 2));
+
+  console.log(`   💾 Saved static analysis report: ${path.basename(staticReportPath)}`);
+
+  const energyModel = resolveEnergyModel(opts, warm);
+
+  // STEP 2: Handle benchmarks - REAL EXECUTION ONLY
+  let finalReports = staticReports;
+  let hasBenchmarks = false;
+  let benchmarkResults: any[] = [];
+  let correlationResult: any = null;
+  let enhancedReports: any[] = [];
+  let benchmarkSource = "none";
+  let historySummary: any = null;
+  let benchmarkFilePath = "";
+  
+  // Check for benchmark options
+  const shouldRunBenchmarks = opts.runBenchmarks || opts.estimateBenchmarks;
+  const hasBenchmarkFile = opts.benchmark && fs.existsSync(path.resolve(opts.benchmark));
+  
+  if (shouldRunBenchmarks || hasBenchmarkFile) {
+    console.log("\n📊 STEP 2: Benchmark Processing");
+    console.log("-".repeat(70));
+    
+    if (opts.runBenchmarks) {
+      // AUTO-RUN REAL BENCHMARKS WITH JAVA SOURCE CODE
+      console.log("   🚀 Starting REAL benchmark execution...");
       
-      if (opts.runBenchmarks) {
-        // AUTO-RUN REAL BENCHMARKS WITH JAVA SOURCE CODE
-        console.log("   🚀 Starting REAL benchmark execution...");
+      if (!opts.sourceCode) {
+        console.error("   ❌ Error: --source-code path is required for --run-benchmarks");
+        console.log("   ℹ️  Example: --run-benchmarks --source-code ./java-src");
+        console.log("   ℹ️  Use --estimate-benchmarks for complexity-based estimates");
+        throw new AnalysisExit(1);
+      } else {
+        const sourceCodePath = path.resolve(opts.sourceCode);
         
-        if (!opts.sourceCode) {
-          console.error("   ❌ Error: --source-code path is required for --run-benchmarks");
-          console.log("   ℹ️  Example: --run-benchmarks --source-code ./java-src");
+        if (!fs.existsSync(sourceCodePath)) {
+          console.error(`   ❌ Source code directory not found: ${sourceCodePath}`);
           console.log("   ℹ️  Use --estimate-benchmarks for complexity-based estimates");
-          process.exit(1);
+          throw new AnalysisExit(1);
         } else {
-          const sourceCodePath = path.resolve(opts.sourceCode);
+          console.log(`   📁 Using source code from: ${sourceCodePath}`);
           
-          if (!fs.existsSync(sourceCodePath)) {
-            console.error(`   ❌ Source code directory not found: ${sourceCodePath}`);
-            console.log("   ℹ️  Use --estimate-benchmarks for complexity-based estimates");
-            process.exit(1);
-          } else {
-            console.log(`   📁 Using source code from: ${sourceCodePath}`);
+          try {
+            // Run REAL benchmarks with source code
+            benchmarkFilePath = await runRealBenchmarks(staticReports, outputDir, sourceCodePath, {
+              concurrency: opts.concurrencyBench
+            }, opts.offline);
+            benchmarkSource = "real-jmh-execution";
+            console.log(`   ✅ REAL benchmarks completed: ${benchmarkFilePath}`);
+          } catch (error: any) {
+            console.error(`   ❌ REAL benchmark execution failed: ${error.message}`);
+            console.log("   ℹ️  Falling back to complexity-based estimates...");
             
-            try {
-              // Run REAL benchmarks with source code
-              benchmarkFilePath = await runRealBenchmarks(staticReports, outputDir, sourceCodePath);
-              benchmarkSource = "real-jmh-execution";
-              console.log(`   ✅ REAL benchmarks completed: ${benchmarkFilePath}`);
-            } catch (error: any) {
-              console.error(`   ❌ REAL benchmark execution failed: ${error.message}`);
-              console.log("   ℹ️  Falling back to complexity-based estimates...");
-              
-              // Generate estimated data based on complexity
-              benchmarkFilePath = generateComplexityBasedResultsForReports(staticReports, outputDir);
-              benchmarkSource = "complexity-estimated";
-            }
+            // Generate estimated data based on complexity
+            benchmarkFilePath = generateComplexityBasedResultsForReports(staticReports, outputDir, energyModel);
+            benchmarkSource = energyModel ? "model-estimated" : "complexity-estimated";
           }
         }
       }
+    }
+    
+    if (opts.estimateBenchmarks) {
+      // COMPLEXITY-BASED ESTIMATES (not mock!)
+      console.log("   📊 Generating complexity-based estimates...");
+      benchmarkFilePath = generateComplexityBasedResultsForReports(staticReports, outputDir, energyModel);
+      benchmarkSource = energyModel ? "model-estimated" : "complexity-estimated";
       
-      if (opts.estimateBenchmarks) {
-        // COMPLEXITY-BASED ESTIMATES (not mock!)
-        console.log("   📊 Generating complexity-based estimates...");
-        benchmarkFilePath = generateComplexityBasedResultsForReports(staticReports, outputDir);
-        benchmarkSource = "complexity-estimated";
-        
-      } else if (hasBenchmarkFile && !benchmarkFilePath) {
-        // EXISTING BENCHMARK FILE
-        benchmarkFilePath = path.resolve(opts.benchmark);
-        benchmarkSource = "provided file";
-      }
+    } else if (hasBenchmarkFile && !benchmarkFilePath) {
+      // EXISTING BENCHMARK FILE
+      benchmarkFilePath = path.resolve(opts.benchmark);
+      benchmarkSource = "provided file";
+    }
+    
+    // Load benchmark results
+    try {
+      console.log(`   📂 Loading benchmarks from: ${benchmarkFilePath}`);
+      benchmarkResults = loadJavaBenchmarkResults(benchmarkFilePath);
       
-      // Load benchmark results
-      try {
-        console.log(`   📂 Loading benchmarks from: ${benchmarkFilePath}`);
-        benchmarkResults = loadJavaBenchmarkResults(benchmarkFilePath);
-        
-        // 🔥 FIX: Filter out invalid benchmark results
-        const validBenchmarkResults = benchmarkResults.filter(b => 
-          b && 
-          b.className && 
-          b.methodName && 
-          typeof b.medianMs === 'number' && 
-          !isNaN(b.medianMs) && 
-          b.medianMs > 0
-        );
+      // 🔥 FIX: Filter out invalid benchmark results
+      const validBenchmarkResults = benchmarkResults.filter(b => 
+        b && 
+        b.className && 
+        b.methodName && 
+        typeof b.medianMs === 'number' && 
+        !isNaN(b.medianMs) && 
+        b.medianMs > 0
+      );
+      
+      console.log(`   ✅ Loaded ${validBenchmarkResults.length} valid benchmark results (filtered from ${benchmarkResults.length})`);
+      
+      if (validBenchmarkResults.length > 0) {
+        // Merge static with benchmarks
+        console.log(`\n   🔄 Merging static analysis with benchmarks...`);
+        enhancedReports = mergeStaticWithBenchmarks(staticReports, validBenchmarkResults);
         
-        console.log(`   ✅ Loaded ${validBenchmarkResults.length} valid benchmark results (filtered from ${benchmarkResults.length})`);
+        // Calculate correlation
+        console.log(`   📈 Calculating correlation...`);
+        correlationResult = calculateCorrelation(staticReports, validBenchmarkResults);
         
-        if (validBenchmarkResults.length > 0) {
-          // Merge static with benchmarks
-          console.log(`\n   🔄 Merging static analysis with benchmarks...`);
-          enhancedReports = mergeStaticWithBenchmarks(staticReports, validBenchmarkResults);
-          
-          // Calculate correlation
-          console.log(`   📈 Calculating correlation...`);
-          correlationResult = calculateCorrelation(staticReports, validBenchmarkResults);
-          
-          console.log(`   📊 Correlation: ${correlationResult.correlationCoefficient.toFixed(3)}`);
-          if (correlationResult.insights) {
-            correlationResult.insights.forEach((insight: string) => {
-              console.log(`      • ${insight}`);
-            });
-          }
-          
-          // Use enhanced reports
-          finalReports = enhancedReports;
-          hasBenchmarks = true;
-          
-          // Save enhanced report
-          const enhancedReportPath = path.join(outputDir, "enhanced-energy-report.json");
-          saveEnhancedReport(enhancedReports, enhancedReportPath, {
-            astFiles: astPaths.length,
-            cfgFiles: cfgPaths.length,
-            benchmarkResults: validBenchmarkResults.length,
-            benchmarkSource: benchmarkSource,
-            deduplicationApplied: duplicateCount > 0,
-            duplicatesRemoved: duplicateCount
+        console.log(`   📊 Correlation: ${correlationResult.correlationCoefficient.toFixed(3)}`);
+        if (correlationResult.insights) {
+          correlationResult.insights.forEach((insight: string) => {
+            console.log(`      • ${insight}`);
           });
-          
-          console.log(`   💾 Saved enhanced report: ${path.basename(enhancedReportPath)}`);
-        } else {
-          console.log(`   ℹ️  No valid benchmark data found, using static analysis only`);
         }
-      } catch (error: any) {
-        console.error(`   ❌ Failed to process benchmarks: ${error.message}`);
-        console.log("   ℹ️  Continuing with static analysis only...");
+        
+        // Use enhanced reports
+        finalReports = enhancedReports;
+        hasBenchmarks = true;
+        
+        // Compare with previous runs of the same project (measured data only)
+        const projectId = projectIdFrom(opts);
+        if (opts.history && projectId && !ESTIMATED_BENCHMARK_SOURCES.has(benchmarkSource)) {
+          historySummary = compareWithHistory(projectId, opts.historyDir, benchmarkSource, validBenchmarkResults, staticReports, warm);
+        }
+        
+        // Save enhanced report
+        const enhancedReportPath = path.join(outputDir, "enhanced-energy-report.json");
+        saveEnhancedReport(enhancedReports, enhancedReportPath, {
+          astFiles: astPaths.length,
+          cfgFiles: cfgPaths.length,
+          benchmarkResults: validBenchmarkResults.length,
+          benchmarkSource: benchmarkSource,
+          deduplicationApplied: duplicateCount > 0,
+          duplicatesRemoved: duplicateCount
+        });
+        
+        console.log(`   💾 Saved enhanced report: ${path.basename(enhancedReportPath)}`);
+      } else {
+        console.log(`   ℹ️  No valid benchmark data found, using static analysis only`);
       }
-    } else {
-      console.log("\n📊 STEP 2: Benchmarks");
-      console.log("-".repeat(70));
-      console.log("   ℹ️  No benchmarks provided - using static analysis only");
-      console.log("   💡 Tip: Use --run-benchmarks --source-code <path> to run REAL benchmarks");
-      console.log("   💡 Tip: Use --estimate-benchmarks for complexity-based estimates\n");
+    } catch (error: any) {
+      console.error(`   ❌ Failed to process benchmarks: ${error.message}`);
+      console.log("   ℹ️  Continuing with static analysis only...");
     }
+  } else {
+    console.log("\n📊 STEP 2: Benchmarks");
+    console.log("-".repeat(70));
+    console.log("   ℹ️  No benchmarks provided - using static analysis only");
+    console.log("   💡 Tip: Use --run-benchmarks --source-code <path> to run REAL benchmarks");
+    console.log("   💡 Tip: Use --estimate-benchmarks for complexity-based estimates\n");
+  }
+
+  // If no benchmarks were processed, create enhanced structure anyway
+  if (!hasBenchmarks) {
+    enhancedReports = staticReports.map(report => ({
+      ...report,
+      staticEnergyScore: report.energyScore,
+      combinedEnergyScore: report.energyScore,
+      confidenceLevel: "low"
+    }));
+    finalReports = enhancedReports;
+  }
 
-    // If no benchmarks were processed, create enhanced structure anyway
-    if (!hasBenchmarks) {
-      enhancedReports = staticReports.map(report => ({
-        ...report,
-        staticEnergyScore: report.energyScore,
-        combinedEnergyScore: report.energyScore,
-        confidenceLevel: "low"
-      }));
-      finalReports = enhancedReports;
+  // Methods without a measurement get a calibrated time/energy prediction
+  let predictedMethods = 0;
+  if (energyModel) {
+    const staticByKey = new Map(staticReports.map(r => [`${r.className}.${r.methodName}`.toLowerCase(), r]));
+    for (const report of enhancedReports) {
+      if (report.confidenceLevel === "high") continue;
+      const staticReport = staticByKey.get(`${report.className}.${report.methodName}`.toLowerCase());
+      if (!staticReport) continue;
+      Object.assign(report, predictEnergy(energyModel, staticReport));
+      predictedMethods++;
     }
+    console.log(`\n   🧮 Predicted time and energy for ${predictedMethods} unbenchmarked methods (model ${energyModel.modelId})`);
+  }
 
-    // STEP 3: Generate combined report
-    console.log("\n📈 STEP 3: Generate Combined Report");
-    console.log("-".repeat(70));
+  // Production footprint: call rates from the deployment profile times joules per op
+  const deployment = projectDeploymentFootprint(opts, enhancedReports, graphStats.graph, benchmarkSource);
+
+  // STEP 3: Generate combined report
+  console.log("\n📈 STEP 3: Generate Combined Report");
+  console.log("-".repeat(70));
 
-    const combinedReportPath = path.join(outputDir, "combined-analysis-report.json");
+  const combinedReportPath = path.join(outputDir, "combined-analysis-report.json");
+  
+  // Create the complete CombinedReport object
+  const combinedReport: CombinedReport = {
+    metadata: {
+      reportType: "combined_static_dynamic_energy_analysis",
+      generatedAt: new Date().toISOString(),
+      toolVersion: "greencode-energy-analyze-v0.5.0",
+      analysisMode: hasBenchmarks ? "static_with_benchmarks" : "static_only",
+      benchmarkSource: benchmarkSource,
+      dataSources: {
+        astFiles: astPaths.length,
+        cfgFiles: cfgPaths.length,
+        benchmarkFiles: hasBenchmarks ? 1 : 0,
+        hasBenchmarks: hasBenchmarks,
+        benchmarkCoverage: hasBenchmarks 
+          ? `${((enhancedReports.filter((r: any) => r.confidenceLevel === "high").length / enhancedReports.length) * 100).toFixed(1)}%`
+          : "0%",
+        benchmarkMethodsCount: hasBenchmarks 
+          ? enhancedReports.filter((r: any) => r.confidenceLevel === "high").length 
+          : 0,
+        staticOnlyMethodsCount: hasBenchmarks 
+          ? enhancedReports.filter((r: any) => r.confidenceLevel !== "high").length 
+          : enhancedReports.length
+      }
+    },
     
-    // Create the complete CombinedReport object
-    const combinedReport: CombinedReport = {
-      metadata: {
-        reportType: "combined_static_dynamic_energy_analysis",
-        generatedAt: new Date().toISOString(),
-        toolVersion: "greencode-energy-analyze-v0.5.0",
-        analysisMode: hasBenchmarks ? "static_with_benchmarks" : "static_only",
-        benchmarkSource: benchmarkSource,
-        dataSources: {
-          astFiles: astPaths.length,
-          cfgFiles: cfgPaths.length,
-          benchmarkFiles: hasBenchmarks ? 1 : 0,
-          hasBenchmarks: hasBenchmarks,
-          benchmarkCoverage: hasBenchmarks 
-            ? `${((enhancedReports.filter((r: any) => r.confidenceLevel === "high").length / enhancedReports.length) * 100).toFixed(1)}%`
-            : "0%",
-          benchmarkMethodsCount: hasBenchmarks 
-            ? enhancedReports.filter((r: any) => r.confidenceLevel === "high").length 
-            : 0,
-          staticOnlyMethodsCount: hasBenchmarks 
-            ? enhancedReports.filter((r: any) => r.confidenceLevel !== "high").length 
-            : enhancedReports.length
-        }
+    summary: {
+      totalClasses: new Set(finalReports.map((r: any) => r.className)).size,
+      totalMethods: finalReports.length,
+      analysisScope: {
+        methodsAnalyzed: finalReports.length,
+        methodsWithBenchmarks: hasBenchmarks 
+          ? enhancedReports.filter((r: any) => r.confidenceLevel === "high").length 
+          : 0,
+        methodsStaticOnly: hasBenchmarks 
+          ? enhancedReports.filter((r: any) => r.confidenceLevel !== "high").length 
+          : finalReports.length
       },
-      
-      summary: {
-        totalClasses: new Set(finalReports.map((r: any) => r.className)).size,
-        totalMethods: finalReports.length,
-        analysisScope: {
-          methodsAnalyzed: finalReports.length,
-          methodsWithBenchmarks: hasBenchmarks 
-            ? enhancedReports.filter((r: any) => r.confidenceLevel === "high").length 
-            : 0,
-          methodsStaticOnly: hasBenchmarks 
-            ? enhancedReports.filter((r: any) => r.confidenceLevel !== "high").length 
-            : finalReports.length
-        },
-        energyOverview: {
-          totalStaticEnergy: enhancedReports.reduce((sum: number, r: any) => sum + r.staticEnergyScore, 0),
-          totalRuntimeEnergy: hasBenchmarks 
-            ? enhancedReports.filter((r: any) => r.runtimeEnergyScore)
-                .reduce((sum: number, r: any) => sum + (r.runtimeEnergyScore || 0), 0)
-            : 0,
-          totalCombinedEnergy: enhancedReports.reduce((sum: number, r: any) => sum + r.combinedEnergyScore, 0),
-          avgCombinedEnergy: enhancedReports.reduce((sum: number, r: any) => sum + r.combinedEnergyScore, 0) / enhancedReports.length,
-          maxEnergyMethod: enhancedReports.sort((a: any, b: any) => b.combinedEnergyScore - a.combinedEnergyScore)[0]?.methodName || "N/A",
-          maxEnergyScore: Math.max(...enhancedReports.map((r: any) => r.combinedEnergyScore))
-        }
-      },
-      
-      correlationAnalysis: hasBenchmarks ? correlationResult : {
-        correlationCoefficient: 0,
-        pairedCount: 0,
-        insights: ["No benchmark data available for correlation analysis"],
-        confidence: "low"
+      energyOverview: {
+        totalStaticEnergy: enhancedReports.reduce((sum: number, r: any) => sum + r.staticEnergyScore, 0),
+        totalRuntimeEnergy: hasBenchmarks 
+          ? enhancedReports.filter((r: any) => r.runtimeEnergyScore)
+              .reduce((sum: number, r: any) => sum + (r.runtimeEnergyScore || 0), 0)
+          : 0,
+        totalCombinedEnergy: enhancedReports.reduce((sum: number, r: any) => sum + r.combinedEnergyScore, 0),
+        avgCombinedEnergy: enhancedReports.reduce((sum: number, r: any) => sum + r.combinedEnergyScore, 0) / enhancedReports.length,
+        maxEnergyMethod: enhancedReports.sort((a: any, b: any) => b.combinedEnergyScore - a.combinedEnergyScore)[0]?.methodName || "N/A",
+        maxEnergyScore: Math.max(...enhancedReports.map((r: any) => r.combinedEnergyScore))
+      }
+    },
+    
+    correlationAnalysis: hasBenchmarks ? correlationResult : {
+      correlationCoefficient: 0,
+      pairedCount: 0,
+      insights: ["No benchmark data available for correlation analysis"],
+      confidence: "low"
+    },
+    
+    statistics: {
+      energyDistribution: {
+        highEnergy: enhancedReports.filter((r: any) => r.combinedEnergyScore > 0.5).length,
+        mediumEnergy: enhancedReports.filter((r: any) => {
+          const score = r.combinedEnergyScore;
+          return score >= 0.3 && score <= 0.5;
+        }).length,
+        lowEnergy: enhancedReports.filter((r: any) => r.combinedEnergyScore < 0.3).length
       },
-      
-      statistics: {
-        energyDistribution: {
-          highEnergy: enhancedReports.filter((r: any) => r.combinedEnergyScore > 0.5).length,
-          mediumEnergy: enhancedReports.filter((r: any) => {
-            const score = r.combinedEnergyScore;
-            return score >= 0.3 && score <= 0.5;
-          }).length,
-          lowEnergy: enhancedReports.filter((r: any) => r.combinedEnergyScore < 0.3).length
-        },
-        complexityMetrics: {
-          methodsWithLoops: enhancedReports.filter((r: any) => r.loopCount > 0).length,
-          methodsWithRecursion: enhancedReports.filter((r: any) => r.recursion).length,
-          avgLoopCount: enhancedReports.reduce((sum: number, r: any) => sum + r.loopCount, 0) / enhancedReports.length,
-          avgNestingDepth: enhancedReports.reduce((sum: number, r: any) => sum + r.nestingDepth, 0) / enhancedReports.length,
-          maxNestingDepth: Math.max(...enhancedReports.map((r: any) => r.nestingDepth))
-        },
-        performanceMetrics: hasBenchmarks ? {
-          methodsWithBenchmarks: enhancedReports.filter((r: any) => r.confidenceLevel === "high").length,
-          avgExecutionTime: enhancedReports.filter((r: any) => r.medianMs)
-            .reduce((sum: number, r: any) => sum + (r.medianMs || 0), 0) / 
-            enhancedReports.filter((r: any) => r.medianMs).length,
-          totalBenchmarkRuns: enhancedReports.reduce((sum: number, r: any) => sum + (r.benchmarkRuns || 0), 0)
-        } : null
+      complexityMetrics: {
+        methodsWithLoops: enhancedReports.filter((r: any) => r.loopCount > 0).length,
+        methodsWithRecursion: enhancedReports.filter((r: any) => r.recursion).length,
+        avgLoopCount: enhancedReports.reduce((sum: number, r: any) => sum + r.loopCount, 0) / enhancedReports.length,
+        avgNestingDepth: enhancedReports.reduce((sum: number, r: any) => sum + r.nestingDepth, 0) / enhancedReports.length,
+        maxNestingDepth: Math.max(...enhancedReports.map((r: any) => r.nestingDepth))
       },
-      
-      topEnergyConsumers: enhancedReports
-        .sort((a: any, b: any) => b.combinedEnergyScore - a.combinedEnergyScore)
-        .slice(0, 10)
-        .map((r: any) => ({
-          className: r.className,
-          methodName: r.methodName,
-          staticEnergyScore: r.staticEnergyScore,
-          runtimeEnergyScore: r.runtimeEnergyScore,
-          combinedEnergyScore: r.combinedEnergyScore,
-          executionTime: r.medianMs,
-          loopCount: r.loopCount,
-          nestingDepth: r.nestingDepth,
-          hasBenchmark: r.confidenceLevel === "high"
-        })),
-      
-      reports: enhancedReports.sort((a: any, b: any) => b.combinedEnergyScore - a.combinedEnergyScore)
-    };
+      performanceMetrics: hasBenchmarks ? {
+        methodsWithBenchmarks: enhancedReports.filter((r: any) => r.confidenceLevel === "high").length,
+        avgExecutionTime: enhancedReports.filter((r: any) => r.medianMs)
+          .reduce((sum: number, r: any) => sum + (r.medianMs || 0), 0) / 
+          enhancedReports.filter((r: any) => r.medianMs).length,
+        totalBenchmarkRuns: enhancedReports.reduce((sum: number, r: any) => sum + (r.benchmarkRuns || 0), 0)
+      } : null
+    },
+    
+    topEnergyConsumers: enhancedReports
+      .sort((a: any, b: any) => b.combinedEnergyScore - a.combinedEnergyScore)
+      .slice(0, 10)
+      .map((r: any) => ({
+        className: r.className,
+        methodName: r.methodName,
+        staticEnergyScore: r.staticEnergyScore,
+        runtimeEnergyScore: r.runtimeEnergyScore,
+        combinedEnergyScore: r.combinedEnergyScore,
+        executionTime: r.medianMs,
+        loopCount: r.loopCount,
+        nestingDepth: r.nestingDepth,
+        hasBenchmark: r.confidenceLevel === "high"
+      })),
     
-    fs.writeFileSync(combinedReportPath, JSON.stringify(combinedReport, null, 2));
-    console.log(`   ✅ Generated combined report: ${path.basename(combinedReportPath)}`);
+    history: historySummary,
 
-    // Generate per-class reports
-    if (opts.perClass) {
-      console.log("\n   📝 Generating per-class reports...");
-      const classesByName = new Map<string, any[]>();
-      
-      for (const report of enhancedReports) {
-        if (!classesByName.has(report.className)) {
-          classesByName.set(report.className, []);
-        }
-        classesByName.get(report.className)!.push(report);
+    energyModel: energyModel ? {
+      modelId: energyModel.modelId,
+      trainingSamples: energyModel.training.samples,
+      predictedMethods
+    } : null,
+
+    workload: workload ? {
+      mainClass: workload.mainClass,
+      samples: workload.samples,
+      wallMs: workload.wallMs,
+      cpuMs: workload.cpuMs,
+      coverage: workload.coverage,
+      profiledMethods: workload.profiledMethods
+    } : null,
+    optimizationPriorities: workload?.priorities ?? [],
+    deployment,
+    
+    reports: enhancedReports.sort((a: any, b: any) => b.combinedEnergyScore - a.combinedEnergyScore)
+  };
+  
+  fs.writeFileSync(combinedReportPath, JSON.stringify(combinedReport, null, 2));
+  console.log(`   ✅ Generated combined report: ${path.basename(combinedReportPath)}`);
+
+  // Compact per-method records, so greencode-energy-diff never reloads the report tree
+  const methodIndex = new MethodIndexWriter(outputDir, { project: projectIdFrom(opts), benchmarkSource });
+  const benchmarkByKey = new Map(benchmarkResults.filter(b => b && b.className && b.methodName)
+    .map(b => [`${b.className}.${b.methodName}`.toLowerCase(), b] as [string, JavaBenchmarkResult]));
+  for (const report of enhancedReports) {
+    methodIndex.add(report, benchmarkByKey.get(`${report.className}.${report.methodName}`.toLowerCase()));
+  }
+  methodIndex.close();
+  console.log(`   ✅ Indexed ${methodIndex.records} methods: ${METHOD_INDEX_FILE}`);
+
+  // Generate per-class reports
+  if (opts.perClass) {
+    console.log("\n   📝 Generating per-class reports...");
+    const classesByName = new Map<string, any[]>();
+    
+    for (const report of enhancedReports) {
+      if (!classesByName.has(report.className)) {
+        classesByName.set(report.className, []);
       }
+      classesByName.get(report.className)!.push(report);
+    }
+    
+    for (const [className, classReports] of classesByName.entries()) {
+      const classReportPath = path.join(outputDir, `${className}-energy-report.json`);
       
-      for (const [className, classReports] of classesByName.entries()) {
-        const classReportPath = path.join(outputDir, `${className}-energy-report.json`);
-        
-        const withBenchmarks = classReports.filter((r: any) => r.confidenceLevel === "high").length;
-        
-        const classStats = {
-          totalEnergy: classReports.reduce((sum, r) => sum + r.combinedEnergyScore, 0),
-          avgEnergy: classReports.reduce((sum, r) => sum + r.combinedEnergyScore, 0) / classReports.length,
-          maxEnergy: Math.max(...classReports.map(r => r.combinedEnergyScore)),
-          minEnergy: Math.min(...classReports.map(r => r.combinedEnergyScore)),
-          methodsWithLoops: classReports.filter(r => r.loopCount > 0).length,
-          methodsWithRecursion: classReports.filter(r => r.recursion).length,
-          highEnergyMethods: classReports.filter(r => r.combinedEnergyScore > 0.5).length,
-          withBenchmarks: withBenchmarks
-        };
-        
-        let benchmarkStats = null;
-        if (hasBenchmarks && withBenchmarks > 0) {
-          const benchmarkedMethods = classReports.filter((r: any) => r.medianMs !== undefined);
-          benchmarkStats = {
-            methodsWithBenchmarks: withBenchmarks,
-            methodsStaticOnly: classReports.length - withBenchmarks,
-            avgExecutionTime: benchmarkedMethods.length > 0
-              ? benchmarkedMethods.reduce((sum: number, r: any) => sum + r.medianMs, 0) / benchmarkedMethods.length
-              : 0,
-            avgStaticEnergy: classReports.reduce((sum, r) => sum + r.staticEnergyScore, 0) / classReports.length,
-            avgRuntimeEnergy: benchmarkedMethods.length > 0
-              ? benchmarkedMethods.reduce((sum: number, r: any) => sum + (r.runtimeEnergyScore || 0), 0) / benchmarkedMethods.length
-              : 0,
-            avgCombinedEnergy: classReports.reduce((sum, r) => sum + r.combinedEnergyScore, 0) / classReports.length
-          };
-        }
-        
-        const classOutput = {
-          generatedAt: new Date().toISOString(),
-          className: className,
-          totalMethods: classReports.length,
-          hasBenchmarks: hasBenchmarks && withBenchmarks > 0,
-          statistics: classStats,
-          benchmarkStatistics: benchmarkStats,
-          reports: classReports.sort((a: any, b: any) => b.combinedEnergyScore - a.combinedEnergyScore)
+      const withBenchmarks = classReports.filter((r: any) => r.confidenceLevel === "high").length;
+      
+      const classStats = {
+        totalEnergy: classReports.reduce((sum, r) => sum + r.combinedEnergyScore, 0),
+        avgEnergy: classReports.reduce((sum, r) => sum + r.combinedEnergyScore, 0) / classReports.length,
+        maxEnergy: Math.max(...classReports.map(r => r.combinedEnergyScore)),
+        minEnergy: Math.min(...classReports.map(r => r.combinedEnergyScore)),
+        methodsWithLoops: classReports.filter(r => r.loopCount > 0).length,
+        methodsWithRecursion: classReports.filter(r => r.recursion).length,
+        highEnergyMethods: classReports.filter(r => r.combinedEnergyScore > 0.5).length,
+        withBenchmarks: withBenchmarks
+      };
+      
+      let benchmarkStats = null;
+      if (hasBenchmarks && withBenchmarks > 0) {
+        const benchmarkedMethods = classReports.filter((r: any) => r.medianMs !== undefined);
+        benchmarkStats = {
+          methodsWithBenchmarks: withBenchmarks,
+          methodsStaticOnly: classReports.length - withBenchmarks,
+          avgExecutionTime: benchmarkedMethods.length > 0
+            ? benchmarkedMethods.reduce((sum: number, r: any) => sum + r.medianMs, 0) / benchmarkedMethods.length
+            : 0,
+          avgStaticEnergy: classReports.reduce((sum, r) => sum + r.staticEnergyScore, 0) / classReports.length,
+          avgRuntimeEnergy: benchmarkedMethods.length > 0
+            ? benchmarkedMethods.reduce((sum: number, r: any) => sum + (r.runtimeEnergyScore || 0), 0) / benchmarkedMethods.length
+            : 0,
+          avgCombinedEnergy: classReports.reduce((sum, r) => sum + r.combinedEnergyScore, 0) / classReports.length
         };
-        
-        fs.writeFileSync(classReportPath, JSON.stringify(classOutput, null, 2));
-        
-        const benchInfo = hasBenchmarks && withBenchmarks > 0 
-          ? ` (${withBenchmarks}/${classReports.length} with benchmarks)`
-          : "";
-        console.log(`      ✓ ${className}: ${classReports.length} methods, avg: ${classStats.avgEnergy.toFixed(3)}${benchInfo}`);
       }
       
-      console.log(`   ✅ Generated ${classesByName.size} class reports`);
+      const classOutput = {
+        generatedAt: new Date().toISOString(),
+        className: className,
+        totalMethods: classReports.length,
+        hasBenchmarks: hasBenchmarks && withBenchmarks > 0,
+        statistics: classStats,
+        benchmarkStatistics: benchmarkStats,
+        deployment: deployment?.classes[className] ?? null,
+        reports: classReports.sort((a: any, b: any) => b.combinedEnergyScore - a.combinedEnergyScore)
+      };
+      
+      fs.writeFileSync(classReportPath, JSON.stringify(classOutput, null, 2));
+      
+      const benchInfo = hasBenchmarks && withBenchmarks > 0 
+        ? ` (${withBenchmarks}/${classReports.length} with benchmarks)`
+        : "";
+      console.log(`      ✓ ${className}: ${classReports.length} methods, avg: ${classStats.avgEnergy.toFixed(3)}${benchInfo}`);
     }
+    
+    console.log(`   ✅ Generated ${classesByName.size} class reports`);
+  }
 
-    // Generate per-method reports
-    if (opts.perMethod) {
-      console.log("\n   📝 Generating per-method reports...");
-      for (const report of enhancedReports) {
-        const methodReportPath = path.join(
-          outputDir, 
-          `${report.className}_${report.methodName}-energy.json`
-        );
-        fs.writeFileSync(methodReportPath, JSON.stringify(report, null, 2));
-      }
-      console.log(`   ✅ Generated ${enhancedReports.length} method reports`);
+  // Generate per-method reports
+  if (opts.perMethod) {
+    console.log("\n   📝 Generating per-method reports...");
+    for (const report of enhancedReports) {
+      const methodReportPath = path.join(
+        outputDir, 
+        `${report.className}_${report.methodName}-energy.json`
+      );
+      fs.writeFileSync(methodReportPath, JSON.stringify(report, null, 2));
     }
+    console.log(`   ✅ Generated ${enhancedReports.length} method reports`);
+  }
+
+  // Final summary
+  console.log("\n" + "=".repeat(70));
+  console.log("✨ Analysis Complete!");
+  console.log("=".repeat(70));
+  console.log(`📂 Output directory: ${outputDir}`);
+  console.log(`\n📊 Analysis Summary:`);
+  console.log(`   • Total methods: ${enhancedReports.length}`);
+  console.log(`   • Classes analyzed: ${combinedReport.summary.totalClasses}`);
+  console.log(`   • Average combined energy: ${combinedReport.summary.energyOverview.avgCombinedEnergy.toFixed(3)}`);
+  console.log(`   • Benchmark source: ${combinedReport.metadata.benchmarkSource}`);
+  
+  if (hasBenchmarks) {
+    console.log(`\n⏱️  Benchmark Integration:`);
+    console.log(`   • Methods with benchmarks: ${combinedReport.statistics.performanceMetrics?.methodsWithBenchmarks || 0}`);
+    console.log(`   • Benchmark coverage: ${combinedReport.metadata.dataSources.benchmarkCoverage}`);
+    console.log(`   • Correlation with static analysis: ${combinedReport.correlationAnalysis.correlationCoefficient.toFixed(3)}`);
+  }
+  
+  console.log("\n📖 Reports Generated:");
+  console.log(`   • combined-analysis-report.json (main report)`);
+  console.log(`   • ${METHOD_INDEX_FILE} (per-method records for greencode-energy-diff)`);
+  console.log(`   • static-analysis-report.json (static only)`);
+  if (hasBenchmarks) {
+    console.log(`   • enhanced-energy-report.json (with ${combinedReport.metadata.benchmarkSource} benchmarks)`);
+    console.log(`   • benchmark-results*.json (benchmark data)`);
+  }
+  
+  // Show top energy consumers
+  if (combinedReport.topEnergyConsumers.length > 0) {
+    console.log("\n🔥 Top 3 Energy Consumers:");
+    combinedReport.topEnergyConsumers.slice(0, 3).forEach((method, i) => {
+      const benchmarkIcon = method.hasBenchmark ? "📊" : "📄";
+      const timeInfo = method.hasBenchmark && method.executionTime ? ` | ${method.executionTime.toFixed(2)}ms` : "";
+      console.log(`   ${i + 1}. ${method.className}.${method.methodName} ${benchmarkIcon}`);
+      console.log(`      Energy: ${method.combinedEnergyScore.toFixed(3)}${timeInfo}`);
+    });
+  }
+  
+  if (deployment && deployment.topSavings.length > 0) {
+    console.log(`\n🌍 Top 3 Savings Opportunities (${deployment.profile}, per month):`);
+    deployment.topSavings.slice(0, 3).forEach((s, i) => {
+      console.log(`   ${i + 1}. ${s.method}: ${s.kwh} kWh, ${s.co2eKg} kg CO2e, $${s.usd} ` +
+        `(${s.callsPerSecond} calls/s × ${s.joulesPerOp.toPrecision(3)} J, ${s.joulesSource})`);
+    });
+  }
+
+  if (historySummary && historySummary.events.length > 0) {
+    console.log(`\n📉 Changes vs previous runs (${historySummary.project}):`);
+    historySummary.events.slice(0, 5).forEach((e: HistoryEvent) => {
+      const icon = e.type === "regression" ? "🔺" : "🔻";
+      const cause = e.sourceChanged ? " (code changed)" : "";
+      console.log(`   ${icon} ${e.className}.${e.methodName}: ${e.changePct > 0 ? "+" : ""}${e.changePct}% ` +
+        `[${e.ciLowPct}%, ${e.ciHighPct}%] ${e.baselineMedianMs.toFixed(3)}ms → ${e.currentMedianMs.toFixed(3)}ms${cause}`);
+    });
+  }
+  
+  if (errorCount > 0) {
+    console.warn(`\n⚠️  Warning: ${errorCount} files failed to process`);
+  }
+  
+  console.log("\n✅ Done!");
+  
+  if (!hasBenchmarks && !(opts.runBenchmarks || opts.estimateBenchmarks)) {
+    console.log(`💡 Add --run-benchmarks --source-code <path> to run REAL benchmarks`);
+    console.log(`💡 Add --estimate-benchmarks for complexity-based estimates`);
+    console.log(`💡 Add -b <file> to use existing benchmark file`);
+  }
+}
+
+/** Project id for history and the method index: --project, else the --source-code folder name */
+function projectIdFrom(opts: any): string | null {
+  return opts.project || (opts.sourceCode ? path.basename(path.resolve(opts.sourceCode)) : null);
+}
 
-    // Final summary
-    console.log("\n" + "=".repeat(70));
-    console.log("✨ Analysis Complete!");
-    console.log("=".repeat(70));
-    console.log(`📂 Output directory: ${outputDir}`);
-    console.log(`\n📊 Analysis Summary:`);
-    console.log(`   • Total methods: ${enhancedReports.length}`);
-    console.log(`   • Classes analyzed: ${combinedReport.summary.totalClasses}`);
-    console.log(`   • Average combined energy: ${combinedReport.summary.energyOverview.avgCombinedEnergy.toFixed(3)}`);
-    console.log(`   • Benchmark source: ${combinedReport.metadata.benchmarkSource}`);
-    
-    if (hasBenchmarks) {
-      console.log(`\n⏱️  Benchmark Integration:`);
-      console.log(`   • Methods with benchmarks: ${combinedReport.statistics.performanceMetrics?.methodsWithBenchmarks || 0}`);
-      console.log(`   • Benchmark coverage: ${combinedReport.metadata.dataSources.benchmarkCoverage}`);
-      console.log(`   • Correlation with static analysis: ${combinedReport.correlationAnalysis.correlationCoefficient.toFixed(3)}`);
+// Record this run in the project's history and report significant changes
+function compareWithHistory(
+  project: string,
+  historyDir: string | undefined,
+  benchmarkSource: string,
+  results: any[],
+  staticReports: any[],
+  warm?: WarmCaches
+): CombinedReport["history"] {
+  try {
+    const sourceHashes = new Map<string, string | undefined>();
+    const features = new Map<string, Record<string, number>>();
+    for (const r of staticReports) {
+      const key = `${r.className}.${r.methodName}`.toLowerCase();
+      sourceHashes.set(key, r.sourceHash);
+      features.set(key, methodFeatures(r));
     }
     
-    console.log("\n📖 Reports Generated:");
-    console.log(`   • combined-analysis-report.json (main report)`);
-    console.log(`   • static-analysis-report.json (static only)`);
-    if (hasBenchmarks) {
-      console.log(`   • enhanced-energy-report.json (with ${combinedReport.metadata.benchmarkSource} benchmarks)`);
-      console.log(`   • benchmark-results*.json (benchmark data)`);
-    }
+    const run = buildRun(project, benchmarkSource, results, sourceHashes, features);
+    const { historyPath, previousRuns, events } = recordAndCompare(resolveHistoryDir(historyDir), run, {}, warm?.history);
+    const regressions = events.filter(e => e.type === "regression").length;
     
-    // Show top energy consumers
-    if (combinedReport.topEnergyConsumers.length > 0) {
-      console.log("\n🔥 Top 3 Energy Consumers:");
-      combinedReport.topEnergyConsumers.slice(0, 3).forEach((method, i) => {
-        const benchmarkIcon = method.hasBenchmark ? "📊" : "📄";
-        const timeInfo = method.hasBenchmark && method.executionTime ? ` | ${method.executionTime.toFixed(2)}ms` : "";
-        console.log(`   ${i + 1}. ${method.className}.${method.methodName} ${benchmarkIcon}`);
-        console.log(`      Energy: ${method.combinedEnergyScore.toFixed(3)}${timeInfo}`);
+    console.log(`   🕒 History: ${previousRuns} previous runs, ${regressions} regressions, ${events.length - regressions} improvements`);
+    
+    return {
+      project,
+      historyPath,
+      previousRuns,
+      regressions,
+      improvements: events.length - regressions,
+      events
+    };
+  } catch (error: any) {
+    console.warn(`   ⚠️  Benchmark history unavailable: ${error.message}`);
+    return null;
+  }
+}
+
+/**
+ * The calibrated model: --model, else the default file in the history
+ * directory when one has been fitted. --no-model disables it.
+ */
+function resolveEnergyModel(opts: any, warm?: WarmCaches): EnergyModel | null {
+  if (opts.model === false) return null;
+  const modelPath = opts.model
+    ? path.resolve(opts.model)
+    : path.join(resolveHistoryDir(opts.historyDir), MODEL_FILE_NAME);
+
+  if (!fs.existsSync(modelPath)) {
+    if (opts.model) console.warn(`⚠️  Energy model not found: ${modelPath}`);
+    return null;
+  }
+  try {
+    const model = warm ? warm.models.get(modelPath) : loadModel(modelPath);
+    console.log(`🧮 Energy model ${model.modelId}: trained on ${model.training.samples} methods ` +
+      `from ${model.training.projects} projects`);
+    return model;
+  } catch (error: any) {
+    console.warn(`⚠️  Energy model unavailable: ${error.message}`);
+    return null;
+  }
+}
+
+/**
+ * --workload / --workload-profile: profile (or load) one run of the project
+ * and attach each method's share of it to the reports. Returns null when no
+ * workload was requested or profiling failed; the analysis goes on without it.
+ */
+function profileWorkload(opts: any, reports: MethodReport[]): WorkloadSummary | null {
+  if (!opts.workload && !opts.workloadProfile) return null;
+
+  try {
+    let profilePath: string;
+    if (opts.workloadProfile) {
+      profilePath = path.resolve(opts.workloadProfile);
+    } else {
+      const classpath = opts.workloadClasspath
+        ? opts.workloadClasspath.split(path.delimiter).map((p: string) => path.resolve(p)).join(path.delimiter)
+        : opts.bytecode && fs.existsSync(opts.bytecode) && fs.statSync(opts.bytecode).isDirectory()
+          ? path.resolve(opts.bytecode)
+          : null;
+      if (!classpath) {
+        throw new Error("--workload needs --workload-classpath or a --bytecode classes directory");
+      }
+      console.log(`   ⏱️  Profiling workload ${opts.workload}...`);
+      profilePath = runWorkloadProfile(classpath, opts.workload, path.join(path.resolve(opts.out), "workload-profile.json"), {
+        args: opts.workloadArgs ? String(opts.workloadArgs).split(/\s+/).filter(Boolean) : []
       });
     }
-    
-    if (errorCount > 0) {
-      console.warn(`\n⚠️  Warning: ${errorCount} files failed to process`);
+
+    const profile = loadWorkloadProfile(profilePath);
+    if (profile.failure) console.warn(`   ⚠️  Workload failed (${profile.failure}); using the samples taken before it stopped`);
+    const summary = applyWorkloadProfile(reports, profile);
+    console.log(`   ⏱️  Workload ${summary.mainClass}: ${summary.samples} samples over ${summary.wallMs.toFixed(0)} ms, ` +
+      `${summary.profiledMethods} methods on the profile (${(summary.coverage * 100).toFixed(1)}% of samples matched)`);
+    for (const p of summary.priorities.slice(0, 5)) {
+      console.log(`      ${p.rank}. ${p.method}: up to ${p.maxSavingPct.toFixed(1)}% of run energy, ` +
+        `criticality ${p.criticality.toFixed(1)}, speedup bound ${p.amdahlSpeedup.toFixed(2)}x`);
     }
-    
-    console.log("\n✅ Done!");
-    
-    if (!hasBenchmarks && !(opts.runBenchmarks || opts.estimateBenchmarks)) {
-      console.log(`💡 Add --run-benchmarks --source-code <path> to run REAL benchmarks`);
-      console.log(`💡 Add --estimate-benchmarks for complexity-based estimates`);
-      console.log(`💡 Add -b <file> to use existing benchmark file`);
+    return summary;
+  } catch (error: any) {
+    console.warn(`   ⚠️  Workload profile unavailable: ${error.message}`);
+    return null;
+  }
+}
+
+/**
+ * --deployment-profile: monthly kWh, CO2e and cost per method and class at
+ * the profile's production call rates. Returns null when no profile was given
+ * or it could not be read; the analysis goes on without it.
+ */
+function projectDeploymentFootprint(opts: any, reports: any[], graph: CallGraph, benchmarkSource: string): DeploymentProjection | null {
+  if (!opts.deploymentProfile) return null;
+
+  try {
+    const profile = loadDeploymentProfile(path.resolve(opts.deploymentProfile));
+    const projection = projectDeployment(reports, graph, profile, benchmarkSource);
+    if (projection.unmatchedEntryPoints.length > 0) {
+      console.warn(`   ⚠️  Entry points not in the call graph: ${projection.unmatchedEntryPoints.join(", ")}`);
+    }
+    console.log(`   🌍 Deployment ${projection.profile}: ${projection.totals.kwh} kWh, ${projection.totals.co2eKg} kg CO2e, ` +
+      `$${projection.totals.usd} per month over ${projection.projectedMethods} methods` +
+      (projection.unprojectedMethods > 0 ? ` (${projection.unprojectedMethods} reached without a measurement or prediction)` : ""));
+    return projection;
+  } catch (error: any) {
+    console.warn(`   ⚠️  Deployment projection unavailable: ${error.message}`);
+    return null;
+  }
+}
+
+/**
+ * --stream: each report is merged with its benchmark, written and folded
+ * into the summary accumulators as soon as it is scored, so no report is
+ * kept (only the Class.method keys and per-class totals). The call-graph pass needs every report at once
+ * and is skipped; benchmarks can only come from an existing --benchmark file.
+ */
+async function streamAnalysis(
+  opts: any,
+  astPaths: string[],
+  cfgIndex: CFGIndex,
+  bytecodeMetrics: Map<string, BytecodeMethodMetrics> | undefined,
+  missingFiles: number,
+  warm?: WarmCaches
+): Promise<void> {
+  const outputDir = path.resolve(opts.out);
+  if (opts.runBenchmarks || opts.estimateBenchmarks) {
+    console.warn("   ⚠️  --run-benchmarks and --estimate-benchmarks need every report up front; ignored with --stream");
+  }
+  if (opts.workload || opts.workloadProfile || opts.deploymentProfile) {
+    console.warn("   ⚠️  --workload and --deployment-profile need the call graph; ignored with --stream");
+  }
+
+  const benchmarks = new Map<string, JavaBenchmarkResult>();
+  let benchmarkSource = "none";
+  if (opts.benchmark && fs.existsSync(path.resolve(opts.benchmark))) {
+    try {
+      for (const b of loadJavaBenchmarkResults(path.resolve(opts.benchmark))) {
+        if (b && b.className && b.methodName && typeof b.medianMs === "number" && b.medianMs > 0) {
+          benchmarks.set(`${b.className}.${b.methodName}`.toLowerCase(), b);
+        }
+      }
+      benchmarkSource = "provided file";
+      console.log(`   📂 ${benchmarks.size} valid benchmark results from ${path.basename(opts.benchmark)}`);
+    } catch (error: any) {
+      console.error(`   ❌ Failed to load benchmarks: ${error.message}`);
+    }
+  }
+  const energyModel = resolveEnergyModel(opts, warm);
+
+  const stream = new ReportStream(outputDir, { perClass: opts.perClass, perMethod: opts.perMethod });
+  const methodIndex = new MethodIndexWriter(outputDir, { project: projectIdFrom(opts), benchmarkSource });
+  // Only benchmarked methods are kept, for the history record
+  const matchedResults: JavaBenchmarkResult[] = [];
+  const matchedStatic: MethodReport[] = [];
+  let zeroEnergy = 0;
+
+  const scoring = await scoreProject(astPaths, cfgIndex, bytecodeMetrics, {
+    workers: opts.workers ? parseInt(opts.workers, 10) : undefined,
+    verbose: opts.verbose,
+    onReports: reports => {
+      for (const report of reports) {
+        if (!opts.includeZero && !(report.energyScore > 0)) {
+          zeroEnergy++;
+          continue;
+        }
+        const benchmark = benchmarks.get(`${report.className}.${report.methodName}`.toLowerCase());
+        let enhanced: any;
+        if (benchmarks.size > 0) {
+          enhanced = enhanceReport(report, benchmark);
+        } else {
+          enhanced = { ...report, staticEnergyScore: report.energyScore, combinedEnergyScore: report.energyScore, confidenceLevel: "low" };
+        }
+        if (benchmark) {
+          matchedResults.push(benchmark);
+          matchedStatic.push(report);
+        } else if (energyModel) {
+          Object.assign(enhanced, predictEnergy(energyModel, report));
+        }
+        stream.write(enhanced);
+        methodIndex.add(enhanced, benchmark);
+      }
     }
   });
 
+  console.log(`\n   ✅ Processed ${scoring.processedFiles} AST files, streamed ${stream.methods} method reports`);
+  if (zeroEnergy > 0) console.log(`   ℹ️  Filtered out ${zeroEnergy} methods with zero energy`);
+  console.log("   ℹ️  Call-graph (inclusive cost) pass skipped in streaming mode");
+
+  let historySummary: CombinedReport["history"] = null;
+  const projectId = projectIdFrom(opts);
+  if (opts.history && projectId && matchedResults.length > 0) {
+    historySummary = compareWithHistory(projectId, opts.historyDir, benchmarkSource, matchedResults, matchedStatic, warm);
+  }
+
+  methodIndex.close();
+  const summary = stream.close({
+    benchmarkSource,
+    history: historySummary,
+    energyModel: energyModel ? { modelId: energyModel.modelId, trainingSamples: energyModel.training.samples } : null
+  });
+
+  console.log("\n" + "=".repeat(70));
+  console.log("✨ Streaming Analysis Complete!");
+  console.log("=".repeat(70));
+  console.log(`📂 Output directory: ${outputDir}`);
+  console.log(`   • Total methods: ${summary.totalMethods}`);
+  console.log(`   • Classes analyzed: ${summary.totalClasses}`);
+  console.log(`   • Combined energy: mean ${summary.energy.combined.mean.toFixed(3)}, ` +
+    `p50 ${(summary.energy.combined.p50 ?? 0).toFixed(3)}, p95 ${(summary.energy.combined.p95 ?? 0).toFixed(3)}`);
+  if (summary.performanceMetrics) {
+    console.log(`   • Methods with benchmarks: ${summary.performanceMetrics.methodsWithBenchmarks}`);
+  }
+  console.log("\n📖 Reports Generated:");
+  console.log(`   • ${STREAM_REPORTS_FILE} (one report per line)`);
+  console.log(`   • ${STREAM_SUMMARY_FILE} (summary statistics)`);
+  console.log(`   • ${METHOD_INDEX_FILE} (per-method records for greencode-energy-diff)`);
+  if (opts.perClass) console.log(`   • <Class>-energy-report.ndjson (per class)`);
+
+  const errorCount = missingFiles + scoring.failedFiles;
+  if (errorCount > 0) {
+    console.warn(`\n⚠️  Warning: ${errorCount} files failed to process`);
+  }
+  console.log("\n✅ Done!");
+}
+
 // Helper functions for benchmark operations
 async function runRealBenchmarks(
   staticReports: any[], 
   outputDir: string, 
-  sourceCodePath: string
+  sourceCodePath: string,
+  generatorOptions: BenchmarkGeneratorOptions = {},
+  offline: boolean = false
 ): Promise<string> {
   console.log("🔨 Starting REAL benchmark execution...");
   
@@ -675,151 +1138,284 @@ async function runRealBenchmarks(
 
   // Extract methods for benchmarking
   const methods = extractMethodsFromReports(staticReports);
-  
-  // Create benchmark project directory
-  const benchmarkDir = path.join(outputDir, "benchmark-project");
+
+  if (generatorOptions.concurrency) {
+    const java = detectJavaVersion();
+    if (!java || java.major < 21) {
+      console.log(`   ⚠️  Concurrency benchmarks need JDK 21+ (found ${java ? java.major : "none"}), skipping`);
+      generatorOptions = { ...generatorOptions, concurrency: false };
+    } else {
+      const ioBound = methods.filter(m => m.ioBound).length;
+      console.log(`   🧵 Concurrency mode: ${ioBound} I/O-bound methods on virtual vs platform threads`);
+    }
+  }
+
+  // One benchmark project per module: its source roots (plus those of the modules
+  // it depends on) and a classpath built from jars already on disk
+  const layout = detectProjectLayout(sourceCodePath);
+  const { plans, unassigned, ambiguous } = planModuleBenchmarks(layout, methods);
+  const sourceModules = layout.modules.filter(m => m.sourceRoots.length > 0).length;
+  console.log(`   🧭 ${layout.buildTool === "none" ? "Plain source folder" : `${layout.buildTool} project`}: ` +
+    `${sourceModules} module(s) with sources, ${plans.length} with benchmarked methods`);
+
+  const measured: any[] = [];
+  const unmeasured: MethodInfo[] = [...unassigned];
+  if (unmeasured.length > 0) {
+    console.log(`   ⚠️  ${unmeasured.length} methods belong to classes not found in any module source root` +
+      (ambiguous > 0 ? ` or declared in several places (${ambiguous})` : ""));
+  }
+
+  for (const plan of plans) {
+    // The root project gets a named folder too ("." would be benchmark-project itself)
+    const benchmarkDir = plans.length === 1
+      ? path.join(outputDir, "benchmark-project")
+      : path.join(outputDir, "benchmark-project", plan.module.name === "." ? "_root" : plan.module.name.replace(/[\\/]/g, "__"));
+    if (plans.length > 1) {
+      console.log(`\n   📁 Module ${plan.module.name}: ${plan.methods.length} methods`);
+    }
+    const classpath = resolveOfflineClasspath(layout, plan.module);
+    if (classpath.jars.length > 0 || classpath.missing.length > 0) {
+      console.log(`   📚 Local classpath: ${classpath.jars.length} jars` +
+        (classpath.missing.length > 0 ? `, not found offline: ${classpath.missing.slice(0, 5).join(", ")}` +
+          (classpath.missing.length > 5 ? ` (+${classpath.missing.length - 5} more)` : "") : ""));
+    }
+
+    try {
+      const results = await buildAndRunBenchmarkProject(benchmarkDir, plan.methods, moduleSourceRoots(layout, plan.module), {
+        ...generatorOptions,
+        classpathJars: classpath.jars
+      }, offline);
+      if (results) {
+        measured.push(...results);
+      } else {
+        unmeasured.push(...plan.methods);
+      }
+    } catch (error: any) {
+      console.error(`   ❌ Real benchmark execution failed: ${error.message}`);
+      unmeasured.push(...plan.methods);
+    }
+  }
+
+  if (measured.length === 0) {
+    // Generate complexity-based results as fallback
+    console.log(`   📊 No benchmark results found, generating complexity-based results...`);
+    return generateComplexityBasedResultsForMethods(methods, outputDir, staticReports);
+  }
+
+  // Modules that did not build or run keep complexity estimates next to the measured ones
+  if (unmeasured.length > 0) {
+    console.log(`   📊 Estimating ${unmeasured.length} methods from modules without measurements...`);
+    const estimatedPath = generateComplexityBasedResultsForMethods(unmeasured, outputDir, staticReports);
+    measured.push(...JSON.parse(fs.readFileSync(estimatedPath, "utf8")));
+  }
+
+  const resultsPath = path.join(outputDir, "benchmark-results.json");
+  fs.writeFileSync(resultsPath, JSON.stringify(measured, null, 2));
+  console.log(`   ✅ Benchmark results saved to: ${resultsPath}`);
+  return resultsPath;
+}
+
+type ModuleBenchmarkPlan = { module: ProjectModule; methods: MethodInfo[] };
+
+/**
+ * Group methods by the module that declares their class, filling in the class
+ * package so the generated benchmarks can import it. A simple class name
+ * declared in several files is narrowed by package and by which file declares
+ * the method; if that still leaves several, the method is left unassigned
+ * rather than benchmarked against a guess. A project that is a single module
+ * takes every other method, as the flat copy did.
+ */
+function planModuleBenchmarks(
+  layout: ProjectLayout,
+  methods: MethodInfo[]
+): { plans: ModuleBenchmarkPlan[]; unassigned: MethodInfo[]; ambiguous: number } {
+  const classes = indexModuleClasses(layout);
+  const byModule = new Map<ProjectModule, MethodInfo[]>();
+  const unassigned: MethodInfo[] = [];
+  let ambiguous = 0;
+  const withSources = layout.modules.filter(m => m.sourceRoots.length > 0);
+
+  for (const method of methods) {
+    const className = method.packageName ? `${method.packageName}.${method.className}` : method.className;
+    const located = locateClass(classes, className, method.methodName);
+    if (!located && classCandidates(classes, className, method.methodName).length > 1) {
+      ambiguous++;
+      unassigned.push(method);
+      continue;
+    }
+    const module = located?.module || (withSources.length === 1 ? withSources[0] : null);
+    if (!module) {
+      unassigned.push(method);
+      continue;
+    }
+    const list = byModule.get(module) || [];
+    list.push(located?.packageName ? { ...method, packageName: located.packageName } : method);
+    byModule.set(module, list);
+  }
+
+  const plans = [...byModule].map(([module, moduleMethods]) => ({ module, methods: moduleMethods }));
+  return { plans, unassigned, ambiguous };
+}
+
+/**
+ * Generate, build and run one benchmark project; returns the runner's results,
+ * or null when it produced none.
+ */
+async function buildAndRunBenchmarkProject(
+  benchmarkDir: string,
+  methods: MethodInfo[],
+  sourceRoots: string[],
+  generatorOptions: BenchmarkGeneratorOptions,
+  offline: boolean
+): Promise<any[] | null> {
   fs.mkdirSync(benchmarkDir, { recursive: true });
+  const mavenArgs = (...goals: string[]) => offline ? ["-o", ...goals] : goals;
+
+  // Generate benchmark project with PROPER structure
+  const { saveBenchmarkProject } = require("../generators/jmhBenchmarkGenerator");
   
-  try {
-    // Generate benchmark project with PROPER structure
-    const { saveBenchmarkProject } = require("../generators/jmhBenchmarkGenerator");
-    
-    // Save benchmark project with proper package structure
-    saveBenchmarkProject(methods, benchmarkDir, sourceCodePath);
-    
-    console.log(`   📦 Benchmark project created at: ${benchmarkDir}`);
-    
-    // ✅ ACTUALLY BUILD AND RUN THE BENCHMARKS
-    console.log("   🔨 Building benchmark project with Maven...");
-    
-    // 1. Build the project
-    const buildProc = spawn("mvn", ["clean", "compile", "-DskipTests"], {
-      cwd: benchmarkDir,
-      stdio: "inherit",
-      shell: true
-    });
-    
-    const buildSuccess = await new Promise((resolve, reject) => {
-      buildProc.on("close", (code) => {
-        if (code === 0) {
-          console.log("   ✅ Maven compilation successful");
-          resolve(true);
-        } else {
-          console.log("   ⚠️  Maven compilation failed");
-          resolve(false);
-        }
-      });
-      buildProc.on("error", reject);
-    });
-    
-    if (!buildSuccess) {
-      // Try to fix common compilation issues
-      console.log("   🔧 Attempting to fix compilation issues...");
-      await fixCompilationIssues(benchmarkDir, methods);
-      
-      // Try building again
-      console.log("   🔨 Retrying build...");
-      const retryBuild = spawn("mvn", ["clean", "compile", "-DskipTests"], {
-        cwd: benchmarkDir,
-        stdio: "inherit",
-        shell: true
-      });
-      
-      const retrySuccess = await new Promise((resolve, reject) => {
-        retryBuild.on("close", (code) => {
-          resolve(code === 0);
-        });
-        retryBuild.on("error", reject);
-      });
-      
-      if (!retrySuccess) {
-        console.log("   ⚠️  Build still failing, generating complexity-based results");
-        return generateComplexityBasedResultsForMethods(methods, outputDir, staticReports);
+  // Save benchmark project with proper package structure
+  saveBenchmarkProject(methods, benchmarkDir, sourceRoots, generatorOptions);
+  
+  console.log(`   📦 Benchmark project created at: ${benchmarkDir}`);
+  
+  // ✅ ACTUALLY BUILD AND RUN THE BENCHMARKS
+  console.log("   🔨 Building benchmark project with Maven...");
+  
+  // 1. Build the project
+  const buildProc = spawn("mvn", mavenArgs("clean", "compile", "-DskipTests"), {
+    cwd: benchmarkDir,
+    stdio: "inherit",
+    shell: true
+  });
+  
+  const buildSuccess = await new Promise((resolve, reject) => {
+    buildProc.on("close", (code) => {
+      if (code === 0) {
+        console.log("   ✅ Maven compilation successful");
+        resolve(true);
+      } else {
+        console.log("   ⚠️  Maven compilation failed");
+        resolve(false);
       }
-    }
+    });
+    buildProc.on("error", reject);
+  });
+  
+  if (!buildSuccess) {
+    // Try to fix common compilation issues
+    console.log("   🔧 Attempting to fix compilation issues...");
+    await fixCompilationIssues(benchmarkDir, methods, offline);
     
-    // 2. Package the project
-    console.log("   📦 Packaging benchmark JAR...");
-    const packageProc = spawn("mvn", ["package", "-DskipTests"], {
+    // Try building again
+    console.log("   🔨 Retrying build...");
+    const retryBuild = spawn("mvn", mavenArgs("clean", "compile", "-DskipTests"), {
       cwd: benchmarkDir,
       stdio: "inherit",
       shell: true
     });
     
-    await new Promise((resolve, reject) => {
-      packageProc.on("close", (code) => {
-        if (code === 0) {
-          console.log("   ✅ Package successful");
-          resolve(true);
-        } else {
-          console.log(`   ⚠️  Package failed, continuing anyway`);
-          resolve(true); // Continue even if package fails
-        }
+    const retrySuccess = await new Promise((resolve, reject) => {
+      retryBuild.on("close", (code) => {
+        resolve(code === 0);
       });
-      packageProc.on("error", reject);
+      retryBuild.on("error", reject);
     });
     
-    // 3. Run the custom benchmark runner
-    console.log("   🏃 Running custom benchmark runner...");
-    const resultsPath = path.join(outputDir, "benchmark-results.json");
-    
-    const runProc = spawn("java", [
-      "-cp", "target/classes:target/dependency/*",
-      "com.greencode.benchmarks.CustomBenchmarkRunner"
-    ], {
-      cwd: benchmarkDir,
-      stdio: "pipe",
-      shell: true
-    });
-    
-    let benchmarkOutput = "";
-    
-    runProc.stdout.on("data", (data) => {
-      benchmarkOutput += data.toString();
-      console.log(`   ${data.toString().trim()}`);
-    });
-    
-    runProc.stderr.on("data", (data) => {
-      if (!data.toString().includes('Picked up _JAVA_OPTIONS')) {
-        console.error(`   [ERROR] ${data.toString().trim()}`);
+    if (!retrySuccess) {
+      console.log("   ⚠️  Build still failing, no measurements for this project");
+      return null;
+    }
+  }
+  
+  // 2. Package the project
+  console.log("   📦 Packaging benchmark JAR...");
+  const packageProc = spawn("mvn", mavenArgs("package", "-DskipTests"), {
+    cwd: benchmarkDir,
+    stdio: "inherit",
+    shell: true
+  });
+  
+  await new Promise((resolve, reject) => {
+    packageProc.on("close", (code) => {
+      if (code === 0) {
+        console.log("   ✅ Package successful");
+        resolve(true);
+      } else {
+        console.log(`   ⚠️  Package failed, continuing anyway`);
+        resolve(true); // Continue even if package fails
       }
     });
-    
-    await new Promise((resolve, reject) => {
-      runProc.on("close", (code) => {
-        if (code === 0) {
-          console.log("   ✅ Benchmark execution completed");
-          resolve(true);
-        } else {
-          console.log("   ⚠️  Benchmark execution had issues");
-          resolve(true); // Continue anyway
-        }
-      });
-      runProc.on("error", reject);
-    });
-    
-    // Check if results were generated
-    const runnerResultsPath = path.join(benchmarkDir, "benchmark-results.json");
-    if (fs.existsSync(runnerResultsPath)) {
-      fs.copyFileSync(runnerResultsPath, resultsPath);
-      console.log(`   ✅ Benchmark results saved to: ${resultsPath}`);
-      return resultsPath;
-    } else {
-      // Generate complexity-based results as fallback
-      console.log(`   📊 No benchmark results found, generating complexity-based results...`);
-      return generateComplexityBasedResultsForMethods(methods, outputDir, staticReports);
+    packageProc.on("error", reject);
+  });
+  
+  // 3. Run the custom benchmark runner
+  console.log("   🏃 Running custom benchmark runner...");
+  
+  // Cached harness (agent + deps) with an AppCDS archive cuts JVM startup on repeat scans
+  const launch = prepareRunnerLaunch(benchmarkDir);
+  let agentArgs = launch.jvmArgs;
+  // lib/ holds the benchmarked code's own dependencies (system scope, not shaded or copied)
+  const runClasspath = [...launch.classpathPrefix, "target/classes", "target/dependency/*", "lib/*"];
+  
+  if (launch.classpathPrefix.length > 0) {
+    console.log(`   ⚡ Runner launch: CDS ${launch.cdsStatus}`);
+  } else {
+    // The shaded jar carries Premain-Class for FootprintAgent (receiver heap footprint)
+    const agentJar = path.join(benchmarkDir, "target", "benchmarks.jar");
+    agentArgs = fs.existsSync(agentJar) ? ["-javaagent:target/benchmarks.jar"] : [];
+    if (agentArgs.length === 0) {
+      console.log("   ℹ️  benchmarks.jar not found, running without footprint agent");
     }
-    
-  } catch (error: any) {
-    console.error(`   ❌ Real benchmark execution failed: ${error.message}`);
-    // Generate fallback results
-    console.log(`   📊 Generating fallback complexity estimates...`);
-    return generateComplexityBasedResultsForMethods(methods, outputDir, staticReports);
   }
+  
+  const runProc = spawn("java", [
+    ...agentArgs,
+    "-cp", runClasspath.join(path.delimiter),
+    "com.greencode.benchmarks.CustomBenchmarkRunner"
+  ], {
+    // No shell: the agent and CDS archive paths may contain spaces, and java expands the * entries itself
+    cwd: benchmarkDir,
+    stdio: "pipe"
+  });
+  
+  let benchmarkOutput = "";
+  
+  runProc.stdout.on("data", (data) => {
+    benchmarkOutput += data.toString();
+    console.log(`   ${data.toString().trim()}`);
+  });
+  
+  runProc.stderr.on("data", (data) => {
+    if (!data.toString().includes('Picked up _JAVA_OPTIONS')) {
+      console.error(`   [ERROR] ${data.toString().trim()}`);
+    }
+  });
+  
+  await new Promise((resolve, reject) => {
+    runProc.on("close", (code) => {
+      if (code === 0) {
+        console.log("   ✅ Benchmark execution completed");
+        resolve(true);
+      } else {
+        console.log("   ⚠️  Benchmark execution had issues");
+        resolve(true); // Continue anyway
+      }
+    });
+    runProc.on("error", reject);
+  });
+  
+  // Check if results were generated
+  const runnerResultsPath = path.join(benchmarkDir, "benchmark-results.json");
+  if (!fs.existsSync(runnerResultsPath)) {
+    return null;
+  }
+  const results = JSON.parse(fs.readFileSync(runnerResultsPath, "utf8"));
+  return Array.isArray(results) && results.length > 0 ? results : null;
 }
 
 // Helper function to fix compilation issues
-async function fixCompilationIssues(benchmarkDir: string, methods: MethodInfo[]): Promise<void> {
+async function fixCompilationIssues(benchmarkDir: string, methods: MethodInfo[], offline: boolean = false): Promise<void> {
   const srcDir = path.join(benchmarkDir, "src", "main", "java");
   
   // 1. Fix missing dependencies by adding a proper dependencies file
@@ -834,7 +1430,7 @@ com.google.code.gson:gson:2.10.1
   
   // 2. Install dependencies
   console.log("   📦 Installing dependencies...");
-  const installProc = spawn("mvn", ["dependency:copy-dependencies"], {
+  const installProc = spawn("mvn", offline ? ["-o", "dependency:copy-dependencies"] : ["dependency:copy-dependencies"], {
     cwd: benchmarkDir,
     stdio: "inherit",
     shell: true
@@ -904,8 +1500,14 @@ function generateComplexityBasedResultsForMethods(
 }
 
 // Generate complexity-based results for reports (returns string path)
-function generateComplexityBasedResultsForReports(staticReports: any[], outputDir: string): string {
-  console.log("   📊 Generating complexity-based estimates...");
+function generateComplexityBasedResultsForReports(
+  staticReports: any[],
+  outputDir: string,
+  model: EnergyModel | null = null
+): string {
+  console.log(model
+    ? `   📊 Generating estimates from calibrated model ${model.modelId}...`
+    : "   📊 Generating complexity-based estimates...");
   
   const estimatedResults = staticReports.map(report => {
     // Calculate complexity score
@@ -914,8 +1516,10 @@ function generateComplexityBasedResultsForReports(staticReports: any[], outputDi
                       report.conditionalsCount * 2 +
                       (report.methodCalls || 0) * 1;
     
-    // Base time increases with complexity
-    const baseTime = Math.max(1, complexity * 0.5 + Math.random() * 10);
+    // Base time: the calibrated prediction, else it increases with complexity
+    const baseTime = model
+      ? Math.max(0.001, predictMedianMs(model, methodFeatures(report)).medianMs)
+      : Math.max(1, complexity * 0.5 + Math.random() * 10);
     
     // Add realistic variance
     const medianMs = parseFloat(baseTime.toFixed(3));
@@ -928,7 +1532,7 @@ function generateComplexityBasedResultsForReports(staticReports: any[], outputDi
     return {
       className: report.className,
       methodName: report.methodName,
-      benchmarkTool: "complexity-estimated",
+      benchmarkTool: model ? "model-estimated" : "complexity-estimated",
       medianMs,
       meanMs,
       p95Ms,
@@ -937,7 +1541,7 @@ function generateComplexityBasedResultsForReports(staticReports: any[], outputDi
       stdDev,
       runs: 100,
       complexityScore: complexity,
-      note: "Estimated from static complexity analysis"
+      note: model ? `Predicted by energy model ${model.modelId}` : "Estimated from static complexity analysis"
     };
   });
   
@@ -952,4 +1556,6 @@ function generateComplexityBasedResultsForReports(staticReports: any[], outputDi
 // ============ REMOVE THE DUPLICATE FUNCTION BELOW ============
 // Delete the duplicate function that returns any[] (around line 984-1016)
 
-program.parse(process.argv);
\ No newline at end of file
+if (require.main === module) {
+  createProgram().parse(process.argv);
+}
\ No newline at end of file
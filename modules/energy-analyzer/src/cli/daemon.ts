@@ -0,0 +1,199 @@
+#!/usr/bin/env node
+import { Command, CommanderError } from "commander";
+import http from "http";
+import util from "util";
+import { AnalysisExit, analyze, createProgram } from "./cli";
+import { WarmCaches, createWarmCaches } from "../core/warmCache";
+
+/**
+ * Resident energy analyzer. Scan jobs run the same analysis as the CLI but
+ * keep parsed CFGs, the calibrated model and benchmark histories in memory
+ * between scans, so module loading and cold reads are paid once.
+ *
+ *   GET  /health    uptime, job counters and cache statistics
+ *   POST /analyze   {"args": [...cli arguments]} -> NDJSON event stream:
+ *                   queued, started, log (one per console line), done
+ *
+ * Jobs run one at a time (scoring already uses every core) in arrival order.
+ * Paths in `args` are resolved against the daemon's working directory, so
+ * clients should send absolute paths.
+ */
+
+export const DEFAULT_DAEMON_PORT = 5410;
+const MAX_BODY_BYTES = 1 << 20;
+
+type JobEvent =
+  | { event: "queued"; jobId: number; position: number }
+  | { event: "started"; jobId: number }
+  | { event: "log"; jobId: number; level: "info" | "warn" | "error"; message: string }
+  | { event: "done"; jobId: number; exitCode: number; durationMs: number; error?: string };
+
+type Emit = (event: JobEvent) => void;
+
+export class AnalyzerDaemon {
+  readonly warm: WarmCaches;
+  private queue: Promise<void> = Promise.resolve();
+  private nextId = 1;
+  private waiting = 0;
+  private running = false;
+  private completed = 0;
+  private failed = 0;
+  private readonly startedAt = Date.now();
+
+  constructor(options: { cfgCacheBytes?: number } = {}) {
+    this.warm = createWarmCaches(options);
+  }
+
+  /** Queue one analysis; resolves with the CLI exit code once it has run */
+  submit(args: string[], emit: Emit): Promise<number> {
+    const jobId = this.nextId++;
+    emit({ event: "queued", jobId, position: this.waiting + (this.running ? 1 : 0) });
+    this.waiting++;
+
+    const job = this.queue.then(async () => {
+      this.waiting--;
+      this.running = true;
+      try {
+        return await this.run(jobId, args, emit);
+      } finally {
+        this.running = false;
+      }
+    });
+    this.queue = job.then(() => undefined);
+    return job;
+  }
+
+  private async run(jobId: number, args: string[], emit: Emit): Promise<number> {
+    const start = Date.now();
+    emit({ event: "started", jobId });
+
+    const restore = captureConsole((level, message) => emit({ event: "log", jobId, level, message }));
+    let exitCode = 0;
+    let error: string | undefined;
+    try {
+      const program = createProgram(opts => analyze(opts, this.warm))
+        .exitOverride()
+        .configureOutput({
+          writeOut: text => console.log(text.trimEnd()),
+          writeErr: text => console.error(text.trimEnd())
+        });
+      await program.parseAsync(args, { from: "user" });
+    } catch (err: any) {
+      if (err instanceof AnalysisExit) exitCode = err.code;
+      else if (err instanceof CommanderError) exitCode = err.exitCode;
+      else {
+        exitCode = 1;
+        error = err?.message ?? String(err);
+        console.error(`❌ ${error}`);
+      }
+    } finally {
+      restore();
+    }
+
+    if (exitCode === 0) this.completed++;
+    else this.failed++;
+    emit({ event: "done", jobId, exitCode, durationMs: Date.now() - start, ...(error ? { error } : {}) });
+    return exitCode;
+  }
+
+  health() {
+    return {
+      status: "ok",
+      uptimeMs: Date.now() - this.startedAt,
+      jobs: { running: this.running, queued: this.waiting, completed: this.completed, failed: this.failed },
+      caches: {
+        cfgs: this.warm.cfgs.stats(),
+        models: this.warm.models.size,
+        histories: this.warm.history.size
+      }
+    };
+  }
+
+  listen(port: number, host: string): http.Server {
+    const server = http.createServer((req, res) => {
+      if (req.method === "GET" && req.url === "/health") {
+        res.writeHead(200, { "Content-Type": "application/json" });
+        res.end(JSON.stringify(this.health()));
+        return;
+      }
+      if (req.method === "POST" && req.url === "/analyze") {
+        this.handleAnalyze(req, res);
+        return;
+      }
+      res.writeHead(404, { "Content-Type": "application/json" });
+      res.end(JSON.stringify({ error: `No route for ${req.method} ${req.url}` }));
+    });
+    return server.listen(port, host);
+  }
+
+  private handleAnalyze(req: http.IncomingMessage, res: http.ServerResponse): void {
+    const chunks: Buffer[] = [];
+    let size = 0;
+    req.on("data", (chunk: Buffer) => {
+      size += chunk.length;
+      if (size > MAX_BODY_BYTES) {
+        res.writeHead(413).end();
+        req.destroy();
+        return;
+      }
+      chunks.push(chunk);
+    });
+    req.on("end", () => {
+      let args: string[] | undefined;
+      try {
+        const body = JSON.parse(Buffer.concat(chunks).toString("utf8"));
+        if (Array.isArray(body?.args) && body.args.every((a: unknown) => typeof a === "string")) args = body.args;
+      } catch {
+        // Reported below
+      }
+      if (!args) {
+        res.writeHead(400, { "Content-Type": "application/json" });
+        res.end(JSON.stringify({ error: 'Expected a JSON body {"args": ["--ast-dir", "...", ...]}' }));
+        return;
+      }
+
+      res.writeHead(200, { "Content-Type": "application/x-ndjson" });
+      // A client that disconnects does not cancel the job; its reports still land on disk
+      const emit: Emit = event => {
+        if (!res.writableEnded && !res.destroyed) res.write(JSON.stringify(event) + "\n");
+      };
+      this.submit(args, emit).then(exitCode => {
+        process.stdout.write(`[energy-daemon] job finished with exit ${exitCode}: ${args!.join(" ")}\n`);
+        res.end();
+      });
+    });
+  }
+}
+
+/**
+ * Route console output to `sink` until the returned function is called.
+ * Jobs run one at a time, so whatever is logged belongs to the current job.
+ */
+function captureConsole(sink: (level: "info" | "warn" | "error", message: string) => void): () => void {
+  const original = { log: console.log, info: console.info, warn: console.warn, error: console.error };
+  console.log = (...args: any[]) => sink("info", util.format(...args));
+  console.info = console.log;
+  console.warn = (...args: any[]) => sink("warn", util.format(...args));
+  console.error = (...args: any[]) => sink("error", util.format(...args));
+  return () => Object.assign(console, original);
+}
+
+if (require.main === module) {
+  const program = new Command();
+  program.name("greencode-energy-daemon")
+    .description("Keep the energy analyzer resident and accept scan jobs over HTTP")
+    .option("-p, --port <n>", "Port to listen on (default: $GREENCODE_ENERGY_DAEMON_PORT or 5410)")
+    .option("--host <host>", "Interface to bind", "127.0.0.1")
+    .option("--cache-mb <n>", "Memory for parsed CFG artifacts, in MiB", "256")
+    .action((opts: any) => {
+      const port = parseInt(opts.port || process.env.GREENCODE_ENERGY_DAEMON_PORT || String(DEFAULT_DAEMON_PORT), 10);
+      const daemon = new AnalyzerDaemon({ cfgCacheBytes: parseInt(opts.cacheMb, 10) * 1024 * 1024 });
+      const server = daemon.listen(port, opts.host);
+      server.on("listening", () => console.log(`⚡ Energy analyzer daemon listening on http://${opts.host}:${port}`));
+      server.on("error", (error: Error) => {
+        console.error(`❌ Daemon failed: ${error.message}`);
+        process.exit(1);
+      });
+    });
+  program.parse(process.argv);
+}
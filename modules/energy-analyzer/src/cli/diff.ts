@@ -0,0 +1,61 @@
+#!/usr/bin/env node
+import { Command } from "commander";
+import fs from "fs";
+import path from "path";
+import { METHOD_INDEX_FILE, loadMethodIndex } from "../report/methodIndex";
+import { MetricDelta, diffMethodIndexes } from "../report/energyDiff";
+
+const DIFF_FILE_NAME = "energy-diff.json";
+
+function formatDelta(name: string, d: MetricDelta): string {
+  const pct = d.changePct === null ? "new" : `${d.changePct > 0 ? "+" : ""}${d.changePct.toFixed(1)}%`;
+  const ci = d.ciLowPct !== undefined ? ` [${d.ciLowPct}%, ${d.ciHighPct}%]` : "";
+  return `${name} ${pct}${ci}`;
+}
+
+const program = new Command();
+program.name("greencode-energy-diff")
+  .description(`Compare two scans method by method from their ${METHOD_INDEX_FILE}`)
+  .argument("<baseline>", "Baseline output directory or method index file")
+  .argument("<current>", "Current output directory or method index file")
+  .option("-o, --out <path>", `Diff file to write (default: <current>/${DIFF_FILE_NAME} when <current> is a directory)`)
+  .option("--json", "Print the diff as JSON on stdout instead of a summary", false)
+  .option("--min-effect <fraction>", "Smallest relative change reported for measured metrics", "0.05")
+  .option("--all", "Include matched methods without a significant change", false)
+  .option("--fail-on-regression", "Exit with code 2 when any method regressed", false)
+  .action((baselinePath: string, currentPath: string, opts: any) => {
+    let diff;
+    try {
+      diff = diffMethodIndexes(loadMethodIndex(path.resolve(baselinePath)), loadMethodIndex(path.resolve(currentPath)), {
+        minEffect: parseFloat(opts.minEffect),
+        includeUnchanged: opts.all
+      });
+    } catch (error: any) {
+      console.error(`❌ Diff failed: ${error.message}`);
+      process.exit(1);
+    }
+
+    const currentDir = path.resolve(currentPath);
+    const outPath = opts.out
+      ? path.resolve(opts.out)
+      : fs.statSync(currentDir).isDirectory() ? path.join(currentDir, DIFF_FILE_NAME) : null;
+    if (outPath) fs.writeFileSync(outPath, JSON.stringify(diff, null, 2));
+
+    if (opts.json) {
+      process.stdout.write(JSON.stringify(diff) + "\n");
+    } else {
+      console.log(`⚖️  ${diff.baseline.generatedAt} → ${diff.current.generatedAt}: ${diff.matched} methods matched, ` +
+        `${diff.added.length} added, ${diff.removed.length} removed, ${diff.signatureChanged.length} with a new signature`);
+      console.log(`   🔺 ${diff.regressedMethods} regressed, 🔻 ${diff.improvedMethods} improved, ${diff.unchanged} unchanged`);
+      for (const m of diff.methods.slice(0, 10)) {
+        const icon = m.regressions.length > 0 ? "🔺" : "🔻";
+        const changes = [...m.regressions, ...m.improvements].map(name => formatDelta(name, m.metrics[name]!));
+        console.log(`   ${icon} ${m.key}${m.sourceChanged ? " (code changed)" : ""}: ${changes.join(", ")}`);
+      }
+      if (outPath) console.log(`   💾 Saved ${outPath}`);
+    }
+
+    if (opts.failOnRegression && diff.regressedMethods > 0) process.exit(2);
+  });
+
+program.parse(process.argv);
@@ -1,7 +1,14 @@
+import path from "path";
+
 export const DEFAULT_CONFIG = {
   tdpWatts: 15, // default CPU TDP per core for energy estimates
   costPerKwhUSD: 0.15,
+  carbonIntensityGPerKwh: 475, // world-average grid mix (gCO2e/kWh), used when a deployment profile gives none
   weights: { cpu: 0.5, mem: 0.25, io: 0.25 },
   bench: { runs: 10, warmup: 3, concurrency: 1 },
-  topKToBench: 3
+  topKToBench: 3,
+  loopInputSize: 100 // trip count assumed for loops bounded by parameters, fields or data
 };
+
+/** Directory holding the standalone Java helpers (resolves from both src/ and dist/) */
+export const JAVA_TOOLS_DIR = path.resolve(__dirname, "../java-tools");
@@ -0,0 +1,313 @@
+// src/core/callGraph.ts
+import { JavaASTClass, JavaASTFile } from "../analyzers/astAnalyzer";
+import { flowLoopExecutions, loopCostContext } from "../analyzers/tripCount";
+import { MethodReport, rescoreReport } from "./orchestrator";
+
+/** Calls from one method to another; `weight` = executions per invocation of the caller */
+export type CallEdge = { to: string; weight: number };
+
+export type CallGraphNode = {
+  key: string; // "Class.method" (overloads share a node, as in the reports)
+  className: string;
+  methodName: string;
+  edges: CallEdge[];
+  /** Calls to library code or receivers whose type could not be resolved */
+  unresolved: number;
+};
+
+export type CallGraph = Map<string, CallGraphNode>;
+
+export type CallGraphCost = {
+  inclusive: Map<string, number>;
+  /** Methods on a call cycle (direct or mutual recursion) */
+  recursive: Set<string>;
+  components: string[][];
+};
+
+const MODIFIERS = new Set(["public", "protected", "private", "static", "final", "transient", "volatile"]);
+
+/** Simple class name of a type: "java.util.List<Board>[]" -> "List" */
+function simpleType(type: string): string {
+  let t = type.trim();
+  while (/<[^<>]*>/.test(t)) t = t.replace(/<[^<>]*>/g, "");
+  t = t.replace(/\[\]|\.\.\./g, "").trim();
+  return t.split(".").pop() || t;
+}
+
+/** "Type a, b" / "private final Type a = init;" -> [[a, Type], [b, Type]] */
+function declaredNames(decl: string): Array<[string, string]> {
+  let text = decl.replace(/;\s*$/, "");
+  while (/<[^<>]*>/.test(text)) text = text.replace(/<[^<>]*>/g, "");
+  const parts = text.split(",").map(p => p.split("=")[0].trim());
+  const words = parts[0].split(/\s+/).filter(w => !MODIFIERS.has(w) && !w.startsWith("@"));
+  if (words.length < 2) return [];
+  const type = simpleType(words.slice(0, -1).join(" "));
+  const names = [words[words.length - 1], ...parts.slice(1)].map(n => n.replace(/\[\]/g, "").trim());
+  return names.filter(n => /^\w+$/.test(n)).map(n => [n, type]);
+}
+
+/**
+ * Project-wide call graph from the AST call lists. A receiver is resolved
+ * through parameters, locals and fields (walking `extends` for inherited
+ * methods), `this`/`super`, or a static `Class.method` call; an unknown
+ * receiver falls back to the method name when exactly one project class
+ * declares it. Calls into library types are counted as unresolved.
+ */
+export function buildCallGraph(files: JavaASTFile[]): CallGraph {
+  const classes = new Map<string, JavaASTClass>();
+  const declaringClasses = new Map<string, Set<string>>();
+  for (const file of files) {
+    for (const cls of file.classes || []) {
+      if (!classes.has(cls.name)) classes.set(cls.name, cls);
+      for (const m of cls.methods || []) {
+        if (!declaringClasses.has(m.name)) declaringClasses.set(m.name, new Set());
+        declaringClasses.get(m.name)!.add(cls.name);
+      }
+    }
+  }
+
+  const declares = (className: string, methodName: string) =>
+    (classes.get(className)?.methods || []).some(m => m.name === methodName);
+
+  /** First class up the extends chain that declares the method */
+  const lookup = (className: string | undefined, methodName: string): string | null => {
+    for (let depth = 0; className && classes.has(className) && depth < 16; depth++) {
+      if (declares(className, methodName)) return className;
+      const parent = classes.get(className)!.extends;
+      className = parent ? simpleType(parent) : undefined;
+    }
+    return null;
+  };
+
+  const graph: CallGraph = new Map();
+  for (const cls of classes.values()) {
+    const fieldTypes = new Map<string, string>();
+    for (const decl of cls.fields || []) for (const [n, t] of declaredNames(decl)) fieldTypes.set(n, t);
+
+    for (const method of cls.methods || []) {
+      const key = `${cls.name}.${method.name}`;
+      let node = graph.get(key);
+      if (!node) {
+        node = { key, className: cls.name, methodName: method.name, edges: [], unresolved: 0 };
+        graph.set(key, node);
+      }
+
+      const varTypes = new Map(fieldTypes);
+      for (const p of method.params || []) if (p.name && p.type) varTypes.set(p.name, simpleType(p.type));
+      for (const decl of method.localVariables || []) for (const [n, t] of declaredNames(decl)) varTypes.set(n, t);
+
+      const executions = flowLoopExecutions(method.flow, loopCostContext(method.params, cls.fields));
+      const weights = new Map<string, number>(node.edges.map(e => [e.to, e.weight]));
+
+      for (const call of method.invocations || []) {
+        const target = resolveCall(call.name || "", cls, varTypes);
+        if (!target) {
+          node.unresolved++;
+          continue;
+        }
+        const weight = call.loop !== undefined ? executions.get(call.loop) ?? 1 : 1;
+        weights.set(target, (weights.get(target) ?? 0) + weight);
+      }
+      node.edges = [...weights].map(([to, weight]) => ({ to, weight }));
+    }
+  }
+  return graph;
+
+  function resolveCall(name: string, cls: JavaASTClass, varTypes: Map<string, string>): string | null {
+    const parts = name.split(".");
+    const methodName = parts.pop() || "";
+    if (parts[0] === "this" && parts.length > 1) parts.shift();
+
+    let owner: string | null = null;
+    if (parts.length === 0 || parts[0] === "this") {
+      owner = lookup(cls.name, methodName);
+    } else if (parts.length === 1 && parts[0] === "super") {
+      owner = lookup(cls.extends ? simpleType(cls.extends) : undefined, methodName);
+    } else if (parts.length === 1 && varTypes.has(parts[0])) {
+      const type = varTypes.get(parts[0])!;
+      // A library type (List, String, ...) is a call out of the project
+      if (!classes.has(type)) return null;
+      owner = lookup(type, methodName);
+    } else if (parts.length === 1 && classes.has(parts[0])) {
+      owner = lookup(parts[0], methodName);
+    }
+
+    if (!owner) {
+      const candidates = declaringClasses.get(methodName);
+      if (candidates?.size === 1) owner = [...candidates][0];
+    }
+    return owner ? `${owner}.${methodName}` : null;
+  }
+}
+
+/**
+ * Tarjan's strongly connected components, iteratively. Components come out
+ * callees-first (reverse topological order of the condensation).
+ */
+export function stronglyConnectedComponents(graph: CallGraph): string[][] {
+  const index = new Map<string, number>();
+  const low = new Map<string, number>();
+  const onStack = new Set<string>();
+  const stack: string[] = [];
+  const components: string[][] = [];
+  let counter = 0;
+
+  const open = (v: string) => {
+    index.set(v, counter);
+    low.set(v, counter);
+    counter++;
+    stack.push(v);
+    onStack.add(v);
+  };
+
+  for (const start of graph.keys()) {
+    if (index.has(start)) continue;
+    open(start);
+    const work: [string, number][] = [[start, 0]];
+    while (work.length) {
+      const top = work[work.length - 1];
+      const v = top[0];
+      const edges = graph.get(v)!.edges;
+      if (top[1] < edges.length) {
+        const w = edges[top[1]++].to;
+        if (!graph.has(w)) continue;
+        if (!index.has(w)) {
+          open(w);
+          work.push([w, 0]);
+        } else if (onStack.has(w)) {
+          low.set(v, Math.min(low.get(v)!, index.get(w)!));
+        }
+        continue;
+      }
+      work.pop();
+      if (work.length) {
+        const u = work[work.length - 1][0];
+        low.set(u, Math.min(low.get(u)!, low.get(v)!));
+      }
+      if (low.get(v) === index.get(v)) {
+        const component: string[] = [];
+        let w: string;
+        do {
+          w = stack.pop()!;
+          onStack.delete(w);
+          component.push(w);
+        } while (w !== v);
+        components.push(component);
+      }
+    }
+  }
+  return components;
+}
+
+/** A component is a cycle if it has several methods or one that calls itself */
+function isCyclic(graph: CallGraph, component: string[]): boolean {
+  return component.length > 1 || graph.get(component[0])!.edges.some(e => e.to === component[0]);
+}
+
+/** Methods on a call cycle (direct or mutual recursion) */
+export function recursiveMethods(graph: CallGraph): Set<string> {
+  const recursive = new Set<string>();
+  for (const component of stronglyConnectedComponents(graph)) {
+    if (isCyclic(graph, component)) component.forEach(m => recursive.add(m));
+  }
+  return recursive;
+}
+
+/**
+ * Inclusive cost = own cost + sum over callees of (call-site weight x callee
+ * inclusive cost), computed bottom-up over the SCCs. A cycle is costed as
+ * one unit, gprof-style: every member gets the cycle's own cost plus what
+ * the cycle calls outside itself.
+ */
+export function propagateInclusiveCost(graph: CallGraph, selfCost: Map<string, number>): CallGraphCost {
+  const components = stronglyConnectedComponents(graph);
+  const componentOf = new Map<string, number>();
+  components.forEach((c, i) => c.forEach(m => componentOf.set(m, i)));
+
+  const inclusive = new Map<string, number>();
+  const recursive = new Set<string>();
+  components.forEach((component, i) => {
+    let total = 0;
+    for (const m of component) {
+      total += selfCost.get(m) ?? 0;
+      for (const e of graph.get(m)!.edges) {
+        if (componentOf.get(e.to) === i) continue;
+        total += e.weight * (inclusive.get(e.to) ?? 0);
+      }
+    }
+    const cyclic = isCyclic(graph, component);
+    for (const m of component) {
+      inclusive.set(m, total);
+      if (cyclic) recursive.add(m);
+    }
+  });
+  return { inclusive, recursive, components };
+}
+
+/**
+ * Calls per second reaching each method when the entry points are called
+ * at `entryRates`, pushed top-down over the SCCs along the weighted edges.
+ * Calls inside a cycle are not multiplied: every method of a recursive group
+ * runs once per entry into the group, so deep recursion is undercounted.
+ */
+export function propagateInvocationRates(graph: CallGraph, entryRates: Map<string, number>): Map<string, number> {
+  const components = stronglyConnectedComponents(graph);
+  const componentOf = new Map<string, number>();
+  components.forEach((c, i) => c.forEach(m => componentOf.set(m, i)));
+
+  const rates = new Map<string, number>();
+  for (const [key, rate] of entryRates) {
+    if (graph.has(key)) rates.set(key, (rates.get(key) ?? 0) + rate);
+  }
+  // Components come out callees-first, so walk them backwards: callers before callees
+  for (let i = components.length - 1; i >= 0; i--) {
+    if (components[i].length > 1) {
+      const entered = components[i].reduce((sum, m) => sum + (rates.get(m) ?? 0), 0);
+      for (const m of components[i]) rates.set(m, entered);
+    }
+    for (const m of components[i]) {
+      const rate = rates.get(m) ?? 0;
+      if (rate === 0) continue;
+      for (const e of graph.get(m)!.edges) {
+        if (!graph.has(e.to) || componentOf.get(e.to) === i) continue;
+        rates.set(e.to, (rates.get(e.to) ?? 0) + rate * e.weight);
+      }
+    }
+  }
+  return rates;
+}
+
+/**
+ * Fills selfEnergyScore / inclusiveEnergyScore on the reports (self = the
+ * method's own energyScore) and marks methods on call cycles as recursive.
+ * Newly recursive methods are rescored first, so both scores include the
+ * recursion term.
+ */
+export function applyCallGraph(reports: MethodReport[], files: JavaASTFile[]) {
+  const graph = buildCallGraph(files);
+  const recursive = recursiveMethods(graph);
+  for (const r of reports) {
+    if (!r.recursion && recursive.has(`${r.className}.${r.methodName}`)) {
+      r.recursion = true;
+      rescoreReport(r);
+    }
+  }
+
+  const selfCost = new Map(reports.map(r => [`${r.className}.${r.methodName}`, r.energyScore] as [string, number]));
+  const { inclusive } = propagateInclusiveCost(graph, selfCost);
+
+  for (const r of reports) {
+    const key = `${r.className}.${r.methodName}`;
+    r.selfEnergyScore = r.energyScore;
+    r.inclusiveEnergyScore = Number((inclusive.get(key) ?? r.energyScore).toFixed(4));
+    r.callees = graph.get(key)?.edges.length ?? 0;
+  }
+
+  let edges = 0;
+  let unresolved = 0;
+  for (const node of graph.values()) {
+    edges += node.edges.length;
+    unresolved += node.unresolved;
+  }
+  return { graph, methods: graph.size, edges, unresolvedCalls: unresolved, recursiveMethods: recursive.size };
+}
@@ -0,0 +1,169 @@
+// src/core/cfgIndex.ts
+import path from "path";
+import { CFG, loadCFGFile, loadCFGFileAsync } from "../analyzers/cfgAnalyzer";
+
+export type CFGEntry = { cfg: CFG; cfgPath: string; className: string; methodName: string };
+
+export type CFGIndexOptions = {
+  /** Log every CFG as it is indexed */
+  verbose?: boolean;
+  /** Files read at once by CFGIndex.load (default 16) */
+  concurrency?: number;
+  /** Reads one CFG file for CFGIndex.load, e.g. through a warm ArtifactCache */
+  loader?: (cfgPath: string) => Promise<CFG>;
+};
+
+/** Lookup key shared by the AST, CFG and bytecode maps */
+export function methodKey(className: string, methodName: string): string {
+  return `${className}.${methodName}`.toLowerCase().trim();
+}
+
+/**
+ * Every CFG of a scan, loaded once and keyed by normalized `Class.method`.
+ * AST files look their methods up here instead of each re-reading the whole
+ * CFG directory; a method whose CFG was matched is "claimed", and the rest
+ * are reported once as CFG-only methods.
+ */
+export class CFGIndex {
+  private entries: Map<string, CFGEntry> = new Map();
+  private claimed: Set<string> = new Set();
+  files = 0;
+  duplicates = 0;
+  failed = 0;
+  /** Bundle entries with no method name; they cannot be matched, so they are skipped */
+  unnamed = 0;
+
+  constructor(private verbose = false) {}
+
+  /** Read all files concurrently; entries are indexed in `cfgPaths` order */
+  static async load(cfgPaths: string[], options: CFGIndexOptions = {}): Promise<CFGIndex> {
+    const index = new CFGIndex(options.verbose);
+    const loaded: Array<CFG | Error> = new Array(cfgPaths.length);
+    const concurrency = Math.max(1, options.concurrency ?? 16);
+    const loader = options.loader ?? loadCFGFileAsync;
+
+    let next = 0;
+    const worker = async () => {
+      while (next < cfgPaths.length) {
+        const i = next++;
+        try {
+          loaded[i] = await loader(cfgPaths[i]);
+        } catch (err: any) {
+          loaded[i] = err instanceof Error ? err : new Error(String(err));
+        }
+      }
+    };
+    await Promise.all(Array.from({ length: Math.min(concurrency, cfgPaths.length) }, worker));
+
+    cfgPaths.forEach((cfgPath, i) => index.add(cfgPath, loaded[i]));
+    return index;
+  }
+
+  static loadSync(cfgPaths: string[], options: CFGIndexOptions = {}): CFGIndex {
+    const index = new CFGIndex(options.verbose);
+    for (const cfgPath of cfgPaths) {
+      let data: CFG | Error;
+      try {
+        data = loadCFGFile(cfgPath);
+      } catch (err: any) {
+        data = err instanceof Error ? err : new Error(String(err));
+      }
+      index.add(cfgPath, data);
+    }
+    return index;
+  }
+
+  private add(cfgPath: string, data: CFG | Error): void {
+    if (data instanceof Error) {
+      this.failed++;
+      console.warn(`❌ Failed to load CFG at ${cfgPath}:`, data);
+      return;
+    }
+    this.files++;
+    for (const entry of cfgEntries(cfgPath, data)) {
+      if (!entry.methodName) {
+        this.unnamed++;
+        if (this.verbose) {
+          console.log(`⚠️  CFG without a method name skipped: ${entry.className} (from ${path.basename(cfgPath)})`);
+        }
+        continue;
+      }
+      const key = methodKey(entry.className, entry.methodName);
+      // Keep the first CFG for each method
+      if (!this.entries.has(key)) {
+        this.entries.set(key, entry);
+        if (this.verbose) console.log(`✓ Loaded CFG for: ${entry.className}.${entry.methodName}`);
+      } else {
+        this.duplicates++;
+        if (this.verbose) {
+          console.log(`⚠️  Duplicate CFG skipped: ${entry.className}.${entry.methodName} (from ${path.basename(cfgPath)})`);
+        }
+      }
+    }
+  }
+
+  get size(): number {
+    return this.entries.size;
+  }
+
+  get(key: string): CFGEntry | undefined {
+    return this.entries.get(key);
+  }
+
+  /** Mark a CFG as matched to an AST method */
+  claim(key: string): void {
+    this.claimed.add(key);
+  }
+
+  /** CFGs no AST method has claimed yet */
+  unclaimed(): Array<[string, CFGEntry]> {
+    return [...this.entries].filter(([key]) => !this.claimed.has(key));
+  }
+}
+
+/**
+ * CFGs stored in one file: a per-source-file bundle from the static analyzer,
+ * or a legacy single-method CFG named <File>_<Class>_<method>_cfg.json.
+ */
+function cfgEntries(cfgPath: string, data: any): CFGEntry[] {
+  if (data?.kind === "cfg-bundle" && Array.isArray(data.methods)) {
+    return data.methods.map((m: any) => ({
+      cfg: m.cfg,
+      cfgPath,
+      className: m.className || "UnknownClass",
+      methodName: m.methodName || m.cfg?.methodName
+    }));
+  }
+  return [{
+    cfg: data,
+    cfgPath,
+    className: extractClassNameFromCFG(cfgPath),
+    methodName: extractMethodNameFromCFG(cfgPath, data)
+  }];
+}
+
+function extractMethodNameFromCFG(cfgPath: string, cfg: CFG): string {
+  if (cfg.methodName) {
+    return cfg.methodName;
+  }
+
+  const filename = path.parse(cfgPath).name;
+  const parts = filename.split('_');
+
+  if (parts.length >= 3) {
+    return parts[parts.length - 2];
+  }
+
+  return filename.replace('_cfg', '');
+}
+
+function extractClassNameFromCFG(cfgPath: string): string {
+  const filename = path.parse(cfgPath).name;
+  const parts = filename.split('_');
+
+  if (parts.length >= 2) {
+    return parts[0];
+  }
+
+  return 'UnknownClass';
+}
@@ -1,8 +1,13 @@
 // src/core/orchestrator.ts - FIXED VERSION
 import { JavaASTFile, JavaASTClass, JavaASTMethod, analyzeJavaASTMethod, loadASTFile } from "../analyzers/astAnalyzer";
-import { CFG, computeCyclomatic, estimateNestingDepth, loadCFGFile, hasCycle } from "../analyzers/cfgAnalyzer";
+import { computeCyclomatic, estimateNestingDepth, loopWeightedCounts } from "../analyzers/cfgAnalyzer";
+import { BytecodeMethodMetrics } from "../analyzers/bytecodeAnalyzer";
+import { LoopCost, TripCount, analyzeLoopCost, complexityLabel, loopCostContext } from "../analyzers/tripCount";
+import { CFGEntry, CFGIndex, methodKey } from "./cfgIndex";
 import fs from "fs";
 import path from "path";
+import crypto from "crypto";
+import { isArtifactFile } from "../../../../shared/binaryFormat";
 
 export type MethodReport = {
   className: string;
@@ -15,6 +20,8 @@ export type MethodReport = {
   ioCalls: number;
   dbCalls: number;
   methodCallsInsideLoop: number;
+  // Allocations inside loops, weighted by CFG loop depth
+  allocationsInsideLoop?: number;
   recursion: boolean;
   cyclomatic: number;
   nestingDepth: number;
@@ -22,6 +29,32 @@ export type MethodReport = {
   memScore: number;
   ioScore: number;
   energyScore: number;
+  boxingCalls?: number;
+  monitorOps?: number;
+  metricsSource?: "ast" | "bytecode";
+  // Signature info from the AST, used to generate benchmark calls
+  parameters?: Array<{ name: string; type: string }>;
+  returnType?: string;
+  isStatic?: boolean;
+  // Hash of the method's AST (or CFG) JSON, to tell code changes from noise in history
+  sourceHash?: string;
+  // Static trip-count estimate per CFG loop (outer loops first) and the resulting cost
+  loopTrips?: Array<TripCount & { executions: number }>;
+  loopComplexity?: string;
+  estimatedIterations?: number;
+  loopWeight?: number;
+  // Call graph: own score, plus everything it triggers through resolved callees
+  selfEnergyScore?: number;
+  inclusiveEnergyScore?: number;
+  callees?: number;
+  // Profiled workload (--workload): shares of the whole run and the resulting priority
+  selfTimeShare?: number;
+  timeShare?: number;
+  selfEnergyShare?: number;
+  energyShare?: number;
+  maxSavingPct?: number;
+  amdahlSpeedup?: number;
+  criticality?: number;
 };
 
 function clamp01(v: number) {
@@ -29,7 +62,14 @@ function clamp01(v: number) {
   return Math.max(0, Math.min(1, v));
 }
 
-function computeScoresFromMetrics(metrics: {
+/**
+ * cpuRaw is unbounded (it starts at 1 for every method), so it is mapped
+ * onto [0, 1) with 1 - e^(-k*raw) instead of clamped: a trivial method
+ * scores ~0.22 and heavier loop weight keeps raising the score.
+ */
+const CPU_SATURATION = 0.25;
+
+export function computeScoresFromMetrics(metrics: {
   loopCount: number;
   cyclomatic: number;
   nestingDepth: number;
@@ -40,36 +80,49 @@ function computeScoresFromMetrics(metrics: {
   methodCallsInsideLoop: number;
   recursion: boolean;
   conditionalsCount: number;
+  boxingCalls?: number;
+  monitorOps?: number;
+  allocationsInsideLoop?: number;
+  // Trip-count weighted loop cost; replaces loopCount when the CFG has loop analysis
+  loopWeight?: number;
 }) {
   const {
     loopCount, cyclomatic, nestingDepth, objectCreations,
     methodCalls, ioCalls, dbCalls, methodCallsInsideLoop, 
-    recursion, conditionalsCount
+    recursion, conditionalsCount, boxingCalls = 0, monitorOps = 0,
+    allocationsInsideLoop = 0
   } = metrics;
+  const loops = metrics.loopWeight ?? loopCount;
 
   // Add baseline complexity to ensure non-zero scores
   const baseComplexity = 1; // Every method has at least some complexity
   
   let cpuRaw = baseComplexity + 
-               (loopCount * 0.3) + 
+               (loops * 0.3) + 
                ((cyclomatic - 1) * 0.1) + 
                ((nestingDepth - 1) * 0.2) +
                (conditionalsCount * 0.05);
   
   if (methodCallsInsideLoop > 0) cpuRaw += methodCallsInsideLoop * 0.1;
   if (recursion) cpuRaw += 0.3;
+  // Lock acquire/release pairs (only known from bytecode)
+  cpuRaw += (monitorOps / 2) * 0.05;
 
   let memRaw = (objectCreations * 0.15) + 
-               (loopCount * 0.05) +
+               (loops * 0.05) +
                (methodCalls * 0.02);
   if (objectCreations > 5) memRaw += 0.2;
+  // Each boxing call may allocate a wrapper object
+  memRaw += boxingCalls * 0.05;
+  // Allocations repeated by enclosing loops
+  memRaw += allocationsInsideLoop * 0.1;
 
   let ioRaw = (ioCalls * 0.4) + 
               (dbCalls * 0.6) + 
               (methodCalls * 0.03);
-  if (dbCalls > 0 && loopCount > 0) ioRaw += 0.5;
+  if (dbCalls > 0 && loops > 0) ioRaw += 0.5;
 
-  const cpuScore = clamp01(cpuRaw);
+  const cpuScore = clamp01(1 - Math.exp(-CPU_SATURATION * cpuRaw));
   const memScore = clamp01(memRaw);
   const ioScore = clamp01(ioRaw);
 
@@ -77,252 +130,361 @@ function computeScoresFromMetrics(metrics: {
 
   return { cpuScore, memScore, ioScore, energyScore };
 }
-function extractMethodNameFromCFG(cfgPath: string, cfg: CFG): string {
-  if (cfg.methodName) {
-    return cfg.methodName;
-  }
-  
-  const filename = path.basename(cfgPath, '.json');
-  const parts = filename.split('_');
-  
-  if (parts.length >= 3) {
-    return parts[parts.length - 2];
-  }
-  
-  return filename.replace('_cfg', '');
+/** Recompute the scores from a report's own metrics, e.g. after the call graph finds recursion */
+export function rescoreReport(report: MethodReport): void {
+  const scores = computeScoresFromMetrics(report);
+  report.cpuScore = scores.cpuScore;
+  report.memScore = scores.memScore;
+  report.ioScore = scores.ioScore;
+  report.energyScore = scores.energyScore;
 }
 
-function extractClassNameFromCFG(cfgPath: string): string {
-  const filename = path.basename(cfgPath, '.json');
-  const parts = filename.split('_');
-  
-  if (parts.length >= 2) {
-    return parts[0];
-  }
-  
-  return 'UnknownClass';
+function hashJSON(value: unknown): string {
+  return crypto.createHash("sha256").update(JSON.stringify(value)).digest("hex").slice(0, 16);
+}
+
+/** Report fields for the trip-count analysis */
+function loopCostFields(cost: LoopCost | null): Partial<MethodReport> {
+  if (!cost) return {};
+  return {
+    loopTrips: cost.loops.map(({ kind, value, bound, logarithmic, executions }) => ({ kind, value, bound, logarithmic, executions })),
+    loopComplexity: complexityLabel(cost.degree),
+    estimatedIterations: Math.round(cost.iterations),
+    loopWeight: cost.weight
+  };
 }
 
-function normalizeMethodName(name: string): string {
-  return name.toLowerCase().trim();
+function signatureOf(m: JavaASTMethod) {
+  return {
+    parameters: (m.params || []).map((p, i) => ({ name: p.name || `arg${i}`, type: p.type || "Object" })),
+    returnType: m.returnType || "void",
+    isStatic: (m.modifiers || []).includes("static")
+  };
 }
 
+type MethodMetrics = ReturnType<typeof analyzeJavaASTMethod> & {
+  boxingCalls: number;
+  monitorOps: number;
+  metricsSource: "ast" | "bytecode";
+};
+
 /**
- * 🔥 FIXED VERSION - Properly deduplicates methods
- * Generate method reports by combining a single AST file with many CFG files
+ * Replace the name-heuristic counters with bytecode counts when the method was
+ * found in the compiled classes. Structural info (loops list, nesting,
+ * conditionals) still comes from the AST.
  */
-export function generateReportsFromASTandCFGs(astPath: string, cfgPaths: string[]): MethodReport[] {
-  const astFile = loadASTFile(astPath);
-  const reports: MethodReport[] = [];
-  
-  // Build method map from AST for easy lookup
-  const astMethodMap: Map<string, JavaASTMethod & { className: string }> = new Map();
-  
-  for (const cls of astFile.classes || []) {
-    const className = cls.name || "UnknownClass";
-    for (const m of cls.methods || []) {
-      const methodName = m.name;
-      const key = `${className}.${methodName}`;
-      astMethodMap.set(normalizeMethodName(key), { ...m, className });
-    }
+function applyBytecodeMetrics(
+  astMetrics: ReturnType<typeof analyzeJavaASTMethod>,
+  bc?: BytecodeMethodMetrics
+): MethodMetrics {
+  if (!bc) {
+    return { ...astMetrics, boxingCalls: 0, monitorOps: 0, metricsSource: "ast" };
   }
 
-  console.log(`📊 AST Methods found: ${astMethodMap.size}`);
-  console.log(`📊 CFG Files to process: ${cfgPaths.length}`);
+  return {
+    ...astMetrics,
+    loopCount: Math.max(astMetrics.loopCount, bc.loopBackEdges),
+    objectCreations: bc.allocations + bc.arrayAllocations,
+    methodCalls: bc.invokes,
+    ioCalls: bc.ioCalls,
+    dbCalls: bc.dbCalls,
+    methodCallsInsideLoop: bc.invokesInLoops,
+    recursion: astMetrics.recursion || bc.recursive,
+    boxingCalls: bc.boxingCalls + bc.unboxingCalls,
+    monitorOps: bc.monitorOps + (bc.synchronizedMethod ? 2 : 0),
+    metricsSource: "bytecode"
+  };
+}
 
-  // 🔥 FIX 1: Build CFG map to avoid processing same method multiple times
-  const cfgMap: Map<string, { cfg: CFG; cfgPath: string }> = new Map();
-  
-  for (const cfgPath of cfgPaths) {
-    try {
-      const cfg = loadCFGFile(cfgPath);
-      const methodName = extractMethodNameFromCFG(cfgPath, cfg);
-      const className = extractClassNameFromCFG(cfgPath);
-      const methodKey = `${className}.${methodName}`;
-      const normalizedKey = normalizeMethodName(methodKey);
-
-      // Keep the first CFG for each method (or implement priority logic)
-      if (!cfgMap.has(normalizedKey)) {
-        cfgMap.set(normalizedKey, { cfg, cfgPath });
-        console.log(`✓ Loaded CFG for: ${methodKey}`);
-      } else {
-        console.log(`⚠️  Duplicate CFG skipped: ${methodKey} (from ${path.basename(cfgPath)})`);
-      }
-    } catch (err) {
-      console.warn(`❌ Failed to load CFG at ${cfgPath}:`, err);
-    }
+type ASTMethodEntry = JavaASTMethod & { className: string; sourceHash: string; classFields: string[] };
+
+/**
+ * One method to score. Jobs are plain data, so the scoring stage can run in
+ * worker threads (see scoringPool.ts) as well as in-process.
+ */
+export type ScoringJob =
+  | { kind: "merged"; key: string; astMethod: ASTMethodEntry; cfg: CFGEntry["cfg"]; bc?: BytecodeMethodMetrics }
+  | { kind: "cfg-only"; key: string; entry: CFGEntry; bc?: BytecodeMethodMetrics }
+  | { kind: "ast-only"; key: string; astMethod: ASTMethodEntry };
+
+// Also report AST methods that have no CFG data
+const INCLUDE_AST_ONLY_METHODS = false;
+
+export type ReportOptions = {
+  /** Log every matched method (CFG loading is logged by the index) */
+  verbose?: boolean;
+};
+
+/** Report for a method that has both AST and CFG data */
+function mergedReport(astMethod: ASTMethodEntry, cfg: CFGEntry["cfg"], bc?: BytecodeMethodMetrics): MethodReport {
+  const astMetrics = applyBytecodeMetrics(analyzeJavaASTMethod(astMethod), bc);
+  const cyclomatic = computeCyclomatic(cfg);
+  // The CFG's loop forest only counts loops that actually iterate
+  const nestingDepth = typeof cfg.maxLoopDepth === "number" ? estimateNestingDepth(cfg) : astMetrics.nestingDepth;
+  // CFG cycles are loops; recursion only comes from the AST/bytecode
+  const recursion = astMetrics.recursion;
+  const inLoops = loopWeightedCounts(cfg);
+  const methodCallsInsideLoop = Math.max(astMetrics.methodCallsInsideLoop, inLoops.calls);
+  const loopCost = analyzeLoopCost(cfg, loopCostContext(astMethod.params, astMethod.classFields));
+
+  const scores = computeScoresFromMetrics({
+    loopCount: astMetrics.loopCount,
+    cyclomatic,
+    nestingDepth,
+    objectCreations: astMetrics.objectCreations,
+    methodCalls: astMetrics.methodCalls,
+    ioCalls: astMetrics.ioCalls,
+    dbCalls: astMetrics.dbCalls,
+    methodCallsInsideLoop,
+    recursion,
+    conditionalsCount: astMetrics.conditionalsCount,
+    boxingCalls: astMetrics.boxingCalls,
+    monitorOps: astMetrics.monitorOps,
+    allocationsInsideLoop: inLoops.allocations,
+    loopWeight: loopCost?.weight
+  });
+
+  return {
+    className: astMethod.className,
+    methodName: astMethod.name,
+    loopCount: astMetrics.loopCount,
+    loops: astMetrics.loops,
+    conditionalsCount: astMetrics.conditionalsCount,
+    methodCalls: astMetrics.methodCalls,
+    objectCreations: astMetrics.objectCreations,
+    ioCalls: astMetrics.ioCalls,
+    dbCalls: astMetrics.dbCalls,
+    methodCallsInsideLoop,
+    allocationsInsideLoop: inLoops.allocations,
+    recursion,
+    cyclomatic,
+    nestingDepth,
+    cpuScore: scores.cpuScore,
+    memScore: scores.memScore,
+    ioScore: scores.ioScore,
+    energyScore: scores.energyScore,
+    boxingCalls: astMetrics.boxingCalls,
+    monitorOps: astMetrics.monitorOps,
+    metricsSource: astMetrics.metricsSource,
+    ...signatureOf(astMethod),
+    ...loopCostFields(loopCost),
+    sourceHash: astMethod.sourceHash
+  };
+}
+
+/** Report for a method that has a CFG but no AST data - bytecode counts fill in when available */
+function cfgOnlyReport(entry: CFGEntry, bc?: BytecodeMethodMetrics): MethodReport {
+  const { cfg, className, methodName } = entry;
+  const cyclomatic = computeCyclomatic(cfg);
+  const nestingDepth = estimateNestingDepth(cfg);
+  const inLoops = loopWeightedCounts(cfg);
+  // No AST: parameters and fields are unknown, so only constant loops are recognised
+  const loopCost = analyzeLoopCost(cfg, loopCostContext());
+
+  const metrics = {
+    loopCount: bc ? bc.loopBackEdges : cfg.loops?.length ?? 0,
+    objectCreations: bc ? bc.allocations + bc.arrayAllocations : 0,
+    methodCalls: bc ? bc.invokes : 0,
+    ioCalls: bc ? bc.ioCalls : 0,
+    dbCalls: bc ? bc.dbCalls : 0,
+    methodCallsInsideLoop: bc ? bc.invokesInLoops : inLoops.calls,
+    allocationsInsideLoop: inLoops.allocations,
+    recursion: bc ? bc.recursive : false,
+    boxingCalls: bc ? bc.boxingCalls + bc.unboxingCalls : 0,
+    monitorOps: bc ? bc.monitorOps + (bc.synchronizedMethod ? 2 : 0) : 0
+  };
+
+  const scores = computeScoresFromMetrics({
+    ...metrics,
+    cyclomatic,
+    nestingDepth,
+    conditionalsCount: 0,
+    loopWeight: loopCost?.weight
+  });
+
+  return {
+    className,
+    methodName,
+    loopCount: metrics.loopCount,
+    loops: [],
+    conditionalsCount: 0,
+    methodCalls: metrics.methodCalls,
+    objectCreations: metrics.objectCreations,
+    ioCalls: metrics.ioCalls,
+    dbCalls: metrics.dbCalls,
+    methodCallsInsideLoop: metrics.methodCallsInsideLoop,
+    allocationsInsideLoop: metrics.allocationsInsideLoop,
+    recursion: metrics.recursion,
+    cyclomatic,
+    nestingDepth,
+    cpuScore: scores.cpuScore,
+    memScore: scores.memScore,
+    ioScore: scores.ioScore,
+    energyScore: scores.energyScore,
+    boxingCalls: metrics.boxingCalls,
+    monitorOps: metrics.monitorOps,
+    metricsSource: bc ? "bytecode" : "ast",
+    ...loopCostFields(loopCost),
+    sourceHash: hashJSON(cfg)
+  };
+}
+
+/** Report for a method with AST data only (off by default, see INCLUDE_AST_ONLY_METHODS) */
+function astOnlyReport(astMethod: ASTMethodEntry): MethodReport {
+  const astMetrics = analyzeJavaASTMethod(astMethod);
+
+  const scores = computeScoresFromMetrics({
+    loopCount: astMetrics.loopCount,
+    cyclomatic: 1, // Default cyclomatic without CFG
+    nestingDepth: astMetrics.nestingDepth || 1,
+    objectCreations: astMetrics.objectCreations,
+    methodCalls: astMetrics.methodCalls,
+    ioCalls: astMetrics.ioCalls,
+    dbCalls: astMetrics.dbCalls,
+    methodCallsInsideLoop: astMetrics.methodCallsInsideLoop,
+    recursion: astMetrics.recursion,
+    conditionalsCount: astMetrics.conditionalsCount
+  });
+
+  return {
+    className: astMethod.className,
+    methodName: astMethod.name,
+    loopCount: astMetrics.loopCount,
+    loops: astMetrics.loops,
+    conditionalsCount: astMetrics.conditionalsCount,
+    methodCalls: astMetrics.methodCalls,
+    objectCreations: astMetrics.objectCreations,
+    ioCalls: astMetrics.ioCalls,
+    dbCalls: astMetrics.dbCalls,
+    methodCallsInsideLoop: astMetrics.methodCallsInsideLoop,
+    recursion: astMetrics.recursion,
+    cyclomatic: 1,
+    nestingDepth: astMetrics.nestingDepth || 1,
+    cpuScore: scores.cpuScore,
+    memScore: scores.memScore,
+    ioScore: scores.ioScore,
+    energyScore: scores.energyScore
+  };
+}
+
+export function scoreJob(job: ScoringJob): MethodReport {
+  switch (job.kind) {
+    case "merged":
+      return mergedReport(job.astMethod, job.cfg, job.bc);
+    case "cfg-only":
+      return cfgOnlyReport(job.entry, job.bc);
+    case "ast-only":
+      return astOnlyReport(job.astMethod);
   }
+}
 
-  console.log(`📊 Unique CFG methods: ${cfgMap.size}`);
-
-  // 🔥 FIX 2: Process each unique method exactly once
-  const processedMethods = new Set<string>();
-
-  // Process methods that have both AST and CFG
-  for (const [normalizedKey, { cfg, cfgPath }] of cfgMap.entries()) {
-    const astMethod = astMethodMap.get(normalizedKey);
-    
-    if (astMethod) {
-      // Method has both AST and CFG data
-      const astMetrics = analyzeJavaASTMethod(astMethod);
-      const cyclomatic = computeCyclomatic(cfg);
-      const nestingDepth = astMetrics.nestingDepth || estimateNestingDepth(cfg);
-      const cyclePresent = hasCycle(cfg);
-      const recursion = astMetrics.recursion || cyclePresent;
-
-      const scores = computeScoresFromMetrics({
-        loopCount: astMetrics.loopCount,
-        cyclomatic,
-        nestingDepth,
-        objectCreations: astMetrics.objectCreations,
-        methodCalls: astMetrics.methodCalls,
-        ioCalls: astMetrics.ioCalls,
-        dbCalls: astMetrics.dbCalls,
-        methodCallsInsideLoop: astMetrics.methodCallsInsideLoop,
-        recursion,
-        conditionalsCount: astMetrics.conditionalsCount
-      });
-
-      const report: MethodReport = {
-        className: astMethod.className,
-        methodName: astMethod.name,
-        loopCount: astMetrics.loopCount,
-        loops: astMetrics.loops,
-        conditionalsCount: astMetrics.conditionalsCount,
-        methodCalls: astMetrics.methodCalls,
-        objectCreations: astMetrics.objectCreations,
-        ioCalls: astMetrics.ioCalls,
-        dbCalls: astMetrics.dbCalls,
-        methodCallsInsideLoop: astMetrics.methodCallsInsideLoop,
-        recursion,
-        cyclomatic,
-        nestingDepth,
-        cpuScore: scores.cpuScore,
-        memScore: scores.memScore,
-        ioScore: scores.ioScore,
-        energyScore: scores.energyScore
-      };
-
-      reports.push(report);
-      processedMethods.add(normalizedKey);
-      
-      console.log(`✅ Merged (AST+CFG): ${astMethod.className}.${astMethod.name} - Energy: ${scores.energyScore.toFixed(3)}`);
-    } else {
-      // Method has CFG but no AST data
-      const methodName = extractMethodNameFromCFG(cfgPath, cfg);
-      const className = extractClassNameFromCFG(cfgPath);
-      const cyclomatic = computeCyclomatic(cfg);
-      const nestingDepth = estimateNestingDepth(cfg);
-      
-      const scores = computeScoresFromMetrics({
-        loopCount: 0,
-        cyclomatic,
-        nestingDepth,
-        objectCreations: 0,
-        methodCalls: 0,
-        ioCalls: 0,
-        dbCalls: 0,
-        methodCallsInsideLoop: 0,
-        recursion: false,
-        conditionalsCount: 0
-      });
-
-      const report: MethodReport = {
-        className,
-        methodName,
-        loopCount: 0,
-        loops: [],
-        conditionalsCount: 0,
-        methodCalls: 0,
-        objectCreations: 0,
-        ioCalls: 0,
-        dbCalls: 0,
-        methodCallsInsideLoop: 0,
-        recursion: false,
-        cyclomatic,
-        nestingDepth,
-        cpuScore: scores.cpuScore,
-        memScore: scores.memScore,
-        ioScore: scores.ioScore,
-        energyScore: scores.energyScore
-      };
-
-      reports.push(report);
-      processedMethods.add(normalizedKey);
-      
-      console.log(`⚠️  CFG-only: ${className}.${methodName} - Energy: ${scores.energyScore.toFixed(3)}`);
+function astMethodEntries(astFile: JavaASTFile): Map<string, ASTMethodEntry> {
+  const astMethodMap: Map<string, ASTMethodEntry> = new Map();
+  for (const cls of astFile.classes || []) {
+    const className = cls.name || "UnknownClass";
+    for (const m of cls.methods || []) {
+      astMethodMap.set(methodKey(className, m.name), { ...m, className, sourceHash: hashJSON(m), classFields: cls.fields || [] });
     }
   }
+  return astMethodMap;
+}
 
-  // 🔥 FIX 3: Process AST methods that don't have CFG (optional)
-  // Only include these if you want to report on methods without CFG data
-  const includeASTOnlyMethods = false; // Set to true if you want these
-  
-  if (includeASTOnlyMethods) {
-    for (const [normalizedKey, astMethod] of astMethodMap.entries()) {
-      if (!processedMethods.has(normalizedKey)) {
-        const astMetrics = analyzeJavaASTMethod(astMethod);
-        
-        const scores = computeScoresFromMetrics({
-          loopCount: astMetrics.loopCount,
-          cyclomatic: 1, // Default cyclomatic without CFG
-          nestingDepth: astMetrics.nestingDepth || 1,
-          objectCreations: astMetrics.objectCreations,
-          methodCalls: astMetrics.methodCalls,
-          ioCalls: astMetrics.ioCalls,
-          dbCalls: astMetrics.dbCalls,
-          methodCallsInsideLoop: astMetrics.methodCallsInsideLoop,
-          recursion: astMetrics.recursion,
-          conditionalsCount: astMetrics.conditionalsCount
-        });
-
-        const report: MethodReport = {
-          className: astMethod.className,
-          methodName: astMethod.name,
-          loopCount: astMetrics.loopCount,
-          loops: astMetrics.loops,
-          conditionalsCount: astMetrics.conditionalsCount,
-          methodCalls: astMetrics.methodCalls,
-          objectCreations: astMetrics.objectCreations,
-          ioCalls: astMetrics.ioCalls,
-          dbCalls: astMetrics.dbCalls,
-          methodCallsInsideLoop: astMetrics.methodCallsInsideLoop,
-          recursion: astMetrics.recursion,
-          cyclomatic: 1,
-          nestingDepth: astMetrics.nestingDepth || 1,
-          cpuScore: scores.cpuScore,
-          memScore: scores.memScore,
-          ioScore: scores.ioScore,
-          energyScore: scores.energyScore
-        };
-
-        reports.push(report);
-        console.log(`ℹ️  AST-only: ${astMethod.className}.${astMethod.name} - Energy: ${scores.energyScore.toFixed(3)}`);
-      }
+/**
+ * Match the methods of one AST file against the shared CFG index and claim
+ * the matched CFGs. Methods without a CFG are only scored when
+ * INCLUDE_AST_ONLY_METHODS is on.
+ */
+export function collectScoringJobs(
+  astPath: string,
+  index: CFGIndex,
+  bytecodeMetrics?: Map<string, BytecodeMethodMetrics>
+): { jobs: ScoringJob[]; astMethods: number } {
+  const astMethodMap = astMethodEntries(loadASTFile(astPath));
+  const jobs: ScoringJob[] = [];
+  for (const [key, astMethod] of astMethodMap) {
+    const entry = index.get(key);
+    if (!entry) {
+      if (INCLUDE_AST_ONLY_METHODS) jobs.push({ kind: "ast-only", key, astMethod });
+      continue;
     }
+    index.claim(key);
+    jobs.push({ kind: "merged", key, astMethod, cfg: entry.cfg, bc: bytecodeMetrics?.get(key) });
   }
+  return { jobs, astMethods: astMethodMap.size };
+}
 
-  console.log(`\n📊 Summary:`);
-  console.log(`   Total unique methods: ${reports.length}`);
-  console.log(`   Duplicates avoided: ${cfgPaths.length - cfgMap.size}`);
-  
+/** Jobs for the indexed CFGs no AST method claimed; claims them */
+export function collectCFGOnlyJobs(index: CFGIndex, bytecodeMetrics?: Map<string, BytecodeMethodMetrics>): ScoringJob[] {
+  return index.unclaimed().map(([key, entry]) => {
+    index.claim(key);
+    return { kind: "cfg-only", key, entry, bc: bytecodeMetrics?.get(key) };
+  });
+}
+
+/** Verbose per-method log line */
+export function logScoredMethod(job: ScoringJob, report: MethodReport): void {
+  const label = job.kind === "merged" ? "✅ Merged (AST+CFG)" : job.kind === "cfg-only" ? "⚠️  CFG-only" : "ℹ️  AST-only";
+  console.log(`${label}: ${report.className}.${report.methodName} - Energy: ${report.energyScore.toFixed(3)}`);
+}
+
+/**
+ * Generate method reports for one AST file, in-process. Methods are looked
+ * up in a CFG index shared by every AST file of the scan, so the CFG set is
+ * read once per scan rather than once per AST file.
+ *
+ * Given plain CFG paths instead, an index is built for this call and the
+ * unmatched CFGs are reported as CFG-only methods too; with a shared index,
+ * call generateCFGOnlyReports once after the last AST file.
+ */
+export function generateReportsFromASTandCFGs(
+  astPath: string,
+  cfgs: string[] | CFGIndex,
+  bytecodeMetrics?: Map<string, BytecodeMethodMetrics>,
+  options: ReportOptions = {}
+): MethodReport[] {
+  const ownIndex = Array.isArray(cfgs);
+  const index = ownIndex ? CFGIndex.loadSync(cfgs, options) : cfgs;
+  const { jobs, astMethods } = collectScoringJobs(astPath, index, bytecodeMetrics);
+  if (ownIndex) jobs.push(...collectCFGOnlyJobs(index, bytecodeMetrics));
+
+  const reports = jobs.map(job => {
+    const report = scoreJob(job);
+    if (options.verbose) logScoredMethod(job, report);
+    return report;
+  });
+
+  const matched = jobs.filter(j => j.kind === "merged").length;
   const nonZeroEnergy = reports.filter(r => r.energyScore > 0).length;
-  console.log(`   Methods with energy > 0: ${nonZeroEnergy}/${reports.length}`);
+  console.log(`   ${path.basename(astPath)}: ${matched}/${astMethods} methods matched a CFG, ${nonZeroEnergy} with energy > 0`);
 
   return reports;
 }
 
+/** Reports for the indexed CFGs no AST method claimed */
+export function generateCFGOnlyReports(
+  index: CFGIndex,
+  bytecodeMetrics?: Map<string, BytecodeMethodMetrics>,
+  options: ReportOptions = {}
+): MethodReport[] {
+  return collectCFGOnlyJobs(index, bytecodeMetrics).map(job => {
+    const report = scoreJob(job);
+    if (options.verbose) logScoredMethod(job, report);
+    return report;
+  });
+}
+
+
 export function collectCFGPathsFromDir(dir: string): string[] {
   const result: string[] = [];
   if (!fs.existsSync(dir)) return result;
   
   const stat = fs.statSync(dir);
-  if (stat.isFile() && dir.endsWith(".json")) return [dir];
+  if (stat.isFile() && isArtifactFile(dir)) return [dir];
   
   if (stat.isDirectory()) {
     const files = fs.readdirSync(dir);
     for (const f of files) {
-      if (f.endsWith(".json")) {
+      if (isArtifactFile(f)) {
         result.push(path.join(dir, f));
       }
     }
@@ -0,0 +1,23 @@
+// src/core/scoreWorker.ts
+import { parentPort } from "worker_threads";
+import { MethodReport, ScoringJob, scoreJob } from "./orchestrator";
+
+export type ScoreRequest = { id: number; jobs: ScoringJob[] };
+
+export type ScoreReply =
+  | { id: number; ok: true; reports: MethodReport[] }
+  | { id: number; ok: false; error: string };
+
+/**
+ * Worker side of the scoring pool: one batch (the methods of one AST file,
+ * or a slice of CFG-only methods) per message.
+ */
+parentPort?.on("message", (request: ScoreRequest) => {
+  let reply: ScoreReply;
+  try {
+    reply = { id: request.id, ok: true, reports: request.jobs.map(scoreJob) };
+  } catch (err: any) {
+    reply = { id: request.id, ok: false, error: err?.stack || String(err) };
+  }
+  parentPort!.postMessage(reply);
+});
@@ -0,0 +1,216 @@
+// src/core/scoringPool.ts
+import fs from "fs";
+import os from "os";
+import path from "path";
+import { Worker } from "worker_threads";
+import { BytecodeMethodMetrics } from "../analyzers/bytecodeAnalyzer";
+import { CFGIndex } from "./cfgIndex";
+import {
+  MethodReport,
+  ScoringJob,
+  collectCFGOnlyJobs,
+  collectScoringJobs,
+  logScoredMethod,
+  scoreJob
+} from "./orchestrator";
+import type { ScoreReply } from "./scoreWorker";
+
+export type ScoringPoolOptions = {
+  /** Worker threads; defaults to available cores (GREENCODE_SCORE_WORKERS overrides) */
+  workers?: number;
+  verbose?: boolean;
+  /**
+   * Receive reports as they are scored instead of collecting them. A
+   * Class.method found in several AST files belongs to the first of them in
+   * astPaths order (the others' copies are not scored), since an earlier
+   * report may already have been handed on when a later copy is read.
+   */
+  onReports?: (reports: MethodReport[]) => void;
+};
+
+export type ScoringResult = {
+  /** One report per Class.method; duplicates keep the highest energy score (empty with onReports) */
+  reports: Map<string, MethodReport>;
+  /** Reports produced before de-duplication */
+  scored: number;
+  processedFiles: number;
+  failedFiles: number;
+};
+
+/** Below this many AST files, worker startup costs more than it saves */
+const MIN_FILES_FOR_WORKERS = 4;
+/** CFG-only methods are sent to workers in slices of this size */
+const CFG_ONLY_BATCH = 256;
+
+type Batch = { label: string; jobs: ScoringJob[] };
+
+/**
+ * Score every method of the scan. The main thread reads one AST file at a
+ * time and matches it against the CFG index; scoring runs in a worker pool
+ * and reports are merged by key as they come back. Only one batch per worker
+ * is in flight, so memory stays bounded by the merged map, not the scan.
+ */
+export async function scoreProject(
+  astPaths: string[],
+  index: CFGIndex,
+  bytecodeMetrics?: Map<string, BytecodeMethodMetrics>,
+  options: ScoringPoolOptions = {}
+): Promise<ScoringResult> {
+  const result: ScoringResult = { reports: new Map(), scored: 0, processedFiles: 0, failedFiles: 0 };
+
+  // Batches are produced lazily: an AST file is only read when a worker is free
+  let fileCursor = 0;
+  let cfgOnly: ScoringJob[] | null = null;
+  // Streaming: keys claimed by an earlier AST file, whatever order batches finish in
+  const owned = new Set<string>();
+  const nextBatch = (): Batch | null => {
+    while (fileCursor < astPaths.length) {
+      const astPath = astPaths[fileCursor++];
+      try {
+        let { jobs } = collectScoringJobs(astPath, index, bytecodeMetrics);
+        if (options.onReports) {
+          jobs = jobs.filter(job => !owned.has(job.key));
+          jobs.forEach(job => owned.add(job.key));
+        }
+        result.processedFiles++;
+        if (options.verbose) console.log(`   🔄 ${path.basename(astPath)}: ${jobs.length} method(s)`);
+        if (jobs.length > 0) return { label: path.basename(astPath), jobs };
+      } catch (error) {
+        console.error(`   ❌ Failed: ${path.basename(astPath)}`, error);
+        result.failedFiles++;
+      }
+    }
+    // CFGs no AST method claimed, once every AST file has been matched
+    if (cfgOnly === null) cfgOnly = collectCFGOnlyJobs(index, bytecodeMetrics);
+    if (cfgOnly.length === 0) return null;
+    return { label: "CFG-only methods", jobs: cfgOnly.splice(0, CFG_ONLY_BATCH) };
+  };
+
+  const merge = (jobs: ScoringJob[], reports: MethodReport[]) => {
+    reports.forEach((report, i) => {
+      if (options.verbose) logScoredMethod(jobs[i], report);
+      if (!options.onReports) mergeReport(result.reports, report);
+      result.scored++;
+    });
+    // Every key is owned by one batch, so there is nothing to merge
+    options.onReports?.(reports);
+  };
+
+  const workerCount = resolveWorkerCount(options.workers, astPaths.length);
+  const worker = resolveWorkerScript();
+
+  if (workerCount > 1 && worker) {
+    console.log(`   ⚙️  Scoring with ${workerCount} workers`);
+    await scoreWithWorkers(workerCount, worker, nextBatch, merge);
+  } else {
+    for (let batch = nextBatch(); batch; batch = nextBatch()) {
+      merge(batch.jobs, batch.jobs.map(scoreJob));
+    }
+  }
+  return result;
+}
+
+/** Keep one report per Class.method, preferring the higher energy score */
+export function mergeReport(reports: Map<string, MethodReport>, report: MethodReport): void {
+  const key = `${report.className}.${report.methodName}`;
+  const existing = reports.get(key);
+  if (!existing || report.energyScore > existing.energyScore) {
+    reports.set(key, report);
+  }
+}
+
+function resolveWorkerCount(requested: number | undefined, fileCount: number): number {
+  if (fileCount < MIN_FILES_FOR_WORKERS) return 1;
+
+  const fromEnv = parseInt(process.env.GREENCODE_SCORE_WORKERS || "", 10);
+  const cores = typeof os.availableParallelism === "function" ? os.availableParallelism() : os.cpus().length;
+  const count = requested ?? (Number.isFinite(fromEnv) ? fromEnv : cores);
+
+  return Math.max(1, Math.min(count, fileCount));
+}
+
+type WorkerScript = { file: string; execArgv?: string[] };
+
+/** The compiled worker, or its TypeScript source when running from src/ (ts-node, tests) */
+function resolveWorkerScript(): WorkerScript | null {
+  const compiled = path.join(__dirname, "scoreWorker.js");
+  if (fs.existsSync(compiled)) return { file: compiled };
+
+  const source = path.join(__dirname, "scoreWorker.ts");
+  if (fs.existsSync(source)) return { file: source, execArgv: ["--require", "ts-node/register/transpile-only"] };
+  return null;
+}
+
+/**
+ * Pull-based pool: each worker gets a new batch when it answers the last
+ * one. A batch whose worker died or failed is scored in-process instead,
+ * so one bad method never loses the rest of the scan.
+ */
+async function scoreWithWorkers(
+  workerCount: number,
+  script: WorkerScript,
+  nextBatch: () => Batch | null,
+  merge: (jobs: ScoringJob[], reports: MethodReport[]) => void
+): Promise<void> {
+  const retry: Batch[] = [];
+  let nextId = 0;
+
+  await new Promise<void>(resolve => {
+    let active = 0;
+
+    const spawn = () => {
+      const worker = new Worker(script.file, { execArgv: script.execArgv });
+      let current: Batch | null = null;
+      active++;
+
+      const dispatch = () => {
+        current = nextBatch();
+        if (!current) {
+          worker.terminate();
+          return;
+        }
+        worker.postMessage({ id: nextId++, jobs: current.jobs });
+      };
+
+      worker.on("message", (reply: ScoreReply) => {
+        if (current) {
+          if (reply.ok) merge(current.jobs, reply.reports);
+          else {
+            console.error(`   ❌ Scoring failed in worker for ${current.label}:`, reply.error);
+            retry.push(current);
+          }
+        }
+        dispatch();
+      });
+
+      worker.on("error", err => {
+        console.error("   Score worker error:", err.message);
+      });
+
+      worker.on("exit", () => {
+        active--;
+        // Exited without answering: the worker died on this batch
+        if (current) {
+          retry.push(current);
+          current = null;
+        }
+        if (active === 0) resolve();
+      });
+
+      dispatch();
+    };
+
+    for (let i = 0; i < workerCount; i++) spawn();
+  });
+
+  // Batches a worker failed or died on, plus anything left if every worker died
+  for (let batch = retry.shift() ?? nextBatch(); batch; batch = retry.shift() ?? nextBatch()) {
+    for (const job of batch.jobs) {
+      try {
+        merge([job], [scoreJob(job)]);
+      } catch (error) {
+        console.error(`   ❌ Failed scoring ${job.key}:`, error);
+      }
+    }
+  }
+}
@@ -0,0 +1,349 @@
+// src/estimators/calibratedModel.ts
+import crypto from "crypto";
+import fs from "fs";
+import path from "path";
+import { DEFAULT_CONFIG } from "../config";
+import type { MethodReport } from "../core/orchestrator";
+import { ESTIMATED_BENCHMARK_SOURCES, loadHistory, median } from "../history/historyStore";
+import { estimateJoulesPerOp } from "./energyEstimator";
+
+/**
+ * Energy model calibrated on measured benchmarks.
+ *
+ * Every measured run in the benchmark history carries the static metrics of
+ * its methods. `calibrate` fits a ridge regression of ln(medianMs) on those
+ * metrics (log1p-transformed, standardized) across all projects in the
+ * history directory, choosing the penalty by k-fold cross-validation. The
+ * model predicts medianMs with a prediction interval for methods that were
+ * not benchmarked, and joules per op through estimateJoulesPerOp.
+ */
+
+export const MODEL_FORMAT_VERSION = 1;
+export const MODEL_KIND = "greencode-energy-model";
+/** Default model location inside the history directory */
+export const MODEL_FILE_NAME = "energy-model.json";
+
+/** Static metrics recorded with each measured run and used as model inputs */
+export const MODEL_FEATURES = [
+  "loopCount",
+  "estimatedIterations",
+  "cyclomatic",
+  "nestingDepth",
+  "conditionalsCount",
+  "methodCalls",
+  "methodCallsInsideLoop",
+  "objectCreations",
+  "allocationsInsideLoop",
+  "ioCalls",
+  "dbCalls",
+  "recursion",
+  "boxingCalls",
+  "monitorOps",
+  "callees",
+  "energyScore",
+  "inclusiveEnergyScore"
+] as const;
+
+/** Ridge penalties tried by cross-validation */
+const LAMBDAS = [0.01, 0.1, 0.3, 1, 3, 10, 30, 100];
+/** Two-sided 95% normal quantile */
+const Z_95 = 1.959964;
+
+export type EnergyModel = {
+  kind: typeof MODEL_KIND;
+  formatVersion: number;
+  modelId: string;
+  createdAt: string;
+  target: "ln(medianMs)";
+  features: string[];
+  /** Mean and standard deviation of each log1p-transformed feature */
+  mean: number[];
+  scale: number[];
+  intercept: number;
+  coefficients: number[];
+  lambda: number;
+  /** Residual standard deviation in log space */
+  residualSigma: number;
+  /** (ZᵀZ + λI)⁻¹ over the standardized features, for leverage in intervals */
+  covariance: number[][];
+  intervalLevel: number;
+  training: {
+    samples: number;
+    projects: number;
+    runs: number;
+    cvRmse: number;
+    r2: number;
+  };
+};
+
+export type TrainingSample = {
+  project: string;
+  key: string;
+  features: Record<string, number>;
+  medianMs: number;
+};
+
+export type MedianPrediction = { medianMs: number; low: number; high: number };
+
+export type EnergyPrediction = {
+  predictedMedianMs: number;
+  predictedMedianMsInterval: [number, number];
+  predictedJoulesPerOp: number;
+  predictedJoulesInterval: [number, number];
+  predictionModel: string;
+};
+
+/** Raw model inputs for a scored method (untransformed, recorded in history) */
+export function methodFeatures(report: Partial<MethodReport>): Record<string, number> {
+  const features: Record<string, number> = {};
+  for (const name of MODEL_FEATURES) {
+    const value = (report as any)[name];
+    features[name] = typeof value === "boolean" ? Number(value) : Number.isFinite(value) ? value : 0;
+  }
+  features.inclusiveEnergyScore = report.inclusiveEnergyScore ?? report.energyScore ?? 0;
+  return features;
+}
+
+function transform(model: Pick<EnergyModel, "features">, features: Record<string, number>): number[] {
+  return model.features.map(name => Math.log1p(Math.max(0, features[name] ?? 0)));
+}
+
+/**
+ * Measured (features, medianMs) pairs from every project history in
+ * `historyDir`. Runs of the same method and source hash are collapsed to
+ * the median of their medians, so a method benchmarked on every scan does
+ * not outweigh the rest; estimated runs are ignored.
+ */
+export function collectTrainingSamples(
+  historyDir: string,
+  projects?: string[]
+): { samples: TrainingSample[]; runs: number } {
+  const groups = new Map<string, { project: string; key: string; features: Record<string, number>; medians: number[] }>();
+  let runs = 0;
+  if (!fs.existsSync(historyDir)) return { samples: [], runs };
+
+  for (const file of fs.readdirSync(historyDir).filter(f => f.endsWith(".ndjson")).sort()) {
+    for (const run of loadHistory(path.join(historyDir, file))) {
+      if (ESTIMATED_BENCHMARK_SOURCES.has(run.benchmarkSource)) continue;
+      if (projects && projects.length > 0 && !projects.includes(run.project)) continue;
+      if (!run.featureNames || !run.features) continue;
+      runs++;
+
+      run.keys.forEach((key, i) => {
+        const vector = run.features![i];
+        const ms = run.medianMs[i];
+        if (!vector || !(ms > 0)) return;
+
+        const id = `${run.project}\u0000${key}\u0000${run.sourceHash[i] ?? ""}`;
+        const features: Record<string, number> = {};
+        run.featureNames!.forEach((name, j) => (features[name] = vector[j]));
+        const group = groups.get(id);
+        if (group) {
+          group.medians.push(ms);
+          group.features = features; // latest wins
+        } else {
+          groups.set(id, { project: run.project, key, features, medians: [ms] });
+        }
+      });
+    }
+  }
+
+  const samples = [...groups.values()].map(g => ({
+    project: g.project,
+    key: g.key,
+    features: g.features,
+    medianMs: median(g.medians)
+  }));
+  return { samples, runs };
+}
+
+// ---- linear algebra (p is small: one row/column per feature) ----
+
+/** Gauss-Jordan inverse with partial pivoting; throws on a singular matrix */
+export function invert(matrix: number[][]): number[][] {
+  const n = matrix.length;
+  const a = matrix.map((row, i) => [...row, ...Array.from({ length: n }, (_, j) => (i === j ? 1 : 0))]);
+  for (let col = 0; col < n; col++) {
+    let pivot = col;
+    for (let r = col + 1; r < n; r++) if (Math.abs(a[r][col]) > Math.abs(a[pivot][col])) pivot = r;
+    if (Math.abs(a[pivot][col]) < 1e-12) throw new Error("Singular matrix");
+    [a[col], a[pivot]] = [a[pivot], a[col]];
+    const p = a[col][col];
+    for (let j = 0; j < 2 * n; j++) a[col][j] /= p;
+    for (let r = 0; r < n; r++) {
+      if (r === col || a[r][col] === 0) continue;
+      const f = a[r][col];
+      for (let j = 0; j < 2 * n; j++) a[r][j] -= f * a[col][j];
+    }
+  }
+  return a.map(row => row.slice(n));
+}
+
+function quadratic(m: number[][], x: number[]): number {
+  let sum = 0;
+  for (let i = 0; i < x.length; i++) for (let j = 0; j < x.length; j++) sum += x[i] * m[i][j] * x[j];
+  return sum;
+}
+
+type RidgeFit = { coefficients: number[]; intercept: number; inverse: number[][] };
+
+/** Ridge on already standardized rows; the intercept is the unpenalized mean of y */
+function ridge(z: number[][], y: number[], lambda: number): RidgeFit {
+  const p = z[0].length;
+  const yMean = y.reduce((s, v) => s + v, 0) / y.length;
+  const gram = Array.from({ length: p }, (_, i) => Array.from({ length: p }, (_, j) => (i === j ? lambda : 0)));
+  const xty = new Array(p).fill(0);
+  z.forEach((row, r) => {
+    for (let i = 0; i < p; i++) {
+      xty[i] += row[i] * (y[r] - yMean);
+      for (let j = 0; j < p; j++) gram[i][j] += row[i] * row[j];
+    }
+  });
+  const inverse = invert(gram);
+  const coefficients = inverse.map(row => row.reduce((s, v, j) => s + v * xty[j], 0));
+  return { coefficients, intercept: yMean, inverse };
+}
+
+function predictRow(fit: Pick<RidgeFit, "coefficients" | "intercept">, row: number[]): number {
+  return fit.intercept + row.reduce((s, v, i) => s + v * fit.coefficients[i], 0);
+}
+
+export type CalibrationOptions = {
+  /** Cross-validation folds (default 5) */
+  folds?: number;
+  /** Refuse to fit on fewer samples than this (default 10) */
+  minSamples?: number;
+};
+
+/**
+ * Fit the model. Rows are ordered by project/key before folding so the same
+ * history always produces the same model.
+ */
+export function fitEnergyModel(
+  samples: TrainingSample[],
+  runs: number,
+  options: CalibrationOptions = {}
+): EnergyModel {
+  const minSamples = options.minSamples ?? 10;
+  if (samples.length < minSamples) {
+    throw new Error(`Need at least ${minSamples} measured methods to calibrate, found ${samples.length}`);
+  }
+
+  const ordered = [...samples].sort((a, b) => (a.project + a.key).localeCompare(b.project + b.key));
+  const features = [...MODEL_FEATURES] as string[];
+  const raw = ordered.map(s => transform({ features }, s.features));
+  const y = ordered.map(s => Math.log(s.medianMs));
+  const n = raw.length;
+  const p = features.length;
+
+  const mean = features.map((_, j) => raw.reduce((s, row) => s + row[j], 0) / n);
+  const scale = features.map((_, j) => {
+    const variance = raw.reduce((s, row) => s + (row[j] - mean[j]) ** 2, 0) / n;
+    return Math.sqrt(variance) || 1;
+  });
+  const z = raw.map(row => row.map((v, j) => (v - mean[j]) / scale[j]));
+
+  // k-fold CV over the penalty grid
+  const folds = Math.max(2, Math.min(options.folds ?? 5, n));
+  let best = { lambda: LAMBDAS[0], rmse: Infinity };
+  for (const lambda of LAMBDAS) {
+    let sse = 0;
+    for (let f = 0; f < folds; f++) {
+      const trainZ: number[][] = [];
+      const trainY: number[] = [];
+      z.forEach((row, i) => {
+        if (i % folds !== f) {
+          trainZ.push(row);
+          trainY.push(y[i]);
+        }
+      });
+      const fit = ridge(trainZ, trainY, lambda);
+      z.forEach((row, i) => {
+        if (i % folds === f) sse += (y[i] - predictRow(fit, row)) ** 2;
+      });
+    }
+    const rmse = Math.sqrt(sse / n);
+    if (rmse < best.rmse) best = { lambda, rmse };
+  }
+
+  const fit = ridge(z, y, best.lambda);
+  const residuals = z.map((row, i) => y[i] - predictRow(fit, row));
+  const rss = residuals.reduce((s, r) => s + r * r, 0);
+  const yMean = fit.intercept;
+  const tss = y.reduce((s, v) => s + (v - yMean) ** 2, 0);
+  // Effective degrees of freedom of ridge: p - λ·tr((ZᵀZ + λI)⁻¹)
+  const dof = p - best.lambda * fit.inverse.reduce((s, row, i) => s + row[i], 0);
+  const residualSigma = Math.sqrt(rss / Math.max(1, n - dof - 1));
+
+  const createdAt = new Date().toISOString();
+  const digest = crypto.createHash("sha256").update(JSON.stringify([fit.coefficients, fit.intercept, best.lambda])).digest("hex");
+
+  return {
+    kind: MODEL_KIND,
+    formatVersion: MODEL_FORMAT_VERSION,
+    modelId: `em-${createdAt.slice(0, 10).replace(/-/g, "")}-${digest.slice(0, 8)}`,
+    createdAt,
+    target: "ln(medianMs)",
+    features,
+    mean,
+    scale,
+    intercept: fit.intercept,
+    coefficients: fit.coefficients,
+    lambda: best.lambda,
+    residualSigma,
+    covariance: fit.inverse,
+    intervalLevel: 0.95,
+    training: {
+      samples: n,
+      projects: new Set(ordered.map(s => s.project)).size,
+      runs,
+      cvRmse: best.rmse,
+      r2: tss > 0 ? 1 - rss / tss : 0
+    }
+  };
+}
+
+/**
+ * Median time with a 95% prediction interval. The interval combines the
+ * residual noise with the method's leverage, so methods unlike anything in
+ * the training data get wider intervals (slightly conservative for ridge).
+ */
+export function predictMedianMs(model: EnergyModel, features: Record<string, number>): MedianPrediction {
+  const row = transform(model, features).map((v, j) => (v - model.mean[j]) / model.scale[j]);
+  const logMs = predictRow(model, row);
+  const leverage = 1 / model.training.samples + quadratic(model.covariance, row);
+  const margin = Z_95 * model.residualSigma * Math.sqrt(1 + leverage);
+  return { medianMs: Math.exp(logMs), low: Math.exp(logMs - margin), high: Math.exp(logMs + margin) };
+}
+
+export function predictEnergy(model: EnergyModel, report: MethodReport, config = DEFAULT_CONFIG): EnergyPrediction {
+  const { medianMs, low, high } = predictMedianMs(model, methodFeatures(report));
+  const joules = (ms: number) => estimateJoulesPerOp(report.energyScore, ms, config);
+  return {
+    predictedMedianMs: round(medianMs),
+    predictedMedianMsInterval: [round(low), round(high)],
+    predictedJoulesPerOp: joules(medianMs),
+    predictedJoulesInterval: [joules(low), joules(high)],
+    predictionModel: model.modelId
+  };
+}
+
+function round(v: number): number {
+  return Number(v.toPrecision(4));
+}
+
+export function saveModel(model: EnergyModel, modelPath: string): void {
+  fs.mkdirSync(path.dirname(modelPath), { recursive: true });
+  fs.writeFileSync(modelPath, JSON.stringify(model, null, 2));
+}
+
+export function loadModel(modelPath: string): EnergyModel {
+  const model = JSON.parse(fs.readFileSync(modelPath, "utf8"));
+  if (model?.kind !== MODEL_KIND) {
+    throw new Error(`Not an energy model: ${modelPath}`);
+  }
+  if (model.formatVersion !== MODEL_FORMAT_VERSION) {
+    throw new Error(`Unsupported energy model version ${model.formatVersion} (expected ${MODEL_FORMAT_VERSION}); re-run calibrate`);
+  }
+  return model;
+}
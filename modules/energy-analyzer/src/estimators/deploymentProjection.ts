@@ -0,0 +1,212 @@
+// src/estimators/deploymentProjection.ts
+import fs from "fs";
+import { DEFAULT_CONFIG } from "../config";
+import { CallGraph, propagateInvocationRates } from "../core/callGraph";
+import { ESTIMATED_BENCHMARK_SOURCES } from "../history/historyStore";
+import { estimateJoulesPerOp, joulesToKwh } from "./energyEstimator";
+
+/**
+ * How the analyzed code runs in production (--deployment-profile):
+ *
+ *   {
+ *     "name": "prod-eu",
+ *     "entryPoints": { "OrderController.placeOrder": 120, "NightlyJob.run": 0.0000116 },
+ *     "carbonIntensityGPerKwh": 250,
+ *     "costPerKwhUSD": 0.21,
+ *     "pue": 1.3
+ *   }
+ *
+ * entryPoints are calls per second, keyed "Class.method". Call rates reach
+ * the rest of the code through the call graph's weighted edges; each
+ * method's joules per op then give a monthly kWh, CO2e and cost.
+ */
+export type DeploymentProfile = {
+  name: string;
+  entryPoints: Record<string, number>;
+  /** Grid carbon intensity, gCO2e per kWh */
+  carbonIntensityGPerKwh: number;
+  costPerKwhUSD: number;
+  /** Power usage effectiveness: facility energy per unit of IT energy */
+  pue: number;
+};
+
+export type MonthlyFootprint = { kwh: number; co2eKg: number; usd: number };
+
+export type SavingsOpportunity = MonthlyFootprint & {
+  method: string;
+  callsPerSecond: number;
+  joulesPerOp: number;
+  joulesSource: JoulesSource;
+  /** Including the methods it calls */
+  inclusive: MonthlyFootprint;
+};
+
+export type JoulesSource = "measured" | "estimated" | "predicted";
+
+export type DeploymentProjection = {
+  profile: string;
+  carbonIntensityGPerKwh: number;
+  costPerKwhUSD: number;
+  pue: number;
+  hoursPerMonth: number;
+  unmatchedEntryPoints: string[];
+  /** Methods reached from an entry point with joules per op available */
+  projectedMethods: number;
+  /** Reached, but neither measured nor predicted */
+  unprojectedMethods: number;
+  totals: MonthlyFootprint;
+  classes: Record<string, MonthlyFootprint & { methods: number }>;
+  topSavings: SavingsOpportunity[];
+};
+
+/** Cloud billing convention: 365 * 24 / 12 */
+export const HOURS_PER_MONTH = 730;
+const TOP_SAVINGS = 10;
+
+export function loadDeploymentProfile(profilePath: string, config = DEFAULT_CONFIG): DeploymentProfile {
+  const data = JSON.parse(fs.readFileSync(profilePath, "utf8"));
+  const entryPoints = data?.entryPoints;
+  if (!entryPoints || typeof entryPoints !== "object" || Array.isArray(entryPoints)) {
+    throw new Error(`Deployment profile needs "entryPoints": {"Class.method": callsPerSecond}: ${profilePath}`);
+  }
+  for (const [key, rate] of Object.entries(entryPoints)) {
+    if (typeof rate !== "number" || !Number.isFinite(rate) || rate < 0) {
+      throw new Error(`Invalid calls per second for entry point ${key}: ${rate}`);
+    }
+  }
+
+  const positive = (value: unknown, fallback: number, name: string) => {
+    if (value === undefined) return fallback;
+    if (typeof value !== "number" || !(value > 0)) throw new Error(`Invalid ${name} in deployment profile: ${value}`);
+    return value;
+  };
+  return {
+    name: typeof data.name === "string" ? data.name : "default",
+    entryPoints,
+    carbonIntensityGPerKwh: positive(data.carbonIntensityGPerKwh, config.carbonIntensityGPerKwh, "carbonIntensityGPerKwh"),
+    costPerKwhUSD: positive(data.costPerKwhUSD, config.costPerKwhUSD, "costPerKwhUSD"),
+    pue: positive(data.pue, 1, "pue")
+  };
+}
+
+/**
+ * Joules per op for a report: its benchmark when it has one, else the
+ * calibrated model's prediction. Benchmarks from an estimated source are
+ * flagged as such rather than passed off as measurements.
+ */
+export function reportJoulesPerOp(report: any, benchmarkSource: string, config = DEFAULT_CONFIG):
+  { joules: number; source: JoulesSource } | null {
+  const score = report.staticEnergyScore ?? report.energyScore ?? 0;
+  if (report.confidenceLevel === "high" && typeof report.medianMs === "number") {
+    return {
+      joules: estimateJoulesPerOp(score, report.medianMs, config),
+      source: ESTIMATED_BENCHMARK_SOURCES.has(benchmarkSource) ? "estimated" : "measured"
+    };
+  }
+  if (typeof report.predictedJoulesPerOp === "number") {
+    return { joules: report.predictedJoulesPerOp, source: "predicted" };
+  }
+  return null;
+}
+
+function footprint(joulesPerSecond: number, profile: DeploymentProfile): MonthlyFootprint {
+  const kwh = joulesToKwh(joulesPerSecond * HOURS_PER_MONTH * 3600) * profile.pue;
+  return {
+    kwh: round(kwh),
+    co2eKg: round((kwh * profile.carbonIntensityGPerKwh) / 1000),
+    usd: round(kwh * profile.costPerKwhUSD)
+  };
+}
+
+function round(v: number): number {
+  return Number(v.toPrecision(4));
+}
+
+/**
+ * Monthly footprint per method and class. A benchmark times a call with
+ * everything beneath it, so a method's figure is inclusive; the method's own
+ * share (selfEnergyScore / inclusiveEnergyScore from the call graph) is what
+ * the class totals and savings ranking use, so callers and callees are not
+ * counted twice. Sets callsPerSecond, joulesPerOp, joulesSource,
+ * projectedMonthly and projectedMonthlySelf on each reached report.
+ */
+export function projectDeployment(
+  reports: any[],
+  graph: CallGraph,
+  profile: DeploymentProfile,
+  benchmarkSource: string,
+  config = DEFAULT_CONFIG
+): DeploymentProjection {
+  // Entry points match call graph keys exactly, else case-insensitively
+  const graphKeys = new Map([...graph.keys()].map(k => [k.toLowerCase(), k] as [string, string]));
+  const entryRates = new Map<string, number>();
+  const unmatchedEntryPoints: string[] = [];
+  for (const [name, rate] of Object.entries(profile.entryPoints)) {
+    const key = graph.has(name) ? name : graphKeys.get(name.toLowerCase());
+    if (key) entryRates.set(key, (entryRates.get(key) ?? 0) + rate);
+    else unmatchedEntryPoints.push(name);
+  }
+  const rates = propagateInvocationRates(graph, entryRates);
+
+  let projectedMethods = 0;
+  let unprojectedMethods = 0;
+  let totalJoulesPerSecond = 0;
+  const classJoules = new Map<string, { joulesPerSecond: number; methods: number }>();
+  const opportunities: Array<{ selfJoulesPerSecond: number; entry: Omit<SavingsOpportunity, keyof MonthlyFootprint> }> = [];
+
+  for (const report of reports) {
+    const key = `${report.className}.${report.methodName}`;
+    const callsPerSecond = rates.get(key) ?? 0;
+    if (callsPerSecond <= 0) continue;
+
+    const energy = reportJoulesPerOp(report, benchmarkSource, config);
+    report.callsPerSecond = round(callsPerSecond);
+    if (!energy) {
+      unprojectedMethods++;
+      continue;
+    }
+    projectedMethods++;
+
+    const inclusiveScore = report.inclusiveEnergyScore ?? report.energyScore;
+    const selfShare = inclusiveScore > 0 ? Math.min(1, (report.selfEnergyScore ?? report.energyScore) / inclusiveScore) : 1;
+    const joulesPerSecond = energy.joules * callsPerSecond;
+    const selfJoulesPerSecond = joulesPerSecond * selfShare;
+
+    report.joulesPerOp = energy.joules;
+    report.joulesSource = energy.source;
+    report.projectedMonthly = footprint(joulesPerSecond, profile);
+    report.projectedMonthlySelf = footprint(selfJoulesPerSecond, profile);
+
+    totalJoulesPerSecond += selfJoulesPerSecond;
+    const cls = classJoules.get(report.className) ?? { joulesPerSecond: 0, methods: 0 };
+    cls.joulesPerSecond += selfJoulesPerSecond;
+    cls.methods++;
+    classJoules.set(report.className, cls);
+
+    opportunities.push({
+      selfJoulesPerSecond,
+      entry: {
+        method: key,
+        callsPerSecond: report.callsPerSecond,
+        joulesPerOp: energy.joules,
+        joulesSource: energy.source,
+        inclusive: report.projectedMonthly
+      }
+    });
+  }
+
+  opportunities.sort((a, b) => b.selfJoulesPerSecond - a.selfJoulesPerSecond);
+  return {
+    profile: profile.name,
+    carbonIntensityGPerKwh: profile.carbonIntensityGPerKwh,
+    costPerKwhUSD: profile.costPerKwhUSD,
+    pue: profile.pue,
+    hoursPerMonth: HOURS_PER_MONTH,
+    unmatchedEntryPoints,
+    projectedMethods,
+    unprojectedMethods,
+    totals: footprint(totalJoulesPerSecond, profile),
+    classes: Object.fromEntries([...classJoules].map(([name, c]) => [name, { ...footprint(c.joulesPerSecond, profile), methods: c.methods }])),
+    topSavings: opportunities.slice(0, TOP_SAVINGS).map(o => ({ ...o.entry, ...footprint(o.selfJoulesPerSecond, profile) }))
+  };
+}
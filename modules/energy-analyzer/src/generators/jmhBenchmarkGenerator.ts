@@ -1,6 +1,7 @@
 // src/generators/jmhBenchmarkGenerator.ts
 import fs from "fs";
 import path from "path";
+import { JAVA_TOOLS_DIR } from "../config";
 
 /**
  * Generate JMH benchmark files automatically from AST analysis
@@ -12,6 +13,15 @@ export type MethodInfo = {
   parameters: Array<{ name: string; type: string }>;
   returnType: string;
   isStatic: boolean;
+  ioBound?: boolean; // static analysis found I/O or DB calls
+  packageName?: string; // package of the benchmarked class, imported by the generated code
+};
+
+export type BenchmarkGeneratorOptions = {
+  /** Also run I/O-bound methods on virtual vs platform threads (JDK 21+ at runtime) */
+  concurrency?: boolean;
+  /** Dependency jars already on disk, copied to lib/ and compiled against as system-scoped dependencies */
+  classpathJars?: string[];
 };
 
 /**
@@ -26,13 +36,24 @@ export function extractMethodsFromReports(reports: any[]): MethodInfo[] {
       methodName: report.methodName,
       parameters: report.parameters || [],
       returnType: report.returnType || "void",
-      isStatic: report.isStatic || false
+      isStatic: report.isStatic || false,
+      ioBound: (report.ioCalls || 0) + (report.dbCalls || 0) > 0
     });
   }
   
   return methods;
 }
 
+/**
+ * Import statements for benchmarked classes declared in a named package
+ */
+function classImports(methods: MethodInfo[]): string {
+  const imports = [...new Set(methods
+    .filter(m => m.packageName)
+    .map(m => `import ${m.packageName}.${m.className};`))].sort();
+  return imports.map(line => line + "\n").join("");
+}
+
 /**
  * Generate JMH benchmark Java code
  */
@@ -52,7 +73,7 @@ import org.openjdk.jmh.runner.options.OptionsBuilder;
 import org.openjdk.jmh.infra.Blackhole;
 
 import java.util.concurrent.TimeUnit;
-
+${classImports(methods)}
 /**
  * Auto-generated JMH Benchmarks for Energy Analysis
  * Generated at: ${new Date().toISOString()}
@@ -119,6 +140,23 @@ public class AutoGeneratedBenchmark {
   return code;
 }
 
+/**
+ * I/O and JDBC parameter types backed by StandIns (java-tools/StandIns.java)
+ */
+const STAND_IN_PARAMETERS: Record<string, string> = {
+  "Connection": "StandIns.connection()",
+  "DataSource": "StandIns.dataSource()",
+  "Path": "StandIns.tempFile()",
+  "File": "StandIns.tempFile().toFile()",
+  "InputStream": "StandIns.inputStream()",
+  "OutputStream": "StandIns.outputStream()",
+  "Reader": "StandIns.reader()",
+  "BufferedReader": "StandIns.reader()",
+  "Writer": "StandIns.writer()",
+  "BufferedWriter": "StandIns.writer()",
+  "PrintWriter": "StandIns.printWriter()"
+};
+
 /**
  * Generate sample parameters for method calls
  */
@@ -126,6 +164,9 @@ function generateSampleParameters(parameters: Array<{ name: string; type: string
   if (parameters.length === 0) return "";
   
   return parameters.map(param => {
+    const simpleType = param.type.replace(/<.*>/, "").split(".").pop()!.trim();
+    if (STAND_IN_PARAMETERS[simpleType]) return STAND_IN_PARAMETERS[simpleType];
+
     const type = param.type.toLowerCase();
     
     // Generate reasonable default values
@@ -155,7 +196,8 @@ function generateSampleParameters(parameters: Array<{ name: string; type: string
  */
 export function generateCustomBenchmarkRunner(
   methods: MethodInfo[],
-  packageName: string = "com.greencode.benchmarks"
+  packageName: string = "com.greencode.benchmarks",
+  options: BenchmarkGeneratorOptions = {}
 ): string {
   const classNames = [...new Set(methods.map(m => m.className))];
   
@@ -163,11 +205,16 @@ export function generateCustomBenchmarkRunner(
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-
+${classImports(methods)}
 /**
  * Custom Benchmark Runner - Outputs JSON for Energy Analysis
  * Generated at: ${new Date().toISOString()}
@@ -184,11 +231,44 @@ public class CustomBenchmarkRunner {
         public double maxMs;
         public double stdDev;
         public int runs;
+        public SampleHistogram histogram;
         public String benchmarkTool = "CustomRunner";
+        // Receiver footprint (only present when run with -javaagent, see FootprintAgent)
+        public Long shallowBytes;
+        public Long retainedBytesBefore;
+        public Long retainedBytesAfter;
+        public Double growthBytesPerOp;
+        public Integer footprintOps;
+        // Bytes allocated per call (only when the JVM supports thread allocation counters)
+        public Double allocBytesPerOp;
+        // Throughput under concurrency (only for I/O-bound methods in concurrency mode)
+        public ConcurrencyResult platformThreads;
+        public ConcurrencyResult virtualThreads;
+        public String preferredModel;
+    }
+
+    /** Samples in log-spaced buckets: bucket i covers [baseMs * ratio^i, baseMs * ratio^(i+1)) */
+    public static class SampleHistogram {
+        public double baseMs;
+        public double ratio;
+        public int[] buckets;
+        public int[] counts;
+    }
+
+    public static class ConcurrencyResult {
+        public String model;
+        public int threads;
+        public int ops;
+        public double opsPerSec;
+        public double cpuNsPerOp;
+        public int errors;
     }
 
     private static final int WARMUP_ITERATIONS = 10;
     private static final int MEASUREMENT_ITERATIONS = 100;
+    private static final int CONCURRENT_OPS = 2000;
+    private static final double HISTOGRAM_RATIO = 1.02;
+    private static final int PLATFORM_POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
 
 `;
 
@@ -209,7 +289,11 @@ public class CustomBenchmarkRunner {
       : `${instanceVar}.${method.methodName}(${params})`;
     
     code += `        // Benchmark: ${method.className}.${method.methodName}\n`;
-    code += `        results.add(benchmark_${method.className}_${method.methodName}());\n\n`;
+    code += `        try {\n`;
+    code += `            results.add(benchmark_${method.className}_${method.methodName}());\n`;
+    code += `        } catch (Exception e) {\n`;
+    code += `            System.err.println("✗ ${method.className}.${method.methodName}: " + e);\n`;
+    code += `        }\n\n`;
   }
 
   code += `        return results;\n`;
@@ -223,8 +307,12 @@ public class CustomBenchmarkRunner {
       ? `${method.className}.${method.methodName}(${params})`
       : `${instanceVar}.${method.methodName}(${params})`;
     
-    code += `    private BenchmarkResult benchmark_${method.className}_${method.methodName}() {
+    const receiver = method.isStatic ? "null" : instanceVar;
+    const concurrent = options.concurrency && method.ioBound;
+
+    code += `    private BenchmarkResult benchmark_${method.className}_${method.methodName}() throws Exception {
         List<Long> times = new ArrayList<>();
+        FootprintAgent.Footprint footprintBefore = FootprintAgent.measure(${receiver});
         
         // Warmup
         for (int i = 0; i < WARMUP_ITERATIONS; i++) {
@@ -263,13 +351,175 @@ public class CustomBenchmarkRunner {
         result.maxMs = max;
         result.stdDev = stdDev;
         result.runs = MEASUREMENT_ITERATIONS;
-        
+        result.histogram = histogram(times);
+        recordFootprint(result, footprintBefore, FootprintAgent.measure(${receiver}));
+
+        // Allocation per op, in its own loop so the timing list is not counted
+        long allocBefore = allocatedBytes();
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            ${methodCall};
+        }
+        long allocAfter = allocatedBytes();
+        if (allocBefore >= 0 && allocAfter >= allocBefore) {
+            result.allocBytesPerOp = (allocAfter - allocBefore) / (double) MEASUREMENT_ITERATIONS;
+        }
+${concurrent ? `        recordConcurrency(result, () -> {
+            try {
+                ${methodCall};
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+` : ""}        
         System.out.printf("✓ %s.%s: %.3f ms (median)%n", 
             result.className, result.methodName, result.medianMs);
         
         return result;
     }
 
+`;
+  }
+
+  code += `    /** Compact form of the sorted sample times (within 1% of each sample) */
+    private static SampleHistogram histogram(List<Long> sortedNanos) {
+        List<Integer> buckets = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+        double base = Math.max(1, sortedNanos.get(0)) / 1_000_000.0;
+        for (long t : sortedNanos) {
+            double ms = Math.max(1, t) / 1_000_000.0;
+            int bucket = (int) Math.floor(Math.log(ms / base) / Math.log(HISTOGRAM_RATIO));
+            int last = buckets.size() - 1;
+            if (last >= 0 && buckets.get(last) == bucket) {
+                counts.set(last, counts.get(last) + 1);
+            } else {
+                buckets.add(bucket);
+                counts.add(1);
+            }
+        }
+        SampleHistogram h = new SampleHistogram();
+        h.baseMs = base;
+        h.ratio = HISTOGRAM_RATIO;
+        h.buckets = buckets.stream().mapToInt(Integer::intValue).toArray();
+        h.counts = counts.stream().mapToInt(Integer::intValue).toArray();
+        return h;
+    }
+
+    private static void recordFootprint(BenchmarkResult result,
+                                        FootprintAgent.Footprint before,
+                                        FootprintAgent.Footprint after) {
+        if (before == null || after == null) {
+            return;
+        }
+        int ops = WARMUP_ITERATIONS + MEASUREMENT_ITERATIONS;
+        result.shallowBytes = before.shallowBytes;
+        result.retainedBytesBefore = before.retainedBytes;
+        result.retainedBytesAfter = after.retainedBytes;
+        result.growthBytesPerOp = (after.retainedBytes - before.retainedBytes) / (double) ops;
+        result.footprintOps = ops;
+    }
+
+    /** Bytes allocated by this thread so far, or -1 when the JVM cannot tell */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+            if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+                return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+`;
+
+  if (options.concurrency) {
+    code += `    /**
+     * Executors.newVirtualThreadPerTaskExecutor() via reflection so the
+     * runner still compiles for Java 11; null before JDK 21.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static long processCpuNanos() {
+        java.lang.management.OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    private static ConcurrencyResult measureConcurrent(String model, ExecutorService executor, int threads, Runnable op) {
+        AtomicInteger errors = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>(CONCURRENT_OPS);
+
+        long cpuStart = processCpuNanos();
+        long start = System.nanoTime();
+        for (int i = 0; i < CONCURRENT_OPS; i++) {
+            futures.add(executor.submit(() -> {
+                try {
+                    op.run();
+                } catch (Throwable t) {
+                    errors.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (Exception e) {
+                errors.incrementAndGet();
+            }
+        }
+        long wallNanos = System.nanoTime() - start;
+        long cpuEnd = processCpuNanos();
+        executor.shutdown();
+
+        ConcurrencyResult r = new ConcurrencyResult();
+        r.model = model;
+        r.threads = threads;
+        r.ops = CONCURRENT_OPS;
+        r.opsPerSec = CONCURRENT_OPS / (wallNanos / 1_000_000_000.0);
+        r.cpuNsPerOp = cpuStart < 0 ? -1 : (cpuEnd - cpuStart) / (double) CONCURRENT_OPS;
+        r.errors = errors.get();
+        return r;
+    }
+
+    /**
+     * Run the same operation on a platform-thread pool and on virtual threads;
+     * the preferred model is the one with higher throughput, or lower CPU per
+     * op when throughput is within 5%.
+     */
+    private static void recordConcurrency(BenchmarkResult result, Runnable op) {
+        ExecutorService virtual = newVirtualThreadExecutor();
+        if (virtual == null) {
+            return;
+        }
+
+        ConcurrencyResult platform = measureConcurrent("platform",
+            Executors.newFixedThreadPool(PLATFORM_POOL_SIZE), PLATFORM_POOL_SIZE, op);
+        ConcurrencyResult vt = measureConcurrent("virtual", virtual, CONCURRENT_OPS, op);
+
+        result.platformThreads = platform;
+        result.virtualThreads = vt;
+
+        double ratio = vt.opsPerSec / Math.max(platform.opsPerSec, 1e-9);
+        if (ratio > 1.05) {
+            result.preferredModel = "virtual";
+        } else if (ratio < 0.95) {
+            result.preferredModel = "platform";
+        } else {
+            result.preferredModel = vt.cpuNsPerOp >= 0 && vt.cpuNsPerOp < platform.cpuNsPerOp ? "virtual" : "platform";
+        }
+
+        System.out.printf("  ⇉ %s.%s: platform %.0f ops/s, virtual %.0f ops/s -> %s%n",
+            result.className, result.methodName, platform.opsPerSec, vt.opsPerSec, result.preferredModel);
+    }
+
 `;
   }
 
@@ -278,7 +528,9 @@ public class CustomBenchmarkRunner {
         System.out.println("🚀 Starting Custom Benchmark Runner...");
         System.out.println("Warmup iterations: " + WARMUP_ITERATIONS);
         System.out.println("Measurement iterations: " + MEASUREMENT_ITERATIONS);
-        System.out.println();
+        System.out.println("Footprint agent: " + (FootprintAgent.isAvailable() ? "loaded" : "not loaded"));
+${options.concurrency ? `        System.out.println("Concurrency mode: " + (newVirtualThreadExecutor() != null ? "virtual vs platform threads" : "unavailable (needs JDK 21+)"));
+` : ""}        System.out.println();
         
         CustomBenchmarkRunner runner = new CustomBenchmarkRunner();
         List<BenchmarkResult> results = runner.runAllBenchmarks();
@@ -313,9 +565,19 @@ public class CustomBenchmarkRunner {
 /**
  * Generate Maven pom.xml for JMH benchmarks
  */
-export function generateMavenPom(packageName: string = "com.greencode.benchmarks"): string {
+export function generateMavenPom(packageName: string = "com.greencode.benchmarks", localJars: string[] = []): string {
   // Extract proper groupId from packageName
   const groupId = packageName.split('.').slice(0, -1).join('.') || "com.greencode";
+
+  // Project dependencies resolved from disk (see saveBenchmarkProject), never downloaded
+  const localDependencies = localJars.map(jar => `
+        <dependency>
+            <groupId>local.classpath</groupId>
+            <artifactId>${jar.replace(/\.jar$/, "").replace(/[^\w.\-]/g, "_")}</artifactId>
+            <version>local</version>
+            <scope>system</scope>
+            <systemPath>\${project.basedir}/lib/${jar}</systemPath>
+        </dependency>`).join("");
   
   return `<?xml version="1.0" encoding="UTF-8"?>
 <project xmlns="http://maven.apache.org/POM/4.0.0"
@@ -357,7 +619,7 @@ export function generateMavenPom(packageName: string = "com.greencode.benchmarks
             <groupId>com.google.code.gson</groupId>
             <artifactId>gson</artifactId>
             <version>\${gson.version}</version>
-        </dependency>
+        </dependency>${localDependencies}
     </dependencies>
 
     <build>
@@ -394,6 +656,10 @@ export function generateMavenPom(packageName: string = "com.greencode.benchmarks
                             <transformers>
                                 <transformer implementation="org.apache.maven.plugins.shade.resource.ManifestResourceTransformer">
                                     <mainClass>org.openjdk.jmh.Main</mainClass>
+                                    <manifestEntries>
+                                        <Premain-Class>${packageName}.FootprintAgent</Premain-Class>
+                                        <Agent-Class>${packageName}.FootprintAgent</Agent-Class>
+                                    </manifestEntries>
                                 </transformer>
                             </transformers>
                             <filters>
@@ -423,7 +689,8 @@ export function generateMavenPom(packageName: string = "com.greencode.benchmarks
 export function saveBenchmarkProject(
   methods: MethodInfo[],
   outputDir: string,
-  sourceCodePath?: string // Add source code path parameter
+  sourceCodePath?: string | string[], // source roots copied into src/main/java
+  options: BenchmarkGeneratorOptions = {}
 ): void {
   // Use a fixed package name instead of deriving from filesystem path
   const packageName = "com.greencode.benchmarks";
@@ -434,9 +701,25 @@ export function saveBenchmarkProject(
   fs.mkdirSync(packageDir, { recursive: true });
 
   // If source code exists, copy it to src/main/java
-  if (sourceCodePath && fs.existsSync(sourceCodePath)) {
-    const sourceDestDir = path.join(outputDir, "src", "main", "java");
-    copySourceCode(sourceCodePath, sourceDestDir);
+  const sourceRoots = Array.isArray(sourceCodePath) ? sourceCodePath : sourceCodePath ? [sourceCodePath] : [];
+  for (const sourceRoot of sourceRoots) {
+    if (fs.existsSync(sourceRoot)) {
+      copySourceCode(sourceRoot, srcDir);
+    }
+  }
+
+  // Dependency jars of the benchmarked code go to lib/ (file names made unique)
+  const localJars: string[] = [];
+  if (options.classpathJars && options.classpathJars.length > 0) {
+    const libDir = path.join(outputDir, "lib");
+    fs.mkdirSync(libDir, { recursive: true });
+    for (const jar of options.classpathJars) {
+      let name = path.basename(jar);
+      if (localJars.includes(name)) name = `${localJars.length}-${name}`;
+      fs.copyFileSync(jar, path.join(libDir, name));
+      localJars.push(name);
+    }
+    console.log(`✅ Copied ${localJars.length} dependency jars to lib/`);
   }
 
   // Generate and save JMH benchmark
@@ -446,13 +729,21 @@ export function saveBenchmarkProject(
   console.log(`✅ Generated JMH benchmark: ${path.relative(outputDir, jmhFile)}`);
 
   // Generate and save custom runner
-  const customCode = generateCustomBenchmarkRunner(methods, packageName);
+  const customCode = generateCustomBenchmarkRunner(methods, packageName, options);
   const customFile = path.join(packageDir, "CustomBenchmarkRunner.java");
   fs.writeFileSync(customFile, customCode);
   console.log(`✅ Generated custom runner: ${path.relative(outputDir, customFile)}`);
 
+  // Footprint agent used by the runner for receiver shallow/retained sizes,
+  // and the I/O / JDBC stand-ins used as sample parameters
+  for (const helper of ["FootprintAgent.java", "StandIns.java"]) {
+    const helperFile = path.join(packageDir, helper);
+    fs.copyFileSync(path.join(JAVA_TOOLS_DIR, helper), helperFile);
+    console.log(`✅ Copied helper: ${path.relative(outputDir, helperFile)}`);
+  }
+
   // Generate and save pom.xml
-  const pomXml = generateMavenPom(packageName);
+  const pomXml = generateMavenPom(packageName, localJars);
   const pomFile = path.join(outputDir, "pom.xml");
   fs.writeFileSync(pomFile, pomXml);
   console.log(`✅ Generated Maven pom.xml: ${path.relative(outputDir, pomFile)}`);
@@ -467,7 +758,7 @@ export function saveBenchmarkProject(
   console.log(`\n📖 Next steps:`);
   console.log(`   1. cd ${outputDir}`);
   console.log(`   2. mvn clean package`);
-  console.log(`   3. java -cp target/benchmarks.jar ${packageName}.CustomBenchmarkRunner`);
+  console.log(`   3. java -javaagent:target/benchmarks.jar -cp target/benchmarks.jar ${packageName}.CustomBenchmarkRunner`);
   console.log(`   4. Use benchmark-results.json with your energy analyzer`);
 }
 
@@ -485,7 +776,8 @@ function copySourceCode(sourcePath: string, destPath: string): void {
       if (entry.isDirectory()) {
         fs.mkdirSync(destPath, { recursive: true });
         copyFilesRecursive(srcPath, destPath);
-      } else if (entry.name.endsWith('.java')) {
+      } else if (entry.name.endsWith('.java') && entry.name !== 'module-info.java') {
+        // module-info.java would make the benchmark project a named module that cannot see JMH
         fs.copyFileSync(srcPath, destPath);
       }
     }
@@ -507,7 +799,8 @@ This project contains automatically generated benchmarks for energy analysis.
 mvn clean package
 
 # Run custom benchmark runner (outputs JSON)
-java -cp target/benchmarks.jar ${packageName}.CustomBenchmarkRunner
+# -javaagent enables receiver footprint measurement (shallow/retained bytes, growth per op)
+java -javaagent:target/benchmarks.jar -cp target/benchmarks.jar ${packageName}.CustomBenchmarkRunner
 
 # Results will be saved to: benchmark-results.json
 \`\`\`
@@ -0,0 +1,425 @@
+// src/history/historyStore.ts
+import fs from "fs";
+import os from "os";
+import path from "path";
+import { JavaBenchmarkResult } from "../analyzers/benchmarkAnalyzer";
+
+/**
+ * Local benchmark history, one append-only file per project.
+ *
+ * Each line of <historyDir>/<project>.ndjson is one run stored column-wise
+ * (parallel arrays indexed by method), so a run is a single append and old
+ * runs are never rewritten. Methods are keyed by lowercased `Class.method`;
+ * the AST source hash is kept alongside so events can say whether the code
+ * itself changed. Measured runs also record each method's static metrics,
+ * which the energy model calibration trains on.
+ */
+
+export const HISTORY_FORMAT_VERSION = 1;
+
+/** Benchmark sources that are estimates, not measurements */
+export const ESTIMATED_BENCHMARK_SOURCES = new Set(["complexity-estimated", "model-estimated"]);
+
+export type HistoryRun = {
+  v: number;
+  runId: string;
+  timestamp: string;
+  project: string;
+  benchmarkSource: string;
+  keys: string[];
+  classNames: string[];
+  methodNames: string[];
+  sourceHash: Array<string | null>;
+  medianMs: number[];
+  p95Ms: Array<number | null>;
+  samplesMs: Array<number[] | null>;
+  /** Static metric names and one vector per method (absent in older runs) */
+  featureNames?: string[];
+  features?: Array<number[] | null>;
+};
+
+export type HistoryEvent = {
+  type: "regression" | "improvement";
+  className: string;
+  methodName: string;
+  changePct: number;
+  ciLowPct: number;
+  ciHighPct: number;
+  baselineMedianMs: number;
+  currentMedianMs: number;
+  baselineRuns: number;
+  sourceChanged: boolean;
+  test: "bootstrap" | "robust-z";
+};
+
+export type ChangeDetectionOptions = {
+  /** Number of trailing runs that form the baseline */
+  baselineWindow: number;
+  /** Minimum relative change of the median to report (0.05 = 5%) */
+  minEffect: number;
+  bootstrapIterations: number;
+  /** Cap on pooled baseline samples to keep bootstrap cost bounded */
+  maxBaselineSamples: number;
+};
+
+export const DEFAULT_CHANGE_DETECTION: ChangeDetectionOptions = {
+  baselineWindow: 5,
+  minEffect: 0.05,
+  bootstrapIterations: 1000,
+  maxBaselineSamples: 1000
+};
+
+export function resolveHistoryDir(dir?: string): string {
+  return path.resolve(dir || process.env.GREENCODE_HISTORY_DIR || path.join(os.homedir(), ".greencode", "history"));
+}
+
+export function projectHistoryPath(historyDir: string, project: string): string {
+  const safe = project.replace(/[^A-Za-z0-9._-]+/g, "_") || "default";
+  return path.join(historyDir, `${safe}.ndjson`);
+}
+
+/**
+ * Load runs oldest-first. Unreadable lines (e.g. a torn final append) are skipped.
+ */
+export function loadHistory(historyPath: string): HistoryRun[] {
+  if (!fs.existsSync(historyPath)) return [];
+  return parseRuns(fs.readFileSync(historyPath, "utf8").split("\n"));
+}
+
+function parseRuns(lines: string[]): HistoryRun[] {
+  const runs: HistoryRun[] = [];
+  for (const line of lines) {
+    if (!line.trim()) continue;
+    try {
+      const run = JSON.parse(line);
+      if (run && run.v === HISTORY_FORMAT_VERSION && Array.isArray(run.keys)) {
+        runs.push(run);
+      }
+    } catch {
+      // Ignore partial lines
+    }
+  }
+  return runs;
+}
+
+/**
+ * Loaded histories kept in memory by a long-running process. Files are
+ * append-only, so a reload reads just the bytes added since the last one
+ * (by this process or any other); a file that shrank is read again in full.
+ * A line still being written is left for the next load.
+ */
+export class HistoryCache {
+  private entries: Map<string, { offset: number; runs: HistoryRun[] }> = new Map();
+
+  load(historyPath: string): HistoryRun[] {
+    if (!fs.existsSync(historyPath)) {
+      this.entries.delete(historyPath);
+      return [];
+    }
+
+    const size = fs.statSync(historyPath).size;
+    let entry = this.entries.get(historyPath);
+    if (!entry || size < entry.offset) {
+      entry = { offset: 0, runs: [] };
+      this.entries.set(historyPath, entry);
+    }
+    if (size > entry.offset) {
+      const buf = Buffer.alloc(size - entry.offset);
+      const fd = fs.openSync(historyPath, "r");
+      try {
+        fs.readSync(fd, buf, 0, buf.length, entry.offset);
+      } finally {
+        fs.closeSync(fd);
+      }
+      const complete = buf.lastIndexOf(0x0a) + 1;
+      if (complete > 0) {
+        entry.runs.push(...parseRuns(buf.subarray(0, complete).toString("utf8").split("\n")));
+        entry.offset += complete;
+      }
+    }
+    return [...entry.runs];
+  }
+
+  get size(): number {
+    return this.entries.size;
+  }
+}
+
+export function appendRun(historyPath: string, run: HistoryRun): void {
+  fs.mkdirSync(path.dirname(historyPath), { recursive: true });
+  fs.appendFileSync(historyPath, JSON.stringify(run) + "\n");
+}
+
+/**
+ * Build a columnar run record from benchmark results.
+ * sourceHashes and features are keyed like the run keys (lowercased `Class.method`).
+ */
+export function buildRun(
+  project: string,
+  benchmarkSource: string,
+  results: JavaBenchmarkResult[],
+  sourceHashes: Map<string, string | undefined> = new Map(),
+  features: Map<string, Record<string, number>> = new Map()
+): HistoryRun {
+  const timestamp = new Date().toISOString();
+  const run: HistoryRun = {
+    v: HISTORY_FORMAT_VERSION,
+    runId: `${timestamp.replace(/[-:.TZ]/g, "")}-${process.pid}`,
+    timestamp,
+    project,
+    benchmarkSource,
+    keys: [],
+    classNames: [],
+    methodNames: [],
+    sourceHash: [],
+    medianMs: [],
+    p95Ms: [],
+    samplesMs: []
+  };
+
+  const first = features.values().next().value as Record<string, number> | undefined;
+  if (first) {
+    run.featureNames = Object.keys(first);
+    run.features = [];
+  }
+
+  const seen = new Set<string>();
+  for (const r of results) {
+    const key = `${r.className}.${r.methodName}`.toLowerCase();
+    if (seen.has(key)) continue;
+    seen.add(key);
+
+    run.keys.push(key);
+    run.classNames.push(r.className);
+    run.methodNames.push(r.methodName);
+    run.sourceHash.push(sourceHashes.get(key) ?? null);
+    run.medianMs.push(r.medianMs);
+    run.p95Ms.push(typeof r.p95Ms === "number" ? r.p95Ms : null);
+    run.samplesMs.push(Array.isArray(r.samplesMs) && r.samplesMs.length > 0 ? r.samplesMs : null);
+    if (run.featureNames) {
+      const f = features.get(key);
+      run.features!.push(f ? run.featureNames.map(name => f[name] ?? 0) : null);
+    }
+  }
+
+  return run;
+}
+
+// ---- statistics ----
+
+/** Small seeded PRNG so the same history always yields the same verdict */
+function mulberry32(seed: number): () => number {
+  let a = seed >>> 0;
+  return () => {
+    a = (a + 0x6D2B79F5) >>> 0;
+    let t = a;
+    t = Math.imul(t ^ (t >>> 15), t | 1);
+    t ^= t + Math.imul(t ^ (t >>> 7), t | 61);
+    return ((t ^ (t >>> 14)) >>> 0) / 4294967296;
+  };
+}
+
+export function hashSeed(text: string): number {
+  let h = 0x811c9dc5;
+  for (let i = 0; i < text.length; i++) {
+    h ^= text.charCodeAt(i);
+    h = Math.imul(h, 0x01000193);
+  }
+  return h >>> 0;
+}
+
+export function median(values: number[]): number {
+  if (values.length === 0) return NaN;
+  const sorted = [...values].sort((a, b) => a - b);
+  const mid = sorted.length >> 1;
+  return sorted.length % 2 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2;
+}
+
+function resampleMedian(values: number[], rand: () => number, scratch: number[]): number {
+  for (let i = 0; i < values.length; i++) {
+    scratch[i] = values[Math.floor(rand() * values.length)];
+  }
+  return median(scratch);
+}
+
+/**
+ * Bootstrap the relative change of the median, current vs baseline.
+ * Returns the point estimate and a 95% percentile interval.
+ */
+export function bootstrapMedianChange(
+  baseline: number[],
+  current: number[],
+  seed: number,
+  iterations: number = DEFAULT_CHANGE_DETECTION.bootstrapIterations
+): { estimate: number; ciLow: number; ciHigh: number } {
+  const rand = mulberry32(seed);
+  const baseScratch = new Array(baseline.length);
+  const curScratch = new Array(current.length);
+  const changes: number[] = [];
+
+  for (let i = 0; i < iterations; i++) {
+    const b = resampleMedian(baseline, rand, baseScratch);
+    const c = resampleMedian(current, rand, curScratch);
+    if (b > 0) changes.push(c / b - 1);
+  }
+  changes.sort((a, b) => a - b);
+
+  const at = (q: number) => changes[Math.min(changes.length - 1, Math.max(0, Math.floor(q * changes.length)))];
+  return {
+    estimate: median(current) / median(baseline) - 1,
+    ciLow: at(0.025),
+    ciHigh: at(0.975)
+  };
+}
+
+/** Nearest-rank quantile of sorted values, as the benchmark runner computes p95 */
+function sortedQuantile(sorted: number[], q: number): number {
+  return sorted[Math.min(sorted.length - 1, Math.floor(q * sorted.length))];
+}
+
+/**
+ * Bootstrap 95% percentile intervals for several quantiles of one sample
+ * set (0.5 uses the median). Seeded, so a result file always gives the same
+ * intervals.
+ */
+export function bootstrapQuantiles(
+  samples: number[],
+  quantiles: number[],
+  seed: number,
+  iterations: number = DEFAULT_CHANGE_DETECTION.bootstrapIterations
+): Array<{ estimate: number; ciLow: number; ciHigh: number }> {
+  const rand = mulberry32(seed);
+  const at = (sorted: number[], q: number) => (q === 0.5 ? median(sorted) : sortedQuantile(sorted, q));
+  const scratch = new Array(samples.length);
+  const estimates: number[][] = quantiles.map(() => []);
+
+  for (let i = 0; i < iterations; i++) {
+    for (let j = 0; j < samples.length; j++) {
+      scratch[j] = samples[Math.floor(rand() * samples.length)];
+    }
+    scratch.sort((a, b) => a - b);
+    quantiles.forEach((q, k) => estimates[k].push(at(scratch, q)));
+  }
+
+  const sorted = [...samples].sort((a, b) => a - b);
+  return quantiles.map((q, k) => {
+    const dist = estimates[k].sort((a, b) => a - b);
+    return { estimate: at(sorted, q), ciLow: sortedQuantile(dist, 0.025), ciHigh: sortedQuantile(dist, 0.975) };
+  });
+}
+
+/** Median absolute deviation scaled to a normal sigma */
+function robustSigma(values: number[]): number {
+  const m = median(values);
+  return 1.4826 * median(values.map(v => Math.abs(v - m)));
+}
+
+/**
+ * Compare the current run with the trailing baseline for every method.
+ *
+ * With raw samples on both sides, a seeded bootstrap on the median ratio is
+ * used; a change is reported when the 95% interval excludes zero and the
+ * effect is at least minEffect. With three or more baseline runs the change
+ * must also exceed twice the run-to-run noise of the baseline medians, so a
+ * noisy JIT/GC run does not raise an event. Without samples, a robust
+ * z-score over baseline run medians is used instead.
+ */
+export function detectChanges(
+  history: HistoryRun[],
+  current: HistoryRun,
+  options: Partial<ChangeDetectionOptions> = {}
+): HistoryEvent[] {
+  const opts = { ...DEFAULT_CHANGE_DETECTION, ...options };
+  const events: HistoryEvent[] = [];
+
+  for (let i = 0; i < current.keys.length; i++) {
+    const key = current.keys[i];
+    const baselineRuns: Array<{ median: number; samples: number[] | null; sourceHash: string | null }> = [];
+
+    for (let r = history.length - 1; r >= 0 && baselineRuns.length < opts.baselineWindow; r--) {
+      const idx = history[r].keys.indexOf(key);
+      if (idx >= 0) {
+        baselineRuns.push({
+          median: history[r].medianMs[idx],
+          samples: history[r].samplesMs?.[idx] ?? null,
+          sourceHash: history[r].sourceHash?.[idx] ?? null
+        });
+      }
+    }
+    if (baselineRuns.length === 0) continue;
+
+    const baselineMedians = baselineRuns.map(b => b.median);
+    const baselineMedian = median(baselineMedians);
+    const currentMedian = current.medianMs[i];
+    const currentSamples = current.samplesMs[i];
+    const seed = hashSeed(`${current.project}:${key}`);
+
+    let result: { estimate: number; ciLow: number; ciHigh: number } | null = null;
+    let test: HistoryEvent["test"] = "bootstrap";
+
+    const pooled: number[] = [];
+    for (const b of baselineRuns) {
+      if (b.samples && pooled.length < opts.maxBaselineSamples) {
+        pooled.push(...b.samples.slice(0, opts.maxBaselineSamples - pooled.length));
+      }
+    }
+
+    if (currentSamples && pooled.length > 0) {
+      result = bootstrapMedianChange(pooled, currentSamples, seed, opts.bootstrapIterations);
+    } else if (baselineRuns.length >= 3) {
+      test = "robust-z";
+      const sigma = robustSigma(baselineMedians) || baselineMedian * 0.01;
+      const estimate = currentMedian / baselineMedian - 1;
+      const margin = (3 * sigma) / baselineMedian;
+      result = { estimate, ciLow: estimate - margin, ciHigh: estimate + margin };
+    }
+    if (!result) continue;
+
+    if (baselineRuns.length >= 3) {
+      const runToRunNoise = robustSigma(baselineMedians) / baselineMedian;
+      if (Math.abs(result.estimate) <= 2 * runToRunNoise) continue;
+    }
+
+    let type: HistoryEvent["type"] | null = null;
+    if (result.ciLow > 0 && result.estimate >= opts.minEffect) type = "regression";
+    else if (result.ciHigh < 0 && result.estimate <= -opts.minEffect) type = "improvement";
+    if (!type) continue;
+
+    const currentHash = current.sourceHash[i];
+    events.push({
+      type,
+      className: current.classNames[i],
+      methodName: current.methodNames[i],
+      changePct: round(result.estimate * 100),
+      ciLowPct: round(result.ciLow * 100),
+      ciHighPct: round(result.ciHigh * 100),
+      baselineMedianMs: pooled.length > 0 ? median(pooled) : baselineMedian,
+      currentMedianMs: currentMedian,
+      baselineRuns: baselineRuns.length,
+      sourceChanged: Boolean(currentHash && baselineRuns[0].sourceHash && currentHash !== baselineRuns[0].sourceHash),
+      test
+    });
+  }
+
+  return events.sort((a, b) => Math.abs(b.changePct) - Math.abs(a.changePct));
+}
+
+function round(v: number): number {
+  return Math.round(v * 10) / 10;
+}
+
+/**
+ * Compare against history, then append the current run.
+ */
+export function recordAndCompare(
+  historyDir: string,
+  current: HistoryRun,
+  options: Partial<ChangeDetectionOptions> = {},
+  cache?: HistoryCache
+): { historyPath: string; previousRuns: number; events: HistoryEvent[] } {
+  const historyPath = projectHistoryPath(historyDir, current.project);
+  const history = cache ? cache.load(historyPath) : loadHistory(historyPath);
+  const events = detectChanges(history, current, options);
+  appendRun(historyPath, current);
+  return { historyPath, previousRuns: history.length, events };
+}
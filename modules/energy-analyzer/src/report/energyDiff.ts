@@ -0,0 +1,239 @@
+// src/report/energyDiff.ts
+import { samplesFromHistogram } from "../analyzers/benchmarkAnalyzer";
+import { DEFAULT_CHANGE_DETECTION, bootstrapMedianChange, bootstrapQuantiles, hashSeed } from "../history/historyStore";
+import { MethodIndex, MethodIndexRecord } from "./methodIndex";
+
+/**
+ * Method-by-method difference between two scans, read from their method
+ * indexes. Methods match on "Class.method"; the reports hold one record per
+ * Class.method, so overloads cannot be told apart. A different signature hash
+ * is flagged, and the method is still compared.
+ *
+ * Every metric is "higher is worse". A delta is significant when:
+ *   static scores     the score moved by at least minScoreDelta (they are deterministic)
+ *   medianMs          a bootstrap 95% interval of the median ratio excludes zero
+ *                     and the change is at least minEffect (needs samples on both sides)
+ *   p95Ms             the bootstrap 95% intervals of the two p95s do not overlap
+ *   allocBytesPerOp   it moved by minEffect and at least minAllocBytes
+ *   joulesPerOp       it moved by minEffect and the median or a static score
+ *                     behind it changed significantly
+ */
+
+export type DiffOptions = {
+  /** Smallest relative change reported for measured metrics */
+  minEffect: number;
+  minScoreDelta: number;
+  minAllocBytes: number;
+  bootstrapIterations: number;
+};
+
+export const DEFAULT_DIFF_OPTIONS: DiffOptions = {
+  minEffect: DEFAULT_CHANGE_DETECTION.minEffect,
+  minScoreDelta: 0.01,
+  minAllocBytes: 16,
+  bootstrapIterations: DEFAULT_CHANGE_DETECTION.bootstrapIterations
+};
+
+const SCORE_METRICS = ["energyScore", "cpuScore", "memScore", "ioScore", "inclusiveEnergyScore"] as const;
+
+export type DiffMetric = typeof SCORE_METRICS[number] | "medianMs" | "p95Ms" | "allocBytesPerOp" | "joulesPerOp";
+
+export type MetricDelta = {
+  baseline: number;
+  current: number;
+  delta: number;
+  /** null when the baseline is zero */
+  changePct: number | null;
+  ciLowPct?: number;
+  ciHighPct?: number;
+  significant: boolean;
+  direction: "regression" | "improvement" | "unchanged";
+};
+
+export type MethodDiff = {
+  key: string;
+  sourceChanged: boolean;
+  /** Both signatures known and different */
+  signatureChanged: boolean;
+  regressions: DiffMetric[];
+  improvements: DiffMetric[];
+  metrics: Partial<Record<DiffMetric, MetricDelta>>;
+};
+
+export type ScanRef = {
+  path: string;
+  project: string | null;
+  generatedAt: string;
+  benchmarkSource: string;
+  methods: number;
+};
+
+export type EnergyDiff = {
+  kind: "energy-diff";
+  generatedAt: string;
+  baseline: ScanRef;
+  current: ScanRef;
+  options: DiffOptions;
+  matched: number;
+  unchanged: number;
+  regressedMethods: number;
+  improvedMethods: number;
+  added: string[];
+  removed: string[];
+  /** Matched methods whose signature hash changed (still compared) */
+  signatureChanged: string[];
+  /** Matched methods with at least one significant delta (all of them with includeUnchanged) */
+  methods: MethodDiff[];
+};
+
+function delta(
+  baseline: number,
+  current: number,
+  significant: boolean,
+  ci?: { ciLow: number; ciHigh: number }
+): MetricDelta {
+  const d = current - baseline;
+  return {
+    baseline,
+    current,
+    delta: round(d),
+    changePct: baseline !== 0 ? round((d / Math.abs(baseline)) * 100) : null,
+    ...(ci ? { ciLowPct: round(ci.ciLow * 100), ciHighPct: round(ci.ciHigh * 100) } : {}),
+    significant,
+    direction: !significant || d === 0 ? "unchanged" : d > 0 ? "regression" : "improvement"
+  };
+}
+
+function relativeChange(baseline: number, current: number): number {
+  return baseline !== 0 ? Math.abs(current / baseline - 1) : current !== 0 ? Infinity : 0;
+}
+
+function round(v: number): number {
+  return Number(v.toPrecision(6));
+}
+
+function compareMethod(base: MethodIndexRecord, cur: MethodIndexRecord, opts: DiffOptions): MethodDiff {
+  const metrics: MethodDiff["metrics"] = {};
+
+  for (const name of SCORE_METRICS) {
+    const b = base[name];
+    const c = cur[name];
+    if (typeof b === "number" && typeof c === "number") {
+      metrics[name] = delta(b, c, Math.abs(c - b) >= opts.minScoreDelta);
+    }
+  }
+
+  const baseSamples = base.samples ? samplesFromHistogram(base.samples) : null;
+  const curSamples = cur.samples ? samplesFromHistogram(cur.samples) : null;
+  const seed = hashSeed(cur.key);
+
+  if (typeof base.medianMs === "number" && typeof cur.medianMs === "number") {
+    if (baseSamples && curSamples) {
+      const change = bootstrapMedianChange(baseSamples, curSamples, seed, opts.bootstrapIterations);
+      const significant = (change.ciLow > 0 || change.ciHigh < 0) && Math.abs(change.estimate) >= opts.minEffect;
+      metrics.medianMs = delta(base.medianMs, cur.medianMs, significant, change);
+    } else {
+      metrics.medianMs = delta(base.medianMs, cur.medianMs, false);
+    }
+  }
+
+  if (typeof base.p95Ms === "number" && typeof cur.p95Ms === "number") {
+    let significant = false;
+    if (baseSamples && curSamples) {
+      const [b] = bootstrapQuantiles(baseSamples, [0.95], seed, opts.bootstrapIterations);
+      const [c] = bootstrapQuantiles(curSamples, [0.95], seed ^ 1, opts.bootstrapIterations);
+      significant = (c.ciLow > b.ciHigh || c.ciHigh < b.ciLow) && relativeChange(base.p95Ms, cur.p95Ms) >= opts.minEffect;
+    }
+    metrics.p95Ms = delta(base.p95Ms, cur.p95Ms, significant);
+  }
+
+  if (typeof base.allocBytesPerOp === "number" && typeof cur.allocBytesPerOp === "number") {
+    const moved = Math.abs(cur.allocBytesPerOp - base.allocBytesPerOp);
+    metrics.allocBytesPerOp = delta(base.allocBytesPerOp, cur.allocBytesPerOp,
+      moved >= opts.minAllocBytes && relativeChange(base.allocBytesPerOp, cur.allocBytesPerOp) >= opts.minEffect);
+  }
+
+  if (typeof base.joulesPerOp === "number" && typeof cur.joulesPerOp === "number") {
+    const driverChanged = Boolean(metrics.medianMs?.significant) ||
+      SCORE_METRICS.some(name => name !== "inclusiveEnergyScore" && metrics[name]?.significant);
+    metrics.joulesPerOp = delta(base.joulesPerOp, cur.joulesPerOp,
+      driverChanged && relativeChange(base.joulesPerOp, cur.joulesPerOp) >= opts.minEffect);
+  }
+
+  const names = Object.keys(metrics) as DiffMetric[];
+  return {
+    key: cur.key,
+    sourceChanged: Boolean(base.sourceHash && cur.sourceHash && base.sourceHash !== cur.sourceHash),
+    signatureChanged: Boolean(base.signatureHash && cur.signatureHash && base.signatureHash !== cur.signatureHash),
+    regressions: names.filter(n => metrics[n]!.direction === "regression"),
+    improvements: names.filter(n => metrics[n]!.direction === "improvement"),
+    metrics
+  };
+}
+
+function scanRef(index: MethodIndex): ScanRef {
+  return {
+    path: index.path,
+    project: index.project,
+    generatedAt: index.generatedAt,
+    benchmarkSource: index.benchmarkSource,
+    methods: index.records.size
+  };
+}
+
+/** Largest relative joules (else median, else score) change first */
+function weight(m: MethodDiff): number {
+  for (const name of ["joulesPerOp", "medianMs", "energyScore"] as DiffMetric[]) {
+    const d = m.metrics[name];
+    if (d?.significant) return Math.abs(d.changePct ?? Infinity);
+  }
+  return 0;
+}
+
+export function diffMethodIndexes(
+  baseline: MethodIndex,
+  current: MethodIndex,
+  options: Partial<DiffOptions> & { includeUnchanged?: boolean } = {}
+): EnergyDiff {
+  const { includeUnchanged, ...rest } = options;
+  const opts = { ...DEFAULT_DIFF_OPTIONS, ...rest };
+  const added: string[] = [];
+  const signatureChanged: string[] = [];
+  const methods: MethodDiff[] = [];
+  let matched = 0;
+  let unchanged = 0;
+
+  for (const [key, cur] of current.records) {
+    const base = baseline.records.get(key);
+    if (!base) {
+      added.push(key);
+      continue;
+    }
+    matched++;
+    const diff = compareMethod(base, cur, opts);
+    if (diff.signatureChanged) signatureChanged.push(key);
+    if (diff.regressions.length === 0 && diff.improvements.length === 0) {
+      unchanged++;
+      if (!includeUnchanged) continue;
+    }
+    methods.push(diff);
+  }
+  const removed = [...baseline.records.keys()].filter(key => !current.records.has(key));
+
+  methods.sort((a, b) => weight(b) - weight(a) || a.key.localeCompare(b.key));
+  return {
+    kind: "energy-diff",
+    generatedAt: new Date().toISOString(),
+    baseline: scanRef(baseline),
+    current: scanRef(current),
+    options: opts,
+    matched,
+    unchanged,
+    regressedMethods: methods.filter(m => m.regressions.length > 0).length,
+    improvedMethods: methods.filter(m => m.improvements.length > 0).length,
+    added: added.sort(),
+    removed: removed.sort(),
+    signatureChanged: signatureChanged.sort(),
+    methods
+  };
+}
@@ -0,0 +1,152 @@
+// src/report/methodIndex.ts
+import crypto from "crypto";
+import fs from "fs";
+import path from "path";
+import { JavaBenchmarkResult, SampleHistogram, benchmarkSamples, histogramFromSamples } from "../analyzers/benchmarkAnalyzer";
+import { JoulesSource, reportJoulesPerOp } from "../estimators/deploymentProjection";
+
+/**
+ * Compact per-method record of one scan, written next to the reports so two
+ * scans can be compared without loading either report tree:
+ *
+ *   method-index.ndjson   header line, then one record per method
+ *
+ * Records hold the static scores, the latency summary with its samples as a
+ * histogram (within 1% of each sample), allocation and joules per op.
+ */
+
+export const METHOD_INDEX_FILE = "method-index.ndjson";
+export const METHOD_INDEX_VERSION = 1;
+
+export type MethodIndexHeader = {
+  kind: "method-index";
+  version: number;
+  project: string | null;
+  generatedAt: string;
+  benchmarkSource: string;
+};
+
+export type MethodIndexRecord = {
+  /** "Class.method" */
+  key: string;
+  /** Parameter types, return type and static-ness; null when the AST had no signature */
+  signatureHash: string | null;
+  sourceHash: string | null;
+  energyScore: number;
+  cpuScore: number;
+  memScore: number;
+  ioScore: number;
+  inclusiveEnergyScore?: number;
+  combinedEnergyScore: number;
+  medianMs?: number;
+  p95Ms?: number;
+  samples?: SampleHistogram;
+  allocBytesPerOp?: number;
+  joulesPerOp?: number;
+  joulesSource?: JoulesSource;
+};
+
+/**
+ * Records by Class.method. Reports are already merged per Class.method
+ * (overloads share one report), so the key is unique within a scan.
+ */
+export type MethodIndex = MethodIndexHeader & { path: string; records: Map<string, MethodIndexRecord> };
+
+export function signatureHash(report: { parameters?: Array<{ type: string }>; returnType?: string; isStatic?: boolean }): string | null {
+  if (!report.parameters) return null;
+  const signature = `${report.isStatic ? "static " : ""}${report.returnType ?? "void"}(${report.parameters.map(p => p.type).join(",")})`;
+  return crypto.createHash("sha1").update(signature).digest("hex").slice(0, 12);
+}
+
+/** Index record for an enhanced report; `benchmark` supplies the raw samples */
+export function indexRecord(report: any, benchmarkSource: string, benchmark?: JavaBenchmarkResult): MethodIndexRecord {
+  const staticScore = (field: string) => report[`static${field[0].toUpperCase()}${field.slice(1)}`] ?? report[field] ?? 0;
+  const record: MethodIndexRecord = {
+    key: `${report.className}.${report.methodName}`,
+    signatureHash: signatureHash(report),
+    sourceHash: report.sourceHash ?? null,
+    energyScore: staticScore("energyScore"),
+    cpuScore: staticScore("cpuScore"),
+    memScore: staticScore("memScore"),
+    ioScore: staticScore("ioScore"),
+    combinedEnergyScore: report.combinedEnergyScore ?? report.energyScore
+  };
+  if (typeof report.inclusiveEnergyScore === "number") record.inclusiveEnergyScore = report.inclusiveEnergyScore;
+
+  if (report.confidenceLevel === "high") {
+    if (typeof report.medianMs === "number") record.medianMs = report.medianMs;
+    if (typeof report.p95Ms === "number") record.p95Ms = report.p95Ms;
+    const samples = benchmark ? benchmarkSamples(benchmark) : null;
+    if (samples && samples.length > 0) record.samples = benchmark!.histogram ?? histogramFromSamples(samples);
+  }
+  if (typeof report.allocBytesPerOp === "number") record.allocBytesPerOp = report.allocBytesPerOp;
+
+  const energy = reportJoulesPerOp(report, benchmarkSource);
+  if (energy) {
+    record.joulesPerOp = energy.joules;
+    record.joulesSource = energy.source;
+  }
+  return record;
+}
+
+/**
+ * Appends records to <outputDir>/method-index.ndjson as they are produced,
+ * so --stream runs index without holding their reports.
+ */
+export class MethodIndexWriter {
+  readonly indexPath: string;
+  private fd: number;
+  private pending: string[] = [];
+  private benchmarkSource: string;
+  records = 0;
+
+  constructor(outputDir: string, header: Omit<MethodIndexHeader, "kind" | "version" | "generatedAt">) {
+    fs.mkdirSync(outputDir, { recursive: true });
+    this.indexPath = path.join(outputDir, METHOD_INDEX_FILE);
+    this.benchmarkSource = header.benchmarkSource;
+    this.fd = fs.openSync(this.indexPath, "w");
+    const full: MethodIndexHeader = { kind: "method-index", version: METHOD_INDEX_VERSION, generatedAt: new Date().toISOString(), ...header };
+    this.pending.push(JSON.stringify(full) + "\n");
+  }
+
+  add(report: any, benchmark?: JavaBenchmarkResult): void {
+    this.pending.push(JSON.stringify(indexRecord(report, this.benchmarkSource, benchmark)) + "\n");
+    this.records++;
+    if (this.pending.length >= 1000) this.flush();
+  }
+
+  private flush(): void {
+    if (this.pending.length === 0) return;
+    fs.writeSync(this.fd, this.pending.join(""));
+    this.pending = [];
+  }
+
+  close(): void {
+    this.flush();
+    fs.closeSync(this.fd);
+  }
+}
+
+/** Load an index from its file or from the output directory holding it */
+export function loadMethodIndex(location: string): MethodIndex {
+  const indexPath = fs.existsSync(location) && fs.statSync(location).isDirectory()
+    ? path.join(location, METHOD_INDEX_FILE)
+    : location;
+  if (!fs.existsSync(indexPath)) {
+    throw new Error(`No ${METHOD_INDEX_FILE} at ${location} (re-run the analysis to create one)`);
+  }
+
+  const lines = fs.readFileSync(indexPath, "utf8").split("\n").filter(line => line.trim());
+  const header = lines.length > 0 ? JSON.parse(lines[0]) : null;
+  if (header?.kind !== "method-index") throw new Error(`Not a method index: ${indexPath}`);
+  if (header.version > METHOD_INDEX_VERSION) {
+    throw new Error(`Method index version ${header.version} is newer than this analyzer supports (${METHOD_INDEX_VERSION})`);
+  }
+
+  const records = new Map<string, MethodIndexRecord>();
+  for (let i = 1; i < lines.length; i++) {
+    const record: MethodIndexRecord = JSON.parse(lines[i]);
+    records.set(record.key, record);
+  }
+  return { ...header, path: indexPath, records };
+}
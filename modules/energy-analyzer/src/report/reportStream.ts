@@ -0,0 +1,224 @@
+// src/report/reportStream.ts
+import fs from "fs";
+import path from "path";
+import { RunningStats, TDigest, TopK } from "./streamingStats";
+
+/**
+ * Streaming report writer (--stream). Reports are appended to an NDJSON sink
+ * as they are scored and per-class files grow the same way; the summary is
+ * built from one-pass accumulators, so no report is held after it is written.
+ * What remains is O(classes) for the per-class totals here, plus the scoring
+ * pool's O(methods) set of Class.method keys. Output:
+ *
+ *   method-reports.ndjson          one enhanced report per line
+ *   <Class>-energy-report.ndjson   the class's reports (--per-class)
+ *   stream-summary.json            totals, percentiles, top consumers
+ */
+
+export const STREAM_REPORTS_FILE = "method-reports.ndjson";
+export const STREAM_SUMMARY_FILE = "stream-summary.json";
+const CLASS_FILE_SUFFIX = "-energy-report.ndjson";
+
+export type ReportStreamOptions = {
+  perClass?: boolean;
+  perMethod?: boolean;
+  /** Buffered bytes before lines are written out (default 1 MiB) */
+  flushBytes?: number;
+  /** Size of the top-consumers list (default 10) */
+  top?: number;
+};
+
+type ClassAccumulator = {
+  energy: RunningStats;
+  withBenchmarks: number;
+  methodsWithLoops: number;
+};
+
+type TopConsumer = {
+  className: string;
+  methodName: string;
+  staticEnergyScore: number;
+  runtimeEnergyScore?: number;
+  combinedEnergyScore: number;
+  executionTime?: number;
+  loopCount: number;
+  nestingDepth: number;
+  hasBenchmark: boolean;
+};
+
+export class ReportStream {
+  readonly reportsPath: string;
+  private fd: number;
+  private pending: string[] = [];
+  private classPending: Map<string, string[]> = new Map();
+  private pendingBytes = 0;
+  private flushBytes: number;
+
+  private combined = new RunningStats();
+  private combinedDigest = new TDigest();
+  private staticEnergy = new RunningStats();
+  private cpu = new RunningStats();
+  private mem = new RunningStats();
+  private io = new RunningStats();
+  private runtime = new RunningStats();
+  private runtimeDigest = new TDigest();
+  private loopCount = new RunningStats();
+  private nestingDepth = new RunningStats();
+  private distribution = { highEnergy: 0, mediumEnergy: 0, lowEnergy: 0 };
+  private methodsWithLoops = 0;
+  private methodsWithRecursion = 0;
+  private predicted = 0;
+  private classes: Map<string, ClassAccumulator> = new Map();
+  private top: TopK<TopConsumer>;
+
+  constructor(private outputDir: string, private options: ReportStreamOptions = {}) {
+    fs.mkdirSync(outputDir, { recursive: true });
+    this.flushBytes = options.flushBytes ?? 1 << 20;
+    this.top = new TopK(options.top ?? 10);
+    this.reportsPath = path.join(outputDir, STREAM_REPORTS_FILE);
+    this.fd = fs.openSync(this.reportsPath, "w");
+
+    // Class files are appended to, so clear the previous scan's first
+    if (options.perClass) {
+      for (const name of fs.readdirSync(outputDir)) {
+        if (name.endsWith(CLASS_FILE_SUFFIX)) fs.rmSync(path.join(outputDir, name), { force: true });
+      }
+    }
+  }
+
+  get methods(): number {
+    return this.combined.count;
+  }
+
+  write(report: any): void {
+    const line = JSON.stringify(report) + "\n";
+    this.pending.push(line);
+    this.pendingBytes += line.length;
+
+    if (this.options.perClass) {
+      let lines = this.classPending.get(report.className);
+      if (!lines) {
+        lines = [];
+        this.classPending.set(report.className, lines);
+      }
+      lines.push(line);
+      this.pendingBytes += line.length;
+    }
+    if (this.options.perMethod) {
+      const methodReportPath = path.join(this.outputDir, `${report.className}_${report.methodName}-energy.json`);
+      fs.writeFileSync(methodReportPath, JSON.stringify(report, null, 2));
+    }
+
+    this.accumulate(report);
+    if (this.pendingBytes >= this.flushBytes) this.flush();
+  }
+
+  private accumulate(report: any): void {
+    const score = report.combinedEnergyScore ?? report.energyScore ?? 0;
+    const benchmarked = report.confidenceLevel === "high";
+
+    this.combined.add(score);
+    this.combinedDigest.add(score);
+    this.staticEnergy.add(report.staticEnergyScore ?? report.energyScore ?? 0);
+    this.cpu.add(report.cpuScore ?? 0);
+    this.mem.add(report.memScore ?? 0);
+    this.io.add(report.ioScore ?? 0);
+    this.loopCount.add(report.loopCount ?? 0);
+    this.nestingDepth.add(report.nestingDepth ?? 0);
+
+    if (score > 0.5) this.distribution.highEnergy++;
+    else if (score >= 0.3) this.distribution.mediumEnergy++;
+    else this.distribution.lowEnergy++;
+    if (report.loopCount > 0) this.methodsWithLoops++;
+    if (report.recursion) this.methodsWithRecursion++;
+    if (report.predictedMedianMs !== undefined) this.predicted++;
+    if (benchmarked && typeof report.medianMs === "number") {
+      this.runtime.add(report.medianMs);
+      this.runtimeDigest.add(report.medianMs);
+    }
+
+    let cls = this.classes.get(report.className);
+    if (!cls) {
+      cls = { energy: new RunningStats(), withBenchmarks: 0, methodsWithLoops: 0 };
+      this.classes.set(report.className, cls);
+    }
+    cls.energy.add(score);
+    if (benchmarked) cls.withBenchmarks++;
+    if (report.loopCount > 0) cls.methodsWithLoops++;
+
+    this.top.add(score, {
+      className: report.className,
+      methodName: report.methodName,
+      staticEnergyScore: report.staticEnergyScore ?? report.energyScore,
+      runtimeEnergyScore: report.runtimeEnergyScore,
+      combinedEnergyScore: score,
+      executionTime: report.medianMs,
+      loopCount: report.loopCount,
+      nestingDepth: report.nestingDepth,
+      hasBenchmark: benchmarked
+    });
+  }
+
+  flush(): void {
+    if (this.pending.length > 0) {
+      fs.writeSync(this.fd, this.pending.join(""));
+      this.pending = [];
+    }
+    for (const [className, lines] of this.classPending) {
+      fs.appendFileSync(path.join(this.outputDir, `${className}${CLASS_FILE_SUFFIX}`), lines.join(""));
+    }
+    this.classPending.clear();
+    this.pendingBytes = 0;
+  }
+
+  /** Flush, close the sink and write stream-summary.json; `extra` is merged into the summary */
+  close(extra: Record<string, unknown> = {}) {
+    this.flush();
+    fs.closeSync(this.fd);
+
+    const summary = {
+      generatedAt: new Date().toISOString(),
+      analysisType: "streaming",
+      ...extra,
+      totalMethods: this.methods,
+      totalClasses: this.classes.size,
+      energy: {
+        combined: { ...this.combined.toJSON(), ...this.combinedDigest.percentiles() },
+        static: this.staticEnergy.toJSON(),
+        avgCpuScore: this.cpu.mean,
+        avgMemScore: this.mem.mean,
+        avgIoScore: this.io.mean
+      },
+      energyDistribution: this.distribution,
+      complexityMetrics: {
+        methodsWithLoops: this.methodsWithLoops,
+        methodsWithRecursion: this.methodsWithRecursion,
+        avgLoopCount: this.loopCount.mean,
+        avgNestingDepth: this.nestingDepth.mean,
+        maxNestingDepth: this.nestingDepth.count > 0 ? this.nestingDepth.max : 0
+      },
+      performanceMetrics: this.runtime.count > 0 ? {
+        methodsWithBenchmarks: this.runtime.count,
+        medianMs: { ...this.runtime.toJSON(), ...this.runtimeDigest.percentiles() }
+      } : null,
+      predictedMethods: this.predicted,
+      topEnergyConsumers: this.top.values(),
+      classes: Object.fromEntries([...this.classes].map(([name, c]) => [name, {
+        methods: c.energy.count,
+        totalEnergy: c.energy.total,
+        avgEnergy: c.energy.mean,
+        maxEnergy: c.energy.max,
+        minEnergy: c.energy.min,
+        methodsWithLoops: c.methodsWithLoops,
+        withBenchmarks: c.withBenchmarks
+      }])),
+      files: {
+        reports: STREAM_REPORTS_FILE,
+        classReports: this.options.perClass ? `<Class>${CLASS_FILE_SUFFIX}` : null
+      }
+    };
+
+    fs.writeFileSync(path.join(this.outputDir, STREAM_SUMMARY_FILE), JSON.stringify(summary, null, 2));
+    return summary;
+  }
+}
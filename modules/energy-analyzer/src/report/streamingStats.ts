@@ -0,0 +1,167 @@
+// src/report/streamingStats.ts
+
+/**
+ * One-pass accumulators for report summaries. Each holds a fixed amount of
+ * state however many values are added, so a streamed scan never needs the
+ * full report list to summarize it.
+ */
+
+/** Count, mean, variance (Welford), min and max */
+export class RunningStats {
+  count = 0;
+  mean = 0;
+  min = Infinity;
+  max = -Infinity;
+  private m2 = 0;
+
+  add(x: number): void {
+    if (!Number.isFinite(x)) return;
+    this.count++;
+    const delta = x - this.mean;
+    this.mean += delta / this.count;
+    this.m2 += delta * (x - this.mean);
+    if (x < this.min) this.min = x;
+    if (x > this.max) this.max = x;
+  }
+
+  get total(): number {
+    return this.mean * this.count;
+  }
+
+  /** Sample variance */
+  get variance(): number {
+    return this.count > 1 ? this.m2 / (this.count - 1) : 0;
+  }
+
+  get stddev(): number {
+    return Math.sqrt(this.variance);
+  }
+
+  toJSON() {
+    return {
+      count: this.count,
+      total: this.total,
+      mean: this.mean,
+      stddev: this.stddev,
+      min: this.count > 0 ? this.min : null,
+      max: this.count > 0 ? this.max : null
+    };
+  }
+}
+
+/**
+ * Merging t-digest (Dunning) with the arcsine scale function: centroids are
+ * small near the tails, so extreme percentiles stay accurate while the digest
+ * holds O(compression) centroids.
+ */
+export class TDigest {
+  count = 0;
+  min = Infinity;
+  max = -Infinity;
+  private means: number[] = [];
+  private weights: number[] = [];
+  private buffer: number[] = [];
+
+  constructor(private compression = 100) {}
+
+  add(x: number): void {
+    if (!Number.isFinite(x)) return;
+    this.buffer.push(x);
+    this.count++;
+    if (x < this.min) this.min = x;
+    if (x > this.max) this.max = x;
+    if (this.buffer.length >= this.compression * 5) this.compress();
+  }
+
+  /** Number of centroids after merging the pending buffer */
+  get centroids(): number {
+    this.compress();
+    return this.means.length;
+  }
+
+  private scale(q: number): number {
+    return (this.compression / (2 * Math.PI)) * Math.asin(2 * Math.min(1, Math.max(0, q)) - 1);
+  }
+
+  private compress(): void {
+    if (this.buffer.length === 0) return;
+    const points: Array<[number, number]> = this.means.map((m, i) => [m, this.weights[i]]);
+    for (const x of this.buffer) points.push([x, 1]);
+    this.buffer = [];
+    points.sort((a, b) => a[0] - b[0]);
+
+    const means: number[] = [];
+    const weights: number[] = [];
+    let [mean, weight] = points[0];
+    let before = 0;
+    for (let i = 1; i < points.length; i++) {
+      const [m, w] = points[i];
+      if (this.scale((before + weight + w) / this.count) - this.scale(before / this.count) <= 1) {
+        weight += w;
+        mean += ((m - mean) * w) / weight;
+      } else {
+        means.push(mean);
+        weights.push(weight);
+        before += weight;
+        [mean, weight] = [m, w];
+      }
+    }
+    means.push(mean);
+    weights.push(weight);
+    this.means = means;
+    this.weights = weights;
+  }
+
+  /** Estimated q-quantile (0..1); NaN when empty */
+  quantile(q: number): number {
+    this.compress();
+    const n = this.means.length;
+    if (n === 0) return NaN;
+    if (n === 1 || this.count === 1) return this.means[0];
+
+    const target = Math.min(1, Math.max(0, q)) * this.count;
+    // Each centroid's mass is centred on its mean; interpolate between centres
+    let cumulative = 0;
+    let prevCenter = 0;
+    let prevMean = this.min;
+    for (let i = 0; i < n; i++) {
+      const center = cumulative + this.weights[i] / 2;
+      if (target < center) {
+        const span = center - prevCenter;
+        const t = span > 0 ? (target - prevCenter) / span : 0;
+        return prevMean + t * (this.means[i] - prevMean);
+      }
+      cumulative += this.weights[i];
+      prevCenter = center;
+      prevMean = this.means[i];
+    }
+    const span = this.count - prevCenter;
+    const t = span > 0 ? (target - prevCenter) / span : 1;
+    return prevMean + t * (this.max - prevMean);
+  }
+
+  percentiles(ps: number[] = [50, 90, 95, 99]): Record<string, number | null> {
+    const out: Record<string, number | null> = {};
+    for (const p of ps) out[`p${p}`] = this.count > 0 ? this.quantile(p / 100) : null;
+    return out;
+  }
+}
+
+/** The k highest-scoring items seen so far */
+export class TopK<T> {
+  private items: Array<{ score: number; item: T }> = [];
+
+  constructor(private k: number) {}
+
+  add(score: number, item: T): void {
+    if (this.items.length === this.k && score <= this.items[this.items.length - 1].score) return;
+    let i = this.items.length;
+    while (i > 0 && this.items[i - 1].score < score) i--;
+    this.items.splice(i, 0, { score, item });
+    if (this.items.length > this.k) this.items.pop();
+  }
+
+  values(): T[] {
+    return this.items.map(e => e.item);
+  }
+}
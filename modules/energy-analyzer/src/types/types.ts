@@ -23,8 +23,10 @@ export type ASTFile = {
 
 export type CFG = {
   methodName: string;
-  nodes: Array<{ id: string; label?: string; type?: string; next?: string[] }>;
-  edges: Array<[string, string]>;
+  nodes: Array<{ id: string | number; label?: string; type?: string; next?: Array<string | number>; loopDepth?: number }>;
+  edges: Array<[string | number, string | number, string?]>;
+  loops?: Array<{ header: number; parent: number; depth: number; blocks: number[] }>;
+  maxLoopDepth?: number;
 };
 
 export type MethodReport = {
@@ -5,6 +5,9 @@ import { runAgentsParallel } from "../../orchestrator/run-agents-parallel.js";
 import { normalizeFromScanOutput } from "../../orchestrator/index.js";
 import { createContextMemory } from "../../integrations/context-memory/index.js";
 import { runRefactoringAdapter } from "../../integrations/refactoring-adapter/index.js";
+import { isEnergyDaemonAvailable, runOnEnergyDaemon } from "./services/energyDaemonClient.js";
+import { ensureEnergyAnalyzerBuilt, energyEntryPoint } from "./services/energyAnalyzerBuild.js";
+import { isArtifactFile } from "../../shared/binaryFormat.js";
 
 
 
@@ -29,36 +32,15 @@ export async function runEnergyAnalyzer(
     sourceCodePath = null
   } = options;
 
-  const energyAnalyzerPath = path.join(process.cwd(), "../energy-analyzer");
-  const energyCliPath = path.join(energyAnalyzerPath, "dist/cli/cli.js");
-  const energySrcPath = path.join(energyAnalyzerPath, "src/cli/cli.ts");
+  const energyCliPath = energyEntryPoint("cli");
 
-  // Check if compilation is needed
-  const needsCompilation = !fs.existsSync(energyCliPath) || 
-    (fs.existsSync(energySrcPath) && 
-     fs.statSync(energySrcPath).mtime > fs.statSync(energyCliPath).mtime);
+  // A resident daemon (ENERGY_ANALYZER_DAEMON_URL) keeps its caches warm; no build or spawn per scan
+  const useDaemon = await isEnergyDaemonAvailable();
 
-  if (needsCompilation) {
-    try {
-      const buildProc = spawn("npm", ["run", "build"], {
-        cwd: energyAnalyzerPath,
-        stdio: "inherit",
-        shell: true
-      });
-
-      await new Promise((resolve, reject) => {
-        buildProc.on("close", (code) => {
-          if (code === 0) resolve();
-          else reject(new Error(`Build failed with code ${code}`));
-        });
-        buildProc.on("error", reject);
-      });
-    } catch (error) {
-      console.warn(`⚠️  Build failed: ${error.message}`);
-    }
-  }
+  // dist/ is not tracked: build when an entry point is missing or older than its source
+  if (!useDaemon) await ensureEnergyAnalyzerBuilt();
 
-  if (!fs.existsSync(energyCliPath)) {
+  if (!useDaemon && !fs.existsSync(energyCliPath)) {
     return sendResponse({
       status: "done_no_energy_cli",
       scanId,
@@ -82,14 +64,15 @@ export async function runEnergyAnalyzer(
     });
   }
 
-  const astFiles = fs.readdirSync(astDir).filter(f => f.endsWith(".json"));
+  // JSON or .gcb (static analyzer run with --format binary)
+  const astFiles = fs.readdirSync(astDir).filter(f => isArtifactFile(f));
   
   if (astFiles.length === 0) {
     return sendResponse({
       status: "done_energy_failed",
       scanId,
       reports,
-      message: "No AST JSON files found",
+      message: "No AST files found",
       summary: { totalIssues: reports.length, hasEnergyAnalysis: false }
     });
   }
@@ -105,7 +88,7 @@ export async function runEnergyAnalyzer(
     });
   }
 
-  const cfgFiles = fs.readdirSync(cfgDir).filter(f => f.endsWith(".json"));
+  const cfgFiles = fs.readdirSync(cfgDir).filter(f => isArtifactFile(f));
 
   // ✅ AUTO-FIND JAVA SOURCE CODE IN UPLOADS FOLDER
   let javaSourceDir = sourceCodePath;
@@ -116,8 +99,15 @@ export async function runEnergyAnalyzer(
     
     if (fs.existsSync(uploadsDir)) {
       console.log(`🔍 Searching for Java source code in uploads folder: ${uploadsDir}`);
+
+      // A Maven/Gradle project root lets the analyzer benchmark each module with its own dependencies
+      const projectRoot = findBuildRoot(uploadsDir);
+      if (projectRoot) {
+        javaSourceDir = projectRoot;
+        console.log(`✅ Found Maven/Gradle project in: ${projectRoot}`);
+      }
       
-      // Look for Java files or src folders
+      // Otherwise look for Java files or src folders
       const possibleJavaDirs = [
         uploadsDir,
         path.join(uploadsDir, "src"),
@@ -127,6 +117,7 @@ export async function runEnergyAnalyzer(
       ];
       
       for (const dir of possibleJavaDirs) {
+        if (javaSourceDir) break;
         if (fs.existsSync(dir)) {
           const javaFiles = getAllJavaFiles(dir);
           if (javaFiles.length > 0) {
@@ -231,41 +222,8 @@ export async function runEnergyAnalyzer(
 
   console.log(`📝 Running energy analyzer with ${hasBenchmarks ? `benchmarks (${benchmarkSource})` : 'static analysis only'}`);
 
-  const energyProc = spawn("node", [energyCliPath, ...args], {
-    cwd: path.join(process.cwd(), "../energy-analyzer"),
-    stdio: ["ignore", "pipe", "pipe"],
-    shell: false,
-    env: { ...process.env, PATH: process.env.PATH }
-  });
-
-  let stdoutData = "";
-  let stderrData = "";
-
-  // Capture output for debugging
-  energyProc.stdout.on("data", (data) => {
-    stdoutData += data.toString();
-  });
-  
-  energyProc.stderr.on("data", (data) => {
-    stderrData += data.toString();
-  });
-
-  energyProc.on("error", (error) => {
-    console.error(`❌ Energy analyzer spawn error:`, error);
-    sendResponse({
-      status: "done_energy_failed",
-      scanId,
-      reports,
-      message: "Energy analyzer failed to spawn",
-      energyError: error.message,
-      summary: {
-        totalIssues: reports.length,
-        hasEnergyAnalysis: false
-      }
-    });
-  });
-
-  energyProc.on("close", (code) => {
+  // Reads the reports the analyzer wrote to energyDir and answers the scan
+  const collectEnergyResults = (code, stderrData) => {
     if (code !== 0) {
       console.error(`❌ Energy analyzer failed with exit code ${code}`);
       if (stderrData) {
@@ -386,7 +344,58 @@ export async function runEnergyAnalyzer(
         benchmarkCoverage: combinedReport?.metadata?.dataSources?.benchmarkCoverage || "0%"
       }
     });
+  };
+
+  if (useDaemon) {
+    let daemonErrors = "";
+    try {
+      const code = await runOnEnergyDaemon(args, (level, message) => {
+        if (level === "error") daemonErrors += message + "\n";
+      });
+      return collectEnergyResults(code, daemonErrors);
+    } catch (error) {
+      if (!fs.existsSync(energyCliPath)) {
+        return collectEnergyResults(1, error.message);
+      }
+      console.warn(`⚠️  Energy analyzer daemon failed (${error.message}), running the CLI instead`);
+    }
+  }
+
+  const energyProc = spawn("node", [energyCliPath, ...args], {
+    cwd: path.join(process.cwd(), "../energy-analyzer"),
+    stdio: ["ignore", "pipe", "pipe"],
+    shell: false,
+    env: { ...process.env, PATH: process.env.PATH }
+  });
+
+  let stdoutData = "";
+  let stderrData = "";
+
+  // Capture output for debugging
+  energyProc.stdout.on("data", (data) => {
+    stdoutData += data.toString();
+  });
+  
+  energyProc.stderr.on("data", (data) => {
+    stderrData += data.toString();
+  });
+
+  energyProc.on("error", (error) => {
+    console.error(`❌ Energy analyzer spawn error:`, error);
+    sendResponse({
+      status: "done_energy_failed",
+      scanId,
+      reports,
+      message: "Energy analyzer failed to spawn",
+      energyError: error.message,
+      summary: {
+        totalIssues: reports.length,
+        hasEnergyAnalysis: false
+      }
+    });
   });
+
+  energyProc.on("close", (code) => collectEnergyResults(code, stderrData));
 }
 
 // Helper function to get all Java files
@@ -412,6 +421,20 @@ function getAllJavaFiles(dir) {
   traverse(dir);
   return javaFiles;
 }
+
+const BUILD_FILES = ["pom.xml", "settings.gradle", "settings.gradle.kts", "build.gradle", "build.gradle.kts"];
+
+// Directory holding the root build file: dir itself or, for an uploaded archive, its only subdirectory
+function findBuildRoot(dir) {
+  const hasBuildFile = (candidate) => BUILD_FILES.some(file => fs.existsSync(path.join(candidate, file)));
+  if (hasBuildFile(dir)) return dir;
+
+  const subdirs = fs.readdirSync(dir, { withFileTypes: true }).filter(entry => entry.isDirectory() && !entry.name.startsWith("."));
+  if (subdirs.length === 1 && hasBuildFile(path.join(dir, subdirs[0].name))) {
+    return path.join(dir, subdirs[0].name);
+  }
+  return null;
+}
 // ✅ Example usage with benchmarks:
 // await runEnergyAnalyzer(
 //   astDir, 
@@ -483,7 +506,8 @@ export default function runAnalysisPipeline(projectPath, scanOutputDir, res) {
       cwd: path.join(process.cwd(), "../static-analyzer"),
       stdio: ["pipe", "pipe", "pipe"],
       shell: false,
-      env: { ...process.env, PATH: process.env.PATH }
+      // The optimization/data-structure/compliance agents still open <Class>.json ASTs by name
+      env: { ...process.env, PATH: process.env.PATH, GREENCODE_ARTIFACT_FORMAT: "json" }
     });
 
     analyzer.stdout.on("data", (data) => process.stdout.write(`[STATIC-ANALYZER] ${data}`));
@@ -2,6 +2,7 @@
 import fs from 'fs/promises';
 import path from 'path';
 import { fileURLToPath } from 'url';
+import { isArtifactFile, parseArtifact } from '../../../shared/binaryFormat.js';
 
 const __filename = fileURLToPath(import.meta.url);
 const __dirname = path.dirname(__filename);
@@ -128,8 +129,8 @@ export class DataAggregator {
           // Read subdirectory
           const subDirData = await this.readJsonFilesFromFolder(itemPath, analyzerType, sessionId, item);
           analyzerData.push(...subDirData);
-        } else if (item.endsWith('.json')) {
-          // Single JSON file
+        } else if (isArtifactFile(item)) {
+          // Single JSON or .gcb file
           const fileData = await this.readJsonFile(itemPath, analyzerType, sessionId);
           if (fileData) analyzerData.push(fileData);
         }
@@ -150,7 +151,7 @@ export class DataAggregator {
     try {
       const files = await fs.readdir(folderPath);
       for (const file of files) {
-        if (file.endsWith('.json')) {
+        if (isArtifactFile(file)) {
           const filePath = path.join(folderPath, file);
           const fileData = await this.readJsonFile(filePath, analyzerType, sessionId);
           if (fileData) {
@@ -167,8 +168,7 @@ export class DataAggregator {
 
   async readJsonFile(filePath, analyzerType, sessionId) {
     try {
-      const content = await fs.readFile(filePath, 'utf8');
-      const data = JSON.parse(content);
+      const data = parseArtifact(await fs.readFile(filePath));
       return {
         data,
         analyzerType,
@@ -1,5 +1,6 @@
 
 import energyService from '../services/energyReportService.js'
+import energyDiffService from '../services/energyDiffService.js'
 const energyReportController = (req, res) => {
   try {
     const reports = energyService.getAllReports();
@@ -146,6 +147,32 @@ const getImpactComparisonController = (req, res) => {
   }
 };
 
+const getScanDiffController = async (req, res) => {
+  try {
+    const { scanId, baselineScanId } = req.query;
+
+    if (!scanId) {
+      return res.status(400).json({
+        success: false,
+        error: 'scanId query parameter is required (baselineScanId defaults to the previous scan)'
+      });
+    }
+
+    const result = await energyDiffService.diffScans({
+      scanId,
+      baselineScanId,
+      minEffect: req.query.minEffect ? parseFloat(req.query.minEffect) : undefined,
+      includeUnchanged: req.query.all === 'true'
+    });
+    res.status(200).json({ success: true, ...result });
+  } catch (error) {
+    res.status(error.status || 500).json({
+      success: false,
+      error: error.message
+    });
+  }
+};
+
 export{
   energyReportController,
   getClassReportController,
@@ -155,7 +182,8 @@ export{
   getTopConsumersController,
   searchMethodsController,
   compareClassesController,
-  getImpactComparisonController
+  getImpactComparisonController,
+  getScanDiffController
 };
 
 
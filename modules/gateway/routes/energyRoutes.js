@@ -8,7 +8,8 @@ import {
   searchMethodsController,
   compareClassesController,
   getMethodController,
-  getImpactComparisonController
+  getImpactComparisonController,
+  getScanDiffController
 } from '../controllers/energyController.js';
 
 const router = express.Router();
@@ -20,6 +21,7 @@ router.get('/top-consumers', getTopConsumersController);
 router.get('/search', searchMethodsController);
 router.get('/compare', compareClassesController);
 router.get('/impact-comparison', getImpactComparisonController);
+router.get('/diff', getScanDiffController);
 
 // Class-specific routes
 router.get('/class/:className', getClassReportController);
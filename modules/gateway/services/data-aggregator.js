@@ -2,6 +2,7 @@
 const fs = require('fs').promises;
 const path = require('path');
 const { UnifiedIssue } = require('../schema/unified-schema');
+const { isArtifactFile, readArtifact } = require('../../../shared/binaryFormat');
 
 class DataAggregator {
   constructor(outputPath = './output') {
@@ -47,12 +48,11 @@ class DataAggregator {
     try {
       const astPath = path.join(this.outputPath, 'ast');
       const files = await fs.readdir(astPath);
-      const jsonFiles = files.filter(f => f.endsWith('.json'));
+      const jsonFiles = files.filter(isArtifactFile);
       
       let allData = [];
       for (const file of jsonFiles) {
-        const content = await fs.readFile(path.join(astPath, file), 'utf8');
-        const data = JSON.parse(content);
+        const data = await readArtifact(path.join(astPath, file));
         if (Array.isArray(data)) {
           allData = allData.concat(data);
         } else if (data.issues || data.details) {
@@ -70,12 +70,11 @@ class DataAggregator {
     try {
       const cfgPath = path.join(this.outputPath, 'cfg');
       const files = await fs.readdir(cfgPath);
-      const jsonFiles = files.filter(f => f.endsWith('.json'));
+      const jsonFiles = files.filter(isArtifactFile);
       
       let allData = [];
       for (const file of jsonFiles) {
-        const content = await fs.readFile(path.join(cfgPath, file), 'utf8');
-        const data = JSON.parse(content);
+        const data = await readArtifact(path.join(cfgPath, file));
         if (Array.isArray(data)) {
           allData = allData.concat(data);
         }
@@ -101,10 +100,9 @@ class DataAggregator {
       
       // Fallback: combine all energy JSON files
       let allData = [];
-      const jsonFiles = files.filter(f => f.endsWith('.json'));
+      const jsonFiles = files.filter(isArtifactFile);
       for (const file of jsonFiles) {
-        const content = await fs.readFile(path.join(energyPath, file), 'utf8');
-        const data = JSON.parse(content);
+        const data = await readArtifact(path.join(energyPath, file));
         if (data.topConsumers || data.details) {
           allData = allData.concat(data.topConsumers || data.details || []);
         }
@@ -120,12 +118,11 @@ class DataAggregator {
     try {
       const maintainabilityPath = path.join(this.outputPath, 'maintainability');
       const files = await fs.readdir(maintainabilityPath);
-      const jsonFiles = files.filter(f => f.endsWith('.json'));
+      const jsonFiles = files.filter(isArtifactFile);
       
       let allData = [];
       for (const file of jsonFiles) {
-        const content = await fs.readFile(path.join(maintainabilityPath, file), 'utf8');
-        const data = JSON.parse(content);
+        const data = await readArtifact(path.join(maintainabilityPath, file));
         if (data.details || data.issues) {
           allData = allData.concat(data.details || data.issues || []);
         }
@@ -141,12 +138,11 @@ class DataAggregator {
     try {
       const compliancePath = path.join(this.outputPath, 'compliance');
       const files = await fs.readdir(compliancePath);
-      const jsonFiles = files.filter(f => f.endsWith('.json'));
+      const jsonFiles = files.filter(isArtifactFile);
       
       let allData = [];
       for (const file of jsonFiles) {
-        const content = await fs.readFile(path.join(compliancePath, file), 'utf8');
-        const data = JSON.parse(content);
+        const data = await readArtifact(path.join(compliancePath, file));
         if (data.details || data.rules) {
           allData = allData.concat(data.details || data.rules || []);
         }
@@ -162,12 +158,11 @@ class DataAggregator {
     try {
       const optimizationPath = path.join(this.outputPath, 'optimization-report');
       const files = await fs.readdir(optimizationPath);
-      const jsonFiles = files.filter(f => f.endsWith('.json'));
+      const jsonFiles = files.filter(isArtifactFile);
       
       let allData = [];
       for (const file of jsonFiles) {
-        const content = await fs.readFile(path.join(optimizationPath, file), 'utf8');
-        const data = JSON.parse(content);
+        const data = await readArtifact(path.join(optimizationPath, file));
         if (data.suggestions || data.optimizations) {
           allData = allData.concat(data.suggestions || data.optimizations || []);
         }
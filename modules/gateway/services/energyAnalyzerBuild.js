@@ -0,0 +1,51 @@
+// =====================================================
+// On-demand build of the energy analyzer (dist/ is not tracked)
+// =====================================================
+
+import { spawn } from 'child_process';
+import fs from 'fs';
+import path from 'path';
+
+export const ENERGY_ANALYZER_PATH = path.join(process.cwd(), '../energy-analyzer');
+
+// Compiled entry points the gateway and the package's bin links rely on
+const ENTRY_POINTS = ['cli', 'diff', 'daemon', 'calibrate'];
+
+export const energyEntryPoint = (name) => path.join(ENERGY_ANALYZER_PATH, 'dist/cli', `${name}.js`);
+
+// Missing, or older than its TypeScript source
+const isStale = (name) => {
+  const compiled = energyEntryPoint(name);
+  if (!fs.existsSync(compiled)) return true;
+  const source = path.join(ENERGY_ANALYZER_PATH, 'src/cli', `${name}.ts`);
+  return fs.existsSync(source) && fs.statSync(source).mtime > fs.statSync(compiled).mtime;
+};
+
+// Shared by concurrent callers so one build serves every request waiting on it
+let pendingBuild = null;
+
+/**
+ * Run `npm run build` in modules/energy-analyzer when any entry point is
+ * missing or stale. Resolves either way; callers check energyEntryPoint().
+ */
+export const ensureEnergyAnalyzerBuilt = () => {
+  if (!ENTRY_POINTS.some(isStale)) return Promise.resolve();
+
+  if (!pendingBuild) {
+    pendingBuild = new Promise((resolve, reject) => {
+      const buildProc = spawn('npm', ['run', 'build'], {
+        cwd: ENERGY_ANALYZER_PATH,
+        stdio: 'inherit',
+        shell: true
+      });
+      buildProc.on('close', (code) => {
+        if (code === 0) resolve();
+        else reject(new Error(`Build failed with code ${code}`));
+      });
+      buildProc.on('error', reject);
+    })
+      .catch((error) => console.warn(`⚠️  Build failed: ${error.message}`))
+      .finally(() => { pendingBuild = null; });
+  }
+  return pendingBuild;
+};
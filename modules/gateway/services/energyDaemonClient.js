@@ -0,0 +1,72 @@
+// =====================================================
+// Client for the resident energy analyzer (greencode-energy-daemon)
+// =====================================================
+
+import http from 'http';
+
+// e.g. http://127.0.0.1:5410; unset = always spawn the CLI
+const ENERGY_DAEMON_URL = process.env.ENERGY_ANALYZER_DAEMON_URL || '';
+const HEALTH_TIMEOUT_MS = 500;
+
+/**
+ * True when a daemon is configured and answering /health.
+ */
+export const isEnergyDaemonAvailable = () => {
+  if (!ENERGY_DAEMON_URL) return Promise.resolve(false);
+
+  return new Promise((resolve) => {
+    const req = http.get(new URL('/health', ENERGY_DAEMON_URL), { timeout: HEALTH_TIMEOUT_MS }, (res) => {
+      res.resume();
+      resolve(res.statusCode === 200);
+    });
+    req.on('timeout', () => req.destroy());
+    req.on('error', () => resolve(false));
+  });
+};
+
+/**
+ * Run one scan on the daemon with the same arguments the CLI takes. Log
+ * events are passed to onLog as they stream in; resolves with the exit code.
+ * Rejects if the daemon cannot be reached or drops the connection.
+ */
+export const runOnEnergyDaemon = (args, onLog = () => {}) => {
+  return new Promise((resolve, reject) => {
+    const body = JSON.stringify({ args });
+    const req = http.request(new URL('/analyze', ENERGY_DAEMON_URL), {
+      method: 'POST',
+      headers: { 'Content-Type': 'application/json', 'Content-Length': Buffer.byteLength(body) }
+    }, (res) => {
+      if (res.statusCode !== 200) {
+        res.resume();
+        return reject(new Error(`Energy daemon answered ${res.statusCode}`));
+      }
+
+      let buffered = '';
+      let exitCode = null;
+      res.setEncoding('utf8');
+      res.on('data', (chunk) => {
+        buffered += chunk;
+        const lines = buffered.split('\n');
+        buffered = lines.pop();
+        for (const line of lines) {
+          if (!line.trim()) continue;
+          try {
+            const event = JSON.parse(line);
+            if (event.event === 'log') onLog(event.level, event.message);
+            else if (event.event === 'done') exitCode = event.exitCode;
+          } catch {
+            // Ignore malformed lines
+          }
+        }
+      });
+      res.on('end', () => {
+        if (exitCode === null) reject(new Error('Energy daemon closed the stream before the job finished'));
+        else resolve(exitCode);
+      });
+      res.on('error', reject);
+    });
+
+    req.on('error', reject);
+    req.end(body);
+  });
+};
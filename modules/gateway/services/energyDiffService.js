@@ -0,0 +1,113 @@
+// =====================================================
+// Scan-to-scan energy diff (greencode-energy-diff)
+// =====================================================
+
+import { spawn } from 'child_process';
+import fs from 'fs';
+import path from 'path';
+import { ensureEnergyAnalyzerBuilt, energyEntryPoint } from './energyAnalyzerBuild.js';
+
+const SCANS_DIR = path.join(process.cwd(), 'output');
+const DIFF_CLI_PATH = energyEntryPoint('diff');
+const METHOD_INDEX_FILE = 'method-index.ndjson';
+const HEADER_BYTES = 4096;
+
+const scanIndexPath = (scanId) => path.join(SCANS_DIR, scanId, 'energy', METHOD_INDEX_FILE);
+
+const assertScanId = (scanId) => {
+  if (!scanId || !/^[\w.-]+$/.test(scanId) || scanId === '.' || scanId === '..') {
+    throw Object.assign(new Error(`Invalid scan id: ${scanId}`), { status: 400 });
+  }
+};
+
+// First line of a method index: { project, generatedAt, ... }
+const readIndexHeader = (indexPath) => {
+  const fd = fs.openSync(indexPath, 'r');
+  try {
+    const buffer = Buffer.alloc(HEADER_BYTES);
+    const bytes = fs.readSync(fd, buffer, 0, HEADER_BYTES, 0);
+    return JSON.parse(buffer.toString('utf8', 0, bytes).split('\n')[0]);
+  } finally {
+    fs.closeSync(fd);
+  }
+};
+
+/**
+ * Baseline of a scan: the newest earlier scan of the same project, or of any
+ * project when the scan was indexed without one (the gateway does not pass --project).
+ */
+const findBaselineScan = (scanId) => {
+  const current = readIndexHeader(scanIndexPath(scanId));
+  let best = null;
+
+  for (const candidate of fs.readdirSync(SCANS_DIR)) {
+    if (candidate === scanId) continue;
+    const indexPath = scanIndexPath(candidate);
+    if (!fs.existsSync(indexPath)) continue;
+
+    let header;
+    try {
+      header = readIndexHeader(indexPath);
+    } catch {
+      continue;
+    }
+    if (current.project && header.project !== current.project) continue;
+    if (header.generatedAt >= current.generatedAt) continue;
+    if (!best || header.generatedAt > best.generatedAt) best = { scanId: candidate, generatedAt: header.generatedAt };
+  }
+
+  return best && { scanId: best.scanId, selection: current.project ? 'same-project' : 'previous-scan' };
+};
+
+/**
+ * Diff two scans from their method indexes. Without a baseline scan id the
+ * scan's baseline is looked up (see findBaselineScan).
+ */
+const diffScans = async ({ scanId, baselineScanId, minEffect, includeUnchanged = false }) => {
+  assertScanId(scanId);
+  if (baselineScanId) assertScanId(baselineScanId);
+
+  if (!fs.existsSync(scanIndexPath(scanId))) {
+    throw Object.assign(new Error(`Scan ${scanId} has no method index (re-run its energy analysis)`), { status: 404 });
+  }
+
+  const baseline = baselineScanId ? { scanId: baselineScanId, selection: 'requested' } : findBaselineScan(scanId);
+  if (!baseline) {
+    throw Object.assign(new Error(`No earlier scan to compare ${scanId} with; pass baselineScanId`), { status: 404 });
+  }
+  if (!fs.existsSync(scanIndexPath(baseline.scanId))) {
+    throw Object.assign(new Error(`Scan ${baseline.scanId} has no method index`), { status: 404 });
+  }
+
+  // Same on-demand build as the energy analysis runner
+  await ensureEnergyAnalyzerBuilt();
+  if (!fs.existsSync(DIFF_CLI_PATH)) {
+    throw new Error('Energy analyzer build failed (run npm run build in modules/energy-analyzer)');
+  }
+
+  const args = [DIFF_CLI_PATH, scanIndexPath(baseline.scanId), scanIndexPath(scanId), '--json'];
+  if (minEffect !== undefined) args.push('--min-effect', String(minEffect));
+  if (includeUnchanged) args.push('--all');
+
+  return new Promise((resolve, reject) => {
+    const proc = spawn('node', args, { stdio: ['ignore', 'pipe', 'pipe'] });
+    let stdout = '';
+    let stderr = '';
+    proc.stdout.on('data', (chunk) => { stdout += chunk; });
+    proc.stderr.on('data', (chunk) => { stderr += chunk; });
+    proc.on('error', reject);
+    proc.on('close', (code) => {
+      if (code !== 0) return reject(new Error(stderr.trim() || `Energy diff exited with code ${code}`));
+      try {
+        resolve({ scanId, baselineScanId: baseline.scanId, baselineSelection: baseline.selection, diff: JSON.parse(stdout) });
+      } catch (error) {
+        reject(new Error(`Unreadable energy diff output: ${error.message}`));
+      }
+    });
+  });
+};
+
+export default {
+  diffScans,
+  findBaselineScan
+};
@@ -1,6 +1,7 @@
 import fs from 'fs';
 import path from 'path';
 import { fileURLToPath } from 'url';
+import { isArtifactFile, readArtifactSync } from '../../../shared/binaryFormat.js';
 
 const __filename = fileURLToPath(import.meta.url);
 const __dirname = path.dirname(__filename);
@@ -29,7 +30,7 @@ export const getAllMaintainabilityFiles = (baseDir = BASE_OUTPUT_DIR) => {
           
           if (fs.existsSync(maintainabilityPath) && fs.statSync(maintainabilityPath).isDirectory()) {
             const files = fs.readdirSync(maintainabilityPath)
-              .filter(f => f.endsWith('.json'))
+              .filter(f => isArtifactFile(f))
               .map(f => ({
                 fullPath: path.join(maintainabilityPath, f),
                 fileName: f,
@@ -90,8 +91,8 @@ export const getAvailableFiles = () => {
 
 // Extract base filename - MUST MATCH DATA STRUCTURE LOGIC
 const extractBaseFileName = (jsonFileName) => {
-  // Remove .json extension
-  let fileName = jsonFileName.replace('.json', '');
+  // Remove .json / .gcb extension
+  let fileName = jsonFileName.replace(/\.(json|gcb)$/, '');
   
   // Remove hash prefixes (e.g., "2efcad81a0d32d458bd08b6df2d7e8db_")
   const hashRegex = /^[a-f0-9]+_/;
@@ -141,8 +142,7 @@ export const getAnalysis = (fileIds = []) => {
         if (fileInfo && fs.existsSync(fileInfo.path)) {
           console.log(`✅ Found file: ${fileId} -> ${fileInfo.path}`);
           
-          const fileContent = fs.readFileSync(fileInfo.path, 'utf8');
-          const rawAnalysis = JSON.parse(fileContent);
+          const rawAnalysis = readArtifactSync(fileInfo.path);
           
           // Process analysis data
           const processedAnalysis = processMaintainabilityAnalysis(rawAnalysis);
@@ -1,6 +1,7 @@
 import fs from 'fs';
 import path from 'path';
 import { fileURLToPath } from 'url';
+import { isArtifactFile, readArtifactSync } from '../../../shared/binaryFormat.js';
 
 const __filename = fileURLToPath(import.meta.url);
 const __dirname = path.dirname(__filename);
@@ -63,7 +64,7 @@ export const getAllOptimizationFiles = (baseDir = BASE_OUTPUT_DIR) => {
             if (fs.existsSync(optimizationPath) && fs.statSync(optimizationPath).isDirectory()) {
               console.log(`📁 Found optimization directory: ${optimizationPath}`);
               const files = fs.readdirSync(optimizationPath)
-                .filter(f => f.endsWith('.json'))
+                .filter(f => isArtifactFile(f))
                 .map(f => ({
                   fullPath: path.join(optimizationPath, f),
                   fileName: f,
@@ -90,8 +91,8 @@ export const getAllOptimizationFiles = (baseDir = BASE_OUTPUT_DIR) => {
 // Extract base file name (same pattern as other agents)
 // In optimizationService.js, update the extractBaseFileName function:
 const extractBaseFileName = (jsonFileName) => {
-  // Remove .json extension
-  let fileName = jsonFileName.replace('.json', '');
+  // Remove .json / .gcb extension
+  let fileName = jsonFileName.replace(/\.(json|gcb)$/, '');
   
   // Remove hash prefixes (e.g., "2efcad81a0d32d458bd08b6df2d7e8db_")
   const hashRegex = /^[a-f0-9]+_/;
@@ -287,8 +288,7 @@ export const getOptimizationAnalysis = (fileIds = []) => {
         if (fileInfo && fs.existsSync(fileInfo.path)) {
           console.log(`✅ Found optimization file: ${fileId} -> ${fileInfo.path}`);
           
-          const fileContent = fs.readFileSync(fileInfo.path, 'utf8');
-          const rawAnalysis = JSON.parse(fileContent);
+          const rawAnalysis = readArtifactSync(fileInfo.path);
           
           // Process analysis data
           const processedAnalysis = processOptimizationAnalysis(rawAnalysis);
@@ -446,8 +446,7 @@ export const searchOptimizationFiles = (query) => {
         
         // Search in file content
         if (fs.existsSync(file.path)) {
-          const content = fs.readFileSync(file.path, 'utf8');
-          const analysis = JSON.parse(content);
+          const analysis = readArtifactSync(file.path);
           
           // Search in results
           const allResults = analysis.results || [];
@@ -1,40 +1,505 @@
-import { v4 as uuidv4 } from "uuid";
-import { CFG, CFGNode } from "../../types/CFGType.js";
+import { cachedJSON, methodKey } from "../../core/ContentCache.js";
+import { CFG, CFGEdgeKind, CFGLoop, CFGNode, CFGNodeType } from "../../types/CFGType.js";
 
+const ENTRY = 0;
+const EXIT = 1;
+
+/**
+ * CFG for a method, served from the content cache when an identical
+ * method body was seen in an earlier scan.
+ */
 export function buildCFG(method: any): CFG {
-  const nodes: CFGNode[] = [];
-  const edges: [string, string][] = [];
-
-  const startId = uuidv4();
-  const endId = uuidv4();
-  nodes.push({ id: startId, label: "Start", type: "start", next: [] });
-  nodes.push({ id: endId, label: "End", type: "end", next: [] });
-
-  let lastNodeId = startId;
-  const statements =
-    method.body?.statements ||
-    method.children?.block?.statements ||
-    method.children?.body?.statements ||
-    [];
-
-  if (statements.length > 0) {
-    statements.forEach((stmt: any, idx: number) => {
-      const stmtId = uuidv4();
-      const label = stmt.name || stmt.type || `stmt_${idx}`;
-      nodes.push({ id: stmtId, label, type: "statement", next: [] });
-      edges.push([lastNodeId, stmtId]);
-      lastNodeId = stmtId;
+  return cachedJSON("cfg", methodKey(method), () => buildCFGUncached(method));
+}
+
+/**
+ * Basic-block CFG built from the parser's statement flow tree (`method.flow`),
+ * followed by dominators and the natural-loop nesting forest. Everything is a
+ * single pass over the flow tree plus near-linear graph passes.
+ */
+function buildCFGUncached(method: any): CFG {
+  const builder = new Builder();
+  const end = builder.seq(Array.isArray(method.flow) ? method.flow : [], ENTRY);
+  builder.edge(end, EXIT);
+
+  const { nodes, edges } = compact(builder.nodes, builder.edges);
+  const { loops, maxLoopDepth } = analyzeLoops(nodes, edges);
+
+  console.log(
+    `✓ CFG generated for method: ${method.name || "anonymous"} (${nodes.length} blocks, ${edges.length} edges, ${loops.length} loops)`
+  );
+  return { methodName: method.name || "anonymous", entry: ENTRY, exit: EXIT, nodes, edges, loops, maxLoopDepth };
+}
+
+/* ---------------- construction ---------------- */
+
+/** Statement of the parser's flow tree */
+type FlowNode = {
+  type: string;
+  calls?: number;
+  allocs?: number;
+  label?: string;
+  then?: FlowNode[];
+  else?: FlowNode[];
+  body?: FlowNode[];
+  cases?: FlowNode[][];
+  hasDefault?: boolean;
+  rules?: boolean;
+  catches?: FlowNode[][];
+  finally?: FlowNode[];
+  head?: CFGNode["head"];
+};
+
+/** Break/continue targets of an enclosing loop, switch or labeled block */
+type JumpScope = { label?: string; breakTo: number; continueTo?: number; tryDepth: number; labelOnly?: boolean };
+
+/** Enclosing try: catch entries while in the body, finally entry while in body or catches */
+type TryScope = { handlers: number[] | null; finallyEntry: number | null; abrupt: boolean };
+
+class Builder {
+  nodes: CFGNode[] = [];
+  edges: [number, number, CFGEdgeKind][] = [];
+  private indegree: number[] = [];
+  private jumps: JumpScope[] = [];
+  private tries: TryScope[] = [];
+  private pendingLabel: string | undefined;
+
+  constructor() {
+    this.block("Start", "start");
+    this.block("End", "end");
+  }
+
+  block(label: string, type: CFGNodeType = "statement"): number {
+    const id = this.nodes.length;
+    this.nodes.push({ id, label, type, stmts: 0, calls: 0, allocs: 0, next: [], idom: -1, loopDepth: 0 });
+    this.indegree.push(0);
+    return id;
+  }
+
+  /** Adds from→to; a null `from` is an unreachable fall-through and adds nothing */
+  edge(from: number | null, to: number, kind: CFGEdgeKind = "seq"): void {
+    if (from === null) return;
+    this.edges.push([from, to, kind]);
+    this.nodes[from].next.push(to);
+    this.indegree[to]++;
+  }
+
+  /** Builds a statement list starting in `cur`; returns the block control falls out of, or null */
+  seq(list: FlowNode[], cur: number | null): number | null {
+    for (const f of list) cur = this.statement(f, cur);
+    return cur;
+  }
+
+  private statement(f: FlowNode, cur: number | null): number | null {
+    switch (f.type) {
+      case "if":
+        return this.ifStatement(f, cur);
+      case "while":
+      case "for":
+      case "forEach":
+        return this.loop(f, cur);
+      case "doWhile":
+        return this.doWhile(f, cur);
+      case "switch":
+        return this.switchStatement(f, cur);
+      case "try":
+        return this.tryStatement(f, cur);
+      case "labeled":
+        return this.labeled(f, cur);
+      case "synchronized": {
+        // monitorenter/monitorexit around the body
+        const b = this.simple(f, cur);
+        const end = this.seq(f.body ?? [], b);
+        if (end !== null) this.nodes[end].stmts++;
+        return end;
+      }
+      case "break":
+      case "continue":
+        return this.jump(f, cur);
+      case "return": {
+        const b = this.simple(f, cur);
+        const fin = this.innermostFinally(0);
+        if (fin) this.toFinally(b, fin);
+        else this.edge(b, EXIT, "return");
+        return null;
+      }
+      case "throw": {
+        const b = this.simple(f, cur);
+        const tryScope = this.innermostTry();
+        if (tryScope?.handlers) this.edge(b, tryScope.handlers[0], "exception");
+        else if (tryScope) this.toFinally(b, tryScope);
+        else this.edge(b, EXIT, "exception");
+        return null;
+      }
+      default:
+        return this.simple(f, cur);
+    }
+  }
+
+  /** Appends a plain statement to the current block (a fresh one after an abrupt jump) */
+  private simple(f: FlowNode, cur: number | null): number {
+    const b = this.open(cur);
+    this.nodes[b].stmts++;
+    this.charge(b, f);
+    return b;
+  }
+
+  private open(cur: number | null): number {
+    return cur ?? this.block("unreachable");
+  }
+
+  private charge(b: number, f: FlowNode): void {
+    this.nodes[b].calls += f.calls ?? 0;
+    this.nodes[b].allocs += f.allocs ?? 0;
+  }
+
+  /** Marks a block that ends in a branch; loop headers and the entry keep their type */
+  private branchFrom(b: number, label: string): void {
+    if (this.nodes[b].type !== "statement") return;
+    this.nodes[b].type = "condition";
+    this.nodes[b].label = label;
+  }
+
+  /** Join block for several fall-through ends; null when none of them is reachable */
+  private join(label: string, ends: (number | null)[]): number | null {
+    if (ends.every(e => e === null)) return null;
+    const j = this.block(label);
+    for (const e of ends) this.edge(e, j);
+    return j;
+  }
+
+  private reachable(b: number): number | null {
+    return this.indegree[b] > 0 ? b : null;
+  }
+
+  private ifStatement(f: FlowNode, cur: number | null): number | null {
+    const b = this.open(cur);
+    this.charge(b, f);
+    this.branchFrom(b, "if");
+
+    const t = this.block("then");
+    this.edge(b, t, "true");
+    const thenEnd = this.seq(f.then ?? [], t);
+    if (!f.else) {
+      const j = this.block("endif");
+      this.edge(b, j, "false");
+      this.edge(thenEnd, j);
+      return j;
+    }
+    const e = this.block("else");
+    this.edge(b, e, "false");
+    const elseEnd = this.seq(f.else, e);
+    return this.join("endif", [thenEnd, elseEnd]);
+  }
+
+  private loop(f: FlowNode, cur: number | null): number | null {
+    const header = this.block(f.type, "loopHeader");
+    this.edge(cur, header);
+    this.charge(header, f);
+    if (f.head) this.nodes[header].head = f.head;
+
+    const body = this.block(`${f.type} body`);
+    const exit = this.block(`end ${f.type}`);
+    this.edge(header, body, "true");
+    this.edge(header, exit, "false");
+
+    this.jumps.push({ label: this.takeLabel(), breakTo: exit, continueTo: header, tryDepth: this.tries.length });
+    const end = this.seq(f.body ?? [], body);
+    this.jumps.pop();
+    this.edge(end, header, "back");
+    return exit;
+  }
+
+  private doWhile(f: FlowNode, cur: number | null): number | null {
+    // The body is entered first, so it is the header of the natural loop
+    const body = this.block("do", "loopHeader");
+    this.edge(cur, body);
+    if (f.head) this.nodes[body].head = f.head;
+    const cond = this.block("do-while", "condition");
+    const exit = this.block("end do");
+
+    this.jumps.push({ label: this.takeLabel(), breakTo: exit, continueTo: cond, tryDepth: this.tries.length });
+    const end = this.seq(f.body ?? [], body);
+    this.jumps.pop();
+
+    this.edge(end, cond);
+    this.charge(cond, f);
+    this.edge(cond, body, "back");
+    this.edge(cond, exit, "false");
+    return this.reachable(exit);
+  }
+
+  private switchStatement(f: FlowNode, cur: number | null): number | null {
+    const b = this.open(cur);
+    this.charge(b, f);
+    this.branchFrom(b, "switch");
+    const exit = this.block("end switch");
+
+    this.jumps.push({ label: this.takeLabel(), breakTo: exit, tryDepth: this.tries.length });
+    let prev: number | null = null;
+    for (const stmts of f.cases ?? []) {
+      const c = this.block("case");
+      this.edge(b, c, "case");
+      // Statement groups fall through into the next case; arrow rules do not
+      if (!f.rules) this.edge(prev, c);
+      prev = this.seq(stmts, c);
+      if (f.rules) {
+        this.edge(prev, exit);
+        prev = null;
+      }
+    }
+    this.jumps.pop();
+
+    this.edge(prev, exit);
+    if (!f.hasDefault) this.edge(b, exit, "false");
+    return this.reachable(exit);
+  }
+
+  /**
+   * Catch clauses get one exception edge from the try entry, i.e. one extra
+   * path per handler. Abrupt exits from the body or a catch (return, throw,
+   * break, continue) are routed through the finally block, whose end then
+   * returns to the exit block rather than to each original jump target.
+   */
+  private tryStatement(f: FlowNode, cur: number | null): number | null {
+    const scope: TryScope = {
+      handlers: null,
+      finallyEntry: f.finally ? this.block("finally") : null,
+      abrupt: false
+    };
+    const body = this.block("try");
+    this.edge(cur, body);
+    const handlers = (f.catches ?? []).map(() => this.block("catch"));
+    if (handlers.length) scope.handlers = handlers;
+
+    this.tries.push(scope);
+    const ends = [this.seq(f.body ?? [], body)];
+    scope.handlers = null;
+    f.catches?.forEach((stmts, i) => {
+      this.edge(body, handlers[i], "exception");
+      ends.push(this.seq(stmts, handlers[i]));
     });
+    this.tries.pop();
+
+    if (scope.finallyEntry === null) return this.join("end try", ends);
+
+    for (const e of ends) this.edge(e, scope.finallyEntry, "finally");
+    const finallyEnd = this.seq(f.finally ?? [], scope.finallyEntry);
+    if (scope.abrupt) this.edge(finallyEnd, EXIT, "return");
+    return ends.some(e => e !== null) ? this.join("end try", [finallyEnd]) : null;
+  }
+
+  private labeled(f: FlowNode, cur: number | null): number | null {
+    const body = f.body ?? [];
+    const only = body.length === 1 ? body[0].type : "";
+    if (["while", "for", "forEach", "doWhile", "switch"].includes(only)) {
+      // The label names the loop/switch itself
+      this.pendingLabel = f.label;
+      return this.seq(body, cur);
+    }
+    const exit = this.block(`end ${f.label ?? "label"}`);
+    this.jumps.push({ label: f.label, breakTo: exit, tryDepth: this.tries.length, labelOnly: true });
+    const end = this.seq(body, cur);
+    this.jumps.pop();
+    this.edge(end, exit);
+    return this.reachable(exit);
+  }
+
+  private takeLabel(): string | undefined {
+    const label = this.pendingLabel;
+    this.pendingLabel = undefined;
+    return label;
   }
 
-  edges.push([lastNodeId, endId]);
+  private jump(f: FlowNode, cur: number | null): number | null {
+    const b = this.open(cur);
+    this.charge(b, f);
+    const isContinue = f.type === "continue";
+    let target: JumpScope | undefined;
+    for (let i = this.jumps.length - 1; i >= 0 && !target; i--) {
+      const s = this.jumps[i];
+      if (f.label ? s.label === f.label : !s.labelOnly && (!isContinue || s.continueTo !== undefined)) target = s;
+    }
+    // Not inside anything it could leave (e.g. yield-like constructs): fall through
+    if (!target) return b;
+
+    const fin = this.innermostFinally(target.tryDepth);
+    if (fin) this.toFinally(b, fin);
+    else this.edge(b, isContinue ? target.continueTo ?? target.breakTo : target.breakTo, f.type as CFGEdgeKind);
+    return null;
+  }
+
+  private innermostTry(): TryScope | undefined {
+    for (let i = this.tries.length - 1; i >= 0; i--) {
+      const t = this.tries[i];
+      if (t.handlers || t.finallyEntry !== null) return t;
+    }
+    return undefined;
+  }
 
-  // Connect next references
-  for (const [from, to] of edges) {
-    const node = nodes.find(n => n.id === from);
-    if (node && !node.next.includes(to)) node.next.push(to);
+  /** Innermost finally among the try statements above `depth` */
+  private innermostFinally(depth: number): TryScope | undefined {
+    for (let i = this.tries.length - 1; i >= depth; i--) {
+      if (this.tries[i].finallyEntry !== null) return this.tries[i];
+    }
+    return undefined;
   }
 
-  console.log(`✓ CFG generated for method: ${method.name || "anonymous"} (${nodes.length} nodes, ${edges.length} edges)`);
-  return { methodName: method.name || "anonymous", nodes, edges };
+  private toFinally(b: number, scope: TryScope): void {
+    scope.abrupt = true;
+    this.edge(b, scope.finallyEntry!, "finally");
+  }
+}
+
+/** Drops placeholder blocks that ended up with no edges and renumbers the rest */
+function compact(
+  nodes: CFGNode[],
+  edges: [number, number, CFGEdgeKind][]
+): { nodes: CFGNode[]; edges: [number, number, CFGEdgeKind][] } {
+  const used = new Uint8Array(nodes.length);
+  used[ENTRY] = used[EXIT] = 1;
+  for (const [from, to] of edges) used[from] = used[to] = 1;
+  if (used.every(u => u === 1)) return { nodes, edges };
+
+  const remap = new Int32Array(nodes.length).fill(-1);
+  const kept: CFGNode[] = [];
+  nodes.forEach((n, i) => {
+    if (!used[i]) return;
+    remap[i] = kept.length;
+    kept.push({ ...n, id: kept.length });
+  });
+  for (const n of kept) n.next = n.next.map(t => remap[t]);
+  return { nodes: kept, edges: edges.map(([f, t, k]): [number, number, CFGEdgeKind] => [remap[f], remap[t], k]) };
+}
+
+/* ---------------- dominators + natural loops ---------------- */
+
+/**
+ * Fills `idom` and `loopDepth` on the blocks, relabels dominance back edges
+ * as "back" and returns the loop-nesting forest. Dominators use the
+ * Cooper–Harvey–Kennedy iteration over reverse postorder; a back edge u→h
+ * (h dominates u) defines the natural loop of h, and loops sharing a header
+ * are merged.
+ */
+function analyzeLoops(
+  nodes: CFGNode[],
+  edges: [number, number, CFGEdgeKind][]
+): { loops: CFGLoop[]; maxLoopDepth: number } {
+  const n = nodes.length;
+  const preds: number[][] = nodes.map(() => []);
+  for (const [from, to] of edges) preds[to].push(from);
+
+  // Reverse postorder from the entry (iterative DFS)
+  const rpoIndex = new Int32Array(n).fill(-1);
+  const post: number[] = [];
+  const seen = new Uint8Array(n);
+  const stack: [number, number][] = [[ENTRY, 0]];
+  seen[ENTRY] = 1;
+  while (stack.length) {
+    const top = stack[stack.length - 1];
+    const succ = nodes[top[0]].next;
+    if (top[1] < succ.length) {
+      const s = succ[top[1]++];
+      if (!seen[s]) {
+        seen[s] = 1;
+        stack.push([s, 0]);
+      }
+    } else {
+      post.push(top[0]);
+      stack.pop();
+    }
+  }
+  const rpo = post.reverse();
+  rpo.forEach((b, i) => (rpoIndex[b] = i));
+
+  const idom = new Int32Array(n).fill(-1);
+  idom[ENTRY] = ENTRY;
+  const intersect = (a: number, b: number): number => {
+    while (a !== b) {
+      while (rpoIndex[a] > rpoIndex[b]) a = idom[a];
+      while (rpoIndex[b] > rpoIndex[a]) b = idom[b];
+    }
+    return a;
+  };
+  for (let changed = true; changed; ) {
+    changed = false;
+    for (let i = 1; i < rpo.length; i++) {
+      const b = rpo[i];
+      let candidate = -1;
+      for (const p of preds[b]) {
+        if (idom[p] === -1) continue;
+        candidate = candidate === -1 ? p : intersect(p, candidate);
+      }
+      if (candidate !== idom[b]) {
+        idom[b] = candidate;
+        changed = true;
+      }
+    }
+  }
+  nodes.forEach((node, i) => (node.idom = idom[i]));
+
+  // Pre/post numbering of the dominator tree for O(1) dominance queries
+  const children: number[][] = nodes.map(() => []);
+  for (const b of rpo) if (b !== ENTRY) children[idom[b]].push(b);
+  const pre = new Int32Array(n);
+  const postNum = new Int32Array(n);
+  let clock = 0;
+  const walk: [number, number][] = [[ENTRY, 0]];
+  pre[ENTRY] = clock++;
+  while (walk.length) {
+    const top = walk[walk.length - 1];
+    if (top[1] < children[top[0]].length) {
+      const c = children[top[0]][top[1]++];
+      pre[c] = clock++;
+      walk.push([c, 0]);
+    } else {
+      postNum[top[0]] = clock++;
+      walk.pop();
+    }
+  }
+  const dominates = (a: number, b: number) => pre[a] <= pre[b] && postNum[b] <= postNum[a];
+
+  // Back edges grouped by header
+  const backEdges = new Map<number, [number, number][]>();
+  for (const e of edges) {
+    const [from, to] = e;
+    if (idom[from] === -1 || idom[to] === -1 || !dominates(to, from)) continue;
+    e[2] = "back";
+    if (!backEdges.has(to)) backEdges.set(to, []);
+    backEdges.get(to)!.push([from, to]);
+  }
+
+  // Natural loop bodies: everything reaching a back-edge source without passing the header
+  const bodies: { header: number; blocks: number[]; backEdges: [number, number][] }[] = [];
+  const mark = new Int32Array(n).fill(-1);
+  for (const [header, back] of backEdges) {
+    const id = bodies.length;
+    const blocks = [header];
+    mark[header] = id;
+    const work = back.map(([from]) => from);
+    while (work.length) {
+      const b = work.pop()!;
+      if (mark[b] === id) continue;
+      mark[b] = id;
+      blocks.push(b);
+      for (const p of preds[b]) if (idom[p] !== -1 && mark[p] !== id) work.push(p);
+    }
+    bodies.push({ header, blocks, backEdges: back });
+  }
+
+  // Outer loops strictly contain their inner loops, so size order is nesting order
+  bodies.sort((a, b) => b.blocks.length - a.blocks.length);
+  const innermost = new Int32Array(n).fill(-1);
+  const loops: CFGLoop[] = [];
+  let maxLoopDepth = 0;
+  bodies.forEach((body, i) => {
+    const parent = innermost[body.header];
+    const depth = parent === -1 ? 1 : loops[parent].depth + 1;
+    for (const b of body.blocks) innermost[b] = i;
+    loops.push({ header: body.header, parent, depth, blocks: body.blocks.sort((a, b) => a - b), backEdges: body.backEdges });
+    maxLoopDepth = Math.max(maxLoopDepth, depth);
+  });
+  nodes.forEach((node, i) => (node.loopDepth = innermost[i] === -1 ? 0 : loops[innermost[i]].depth));
+
+  return { loops, maxLoopDepth };
 }
@@ -5,11 +5,36 @@ import { calculateCyclomaticComplexity } from "./CyclomaticComplexity.js";
 import { calculateNestingDepth } from "./NestingDepth.js";
 import { calculateFunctionSize } from "./FunctionSize.js";
 import { buildCFG } from "../cfg/CFGBuilder.js"; // your CFG builder
+import { cachedJSON, methodKey } from "../../core/ContentCache.js";
 
-import { FileMetrics, ClassMetrics, MethodMetrics } from "../../types/MethodMetrics.js";
+import { serializeArtifact } from "../../../../../shared/binaryFormat.js";
+import { FileMetrics, ClassMetrics, MethodMetrics, MetricsBundle } from "../../types/MethodMetrics.js";
+import { CFGBundle } from "../../types/CFGType.js";
 
 const processedMethods = new Set<string>();
 
+/** Bundle writes still in flight; awaited by flushAnalysisOutput() */
+const pendingWrites: Promise<void>[] = [];
+
+/**
+ * Write one artifact asynchronously. Per-file bundles replace the old
+ * one-file-per-method layout, so a file costs two writes, not 2×methods.
+ */
+function writeBundle(dir: string, baseName: string, bundle: unknown, kind: "cfg" | "metrics") {
+  const { fileName, data } = serializeArtifact(baseName, bundle, kind);
+  pendingWrites.push(
+    fs.promises.mkdir(dir, { recursive: true })
+      .then(() => fs.promises.writeFile(path.join(dir, fileName), data))
+      .then(() => console.log(chalk.dim(`   💾 ${kind === "cfg" ? "CFGs" : "Metrics"} saved → ${fileName}`)))
+      .catch(err => console.log(chalk.red(`Failed to write ${fileName}: ${err}`)))
+  );
+}
+
+/** Wait for every bundle queued by analyzeAST to reach disk */
+export async function flushAnalysisOutput(): Promise<void> {
+  await Promise.all(pendingWrites.splice(0));
+}
+
 export function analyzeAST(
   astJson: any,
   filePath: string,
@@ -17,6 +42,9 @@ export function analyzeAST(
   cfgDir?: string
 ): FileMetrics {
   const classes: ClassMetrics[] = [];
+  const sourceName = path.parse(filePath).name;
+  const cfgBundle: CFGBundle = { kind: "cfg-bundle", fileName: `${sourceName}.java`, methods: [] };
+  const metricsBundle: MetricsBundle = { kind: "metrics-bundle", fileName: `${sourceName}.java`, methods: [] };
 
   if (!astJson.classes?.length) {
     console.log(chalk.yellow(`⚠️  No classes found in ${filePath}`));
@@ -39,35 +67,20 @@ export function analyzeAST(
       if (processedMethods.has(uniqueKey)) continue;
       processedMethods.add(uniqueKey);
 
-      // --- Metrics calculation ---
-      const cyclomaticComplexity = calculateCyclomaticComplexity(method);
-      const nestingDepth = calculateNestingDepth(method);
-      const functionSize = calculateFunctionSize(method);
-
-      const metrics: MethodMetrics = {
+      // --- Metrics calculation (cached by method content) ---
+      const metrics = cachedJSON<MethodMetrics>("metrics", methodKey(method), () => ({
         name: methodName,
-        cyclomaticComplexity,
-        nestingDepth,
-        functionSize,
-      };
+        cyclomaticComplexity: calculateCyclomaticComplexity(method),
+        nestingDepth: calculateNestingDepth(method),
+        functionSize: calculateFunctionSize(method),
+      }));
 
-      // --- Save metrics per method ---
+      // --- Collect metrics + CFG into the file's bundles ---
       if (metricsDir) {
-        if (!fs.existsSync(metricsDir)) fs.mkdirSync(metricsDir, { recursive: true });
-        const metricsFileName = `${path.parse(filePath).name}_${className}_${methodName}_metrics.json`;
-        const metricsFilePath = path.join(metricsDir, metricsFileName);
-        fs.writeFileSync(metricsFilePath, JSON.stringify(metrics, null, 2), "utf-8");
-        console.log(chalk.dim(`   💾 Metrics saved → ${metricsFileName}`));
+        metricsBundle.methods.push({ className, methodName, metrics });
       }
-
-      // --- Generate CFG per method ---
       if (cfgDir) {
-        const cfg = buildCFG(method);
-        if (!fs.existsSync(cfgDir)) fs.mkdirSync(cfgDir, { recursive: true });
-        const cfgFileName = `${path.parse(filePath).name}_${className}_${methodName}_cfg.json`;
-        const cfgFilePath = path.join(cfgDir, cfgFileName);
-        fs.writeFileSync(cfgFilePath, JSON.stringify(cfg, null, 2), "utf-8");
-        console.log(chalk.dim(`   💾 CFG saved → ${cfgFileName}`));
+        cfgBundle.methods.push({ className, methodName, cfg: buildCFG(method) });
       }
 
       methodMetrics.push(metrics);
@@ -87,6 +100,13 @@ export function analyzeAST(
     } as ClassMetrics & { summary: typeof classSummary });
   }
 
+  if (metricsDir && metricsBundle.methods.length > 0) {
+    writeBundle(metricsDir, `${sourceName}_metrics`, metricsBundle, "metrics");
+  }
+  if (cfgDir && cfgBundle.methods.length > 0) {
+    writeBundle(cfgDir, `${sourceName}_cfg`, cfgBundle, "cfg");
+  }
+
   return { fileName: filePath, classes };
 }
 
@@ -5,7 +5,8 @@ import ora from "ora";
 import figlet from "figlet";
 import gradient from "gradient-string";
 
-import { analyzeAST, resetAnalysisTracking } from "../analysis/metrics/MetricsAnalyzer.js";
+import { isArtifactFile, readArtifactSync } from "../../../../shared/binaryFormat.js";
+import { analyzeAST, flushAnalysisOutput, resetAnalysisTracking } from "../analysis/metrics/MetricsAnalyzer.js";
 import { RuleEngine } from "../rules/RuleEngine.js";
 import { ReportGenerator } from "../report/ReportGenerator.js";
 import { ReportFormatter } from "../report/ReportFormatter.js";
@@ -31,14 +32,14 @@ export async function analyzeFile(targetPath: string, scanOutputDir: string) {
 
   if (stats.isDirectory()) {
     fs.readdirSync(targetPath)
-      .filter(f => f.endsWith(".json"))
+      .filter(isArtifactFile)
       .forEach(f => filesToAnalyze.push(path.join(targetPath, f)));
   } else {
     filesToAnalyze.push(targetPath);
   }
 
   if (filesToAnalyze.length === 0) {
-    console.log(chalk.red("❌ No .json AST files found to analyze."));
+    console.log(chalk.red("❌ No .json/.gcb AST files found to analyze."));
     return;
   }
 
@@ -58,7 +59,7 @@ export async function analyzeFile(targetPath: string, scanOutputDir: string) {
 
     let astJson;
     try {
-      astJson = JSON.parse(fs.readFileSync(filePath, "utf8"));
+      astJson = readArtifactSync(filePath);
     } catch (err) {
       console.log(chalk.red(`Failed to parse ${fileName}: ${err}`));
       continue;
@@ -67,7 +68,7 @@ export async function analyzeFile(targetPath: string, scanOutputDir: string) {
     const analysisSpinner = ora("Generating metrics & CFGs...").start();
     let fileMetrics;
     try {
-      fileMetrics = analyzeAST(astJson, fileName, metricsDir, cfgDir); // saves per-method CFGs
+      fileMetrics = analyzeAST(astJson, fileName, metricsDir, cfgDir); // queues per-file CFG/metrics bundles
       analysisSpinner.succeed("Metrics & CFGs generated ✅");
     } catch (err) {
       analysisSpinner.fail(`Failed to analyze ${fileName}: ${err}`);
@@ -78,8 +79,10 @@ export async function analyzeFile(targetPath: string, scanOutputDir: string) {
     const ruleSpinner = ora("Running rule engine...").start();
     let violations = [];
     try {
+      const started = performance.now();
       violations = engine.analyzeCode(astJson, fileName, fileMetrics) || [];
-      ruleSpinner.succeed(`Rule engine completed: ${violations.length} issue(s) ✅`);
+      const elapsed = (performance.now() - started).toFixed(1);
+      ruleSpinner.succeed(`Rule engine completed: ${violations.length} issue(s) in ${elapsed} ms ✅`);
     } catch (err) {
       ruleSpinner.fail(`Rule engine failed: ${err}`);
       continue;
@@ -103,6 +106,8 @@ export async function analyzeFile(targetPath: string, scanOutputDir: string) {
     }
   }
 
+  await flushAnalysisOutput();
+
   console.log(chalk.bold("\n📊 Overall Analysis Summary"));
   console.log(chalk.green(`🎉 Reports and CFGs available in ${scanOutputDir}`));
 }
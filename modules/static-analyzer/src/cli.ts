@@ -1,13 +1,41 @@
 import { parseFolder } from "./parser/BatchParser.js";
 import { analyzeFile } from "./analyzer/index.js";
+import { isArtifactFile } from "../../../shared/binaryFormat.js";
+import {
+  artifactBase,
+  carryForward,
+  changedJavaFiles,
+  declaredClasses,
+  dependentBases,
+  javaBase
+} from "./core/Incremental.js";
 import fs from "fs";
 import path from "path";
 
+// --format binary writes compact .gcb AST/CFG/metrics files instead of JSON
+const formatFlag = process.argv.indexOf("--format");
+if (formatFlag !== -1) {
+  process.env.GREENCODE_ARTIFACT_FORMAT = process.argv[formatFlag + 1];
+  process.argv.splice(formatFlag, 2);
+}
+
+// --since <git-ref> reparses only files changed since the ref; --previous <dir>
+// names the scan to carry unchanged results from (defaults to scanOutputDir)
+function takeFlag(name: string): string | undefined {
+  const at = process.argv.indexOf(name);
+  if (at === -1) return undefined;
+  const value = process.argv[at + 1];
+  process.argv.splice(at, 2);
+  return value;
+}
+const sinceRef = takeFlag("--since");
+const previousDir = takeFlag("--previous");
+
 const inputPath = process.argv[2];
 const scanOutputDir = process.argv[3]; // gateway/output/<scanId>
 
 if (!inputPath || !scanOutputDir) {
-  console.error("❌ Usage: node cli.js <projectPath> <scanOutputDir>");
+  console.error("❌ Usage: node cli.js <projectPath> <scanOutputDir> [--format json|binary] [--since <git-ref> [--previous <scanDir>]]");
   process.exit(1);
 }
 
@@ -21,13 +49,18 @@ async function run() {
     const astOut = path.join(scanOutputDir, "ast");
     await fs.promises.mkdir(astOut, { recursive: true });
 
+    if (stat.isDirectory() && sinceRef && (await runIncremental(sinceRef, astOut))) {
+      console.log("✅ Analysis complete!");
+      return;
+    }
+
     if (stat.isDirectory()) {
       console.log(`📁 Generating ASTs into: ${astOut}`);
       await parseFolder(fullPath, astOut);
 
       const astFiles = fs
         .readdirSync(astOut)
-        .filter(f => f.endsWith(".json"))
+        .filter(isArtifactFile)
         .map(f => path.join(astOut, f));
 
       if (astFiles.length === 0) {
@@ -49,4 +82,56 @@ async function run() {
   }
 }
 
+/**
+ * Reparse the files changed since `ref`, reanalyze them plus the files that
+ * reference their classes, and carry every other artifact forward from the
+ * previous scan. Returns false when a full scan is needed instead (not a
+ * git checkout, unknown ref, or no previous scan to build on).
+ */
+async function runIncremental(ref: string, astOut: string): Promise<boolean> {
+  const previous = path.resolve(previousDir ?? scanOutputDir);
+  const previousAst = path.join(previous, "ast");
+  if (!fs.existsSync(previousAst) || !fs.readdirSync(previousAst).some(isArtifactFile)) {
+    console.log(`ℹ️  No previous scan in ${previous}; running a full scan`);
+    return false;
+  }
+  const changes = changedJavaFiles(fullPath, ref);
+  if (!changes) {
+    console.log(`ℹ️  Cannot diff against "${ref}" (not a git checkout or unknown ref); running a full scan`);
+    return false;
+  }
+
+  const touched = new Set([...changes.changed, ...changes.deleted].map(javaBase));
+  console.log(`🔍 Since ${ref}: ${changes.changed.length} changed, ${changes.deleted.length} deleted Java file(s)`);
+
+  // Classes the touched files used to declare, read before their ASTs are dropped
+  const affectedClasses = declaredClasses(previousAst, touched);
+  const carried = carryForward(previous, scanOutputDir, touched);
+  console.log(`♻️  Carried forward ${carried} artifact(s) from ${previous}`);
+
+  if (changes.changed.length > 0) {
+    await parseFolder(fullPath, astOut, { files: changes.changed });
+  }
+  declaredClasses(astOut, touched).forEach(c => affectedClasses.add(c));
+
+  const dependents = dependentBases(astOut, affectedClasses, touched);
+  if (dependents.size > 0) {
+    console.log(`🔗 ${dependents.size} dependent file(s) reference changed classes`);
+  }
+
+  const toAnalyze = fs
+    .readdirSync(astOut)
+    .filter(isArtifactFile)
+    .filter(f => {
+      const base = artifactBase(f);
+      return base !== null && (touched.has(base) || dependents.has(base));
+    });
+
+  for (const file of toAnalyze) {
+    await analyzeFile(path.join(astOut, file), scanOutputDir);
+  }
+  console.log(`📊 Reanalyzed ${toAnalyze.length} file(s)`);
+  return true;
+}
+
 run();
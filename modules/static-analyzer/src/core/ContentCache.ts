@@ -0,0 +1,94 @@
+// src/core/ContentCache.ts
+import { createHash } from "crypto";
+import fs from "fs";
+import os from "os";
+import path from "path";
+
+/**
+ * Content-addressed cache shared by every scan on this machine.
+ *
+ *   <root>/ast/<k[0..2]>/<k>.json      classes JSON of a parsed file
+ *   <root>/metrics/<k[0..2]>/<k>.json  per-method metrics
+ *   <root>/cfg/<k[0..2]>/<k>.json      per-method CFG
+ *
+ * AST keys are SHA-256 of (AST_CACHE_VERSION, file content); metrics/CFG keys
+ * are SHA-256 of (ANALYSIS_CACHE_VERSION, method JSON). Bump a version when
+ * the parser or analyzer output changes. Entries are immutable, so writes
+ * go to a temp file and are renamed into place and concurrent scans are safe.
+ *
+ * Root: $GREENCODE_CACHE_DIR or ~/.greencode/cache; GREENCODE_NO_CACHE=1 disables.
+ */
+
+export const AST_CACHE_VERSION = "ast-6";
+export const ANALYSIS_CACHE_VERSION = "analysis-3";
+
+export type CacheKind = "ast" | "metrics" | "cfg";
+
+const stats = { hits: 0, misses: 0 };
+
+export function cacheEnabled(): boolean {
+  return process.env.GREENCODE_NO_CACHE !== "1";
+}
+
+export function cacheRoot(): string {
+  return process.env.GREENCODE_CACHE_DIR || path.join(os.homedir(), ".greencode", "cache");
+}
+
+export function contentKey(version: string, content: string): string {
+  return createHash("sha256").update(version).update("\0").update(content).digest("hex");
+}
+
+function entryPath(kind: CacheKind, key: string): string {
+  return path.join(cacheRoot(), kind, key.slice(0, 2), `${key}.json`);
+}
+
+/** Raw JSON text of an entry, or null on miss */
+export function readCache(kind: CacheKind, key: string): string | null {
+  if (!cacheEnabled()) return null;
+  try {
+    const text = fs.readFileSync(entryPath(kind, key), "utf8");
+    stats.hits++;
+    return text;
+  } catch {
+    stats.misses++;
+    return null;
+  }
+}
+
+export function writeCache(kind: CacheKind, key: string, json: string): void {
+  if (!cacheEnabled()) return;
+  const file = entryPath(kind, key);
+  const tmp = `${file}.${process.pid}.${Math.random().toString(36).slice(2)}.tmp`;
+  try {
+    fs.mkdirSync(path.dirname(file), { recursive: true });
+    fs.writeFileSync(tmp, json, "utf8");
+    fs.renameSync(tmp, file);
+  } catch {
+    // Cache is best effort; a failed write only costs a future re-parse
+    try { fs.unlinkSync(tmp); } catch { /* already gone */ }
+  }
+}
+
+/** JSON-valued lookup that computes and stores the value on miss */
+export function cachedJSON<T>(kind: CacheKind, key: string, compute: () => T): T {
+  const hit = readCache(kind, key);
+  if (hit !== null) {
+    try {
+      return JSON.parse(hit) as T;
+    } catch {
+      // Corrupt entry: recompute and overwrite
+    }
+  }
+  const value = compute();
+  writeCache(kind, key, JSON.stringify(value));
+  return value;
+}
+
+/** Key for per-method metrics/CFG entries */
+export function methodKey(method: unknown): string {
+  return contentKey(ANALYSIS_CACHE_VERSION, JSON.stringify(method));
+}
+
+export function cacheStats(): { hits: number; misses: number } {
+  return { ...stats };
+}
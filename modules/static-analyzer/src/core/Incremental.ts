@@ -0,0 +1,167 @@
+// src/core/Incremental.ts
+import { spawnSync } from "child_process";
+import fs from "fs";
+import path from "path";
+
+import { isArtifactFile, readArtifactSync } from "../../../../shared/binaryFormat.js";
+
+/**
+ * Incremental scans (--since <ref>): only Java files changed since a git
+ * ref are reparsed; everything else is carried forward from the previous
+ * scan's output. A scan output folder looks like
+ *
+ *   ast/<Base>.json|.gcb
+ *   cfg/<Base>_cfg.json|.gcb
+ *   metrics/<Base>_metrics.json|.gcb
+ *   report/<Base>.json.report.json
+ *
+ * so every artifact is owned by the source file whose basename is <Base>.
+ */
+
+export const ARTIFACT_DIRS = ["ast", "cfg", "metrics", "report"] as const;
+
+export type GitChanges = {
+  /** Added, modified or renamed-to .java files that exist in the working tree */
+  changed: string[];
+  /** .java files removed (or renamed away) since the ref */
+  deleted: string[];
+};
+
+function git(cwd: string, args: string[]): string | null {
+  const result = spawnSync("git", args, { cwd, encoding: "utf8", maxBuffer: 64 * 1024 * 1024 });
+  return result.status === 0 ? result.stdout : null;
+}
+
+/**
+ * Java files under `projectDir` that differ from `ref`, including
+ * uncommitted and untracked ones. Returns null when `projectDir` is not in
+ * a git work tree or the ref does not resolve, so callers can fall back to
+ * a full scan.
+ */
+export function changedJavaFiles(projectDir: string, ref: string): GitChanges | null {
+  const top = git(projectDir, ["rev-parse", "--show-toplevel"])?.trim();
+  if (!top || git(top, ["rev-parse", "--verify", "--quiet", `${ref}^{commit}`]) === null) return null;
+
+  const diff = git(top, ["diff", "--name-only", "--no-renames", ref, "--", "*.java"]);
+  const untracked = git(top, ["ls-files", "--others", "--exclude-standard", "--", "*.java"]);
+  if (diff === null || untracked === null) return null;
+
+  const root = path.resolve(projectDir);
+  const changes: GitChanges = { changed: [], deleted: [] };
+  const seen = new Set<string>();
+  for (const line of `${diff}\n${untracked}`.split("\n")) {
+    if (!line.trim()) continue;
+    const file = path.resolve(top, line.trim());
+    if (seen.has(file) || (file !== root && !file.startsWith(root + path.sep))) continue;
+    seen.add(file);
+    (fs.existsSync(file) ? changes.changed : changes.deleted).push(file);
+  }
+  return changes;
+}
+
+/** Source basename owning an artifact file name, or null for foreign files */
+export function artifactBase(fileName: string): string | null {
+  const m = /^(.+?)(?:_cfg|_metrics)?\.(?:json|gcb)(?:\.report\.json)?$/.exec(fileName);
+  return m ? m[1] : null;
+}
+
+export function javaBase(file: string): string {
+  return path.basename(file, ".java");
+}
+
+/**
+ * Copy the previous scan's artifacts into `outDir`, skipping every file
+ * owned by a base in `stale`. When the previous scan is `outDir` itself the
+ * stale artifacts are deleted in place instead. Returns how many files were
+ * carried forward.
+ */
+export function carryForward(previousDir: string, outDir: string, stale: Set<string>): number {
+  const inPlace = path.resolve(previousDir) === path.resolve(outDir);
+  let carried = 0;
+  for (const dir of ARTIFACT_DIRS) {
+    const from = path.join(previousDir, dir);
+    if (!fs.existsSync(from)) continue;
+    const to = path.join(outDir, dir);
+    fs.mkdirSync(to, { recursive: true });
+
+    for (const name of fs.readdirSync(from)) {
+      const base = artifactBase(name);
+      if (base === null) continue;
+      if (stale.has(base)) {
+        if (inPlace) fs.rmSync(path.join(from, name), { force: true });
+        continue;
+      }
+      if (!inPlace) fs.copyFileSync(path.join(from, name), path.join(to, name));
+      carried++;
+    }
+  }
+  return carried;
+}
+
+type AstSummary = { declared: string[]; referenced: Set<string> };
+
+/** Class names an AST declares, and every identifier its signatures and calls mention */
+function summarizeAst(astJson: any): AstSummary {
+  const declared: string[] = [];
+  const referenced = new Set<string>();
+  const mention = (text: unknown) => {
+    if (typeof text !== "string") return;
+    for (const word of text.match(/[A-Za-z_$][\w$]*/g) || []) referenced.add(word);
+  };
+
+  for (const cls of astJson?.classes || []) {
+    declared.push(cls.name);
+    mention(cls.extends);
+    (cls.implements || []).forEach(mention);
+    (cls.fields || []).forEach(mention);
+    for (const m of cls.methods || []) {
+      mention(m.returnType);
+      (m.params || []).forEach((p: any) => mention(p?.type));
+      (m.localVariables || []).forEach(mention);
+      (m.invocations || []).forEach((c: any) => mention(c?.name));
+    }
+  }
+  return { declared, referenced };
+}
+
+/** Declared class names per source base, read from an ast/ folder */
+export function declaredClasses(astDir: string, bases: Set<string>): Set<string> {
+  const names = new Set<string>();
+  if (!fs.existsSync(astDir)) return names;
+  for (const name of fs.readdirSync(astDir).filter(isArtifactFile)) {
+    const base = artifactBase(name);
+    if (base === null || !bases.has(base)) continue;
+    try {
+      summarizeAst(readArtifactSync(path.join(astDir, name))).declared.forEach(c => names.add(c));
+    } catch {
+      // Unreadable AST: it will be regenerated or reported by the analysis pass
+    }
+  }
+  return names;
+}
+
+/**
+ * Bases of files that reference any of `classes` (callers, subclasses,
+ * field/parameter users). Their own ASTs are unchanged, but results that
+ * depend on what they call must be recomputed.
+ */
+export function dependentBases(astDir: string, classes: Set<string>, exclude: Set<string>): Set<string> {
+  const dependents = new Set<string>();
+  if (classes.size === 0 || !fs.existsSync(astDir)) return dependents;
+  for (const name of fs.readdirSync(astDir).filter(isArtifactFile)) {
+    const base = artifactBase(name);
+    if (base === null || exclude.has(base)) continue;
+    try {
+      const { referenced } = summarizeAst(readArtifactSync(path.join(astDir, name)));
+      for (const cls of classes) {
+        if (referenced.has(cls)) {
+          dependents.add(base);
+          break;
+        }
+      }
+    } catch {
+      dependents.add(base);
+    }
+  }
+  return dependents;
+}
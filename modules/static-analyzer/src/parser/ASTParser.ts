@@ -1,8 +1,11 @@
 #!/usr/bin/env ts-node
 import { promises as fs } from "fs";
 import * as path from "path";
+import { createRequire } from "module";
 import { parse } from "java-parser";
 
+import { AST_CACHE_VERSION, contentKey, readCache, writeCache } from "../core/ContentCache.js";
+
 /* ---------------- helpers ---------------- */
 function gatherTokens(node: any, out: any[]): void {
   if (!node) return;
@@ -21,6 +24,23 @@ function gatherTokens(node: any, out: any[]): void {
   }
 }
 
+/**
+ * Tokens under a node, gathered once per node. Several extractors look at
+ * the same header/modifier subtrees, so they share one walk.
+ */
+const tokenCache = new WeakMap<object, any[]>();
+
+function tokensOf(node: any): any[] {
+  if (!node) return [];
+  let toks = tokenCache.get(node);
+  if (!toks) {
+    toks = [];
+    gatherTokens(node, toks);
+    tokenCache.set(node, toks);
+  }
+  return toks;
+}
+
 function findFirstNodeByName(node: any, name: string): any {
   if (!node) return null;
   if (Array.isArray(node)) {
@@ -95,8 +115,7 @@ txt = txt.replace(/\s+>/g, ">");
 }
 
 function extractIdentifierText(node: any): string {
-  const toks: any[] = [];
-  gatherTokens(node, toks);
+  const toks = tokensOf(node);
   const ids = toks.filter(t => t.tokenType && t.tokenType.name === "Identifier");
   if (ids.length) return ids[ids.length - 1].image;
   return toks.length ? toks[toks.length - 1].image : "";
@@ -113,8 +132,7 @@ const core =
   if (!typeNode) typeNode = findFirstNodeByName(paramNode, "unannType");
   if (!nameNode) nameNode = findFirstNodeByName(paramNode, "variableDeclaratorId");
 
-  const typeTokens: any[] = [];
-  gatherTokens(typeNode, typeTokens);
+  const typeTokens = tokensOf(typeNode);
   let typeText = typeTokens.length ? tokensText(typeTokens) : "UnknownType";
   
  if (core.name === "variableArityParameter") {
@@ -128,8 +146,7 @@ const core =
     nameText = extractIdentifierText(nameNode);
   } else {
     // fallback: scan ALL tokens in the core
-    const toks: any[] = [];
-    gatherTokens(core, toks);
+    const toks = tokensOf(core);
     const ids = toks.filter(t => t.tokenType && t.tokenType.name === "Identifier");
     if (ids.length) {
       // The *last Identifier* in varargs subtree is always the parameter name
@@ -139,375 +156,525 @@ const core =
     return { type: typeText || "UnknownType", name: nameText || "UnknownName" };
 }
 
-/* ---------------- loops + conditionals ---------------- */
-function findLoopsAndConditionals(node: any, methodObj: any ,isNested = false): void {
-  if (!node) return;
-
-  const addUnique = (list: string[], item: string) => {
-    if (!list.includes(item)) list.push(item);
-  };
-
-  // ---------- IF/ELSE Tree ----------
-  if (["ifStatement", "ifThenStatement", "ifThenElseStatement"].includes(node.name)) {
-    const ifTree = parseIfStatement(node);
-    addUnique(methodObj.conditionals, "if"); //  ADD THIS LINE
-
-    if (ifTree && !isNested) {
-      if (!methodObj.conditionalsTree) methodObj.conditionalsTree = [];
-      methodObj.conditionalsTree.push(ifTree);
-    }
-
-    // 🚀 Recurse inside then/else to catch nested ifs
-    if (node.children?.statement) {
-      node.children.statement.forEach((stmt: any) => {
-        findLoopsAndConditionals(stmt, methodObj, true);
-      });
-    }
-
-    return; // stop here, already handled the if
-  }
+/* ---------------- single-pass method body visitor ---------------- */
 
-  
-  if (node.name === "switchStatement") {
-    addUnique(methodObj.conditionals, "switch");
-    // detect case/default
-    if (node.children?.switchBlock) {
-      const block = node.children.switchBlock[0];
-      const toks: any[] = [];
-      gatherTokens(block, toks);
-      toks.forEach(t => {
-        if (t.image === "case") addUnique(methodObj.conditionals, "case");
-        if (t.image === "default") addUnique(methodObj.conditionals, "default");
-      });
-    }
-  }
-  if (node.name === "whileStatement") {
-    addUnique(methodObj.loops, "while");
-  }
- //  FIX: Check for enhancedForStatement FIRST, then basicForStatement
-if (node.name === "enhancedForStatement") {
-  addUnique(methodObj.loops, "forEach");
-}
-else if (node.name === "basicForStatement") {
-  addUnique(methodObj.loops, "for");
-}
-//  REMOVE the forStatement check - it's just a wrapper
-  if (node.name === "doStatement") {
-    addUnique(methodObj.loops, "doWhile");
-  }
-  if (node.name === "superMethodInvocation") {
-  methodObj.conditionals.push("superCall");
-}
-if (node.name === "thisExpression") {
-  methodObj.conditionals.push("thisRef");
+interface LoopNode {
+  type: string;
+  nested: LoopNode[];
+  depth:number
 }
 
- 
-  if (node.name === "tryStatement") {
-    addUnique(methodObj.conditionals, "try");
-  }
-  if (node.name === "catchClause") {
-    addUnique(methodObj.conditionals, "catch");
-  }
-  if (node.name === "finally") {
-    addUnique(methodObj.conditionals, "finally");
-  }
-  if (node.name === "throwStatement") {
-    addUnique(methodObj.conditionals, "throw");
-  }
-  if (node.name === "returnStatement") {
-    addUnique(methodObj.conditionals, "return");
-  }
-  if (node.name === "breakStatement") {
-    addUnique(methodObj.conditionals, "break");
-  }
-  if (node.name === "continueStatement") {
-    addUnique(methodObj.conditionals, "continue");
-  }
-  if (node.name === "synchronizedStatement") {
-    addUnique(methodObj.conditionals, "synchronized");
-  }
+/** `loop` is the id of the innermost enclosing flow loop, for call-site trip counts */
+type MethodCall = { name: string; line?: number; loop?: number };
+
+/** Everything extracted from one method/constructor body */
+type BodyFacts = {
+  loops: string[];
+  conditionals: string[];
+  conditionalsTree: any[];
+  loopsTree: LoopNode[];
+  localVariables: string[];
+  calls: MethodCall[];
+  objectCreations: number;
+  /** Statement-level control flow of the body, consumed by the CFG builder */
+  flow: FlowNode[];
+  /** Method/constructor declarations of local and anonymous classes, outermost only */
+  nestedDeclarations: any[];
+  seenLocals: Set<string>;
+  /** Next flow loop id */
+  loopIds: number;
+};
 
- 
-
-   if (node.children) {
-    for (const arr of Object.values(node.children)) {
-      if (Array.isArray(arr)) {
-        arr.forEach(child => findLoopsAndConditionals(child, methodObj, isNested));
-      }
-    }
-  }
+/**
+ * One statement of the flow tree. Simple statements are "stmt"; compound
+ * statements keep their sub-statement lists. `calls`/`allocs` count the
+ * invocations and allocations evaluated by the statement itself (for a
+ * loop or if: its header/condition).
+ */
+type FlowNode = {
+  type: string;
+  calls?: number;
+  allocs?: number;
+  label?: string;
+  then?: FlowNode[];
+  else?: FlowNode[];
+  body?: FlowNode[];
+  cases?: FlowNode[][];
+  hasDefault?: boolean;
+  /** `case X ->` rules, which never fall through */
+  rules?: boolean;
+  /** Loop header source, for trip-count estimation */
+  head?: LoopHead;
+  /** Loop id, referenced by MethodCall.loop */
+  id?: number;
+  catches?: FlowNode[][];
+  finally?: FlowNode[];
+};
+
+/** Compact source of a loop header, e.g. { init: "int i=0", cond: "i<n", update: "i++" } */
+type LoopHead = { init?: string; cond?: string; update?: string; iterable?: string };
+
+/** Where the visitor is in the flow tree */
+type FlowCtx = {
+  /** Statement list new flow nodes are appended to */
+  sink: FlowNode[] | null;
+  /** Flow node calls and allocations are charged to */
+  attr: FlowNode | null;
+  /** Switch/try whose cases, catches or finally are below */
+  owner: FlowNode | null;
+};
+
+const NO_FLOW: FlowCtx = { sink: null, attr: null, owner: null };
 
+/**
+ * Which collectors are active for the subtree being visited. A collector is
+ * switched off for subtrees it does not look at (e.g. if-conditions for the
+ * conditional list, for-each bodies for locals), so one walk reproduces what
+ * separate per-feature traversals used to find.
+ */
+type VisitScope = {
+  /** Loops/conditionals: off inside if-conditions */
+  cond: boolean;
+  /** Inside an if; only outermost ifs start a conditionalsTree entry */
+  nested: boolean;
+  /** Statement list of the enclosing IfStatement tree node */
+  ifSink: any[] | null;
+  /** Loop list of the enclosing loop (or the method) */
+  loopSink: LoopNode[] | null;
+  depth: number;
+  locals: boolean;
+  /** Inside a nested method/constructor declaration */
+  inDecl: boolean;
+  flow: FlowCtx;
+  /** Id of the innermost enclosing flow loop */
+  loop?: number;
+};
+
+const IF_NODES = new Set(["ifStatement", "ifThenStatement", "ifThenElseStatement"]);
+
+const LOOP_NODES: Record<string, string> = {
+  whileStatement: "while",
+  basicForStatement: "for",
+  enhancedForStatement: "forEach",
+  doStatement: "doWhile"
+};
+
+const CONDITIONAL_NODES: Record<string, string> = {
+  tryStatement: "try",
+  catchClause: "catch",
+  finally: "finally",
+  throwStatement: "throw",
+  returnStatement: "return",
+  breakStatement: "break",
+  continueStatement: "continue",
+  synchronizedStatement: "synchronized"
+};
+
+/** Statements that are leaves of the if/else tree */
+const LEAF_STATEMENTS = new Set([
+  "expressionStatement",
+  "statementExpression",
+  "returnStatement",
+  "throwStatement",
+  "breakStatement",
+  "continueStatement"
+]);
+
+const OBJECT_CREATION_NODES = new Set(["unqualifiedClassInstanceCreationExpression", "arrayCreationExpression"]);
+
+/** CST statement nodes and the flow node type they become */
+const FLOW_STATEMENTS: Record<string, string> = {
+  ifStatement: "if",
+  ifThenStatement: "if",
+  ifThenElseStatement: "if",
+  whileStatement: "while",
+  basicForStatement: "for",
+  enhancedForStatement: "forEach",
+  doStatement: "doWhile",
+  switchStatement: "switch",
+  tryStatement: "try",
+  tryWithResourcesStatement: "try",
+  labeledStatement: "labeled",
+  synchronizedStatement: "synchronized",
+  breakStatement: "break",
+  continueStatement: "continue",
+  returnStatement: "return",
+  throwStatement: "throw",
+  expressionStatement: "stmt",
+  localVariableDeclarationStatement: "stmt",
+  explicitConstructorInvocation: "stmt",
+  assertStatement: "stmt",
+  yieldStatement: "stmt"
+};
+
+/** CST nodes that only wrap statements */
+const FLOW_WRAPPERS = new Set([
+  "block",
+  "blockStatements",
+  "blockStatement",
+  "statement",
+  "statementWithoutTrailingSubstatement",
+  "forStatement"
+]);
+
+function addUnique(list: string[], item: string): void {
+  if (!list.includes(item)) list.push(item);
 }
 
-
-
-function parseIfStatement(node: any): any {
-  if (!node) return null;
-
-  const ifNode: any = {
-    type: "IfStatement",
-    thenBlock: [],
-    elseBlock: null,
+function analyzeBody(body: any): BodyFacts {
+  const facts: BodyFacts = {
+    loops: [],
+    conditionals: [],
+    conditionalsTree: [],
+    loopsTree: [],
+    localVariables: [],
+    calls: [],
+    objectCreations: 0,
+    flow: [],
+    nestedDeclarations: [],
+    seenLocals: new Set(),
+    loopIds: 0
   };
+  visitBody(body, {
+    cond: true,
+    nested: false,
+    ifSink: null,
+    loopSink: facts.loopsTree,
+    depth: 0,
+    locals: true,
+    inDecl: false,
+    flow: { sink: facts.flow, attr: null, owner: null },
+    loop: undefined
+  }, facts);
+  return facts;
+}
 
-  // THEN
-  if (node.children?.statement?.[0]) {
-    ifNode.thenBlock = collectStatements(node.children.statement[0]);
+function visitBody(node: any, scope: VisitScope, facts: BodyFacts): void {
+  if (!node || node.image !== undefined || !node.children) return;
+  const name: string = node.name;
+
+  // ---------- nested declarations (anonymous/local classes) ----------
+  let inDecl = scope.inDecl;
+  if (!inDecl && (name === "methodDeclaration" || name === "constructorDeclaration")) {
+    facts.nestedDeclarations.push(node);
+    inDecl = true;
   }
 
-  // ELSE
-  if (node.children?.statement?.[1]) {
-    const elseBranch = node.children.statement[1];
-    if (elseBranch.name?.includes("if")) {
-      ifNode.elseBlock = parseIfStatement(elseBranch); // else-if
+  // ---------- loops + conditionals ----------
+  const isIf = IF_NODES.has(name);
+  if (scope.cond) {
+    if (isIf) {
+      addUnique(facts.conditionals, "if");
     } else {
-      ifNode.elseBlock = collectStatements(elseBranch); // else
+      if (name === "switchStatement") {
+        addUnique(facts.conditionals, "switch");
+        collectSwitchLabels(node.children.switchBlock?.[0], facts.conditionals);
+      }
+      if (LOOP_NODES[name]) addUnique(facts.loops, LOOP_NODES[name]);
+      if (name === "superMethodInvocation") facts.conditionals.push("superCall");
+      if (name === "thisExpression") facts.conditionals.push("thisRef");
+      if (CONDITIONAL_NODES[name]) addUnique(facts.conditionals, CONDITIONAL_NODES[name]);
     }
   }
 
-  return ifNode;
-}
-
-
-function collectStatements(node: any): any[] {
-  if (!node) return [];
-  const stmts: any[] = [];
-
-  if (Array.isArray(node)) {
-    node.forEach(n => stmts.push(...collectStatements(n)));
-    return stmts;
+  // ---------- if/else tree ----------
+  let ifNode: any = null;
+  let childIfSink = scope.ifSink;
+  if (isIf && (scope.ifSink || (scope.cond && !scope.nested))) {
+    ifNode = { type: "IfStatement", thenBlock: [], elseBlock: null };
+    (scope.ifSink ?? facts.conditionalsTree).push(ifNode);
+  } else if (scope.ifSink && LEAF_STATEMENTS.has(name)) {
+    scope.ifSink.push({ type: "Statement" });
+    childIfSink = null;
   }
 
-  //  Direct if/else/else-if
-  if (["ifStatement", "ifThenStatement", "ifThenElseStatement"].includes(node.name)) {
-    const innerIf = parseIfStatement(node);
-    if (innerIf) stmts.push(innerIf);
-    return stmts;
+  // ---------- loop tree ----------
+  const loopBody = LOOP_NODES[name] ? node.children.statement?.[0] : undefined;
+  let loopNode: LoopNode | null = null;
+  if (scope.loopSink && loopBody) {
+    loopNode = { type: LOOP_NODES[name], nested: [], depth: scope.depth };
+    scope.loopSink.push(loopNode);
   }
 
-  //  Unwrap wrappers (block, blockStatements, statement)
-  if (["block", "blockStatements", "statement"].includes(node.name)) {
-    for (const arr of Object.values(node.children)) {
-      if (Array.isArray(arr)) {
-        arr.forEach(child => stmts.push(...collectStatements(child)));
-      }
+  // ---------- locals ----------
+  let childLocals = scope.locals;
+  if (scope.locals) {
+    if (name === "localVariableDeclaration") {
+      addLocal(facts, extractVariableDeclaration(node));
+    } else if (name === "enhancedForStatement") {
+      addLocal(facts, extractVariableDeclaration(node.children.localVariableDeclaration?.[0]));
+      // The loop variable is the only local taken from a for-each
+      childLocals = false;
+    } else if (name === "basicForStatement") {
+      addLocal(facts, extractVariableDeclaration(node.children.forInit?.[0]?.children?.localVariableDeclaration?.[0]));
     }
-    return stmts;
   }
 
-  //  Real leaf statements
-  if (
-    node.name === "expressionStatement" ||
-    node.name === "statementExpression" ||
-    node.name === "returnStatement" ||
-    node.name === "throwStatement" ||
-    node.name === "breakStatement" ||
-    node.name === "continueStatement"
-  ) {
-    stmts.push({ type: "Statement" });
-    return stmts;
+  // ---------- calls + allocations (own body only) ----------
+  const attr = inDecl ? null : scope.flow.attr;
+  if (!inDecl) {
+    if (name === "primary") {
+      const before = facts.calls.length;
+      collectCalls(node, facts.calls);
+      if (scope.loop !== undefined) {
+        for (let i = before; i < facts.calls.length; i++) facts.calls[i].loop = scope.loop;
+      }
+      if (attr) attr.calls = (attr.calls ?? 0) + facts.calls.length - before;
+    }
+    if (OBJECT_CREATION_NODES.has(name)) {
+      facts.objectCreations++;
+      if (attr) attr.allocs = (attr.allocs ?? 0) + 1;
+    }
   }
 
-  //  Fallback recursion
-  if (node.children) {
-    for (const arr of Object.values(node.children)) {
-      if (Array.isArray(arr)) {
-        arr.forEach(child => stmts.push(...collectStatements(child)));
-      }
+  // ---------- statement flow ----------
+  let flowNode: FlowNode | null = null;
+  let part: FlowNode[] | null = null;
+  if (!inDecl) {
+    const { sink, owner } = scope.flow;
+    if (sink && FLOW_STATEMENTS[name]) {
+      flowNode = newFlowNode(name, node);
+      if (flowNode?.head) flowNode.id = facts.loopIds++;
+      if (flowNode) sink.push(flowNode);
+    } else if (owner) {
+      part = enterFlowPart(name, node, owner);
     }
   }
 
-  return stmts;
-}
+  // ---------- children ----------
+  for (const [key, arr] of Object.entries(node.children)) {
+    if (!Array.isArray(arr)) continue;
+    arr.forEach((child: any, index: number) => {
+      if (!child || child.image !== undefined) return;
+
+      const isBranch = key === "statement";
+      let loopSink = scope.loopSink;
+      let depth = scope.depth;
+      if (loopSink) {
+        if (loopNode) {
+          // Only the body holds nested loops
+          const isBody = child === loopBody;
+          loopSink = isBody ? loopNode.nested : null;
+          depth = scope.depth + 1;
+        } else if (name === "blockStatements") {
+          loopSink = child.children?.statement?.[0] ? loopSink : null;
+        } else if (name === "blockStatement") {
+          loopSink = isBranch && index === 0 ? loopSink : null;
+        }
+      }
 
-/* ---------------- WORKING Loop Tree Builder ---------------- */
+      let ifSink = childIfSink;
+      if (ifNode) {
+        if (isBranch && index === 0) ifSink = ifNode.thenBlock;
+        else if (isBranch && index === 1) ifSink = ifNode.elseBlock = [];
+        else ifSink = null;
+      }
 
-interface LoopNode {
-  type: string;
-  nested: LoopNode[];
-  depth:number
+      visitBody(child, {
+        cond: scope.cond && (!isIf || isBranch),
+        nested: scope.nested || isIf,
+        ifSink,
+        loopSink,
+        depth,
+        locals: childLocals,
+        inDecl,
+        loop: childLoop(flowNode, key, scope.loop),
+        flow: inDecl ? NO_FLOW : childFlow(name, scope.flow, flowNode, part, key, index, child, loopBody)
+      }, facts);
+
+      // else-if: the branch is itself an if, so keep the node rather than a list
+      if (ifNode && isBranch && index === 1 && child.name?.includes("if")) {
+        ifNode.elseBlock = ifNode.elseBlock[0] ?? null;
+      }
+    });
+  }
 }
 
-/**
- * FULLY FIXED: Handles all loop types and nested structures correctly
- */
-function buildLoopTree(node: any, currentLoops: LoopNode[] = [], depth = 0): LoopNode[] {
-  if (!node) return currentLoops;
-
-  // If node array, process each
-  if (Array.isArray(node)) {
-    for (const n of node) buildLoopTree(n, currentLoops, depth);
-    return currentLoops;
-  }
-
-  // Detect loop type + body
-  let loopType: string | null = null;
-  let loopBody: any = null;
-
-  if (node.name === "whileStatement") {
-    loopType = "while";
-    loopBody = node.children?.statement?.[0];
-  } 
-  else if (node.name === "basicForStatement") {
-    loopType = "for";
-    loopBody = node.children?.statement?.[0];
-  } 
-  else if (node.name === "enhancedForStatement") {
-    loopType = "forEach";
-    loopBody = node.children?.statement?.[0];
-  }
-  else if (node.name === "doStatement") {
-    loopType = "doWhile";
-    loopBody = node.children?.statement?.[0];
-  }
-
-  // If this node is a loop
-  if (loopType && loopBody) {
-    const loopNode: LoopNode = {
-      type: loopType,
-      nested: [],
-      depth
-    };
-
-    // Find nested loops inside this loop body
-    // First check if body is wrapped in block/blockStatements
-    if (loopBody.name === "block" && loopBody.children?.blockStatements?.[0]) {
-      buildLoopTree(loopBody.children.blockStatements[0], loopNode.nested, depth + 1);
-    } else {
-      buildLoopTree(loopBody, loopNode.nested, depth + 1);
-    }
-
-    // Add to this level
-    currentLoops.push(loopNode);
-
-    // Stop—loop body already recursively processed
-    return currentLoops;
+function addLocal(facts: BodyFacts, decl: string | null): void {
+  if (decl && !facts.seenLocals.has(decl)) {
+    facts.seenLocals.add(decl);
+    facts.localVariables.push(decl);
   }
+}
 
-  // Special handling for blockStatements - process statements directly
-  if (node.name === "blockStatements" && node.children?.blockStatement) {
-    for (const stmt of node.children.blockStatement) {
-      if (stmt.children?.statement?.[0]) {
-        buildLoopTree(stmt.children.statement[0], currentLoops, depth);
-      }
+function newFlowNode(name: string, node: any): FlowNode | null {
+  const type = FLOW_STATEMENTS[name];
+  switch (type) {
+    case "if":
+      return { type, then: [] };
+    case "while":
+    case "for":
+    case "forEach":
+    case "doWhile":
+      return { type, head: loopHead(type, node.children), body: [] };
+    case "synchronized":
+      return { type, body: [] };
+    case "labeled":
+      return { type, label: node.children.Identifier?.[0]?.image, body: [] };
+    case "switch":
+      return { type, cases: [], hasDefault: false };
+    case "try":
+      // try-with-resources sits below a tryStatement; the inner node becomes the flow node
+      return node.children.tryWithResourcesStatement ? null : { type, body: [], catches: [] };
+    case "break":
+    case "continue": {
+      const label = node.children.Identifier?.[0]?.image;
+      return label ? { type, label } : { type };
     }
-    return currentLoops; // Don't recurse further - we handled it
+    default:
+      return { type };
   }
+}
 
-  // Recurse through normal nodes
-  if (node.children) {
-    for (const arr of Object.values(node.children)) {
-      if (Array.isArray(arr)) {
-        for (const child of arr) {
-          buildLoopTree(child, currentLoops, depth);
-        }
-      }
-    }
+function loopHead(type: string, c: any): LoopHead {
+  const head: LoopHead = {};
+  if (type === "for") {
+    if (c.forInit) head.init = sourceText(c.forInit);
+    if (c.expression) head.cond = sourceText(c.expression);
+    if (c.forUpdate) head.update = sourceText(c.forUpdate);
+  } else if (type === "forEach") {
+    head.iterable = sourceText(c.expression);
+  } else if (c.expression) {
+    head.cond = sourceText(c.expression);
   }
-
-  return currentLoops;
+  return head;
 }
 
-/**
- * Calculate the maximum nesting depth in a loop tree
- */
-function calculateMaxDepth(loopTree: LoopNode[]): number {
-  if (!loopTree || loopTree.length === 0) return 0;
-  
-  let maxDepth = 0;
-  
-  for (const loop of loopTree) {
-    // Current loop is at depth 1
-    let currentDepth = 1;
-    
-    // If there are nested loops, add their depth
-    if (loop.nested && loop.nested.length > 0) {
-      currentDepth += calculateMaxDepth(loop.nested);
-    }
-    
-    maxDepth = Math.max(maxDepth, currentDepth);
+/** Tokens joined with a space only between adjacent words: "i<arr.length" */
+function sourceText(node: any): string {
+  let out = "";
+  for (const t of tokensOf(node)) {
+    if (out && /\w$/.test(out) && /^\w/.test(t.image)) out += " ";
+    out += t.image;
   }
-  
-  return maxDepth;
+  return out;
 }
 
-/**
- * Count total number of loops (including nested ones)
- */
-function countTotalLoops(loopTree: LoopNode[]): number {
-  if (!loopTree || loopTree.length === 0) return 0;
-  
-  let count = loopTree.length;
-  
-  for (const loop of loopTree) {
-    if (loop.nested && loop.nested.length > 0) {
-      count += countTotalLoops(loop.nested);
+/** Loop id for a child; a for-init and a for-each iterable run once, outside the loop */
+function childLoop(flowNode: FlowNode | null, key: string, outer: number | undefined): number | undefined {
+  if (flowNode?.id === undefined) return outer;
+  if (key === "forInit" || (flowNode.type === "forEach" && key !== "statement")) return outer;
+  return flowNode.id;
+}
+
+/** Opens a switch case, catch clause or finally block of `owner` */
+function enterFlowPart(name: string, node: any, owner: FlowNode): FlowNode[] | null {
+  if (owner.cases && (name === "switchBlockStatementGroup" || name === "switchRule")) {
+    const part: FlowNode[] = [];
+    owner.cases.push(part);
+    if (tokensOf(node.children.switchLabel).some(t => t.image === "default")) owner.hasDefault = true;
+    if (name === "switchRule") {
+      owner.rules = true;
+      // `case X -> expr;` has no statement node of its own
+      if (node.children.expression) part.push({ type: "stmt" });
     }
+    return part;
   }
-  
-  return count;
+  if (owner.catches && name === "catchClause") {
+    const part: FlowNode[] = [];
+    owner.catches.push(part);
+    return part;
+  }
+  if (owner.catches && name === "finally") return (owner.finally = []);
+  return null;
 }
 
-function extractLocalVariables(node: any, foundVars: Set<string> = new Set()): string[] {
-  const variables: string[] = [];
-  
-  if (!node) return variables;
-  
-  if (Array.isArray(node)) {
-    for (const n of node) {
-      variables.push(...extractLocalVariables(n, foundVars));
+/** Flow context for one child of the node being visited */
+function childFlow(
+  name: string,
+  ctx: FlowCtx,
+  flowNode: FlowNode | null,
+  part: FlowNode[] | null,
+  key: string,
+  index: number,
+  child: any,
+  loopBody: any
+): FlowCtx {
+  if (flowNode) {
+    const header: FlowCtx = { sink: null, attr: flowNode, owner: null };
+    switch (flowNode.type) {
+      case "if":
+        if (key !== "statement") return header;
+        if (index === 0) return { sink: flowNode.then!, attr: null, owner: null };
+        return { sink: (flowNode.else = flowNode.else ?? []), attr: null, owner: null };
+      case "while":
+      case "for":
+      case "forEach":
+      case "doWhile":
+        return child === loopBody ? { sink: flowNode.body!, attr: null, owner: null } : header;
+      case "labeled":
+        return key === "statement" ? { sink: flowNode.body!, attr: null, owner: null } : header;
+      case "synchronized":
+        return key === "block" ? { sink: flowNode.body!, attr: null, owner: null } : header;
+      case "switch":
+        return { sink: null, attr: flowNode, owner: flowNode };
+      case "try":
+        if (key === "block") return { sink: flowNode.body!, attr: null, owner: null };
+        return { sink: null, attr: flowNode, owner: flowNode };
+      default:
+        return header;
     }
-    return variables;
   }
-
-  // Detect local variable declaration
-  if (node.name === "localVariableDeclaration") {
-    const varDecl = extractVariableDeclaration(node);
-    if (varDecl && !foundVars.has(varDecl)) {
-      foundVars.add(varDecl);
-      variables.push(varDecl);
+  if (part) {
+    if (key === "block" || key === "blockStatements" || key === "throwStatement") {
+      return { sink: part, attr: null, owner: null };
     }
+    if (key === "expression") return { sink: null, attr: part[0] ?? ctx.attr, owner: null };
+    return { sink: null, attr: ctx.attr, owner: null };
+  }
+  if (ctx.owner && (name === "switchBlock" || name === "catches")) return ctx;
+  if (ctx.sink && (FLOW_WRAPPERS.has(child.name) || FLOW_STATEMENTS[child.name])) {
+    return { sink: ctx.sink, attr: ctx.attr, owner: null };
   }
+  return ctx.attr ? { sink: null, attr: ctx.attr, owner: null } : NO_FLOW;
+}
 
-  //  Detect enhanced for loop variable (for-each)
-  if (node.name === "enhancedForStatement") {
-    const forVarDecl = node.children?.localVariableDeclaration?.[0];
-    if (forVarDecl) {
-      const varDecl = extractVariableDeclaration(forVarDecl);
-      if (varDecl && !foundVars.has(varDecl)) {
-        foundVars.add(varDecl);
-        variables.push(varDecl);
-      }
+/** case/default labels directly on this switch */
+function collectSwitchLabels(block: any, conditionals: string[]): void {
+  const groups = [
+    ...(block?.children?.switchBlockStatementGroup || []),
+    ...(block?.children?.switchRule || [])
+  ];
+  for (const group of groups) {
+    for (const t of tokensOf(group.children?.switchLabel)) {
+      if (t.image === "case") addUnique(conditionals, "case");
+      if (t.image === "default") addUnique(conditionals, "default");
     }
-    // STOP recursing into the body - we already got the loop var
-    return variables;
   }
+}
 
-  // Detect basic for loop variable
-  if (node.name === "basicForStatement") {
-    const forInit = node.children?.forInit?.[0];
-    if (forInit?.children?.localVariableDeclaration?.[0]) {
-      const varDecl = extractVariableDeclaration(forInit.children.localVariableDeclaration[0]);
-      if (varDecl && !foundVars.has(varDecl)) {
-        foundVars.add(varDecl);
-        variables.push(varDecl);
+/**
+ * Method invocations along one primary chain, e.g. `stmt.executeQuery(q).next()`
+ * yields "stmt.executeQuery" and "next".
+ */
+function collectCalls(primary: any, calls: MethodCall[]): void {
+  let chain: string[] = [];
+  let line: number | undefined;
+
+  const prefix = primary.children.primaryPrefix?.[0];
+  if (prefix?.children?.fqnOrRefType) {
+    for (const t of tokensOf(prefix.children.fqnOrRefType)) {
+      if (t.tokenType?.name === "Identifier" || t.image === "this" || t.image === "super") {
+        chain.push(t.image);
+        line = t.startLine;
       }
     }
+  } else if (prefix?.children?.This) {
+    chain.push("this");
   }
 
-  // Recurse into children
-  if (node.children) {
-    for (const childArray of Object.values(node.children)) {
-      if (Array.isArray(childArray)) {
-        for (const child of childArray) {
-          variables.push(...extractLocalVariables(child, foundVars));
-        }
-      }
+  for (const suffix of primary.children.primarySuffix || []) {
+    const c = suffix.children || {};
+    if (c.methodInvocationSuffix) {
+      if (chain.length) calls.push({ name: chain.join("."), line });
+      chain = [];
+    } else if (c.Identifier?.[0]) {
+      chain.push(c.Identifier[0].image);
+      line = c.Identifier[0].startLine;
+    } else {
+      chain = [];
     }
   }
-
-  return variables;
 }
 
 /**
@@ -518,8 +685,7 @@ function extractVariableDeclaration(node: any): string | null {
 
   // Get type
   const typeNode = node.children?.localVariableType?.[0];
-  const typeTokens: any[] = [];
-  gatherTokens(typeNode, typeTokens);
+  const typeTokens = tokensOf(typeNode);
   const typeText = tokensText(typeTokens);
 
   // Get variable names (can be multiple: int x = 1, y = 2;)
@@ -569,6 +735,73 @@ function extractParams(decl: any): any[] {
   return params;
 }
 
+/**
+ * Calculate the maximum nesting depth in a loop tree
+ */
+function calculateMaxDepth(loopTree: LoopNode[]): number {
+  if (!loopTree || loopTree.length === 0) return 0;
+  
+  let maxDepth = 0;
+  
+  for (const loop of loopTree) {
+    // Current loop is at depth 1
+    let currentDepth = 1;
+    
+    // If there are nested loops, add their depth
+    if (loop.nested && loop.nested.length > 0) {
+      currentDepth += calculateMaxDepth(loop.nested);
+    }
+    
+    maxDepth = Math.max(maxDepth, currentDepth);
+  }
+  
+  return maxDepth;
+}
+
+/**
+ * Count total number of loops (including nested ones)
+ */
+function countTotalLoops(loopTree: LoopNode[]): number {
+  if (!loopTree || loopTree.length === 0) return 0;
+  
+  let count = loopTree.length;
+  
+  for (const loop of loopTree) {
+    if (loop.nested && loop.nested.length > 0) {
+      count += countTotalLoops(loop.nested);
+    }
+  }
+  
+  return count;
+}
+
+/**
+ * Run the body visitor and copy its findings onto the method object.
+ * Returns the declarations of local/anonymous classes found in the body.
+ */
+function applyBodyFacts(methodObj: any, body: any): any[] {
+  if (!body) return [];
+  const facts = analyzeBody(body);
+
+  methodObj.loops.push(...facts.loops);
+  methodObj.conditionals.push(...facts.conditionals);
+  if (facts.conditionalsTree.length > 0) methodObj.conditionalsTree = facts.conditionalsTree;
+
+  if (facts.loopsTree.length > 0) {
+    methodObj.loopsTree = facts.loopsTree;
+    // Calculate max nesting depth and total loop count
+    methodObj.loopNestingDepth = calculateMaxDepth(facts.loopsTree);
+    methodObj.totalLoopCount = countTotalLoops(facts.loopsTree);
+  }
+  if (facts.localVariables.length > 0) methodObj.localVariables = facts.localVariables;
+  // Kept apart from the calls/objectCreations fields the energy heuristics read
+  if (facts.calls.length > 0) methodObj.invocations = facts.calls;
+  if (facts.objectCreations > 0) methodObj.allocations = facts.objectCreations;
+  if (facts.flow.length > 0) methodObj.flow = facts.flow;
+
+  return facts.nestedDeclarations;
+}
+
 /* ---------------- methods + constructors ---------------- */
 function extractMethods(node: any, className: string): any[] {
 
@@ -581,35 +814,18 @@ function extractMethods(node: any, className: string): any[] {
     const params = extractParams(decl);
 
     const methodObj: any = { name: methodName, params, loops: [], conditionals: [] };
-    
-    if (node.children.methodBody?.[0]) {
-      findLoopsAndConditionals(node.children.methodBody[0], methodObj);
-      
-        
-      const loopTree = buildLoopTree(node.children.methodBody[0], []);
-      
-      if (loopTree.length > 0) {
-        methodObj.loopsTree = loopTree;
-        // Calculate max nesting depth and total loop count
-        methodObj.loopNestingDepth = calculateMaxDepth(loopTree);
-        methodObj.totalLoopCount = countTotalLoops(loopTree);
-      }
-    }
-      //  ADD THESE 4 LINES
-    const localVars = extractLocalVariables(node.children.methodBody[0]);
-    if (localVars.length > 0) {
-      methodObj.localVariables = localVars;
-    }
+    const nested = applyBodyFacts(methodObj, node.children.methodBody?.[0]);
+
     // detect synchronized keyword in method modifiers
-const modifiers = node.children?.methodModifier || [];
-const toks: any[] = [];
-gatherTokens(modifiers, toks);
-if (toks.some(t => t.image === "synchronized")) {
-  methodObj.conditionals.push("synchronized");
-}
+    if (tokensOf(node.children?.methodModifier).some(t => t.image === "synchronized")) {
+      methodObj.conditionals.push("synchronized");
+    }
     Object.assign(methodObj, extractExtraInfo?.(node, "method") || {});
 
     methods.push(methodObj);
+    // The visitor already walked the body; only its nested declarations are left
+    nested.forEach(d => methods.push(...extractMethods(d, className)));
+    return methods;
   }
 
  // ---------- CONSTRUCTOR ----------
@@ -622,26 +838,12 @@ if (node.name === "constructorDeclaration") {
   const params = extractParams(ctorDecl);
 
   const ctorObj: any = { name: ctorName, params, loops: [], conditionals: [] };
-  if (node.children.constructorBody?.[0]) {
-    findLoopsAndConditionals(node.children.constructorBody[0], ctorObj);
-    //  ADD THIS ONE LINE
-       const loopTree = buildLoopTree(node.children.constructorBody[0], []);
-    if (loopTree.length > 0) {
-      ctorObj.loopsTree = loopTree;
-      // Calculate max nesting depth and total loop count
-      ctorObj.loopNestingDepth = calculateMaxDepth(loopTree);
-      ctorObj.totalLoopCount = countTotalLoops(loopTree);
-    }
-    
-    //  ADD THESE 4 LINES
-    const localVars = extractLocalVariables(node.children.constructorBody[0]);
-    if (localVars.length > 0) {
-      ctorObj.localVariables = localVars;
-    }
-  }
+  const nested = applyBodyFacts(ctorObj, node.children.constructorBody?.[0]);
       Object.assign(ctorObj, extractExtraInfo?.(node, "constructor") || {});
 
   methods.push(ctorObj);
+  nested.forEach(d => methods.push(...extractMethods(d, className)));
+  return methods;
 }
 
   // ---------- recurse ----------
@@ -702,8 +904,7 @@ function extractExtraInfo(node: any, context: "class" | "method" | "constructor"
 if (node.children?.superclass?.[0]) {
   const typeNode = node.children.superclass[0].children?.classType?.[0] 
                  || node.children.superclass[0];
-  const toks: any[] = [];
-  gatherTokens(typeNode, toks);
+  const toks = tokensOf(typeNode);
   info.extends = tokensText(toks);   // e.g. "Base<String>"
 }
 
@@ -711,16 +912,14 @@ if (node.children?.superclass?.[0]) {
 if (node.children?.superinterfaces?.[0]) {
   const intfs = node.children.superinterfaces[0].children.interfaceTypeList?.[0] 
               || node.children.superinterfaces[0];
-  const toks: any[] = [];
-  gatherTokens(intfs, toks);
+  const toks = tokensOf(intfs);
   info.implements = tokensText(toks).split(",").map(s => s.trim());
 }
 
 
 // Generic type parameters for class
     if (node.children?.typeParameters?.[0]) {
-      const toks: any[] = [];
-      gatherTokens(node.children.typeParameters[0], toks);
+      const toks = tokensOf(node.children.typeParameters[0]);
       info.generics = tokensText(toks); // e.g. "<T, U>"
     }
     // Fields
@@ -729,8 +928,7 @@ if (node.children?.superinterfaces?.[0]) {
     bodyDecls.forEach((decl: any) => {
       if (decl.children?.classMemberDeclaration?.[0]?.children?.fieldDeclaration) {
         const fieldDecl = decl.children.classMemberDeclaration[0].children.fieldDeclaration[0];
-        const toks: any[] = [];
-        gatherTokens(fieldDecl, toks);
+        const toks = tokensOf(fieldDecl);
         fields.push(tokensText(toks));
       }
     });
@@ -741,8 +939,7 @@ if (node.children?.superinterfaces?.[0]) {
   if (context === "method" || context === "constructor") {
      const mh = node.children?.methodHeader?.[0];
     if (mh?.children?.typeParameters?.[0]) {
-      const toks: any[] = [];
-      gatherTokens(mh.children.typeParameters[0], toks);
+      const toks = tokensOf(mh.children.typeParameters[0]);
       info.methodGenerics = tokensText(toks);
     }
   //  CLEAN throws extraction
@@ -750,8 +947,7 @@ if (node.children?.superinterfaces?.[0]) {
     const exList = node.children.throws_[0].children?.exceptionTypeList?.[0];
     if (exList?.children?.exceptionType) {
       info.throws = exList.children.exceptionType.map((et: any) => {
-        const toks: any[] = [];
-        gatherTokens(et, toks);
+        const toks = tokensOf(et);
         return tokensText(toks);
       });
     }
@@ -759,15 +955,13 @@ if (node.children?.superinterfaces?.[0]) {
 
     // Return type (methods only, constructors have no return type)
     if (context === "method" && node.children?.methodHeader?.[0]?.children?.result?.[0]) {
-      const toks: any[] = [];
-      gatherTokens(node.children.methodHeader[0].children.result[0], toks);
+      const toks = tokensOf(node.children.methodHeader[0].children.result[0]);
       info.returnType = tokensText(toks);
     }
 
     // Modifiers (including annotations)
     const modifiers = node.children?.methodModifier || node.children?.constructorModifier || [];
-    const modToks: any[] = [];
-    gatherTokens(modifiers, modToks);
+    const modToks = tokensOf(modifiers);
 
     info.modifiers = modToks.map((t, i, arr) => {
       if (t.image === "@" && arr[i + 1]) {
@@ -780,8 +974,7 @@ if (node.children?.superinterfaces?.[0]) {
 
     // Throws clause
     if (node.children?.throws_?.[0]) {
-      const toks: any[] = [];
-      gatherTokens(node.children.throws_[0], toks);
+      const toks = tokensOf(node.children.throws_[0]);
       info.throws = tokensText(toks).split(",").map(s => s.trim());
     }
     if (node.children?.constructorBody?.[0]) {
@@ -791,8 +984,7 @@ if (node.children?.superinterfaces?.[0]) {
     const chains: any[] = [];
 
     decls.forEach((c: any) => {
-      const toks: any[] = [];
-      gatherTokens(c, toks);
+      const toks = tokensOf(c);
       const callText = tokensText(toks);
 
       let chainType: "this" | "super" = "this";
@@ -817,14 +1009,53 @@ if (node.children?.superinterfaces?.[0]) {
 }
 
 /* ---------------- main ---------------- */
+export function parseJavaSource(code: string): any[] {
+  return extractClasses(parse(code));
+}
+
 export async function parseJavaFile(filePath: string) {
   const code = await fs.readFile(filePath, "utf8");
-  const cst = parse(code);
-
-  const classes = extractClasses(cst);
+  const classes = parseJavaSource(code);
   return { file: filePath, classes };
 }
 
+/* ---------------- cached parse ---------------- */
+function readJavaParserVersion(): string {
+  try {
+    return createRequire(import.meta.url)("java-parser/package.json").version;
+  } catch {
+    return "unknown";
+  }
+}
+
+/** Extraction logic version plus the java-parser release it ran on */
+const PARSER_VERSION = `${AST_CACHE_VERSION}+java-parser@${readJavaParserVersion()}`;
+
+export function astCacheKey(code: string): string {
+  return contentKey(PARSER_VERSION, code);
+}
+
+/** Wrap cached classes JSON with the file path of this scan */
+export function astJsonFromClasses(filePath: string, classesJson: string): string {
+  return `{"file":${JSON.stringify(filePath)},"classes":${classesJson}}`;
+}
+
+/**
+ * Parse a file to compact AST JSON, reusing the content cache when the
+ * same source (by hash) was parsed before in any scan.
+ */
+export async function parseJavaFileToJson(filePath: string, code?: string): Promise<string> {
+  const source = code ?? await fs.readFile(filePath, "utf8");
+  const key = astCacheKey(source);
+
+  const cached = readCache("ast", key);
+  if (cached !== null) return astJsonFromClasses(filePath, cached);
+
+  const classesJson = JSON.stringify(parseJavaSource(source));
+  writeCache("ast", key, classesJson);
+  return astJsonFromClasses(filePath, classesJson);
+}
+
 export async function parseFolder(folderPath: string, outputPath: string) {
   const results: any[] = [];
   
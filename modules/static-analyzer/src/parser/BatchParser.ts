@@ -1,18 +1,37 @@
 #!/usr/bin/env ts-node
+import { existsSync } from "fs";
 import { promises as fs } from "fs";
+import * as os from "os";
 import * as path from "path";
-import { pathToFileURL } from "url";
+import { fileURLToPath, pathToFileURL } from "url";
+import { Worker } from "worker_threads";
 
+import { encode, resolveArtifactFormat } from "../../../../shared/binaryFormat.js";
+
+import { cacheEnabled, readCache } from "../core/ContentCache.js";
 import { scanJavaFiles } from "../core/FileScanner.js";
 
-import { parseJavaFile } from "./ASTParser.js";
+import { astCacheKey, astJsonFromClasses, parseJavaFileToJson } from "./ASTParser.js";
+import type { ParseReply } from "./parseWorker.js";
+
+export type ParseFolderOptions = {
+  /** Worker threads to use; defaults to available cores (GREENCODE_PARSE_WORKERS overrides) */
+  workers?: number;
+  /** AST file format; defaults to GREENCODE_ARTIFACT_FORMAT, else "json" */
+  format?: "json" | "binary";
+  /** Parse only these Java files instead of scanning the folder (incremental scans) */
+  files?: string[];
+};
+
+/** Below this many files, worker startup costs more than it saves */
+const MIN_FILES_FOR_WORKERS = 4;
 
 /**
- * Parse all Java files in a folder and output .json AST files
+ * Parse all Java files in a folder and output .json (or .gcb) AST files
  */
-export async function parseFolder(folderPath: string, outDir: string) {
+export async function parseFolder(folderPath: string, outDir: string, options: ParseFolderOptions = {}) {
   // 1. Scan folder
-  const javaFiles = await scanJavaFiles(folderPath);
+  const javaFiles = options.files ?? await scanJavaFiles(folderPath);
   if (javaFiles.length === 0) {
     console.log("No .java files found in", folderPath);
     return;
@@ -21,15 +40,170 @@ export async function parseFolder(folderPath: string, outDir: string) {
   // 2. Ensure output dir exists
   await fs.mkdir(outDir, { recursive: true });
 
-  // 3. Parse each file and save JSON
-  for (const file of javaFiles) {
+  const binary = resolveArtifactFormat(options.format) === "binary";
+  const writeAst = async (file: string, json: string) => {
+    const fileName = path.basename(file, ".java") + (binary ? ".gcb" : ".json");
+    const outFile = path.join(outDir, fileName);
+
+    await fs.writeFile(outFile, binary ? encode(JSON.parse(json), "ast") : json);
+    console.log(" Parsed:", file, "→", outFile);
+  };
+
+  // 3. Serve unchanged files from the content cache; only misses get parsed
+  const toParse = await writeCacheHits(javaFiles, writeAst);
+  if (toParse.length === 0) return;
+
+  // 4. Parse misses in parallel when worth it, sequentially otherwise
+  const workerCount = resolveWorkerCount(options.workers, toParse.length);
+  const workerUrl = new URL("./parseWorker.js", import.meta.url);
+
+  if (workerCount > 1 && existsSync(fileURLToPath(workerUrl))) {
+    await parseWithWorkers(toParse, workerCount, workerUrl, writeAst);
+    return;
+  }
+
+  for (const file of toParse) {
     try {
-      const astJson = await parseJavaFile(file); // returns JSON object
-      const fileName = path.basename(file, ".java") + ".json";
-      const outFile = path.join(outDir, fileName);
+      await writeAst(file, await parseJavaFileToJson(file));
+    } catch (err) {
+      console.error(" Failed parsing", file, ":", err);
+    }
+  }
+}
+
+/**
+ * Write the AST of every file whose content hash is already cached and
+ * return the files that still need parsing. Hashing is cheap next to
+ * parsing, so this runs on the main thread before any worker starts.
+ */
+async function writeCacheHits(
+  files: string[],
+  onParsed: (file: string, json: string) => Promise<void>
+): Promise<string[]> {
+  if (!cacheEnabled()) return files;
 
-      await fs.writeFile(outFile, JSON.stringify(astJson, null, 2), "utf8");
-      console.log(" Parsed:", file, "→", outFile);
+  const misses: string[] = [];
+  for (const file of files) {
+    try {
+      const cached = readCache("ast", astCacheKey(await fs.readFile(file, "utf8")));
+      if (cached === null) {
+        misses.push(file);
+        continue;
+      }
+      await onParsed(file, astJsonFromClasses(file, cached));
+    } catch {
+      misses.push(file);
+    }
+  }
+
+  const hits = files.length - misses.length;
+  if (hits > 0) console.log(` AST cache: ${hits} hit(s), ${misses.length} to parse`);
+  return misses;
+}
+
+function resolveWorkerCount(requested: number | undefined, fileCount: number): number {
+  if (fileCount < MIN_FILES_FOR_WORKERS) return 1;
+
+  const fromEnv = parseInt(process.env.GREENCODE_PARSE_WORKERS || "", 10);
+  const cores = typeof os.availableParallelism === "function" ? os.availableParallelism() : os.cpus().length;
+  const count = requested ?? (Number.isFinite(fromEnv) ? fromEnv : cores);
+
+  return Math.max(1, Math.min(count, fileCount));
+}
+
+/**
+ * Worker pool with largest-file-first dispatch: big files start early so
+ * the tail of the run is made of small files and no worker straggles.
+ * A failing file only fails itself; a crashed worker is replaced and its
+ * file is retried in-process at the end.
+ */
+export async function parseWithWorkers(
+  files: string[],
+  workerCount: number,
+  workerUrl: URL,
+  onParsed: (file: string, json: string) => Promise<void>
+): Promise<void> {
+  const sized = await Promise.all(files.map(async file => {
+    try {
+      return { file, size: (await fs.stat(file)).size };
+    } catch {
+      return { file, size: 0 };
+    }
+  }));
+  const queue = sized.sort((a, b) => b.size - a.size).map(s => s.file);
+
+  console.log(` Parsing ${files.length} files with ${workerCount} workers`);
+
+  let nextId = 0;
+  let crashes = 0;
+  const maxCrashes = workerCount * 2;
+  const crashedFiles: string[] = [];
+  const pendingWrites: Promise<void>[] = [];
+
+  await new Promise<void>(resolve => {
+    let active = 0;
+
+    const spawn = () => {
+      const worker = new Worker(workerUrl);
+      let current: { id: number; file: string } | null = null;
+      active++;
+
+      const dispatch = () => {
+        const file = queue.shift();
+        if (file === undefined) {
+          current = null;
+          worker.terminate();
+          return;
+        }
+        current = { id: nextId++, file };
+        worker.postMessage(current);
+      };
+
+      worker.on("message", (reply: ParseReply) => {
+        const file = current?.file ?? "unknown";
+        if (reply.ok) {
+          pendingWrites.push(onParsed(file, reply.json).catch(err =>
+            console.error(" Failed writing AST for", file, ":", err)
+          ));
+        } else {
+          console.error(" Failed parsing", file, ":", reply.error);
+        }
+        dispatch();
+      });
+
+      worker.on("error", err => {
+        console.error(" Parse worker error:", err.message);
+      });
+
+      worker.on("exit", () => {
+        active--;
+        // Exited without answering: the worker died on this file
+        if (current) {
+          crashes++;
+          console.error(" Worker crashed on", current.file, "- retrying in-process");
+          crashedFiles.push(current.file);
+          current = null;
+        }
+        // Replace a worker that died mid-queue, unless workers keep dying
+        if (queue.length > 0 && active < workerCount && crashes <= maxCrashes) {
+          spawn();
+        } else if (active === 0) {
+          resolve();
+        }
+      });
+
+      dispatch();
+    };
+
+    for (let i = 0; i < workerCount; i++) spawn();
+  });
+
+  await Promise.all(pendingWrites);
+
+  // Files a worker died on, plus anything left if workers kept dying
+  for (const file of [...crashedFiles, ...queue]) {
+    try {
+      await onParsed(file, await parseJavaFileToJson(file));
     } catch (err) {
       console.error(" Failed parsing", file, ":", err);
     }
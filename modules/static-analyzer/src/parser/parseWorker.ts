@@ -0,0 +1,22 @@
+import { parentPort } from "worker_threads";
+
+import { parseJavaFileToJson } from "./ASTParser.js";
+
+/**
+ * Worker for BatchParser: parses one file per message and replies with
+ * compact AST JSON (a string transfers much cheaper than a deep object).
+ */
+export type ParseRequest = { id: number; file: string };
+export type ParseReply =
+  | { id: number; ok: true; json: string }
+  | { id: number; ok: false; error: string };
+
+parentPort?.on("message", async (req: ParseRequest) => {
+  let reply: ParseReply;
+  try {
+    reply = { id: req.id, ok: true, json: await parseJavaFileToJson(req.file) };
+  } catch (err: any) {
+    reply = { id: req.id, ok: false, error: err?.stack || String(err) };
+  }
+  parentPort!.postMessage(reply);
+});
@@ -2,7 +2,7 @@
 import fs from "fs";
 import path from "path";
 import { fileURLToPath } from "url";
-import type { FileMetrics } from "../types/MethodMetrics.js";
+import type { FileMetrics, MethodMetrics } from "../types/MethodMetrics.js";
 
 const __filename = fileURLToPath(import.meta.url);
 const __dirname = path.dirname(__filename);
@@ -14,8 +14,138 @@ export interface RuleViolation {
   location: string;
 }
 
+/** Where in the single traversal a rule runs */
+type RuleKind = "file" | "method" | "text" | "metrics";
+
+type RuleContext = { className: string };
+
+/* ---------------- Rule implementations ---------------- */
+
+/**
+ * Checks on the parsed method object; return a message to report.
+ */
+const METHOD_RULES: Record<string, (method: any, ctx: RuleContext) => string | null> = {
+  QA003: (method, ctx) =>
+    method.conditionals?.includes("switch") && !hasDefaultInTree(method.conditionalsTree)
+      ? `Switch without default case in ${ctx.className}.${method.name}()`
+      : null,
+  QD001: (method, ctx) =>
+    method.modifiers?.includes("public") && !method.javadoc && !method.comment
+      ? `Missing documentation for ${ctx.className}.${method.name}()`
+      : null,
+};
+
+/**
+ * Textual rules, matched against the serialized method with their original
+ * flags. Rules sharing flags are merged into one alternation, so each method
+ * is scanned once per flag set.
+ */
+const TEXT_RULES: Record<string, { pattern: string; flags: string; message: string }> = {
+  QS001: { pattern: String.raw`eval\(`, flags: "", message: "Dangerous eval() usage" },
+  QS002: {
+    pattern: String.raw`password\s*=\s*["']|apikey\s*=\s*["']|secret\s*=\s*["']`,
+    flags: "i",
+    message: "Hardcoded credential detected",
+  },
+  QS003: { pattern: String.raw`executeQuery.*\+|query.*\+|SELECT.*\+|INSERT.*\+`, flags: "i", message: "Possible SQL injection" },
+  QS008: { pattern: String.raw`Runtime\.getRuntime\(\)\.exec|ProcessBuilder|exec\(`, flags: "i", message: "System command execution" },
+};
+
+/** Checks on the per-file metrics; may report several violations */
+const METRICS_RULES: Record<string, { kind: "file" | "metrics"; check: (metrics: FileMetrics) => string[] }> = {
+  QA004: {
+    kind: "file",
+    check: m => (m.classes.length > 1 ? [`File contains ${m.classes.length} classes`] : []),
+  },
+  QA006: {
+    kind: "metrics",
+    check: m => eachMethod(m, (x, where) =>
+      x.cyclomaticComplexity > 10 ? `High cyclomatic complexity (${x.cyclomaticComplexity}) in ${where}` : null),
+  },
+  QA007: {
+    kind: "metrics",
+    check: m => eachMethod(m, (x, where) =>
+      x.functionSize > 50 ? `Large function (${x.functionSize} statements) in ${where}` : null),
+  },
+  QA008: {
+    kind: "metrics",
+    check: m => eachMethod(m, (x, where) =>
+      x.nestingDepth > 4 ? `Deep nesting (${x.nestingDepth} levels) in ${where}` : null),
+  },
+};
+
+function eachMethod(
+  metrics: FileMetrics,
+  test: (method: MethodMetrics, where: string) => string | null
+): string[] {
+  const messages: string[] = [];
+  for (const cls of metrics.classes) {
+    for (const method of cls.methods) {
+      const message = test(method, `${cls.className}.${method.name || "unknownMethod"}()`);
+      if (message) messages.push(message);
+    }
+  }
+  return messages;
+}
+
+function hasDefaultInTree(tree: any): boolean {
+  if (!tree || !Array.isArray(tree)) return false;
+  return tree.some((node: any) => {
+    if (!node) return false;
+    if (node.type === "default" || node.type === "DefaultStatement") return true;
+    return hasDefaultInTree(node.thenBlock) || hasDefaultInTree(node.elseBlock);
+  });
+}
+
+/**
+ * One regex for a set of textual rules, each alternative a named group.
+ * Finding rule A at some position can hide rule B matching at the same or a
+ * later overlapping position, so after each hit the scan resumes at the hit
+ * with A removed; a method costs one scan plus one per rule it violates.
+ */
+class TextScanner {
+  private readonly compiled = new Map<number, RegExp>();
+
+  constructor(private readonly ids: string[], private readonly flags: string) {}
+
+  /** Rule ids whose pattern occurs in `text`, in first-occurrence order */
+  scan(text: string): string[] {
+    const found: string[] = [];
+    let mask = (1 << this.ids.length) - 1;
+    let from = 0;
+    while (mask !== 0) {
+      const re = this.regexFor(mask);
+      re.lastIndex = from;
+      const m = re.exec(text);
+      if (!m?.groups) break;
+      const bit = this.ids.findIndex((id, i) => (mask & (1 << i)) !== 0 && m.groups![id] !== undefined);
+      found.push(this.ids[bit]);
+      mask &= ~(1 << bit);
+      from = m.index;
+    }
+    return found;
+  }
+
+  private regexFor(mask: number): RegExp {
+    let re = this.compiled.get(mask);
+    if (!re) {
+      const alternatives = this.ids
+        .filter((_, i) => (mask & (1 << i)) !== 0)
+        .map(id => `(?<${id}>${TEXT_RULES[id].pattern})`);
+      re = new RegExp(alternatives.join("|"), "g" + this.flags);
+      this.compiled.set(mask, re);
+    }
+    return re;
+  }
+}
+
 export class RuleEngine {
   private rules: any;
+  /** rules.json compiled into a dispatch table: rule ids per traversal point */
+  private dispatch: Record<RuleKind, string[]> = { file: [], method: [], text: [], metrics: [] };
+  /** One scanner per distinct flag set of the enabled text rules */
+  private scanners: TextScanner[] = [];
+  private ruleMeta = new Map<string, { desc: string; severity: string }>();
 
   constructor() {
     const possiblePaths = [
@@ -32,6 +162,28 @@ export class RuleEngine {
 
     console.log("✅ Loaded rules from:", configPath);
     this.rules = JSON.parse(fs.readFileSync(configPath, "utf-8"));
+    this.compile();
+
+    const byFlags = new Map<string, string[]>();
+    for (const ruleId of this.dispatch.text) {
+      const flags = TEXT_RULES[ruleId].flags;
+      byFlags.set(flags, [...(byFlags.get(flags) || []), ruleId]);
+    }
+    this.scanners = [...byFlags].map(([flags, ids]) => new TextScanner(ids, flags));
+  }
+
+  /** Route each configured rule to the traversal point its implementation runs at */
+  private compile(): void {
+    for (const cat of Object.values(this.rules.categories || {})) {
+      for (const [ruleId, rule] of Object.entries(cat as Record<string, any>)) {
+        if (rule?.enabled === false) continue;
+        this.ruleMeta.set(ruleId, rule);
+        if (METHOD_RULES[ruleId]) this.dispatch.method.push(ruleId);
+        else if (TEXT_RULES[ruleId]) this.dispatch.text.push(ruleId);
+        else if (METRICS_RULES[ruleId]) this.dispatch[METRICS_RULES[ruleId].kind].push(ruleId);
+        // Rules without an implementation are documentation only
+      }
+    }
   }
 
   analyzeCode(astJson: any, fileName: string, metrics?: FileMetrics): RuleViolation[] {
@@ -47,137 +199,51 @@ export class RuleEngine {
       this.analyzeMetrics(metrics, fileName, results);
     }
 
-    return results;
-  }
-
-  private analyzeAST(node: any, fileName: string, results: RuleViolation[]): void {
-    if (!node) return;
-
-    // Security / Style / Documentation
-    this.checkSecurityIssues(node, fileName, results);
-    this.checkStyleIssues(node, fileName, results);
-    this.checkDocumentation(node, fileName, results);
-
-    // Traverse recursively
-    if (Array.isArray(node)) {
-      node.forEach(item => this.analyzeAST(item, fileName, results));
-    } else if (typeof node === "object") {
-      for (const key of Object.keys(node)) {
-        const value = node[key];
-        if (value && typeof value === "object") {
-          this.analyzeAST(value, fileName, results);
-        }
-      }
-    }
+    return this.dedupe(results);
   }
 
-  /* ---------------- Security Rules ---------------- */
-  private checkSecurityIssues(node: any, fileName: string, results: RuleViolation[]): void {
-    if (!node || typeof node !== "object") return;
-
-    if (node.methods && Array.isArray(node.methods)) {
-      node.methods.forEach((method: any) => {
-        const allCode = JSON.stringify(method);
-
-        if (allCode.includes("eval(")) {
-          results.push(this.createViolation("QS001", fileName, method, 
-            `Dangerous eval() usage in ${node.name}.${method.name}()`));
-        }
-
-        if (allCode.match(/password\s*=\s*["']|apikey\s*=\s*["']|secret\s*=\s*["']/i)) {
-          results.push(this.createViolation("QS002", fileName, method,
-            `Hardcoded credential detected in ${node.name}.${method.name}()`));
+  /** One pass over classes and their methods */
+  private analyzeAST(ast: any, fileName: string, results: RuleViolation[]): void {
+    for (const cls of ast?.classes || []) {
+      const ctx: RuleContext = { className: cls?.name };
+      for (const method of cls?.methods || []) {
+        for (const ruleId of this.dispatch.method) {
+          const message = METHOD_RULES[ruleId](method, ctx);
+          if (message) results.push(this.createViolation(ruleId, fileName, method, message));
         }
 
-        if (allCode.match(/executeQuery.*\+|query.*\+|SELECT.*\+|INSERT.*\+/i)) {
-          results.push(this.createViolation("QS003", fileName, method,
-            `Possible SQL injection in ${node.name}.${method.name}()`));
-        }
-
-        if (allCode.match(/Runtime\.getRuntime\(\)\.exec|ProcessBuilder|exec\(/i)) {
-          results.push(this.createViolation("QS008", fileName, method,
-            `System command execution in ${node.name}.${method.name}()`));
-        }
-      });
-    }
-  }
-
-  /* ---------------- Style Rules ---------------- */
-  private checkStyleIssues(node: any, fileName: string, results: RuleViolation[]): void {
-    if (!node || typeof node !== "object") return;
-
-    if (node.methods && Array.isArray(node.methods)) {
-      node.methods.forEach((method: any) => {
-        if (method.conditionals?.includes("switch")) {
-          const hasDefault = this.hasDefaultInTree(method.conditionalsTree);
-          if (!hasDefault) {
-            results.push(this.createViolation("QA003", fileName, method,
-              `Switch without default case in ${node.name}.${method.name}()`));
+        if (this.scanners.length === 0) continue;
+        const text = JSON.stringify(method);
+        for (const scanner of this.scanners) {
+          for (const ruleId of scanner.scan(text)) {
+            results.push(this.createViolation(ruleId, fileName, method,
+              `${TEXT_RULES[ruleId].message} in ${ctx.className}.${method.name}()`));
           }
         }
-      });
-    }
-  }
-
-  private hasDefaultInTree(tree: any): boolean {
-    if (!tree || !Array.isArray(tree)) return false;
-    return tree.some((node: any) => {
-      if (!node) return false;
-      if (node.type === "default" || node.type === "DefaultStatement") return true;
-      return (
-        this.hasDefaultInTree(node.thenBlock) ||
-        this.hasDefaultInTree(node.elseBlock)
-      );
-    });
-  }
-
-  /* ---------------- Documentation Rules ---------------- */
-  private checkDocumentation(node: any, fileName: string, results: RuleViolation[]): void {
-    if (!node || typeof node !== "object") return;
-
-    if (node.methods && Array.isArray(node.methods)) {
-      node.methods.forEach((method: any) => {
-        if (method.modifiers?.includes("public") && !method.javadoc && !method.comment) {
-          results.push(this.createViolation("QD001", fileName, method,
-            `Missing documentation for ${node.name}.${method.name}()`));
-        }
-      });
+      }
     }
   }
 
   /* ---------------- Metrics Rules ---------------- */
   private analyzeMetrics(metrics: FileMetrics, fileName: string, results: RuleViolation[]): void {
-    if (metrics.classes.length > 1) {
-      results.push(this.createViolation("QA004", fileName, null, 
-        `File contains ${metrics.classes.length} classes`));
-    }
-
-    for (const cls of metrics.classes) {
-      const className = cls.className;
-
-      for (const method of cls.methods) {
-        const methodName = method.name || "unknownMethod";
-        const { cyclomaticComplexity, functionSize, nestingDepth } = method;
-
-        if (cyclomaticComplexity > 10) {
-          results.push(this.createViolation("QA006", fileName, null,
-            `High cyclomatic complexity (${cyclomaticComplexity}) in ${className}.${methodName}()`));
-        }
-
-        if (functionSize > 50) {
-          results.push(this.createViolation("QA007", fileName, null,
-            `Large function (${functionSize} statements) in ${className}.${methodName}()`));
-        }
-
-        if (nestingDepth > 4) {
-          results.push(this.createViolation("QA008", fileName, null,
-            `Deep nesting (${nestingDepth} levels) in ${className}.${methodName}()`));
-        }
+    for (const ruleId of [...this.dispatch.file, ...this.dispatch.metrics]) {
+      for (const message of METRICS_RULES[ruleId].check(metrics)) {
+        results.push(this.createViolation(ruleId, fileName, null, message));
       }
     }
   }
 
   /* ---------------- Helper Methods ---------------- */
+  private dedupe(results: RuleViolation[]): RuleViolation[] {
+    const seen = new Set<string>();
+    return results.filter(v => {
+      const key = `${v.ruleId}\0${v.location}\0${v.description}`;
+      if (seen.has(key)) return false;
+      seen.add(key);
+      return true;
+    });
+  }
+
   private createViolation(ruleId: string, file: string, node: any, message?: string): RuleViolation {
     const rule = this.getRule(ruleId);
     const location = node ? this.getNodeLocation(file, node) : file;
@@ -197,9 +263,6 @@ export class RuleEngine {
   }
 
   private getRule(ruleId: string) {
-    for (const cat of Object.values(this.rules.categories)) {
-      if ((cat as any)[ruleId]) return (cat as any)[ruleId];
-    }
-    return { desc: "Unknown rule", severity: "low" };
+    return this.ruleMeta.get(ruleId) ?? { desc: "Unknown rule", severity: "low" };
   }
 }
@@ -1,13 +1,64 @@
+export type CFGNodeType = "start" | "end" | "statement" | "condition" | "loopHeader";
+
+/**
+ * seq: fall-through; true/false: branch outcomes; back: edge to a dominating
+ * loop header; case: switch dispatch; exception: try body to catch;
+ * finally: into a finally block; break/continue/return: abrupt jumps.
+ */
+export type CFGEdgeKind =
+  | "seq"
+  | "true"
+  | "false"
+  | "back"
+  | "case"
+  | "exception"
+  | "finally"
+  | "break"
+  | "continue"
+  | "return";
+
+/** One basic block */
 export interface CFGNode {
-  id: string;
+  id: number;
   label: string;
-  type: "start" | "end" | "statement" | "condition";
-  next: string[];
+  type: CFGNodeType;
+  /** Statements in the block */
+  stmts: number;
+  /** Method invocations / allocations evaluated in the block */
+  calls: number;
+  allocs: number;
+  next: number[];
+  /** Immediate dominator; -1 when unreachable from the entry */
+  idom: number;
+  /** Number of natural loops containing the block */
+  loopDepth: number;
+  /** Loop header source, on the header block of each source-level loop */
+  head?: { init?: string; cond?: string; update?: string; iterable?: string };
+}
+
+/** Natural loop; `parent` indexes `CFG.loops` (-1 for outermost loops) */
+export interface CFGLoop {
+  header: number;
+  parent: number;
+  depth: number;
+  blocks: number[];
+  backEdges: [number, number][];
 }
 
 export interface CFG {
   methodName: string;
+  entry: number;
+  exit: number;
   nodes: CFGNode[];
-  edges: [string, string][]; // pairs of node IDs
-   
+  edges: [number, number, CFGEdgeKind][];
+  /** Loop-nesting forest, outer loops before the loops they contain */
+  loops: CFGLoop[];
+  maxLoopDepth: number;
+}
+
+/** All CFGs of one source file, written as a single artifact */
+export interface CFGBundle {
+  kind: "cfg-bundle";
+  fileName: string;
+  methods: { className: string; methodName: string; cfg: CFG }[];
 }
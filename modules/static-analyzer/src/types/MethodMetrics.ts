@@ -22,3 +22,10 @@ export interface FileMetrics {
   fileName: string;
   classes: ClassMetrics[];
 }
+
+/** Metrics of every method in one source file, written as a single artifact */
+export interface MetricsBundle {
+  kind: "metrics-bundle";
+  fileName: string;
+  methods: { className: string; methodName: string; metrics: MethodMetrics }[];
+}
@@ -0,0 +1,31 @@
+/** Type declarations for binaryFormat.js (compact .gcb artifacts) */
+
+export type ArtifactKind = 'ast' | 'cfg' | 'metrics' | 'other';
+export type ArtifactFormat = 'json' | 'binary';
+
+export const FORMAT_VERSION: number;
+export const BINARY_EXTENSION: '.gcb';
+
+export function encode(value: unknown, kind?: ArtifactKind): Buffer;
+export function decode(buf: Buffer | Uint8Array): any;
+export function isBinaryArtifact(buf: Buffer | Uint8Array): boolean;
+
+export class BinaryDocument {
+  constructor(buf: Buffer | Uint8Array);
+  readonly kind: ArtifactKind;
+  root(): any;
+  keys(): string[];
+  get(key: string): any;
+}
+
+export function resolveArtifactFormat(format?: string): ArtifactFormat;
+export function isArtifactFile(file: string): boolean;
+export function parseArtifact(buf: Buffer): any;
+export function readArtifact(filePath: string): Promise<any>;
+export function readArtifactSync(filePath: string): any;
+export function serializeArtifact(
+  baseName: string,
+  value: unknown,
+  kind: ArtifactKind,
+  format?: ArtifactFormat
+): { fileName: string; data: string | Buffer };
@@ -0,0 +1,426 @@
+/**
+ * Compact binary interchange format for AST, CFG and metrics artifacts (.gcb).
+ *
+ * Layout (all integers are unsigned LEB128 varints unless noted):
+ *
+ *   "GCB" u8:version u8:kind
+ *   stringCount  { byteLength utf8Bytes }*        string table
+ *   indexCount   { keyStringId offset }*          offsets into the value section
+ *   value                                         the document root
+ *
+ * Values are tagged: null, false, true, uint, negative int, float64 (LE),
+ * string (string table id), array (count, values), object (count,
+ * { keyStringId value }*). Identifiers, keys and repeated labels are stored
+ * once in the string table, so a project's ASTs shrink to a fraction of
+ * their pretty-printed JSON.
+ *
+ * The index lets a reader decode a single class or method ("Class",
+ * "Class.method") without touching the rest of the file. Strings are only
+ * decoded when a value that uses them is read.
+ */
+
+const fs = require('fs');
+
+const MAGIC = [0x47, 0x43, 0x42]; // "GCB"
+const FORMAT_VERSION = 1;
+const BINARY_EXTENSION = '.gcb';
+
+/** @typedef {'ast' | 'cfg' | 'metrics' | 'other'} ArtifactKind */
+const KINDS = ['other', 'ast', 'cfg', 'metrics'];
+
+const TAG_NULL = 0;
+const TAG_FALSE = 1;
+const TAG_TRUE = 2;
+const TAG_UINT = 3;
+const TAG_NEGINT = 4;
+const TAG_FLOAT = 5;
+const TAG_STRING = 6;
+const TAG_ARRAY = 7;
+const TAG_OBJECT = 8;
+
+/* ---------------- writer ---------------- */
+
+class ByteWriter {
+  constructor(size = 1024) {
+    this.buf = Buffer.allocUnsafe(size);
+    this.length = 0;
+  }
+
+  ensure(n) {
+    if (this.length + n <= this.buf.length) return;
+    let size = this.buf.length * 2;
+    while (size < this.length + n) size *= 2;
+    const next = Buffer.allocUnsafe(size);
+    this.buf.copy(next, 0, 0, this.length);
+    this.buf = next;
+  }
+
+  byte(b) {
+    this.ensure(1);
+    this.buf[this.length++] = b;
+  }
+
+  varint(n) {
+    this.ensure(10);
+    // Arithmetic rather than bit ops so values above 2^31 survive
+    while (n >= 0x80) {
+      this.buf[this.length++] = (n % 0x80) | 0x80;
+      n = Math.floor(n / 0x80);
+    }
+    this.buf[this.length++] = n;
+  }
+
+  float(n) {
+    this.ensure(8);
+    this.buf.writeDoubleLE(n, this.length);
+    this.length += 8;
+  }
+
+  bytes(b) {
+    this.ensure(b.length);
+    b.copy(this.buf, this.length);
+    this.length += b.length;
+  }
+
+  result() {
+    return this.buf.subarray(0, this.length);
+  }
+}
+
+/**
+ * Index entries for a document: the subtrees a reader may want on their own.
+ * ASTs are indexed by class and `Class.method`, CFG/metrics bundles by
+ * `Class.method` (overloads get `#2`, `#3`...).
+ * @param {any} value
+ * @param {ArtifactKind} kind
+ * @returns {Map<object, string>}
+ */
+function defaultIndex(value, kind) {
+  const index = new Map();
+  if (!value || typeof value !== 'object') return index;
+
+  const used = new Set();
+  const unique = key => {
+    let k = key;
+    for (let n = 2; used.has(k); n++) k = `${key}#${n}`;
+    used.add(k);
+    return k;
+  };
+
+  if ((kind === 'cfg' || kind === 'metrics') && Array.isArray(value.methods)) {
+    for (const entry of value.methods) {
+      if (entry && typeof entry === 'object') index.set(entry, unique(`${entry.className}.${entry.methodName}`));
+    }
+    return index;
+  }
+  if (kind !== 'ast' || !Array.isArray(value.classes)) return index;
+
+  for (const cls of value.classes) {
+    if (!cls || typeof cls !== 'object') continue;
+    const className = cls.name || 'UnknownClass';
+    index.set(cls, unique(className));
+    for (const m of cls.methods || []) {
+      if (m && typeof m === 'object') index.set(m, unique(`${className}.${m.name}`));
+    }
+  }
+  return index;
+}
+
+/**
+ * Encode a JSON-compatible value. Like JSON.stringify, undefined and
+ * function members are dropped and non-finite numbers become null.
+ * @param {any} value
+ * @param {ArtifactKind} [kind]
+ * @returns {Buffer}
+ */
+function encode(value, kind = 'other') {
+  const strings = new Map();
+  const stringList = [];
+  const stringId = s => {
+    let id = strings.get(s);
+    if (id === undefined) {
+      id = stringList.length;
+      strings.set(s, id);
+      stringList.push(s);
+    }
+    return id;
+  };
+
+  const indexed = defaultIndex(value, kind);
+  const offsets = [];
+  const body = new ByteWriter(4096);
+
+  const write = v => {
+    if (v !== null && typeof v === 'object' && typeof v.toJSON === 'function') v = v.toJSON();
+
+    if (v === null || v === undefined) return body.byte(TAG_NULL);
+    switch (typeof v) {
+      case 'boolean':
+        return body.byte(v ? TAG_TRUE : TAG_FALSE);
+      case 'number':
+        if (!Number.isFinite(v)) return body.byte(TAG_NULL);
+        if (Number.isSafeInteger(v) && !Object.is(v, -0)) {
+          body.byte(v >= 0 ? TAG_UINT : TAG_NEGINT);
+          return body.varint(Math.abs(v));
+        }
+        body.byte(TAG_FLOAT);
+        return body.float(v);
+      case 'string':
+        body.byte(TAG_STRING);
+        return body.varint(stringId(v));
+      case 'object':
+        break;
+      default:
+        return body.byte(TAG_NULL);
+    }
+
+    const key = indexed.get(v);
+    if (key !== undefined) offsets.push([stringId(key), body.length]);
+
+    if (Array.isArray(v)) {
+      body.byte(TAG_ARRAY);
+      body.varint(v.length);
+      for (const item of v) write(typeof item === 'function' ? null : item);
+      return;
+    }
+
+    const entries = Object.entries(v).filter(([, val]) => val !== undefined && typeof val !== 'function');
+    body.byte(TAG_OBJECT);
+    body.varint(entries.length);
+    for (const [k, val] of entries) {
+      body.varint(stringId(k));
+      write(val);
+    }
+  };
+
+  write(value);
+
+  const out = new ByteWriter(body.length + 64);
+  for (const b of MAGIC) out.byte(b);
+  out.byte(FORMAT_VERSION);
+  out.byte(Math.max(0, KINDS.indexOf(kind)));
+
+  out.varint(stringList.length);
+  for (const s of stringList) {
+    const bytes = Buffer.from(s, 'utf8');
+    out.varint(bytes.length);
+    out.bytes(bytes);
+  }
+
+  out.varint(offsets.length);
+  for (const [keyId, offset] of offsets) {
+    out.varint(keyId);
+    out.varint(offset);
+  }
+
+  out.bytes(body.result());
+  return out.result();
+}
+
+/* ---------------- reader ---------------- */
+
+/**
+ * @param {Buffer | Uint8Array} buf
+ * @returns {boolean}
+ */
+function isBinaryArtifact(buf) {
+  return buf.length >= 5 && buf[0] === MAGIC[0] && buf[1] === MAGIC[1] && buf[2] === MAGIC[2];
+}
+
+/**
+ * A decoded header over an encoded buffer. Values are decoded on demand.
+ */
+class BinaryDocument {
+  /** @param {Buffer | Uint8Array} buf */
+  constructor(buf) {
+    if (!isBinaryArtifact(buf)) throw new Error('Not a GreenCode binary artifact');
+    if (buf[3] !== FORMAT_VERSION) throw new Error(`Unsupported binary artifact version ${buf[3]}`);
+
+    this.buf = Buffer.isBuffer(buf) ? buf : Buffer.from(buf.buffer, buf.byteOffset, buf.byteLength);
+    /** @type {ArtifactKind} */
+    this.kind = /** @type {ArtifactKind} */ (KINDS[buf[4]] || 'other');
+    this.pos = 5;
+
+    // String table: remember where each string is, decode lazily
+    const count = this.varint();
+    this.stringStart = new Array(count);
+    this.stringEnd = new Array(count);
+    this.stringCache = new Array(count);
+    for (let i = 0; i < count; i++) {
+      const len = this.varint();
+      this.stringStart[i] = this.pos;
+      this.stringEnd[i] = this.pos + len;
+      this.pos += len;
+    }
+
+    const indexCount = this.varint();
+    /** @type {Map<string, number>} */
+    this.index = new Map();
+    const entries = [];
+    for (let i = 0; i < indexCount; i++) entries.push([this.varint(), this.varint()]);
+
+    this.bodyStart = this.pos;
+    for (const [keyId, offset] of entries) this.index.set(this.string(keyId), this.bodyStart + offset);
+  }
+
+  varint() {
+    let result = 0;
+    let scale = 1;
+    for (;;) {
+      const b = this.buf[this.pos++];
+      if (b === undefined) throw new Error('Truncated binary artifact');
+      result += (b & 0x7f) * scale;
+      if (b < 0x80) return result;
+      scale *= 0x80;
+    }
+  }
+
+  string(id) {
+    let s = this.stringCache[id];
+    if (s === undefined) {
+      if (this.stringStart[id] === undefined) throw new Error(`Bad string id ${id}`);
+      s = this.buf.toString('utf8', this.stringStart[id], this.stringEnd[id]);
+      this.stringCache[id] = s;
+    }
+    return s;
+  }
+
+  value() {
+    const tag = this.buf[this.pos++];
+    switch (tag) {
+      case TAG_NULL: return null;
+      case TAG_FALSE: return false;
+      case TAG_TRUE: return true;
+      case TAG_UINT: return this.varint();
+      case TAG_NEGINT: return -this.varint();
+      case TAG_FLOAT: {
+        const v = this.buf.readDoubleLE(this.pos);
+        this.pos += 8;
+        return v;
+      }
+      case TAG_STRING: return this.string(this.varint());
+      case TAG_ARRAY: {
+        const n = this.varint();
+        const arr = new Array(n);
+        for (let i = 0; i < n; i++) arr[i] = this.value();
+        return arr;
+      }
+      case TAG_OBJECT: {
+        const n = this.varint();
+        const obj = {};
+        for (let i = 0; i < n; i++) {
+          const key = this.string(this.varint());
+          if (key === '__proto__') {
+            // Same own-property semantics as JSON.parse
+            Object.defineProperty(obj, key, { value: this.value(), enumerable: true, writable: true, configurable: true });
+          } else {
+            obj[key] = this.value();
+          }
+        }
+        return obj;
+      }
+      default:
+        throw new Error(`Bad value tag ${tag} at ${this.pos - 1}`);
+    }
+  }
+
+  /** Decode the whole document */
+  root() {
+    this.pos = this.bodyStart;
+    return this.value();
+  }
+
+  /** Indexed keys, e.g. "Calculator" and "Calculator.add" */
+  keys() {
+    return [...this.index.keys()];
+  }
+
+  /**
+   * Decode one indexed subtree, or undefined when the key is not indexed.
+   * @param {string} key
+   */
+  get(key) {
+    const offset = this.index.get(key);
+    if (offset === undefined) return undefined;
+    this.pos = offset;
+    return this.value();
+  }
+}
+
+/**
+ * @param {Buffer | Uint8Array} buf
+ * @returns {any}
+ */
+function decode(buf) {
+  return new BinaryDocument(buf).root();
+}
+
+/* ---------------- file helpers ---------------- */
+
+/**
+ * Output format for pipeline artifacts. JSON stays the default until every
+ * consumer reads .gcb; GREENCODE_ARTIFACT_FORMAT=binary switches writers.
+ * @param {string} [format]
+ * @returns {'json' | 'binary'}
+ */
+function resolveArtifactFormat(format) {
+  const f = (format || process.env.GREENCODE_ARTIFACT_FORMAT || 'json').toLowerCase();
+  return f === 'binary' || f === 'gcb' ? 'binary' : 'json';
+}
+
+/** @param {string} file */
+function isArtifactFile(file) {
+  return file.endsWith('.json') || file.endsWith(BINARY_EXTENSION);
+}
+
+/**
+ * Parse an artifact buffer in either format (sniffed by magic bytes).
+ * @param {Buffer} buf
+ */
+function parseArtifact(buf) {
+  return isBinaryArtifact(buf) ? decode(buf) : JSON.parse(buf.toString('utf8'));
+}
+
+/**
+ * Read an AST/CFG/metrics artifact written as JSON or .gcb.
+ * @param {string} filePath
+ */
+function readArtifactSync(filePath) {
+  return parseArtifact(fs.readFileSync(filePath));
+}
+
+/** @param {string} filePath */
+async function readArtifact(filePath) {
+  return parseArtifact(await fs.promises.readFile(filePath));
+}
+
+/**
+ * Serialize for writing. `baseName` has no extension; the returned file
+ * name carries the one matching the format.
+ * @param {string} baseName
+ * @param {any} value
+ * @param {ArtifactKind} kind
+ * @param {'json' | 'binary'} [format]
+ * @returns {{ fileName: string, data: string | Buffer }}
+ */
+function serializeArtifact(baseName, value, kind, format) {
+  if (resolveArtifactFormat(format) === 'binary') {
+    return { fileName: baseName + BINARY_EXTENSION, data: encode(value, kind) };
+  }
+  return { fileName: baseName + '.json', data: JSON.stringify(value, null, 2) };
+}
+
+module.exports = {
+  FORMAT_VERSION,
+  BINARY_EXTENSION,
+  encode,
+  decode,
+  isBinaryArtifact,
+  BinaryDocument,
+  resolveArtifactFormat,
+  isArtifactFile,
+  parseArtifact,
+  readArtifact,
+  readArtifactSync,
+  serializeArtifact
+};
@@ -0,0 +1,82 @@
+import fs from 'fs';
+import os from 'os';
+import path from 'path';
+import { BinaryDocument, readArtifactSync } from '../shared/binaryFormat';
+import {
+  analyzeAST,
+  flushAnalysisOutput,
+  resetAnalysisTracking
+} from '../modules/static-analyzer/src/analysis/metrics/MetricsAnalyzer';
+import { CFGIndex, methodKey } from '../modules/energy-analyzer/src/core/cfgIndex';
+
+process.env.GREENCODE_NO_CACHE = '1';
+
+const dir = fs.mkdtempSync(path.join(os.tmpdir(), 'greencode-bundle-'));
+
+const stmt = (calls = 0) => ({ type: 'stmt', calls });
+
+const ast = {
+  classes: [
+    {
+      name: 'Board',
+      methods: [
+        { name: 'move', flow: [{ type: 'if', then: [stmt(1)], else: [stmt()] }], conditionals: ['if'] },
+        { name: 'scan', flow: [{ type: 'for', id: 0, body: [stmt(2)] }], loops: ['for'] }
+      ]
+    },
+    { name: 'Square', methods: [{ name: 'dark', flow: [stmt()] }] }
+  ]
+};
+
+/** Run the analysis for Board.java into fresh output folders */
+async function analyze(name: string) {
+  const cfgDir = path.join(dir, name, 'cfg');
+  const metricsDir = path.join(dir, name, 'metrics');
+  resetAnalysisTracking();
+  analyzeAST(ast, '/src/Board.java', metricsDir, cfgDir);
+  await flushAnalysisOutput();
+  return { cfgDir, metricsDir };
+}
+
+describe('Static Analyzer - per-file CFG and metrics bundles', () => {
+  it('writes one CFG and one metrics bundle per source file, covering every method', async () => {
+    const { cfgDir, metricsDir } = await analyze('json');
+
+    expect(fs.readdirSync(cfgDir)).toEqual(['Board_cfg.json']);
+    expect(fs.readdirSync(metricsDir)).toEqual(['Board_metrics.json']);
+
+    const cfgs = readArtifactSync(path.join(cfgDir, 'Board_cfg.json'));
+    expect(cfgs.kind).toBe('cfg-bundle');
+    expect(cfgs.fileName).toBe('Board.java');
+    expect(cfgs.methods.map((m: any) => `${m.className}.${m.methodName}`)).toEqual(['Board.move', 'Board.scan', 'Square.dark']);
+    expect(cfgs.methods[1].cfg.loops).toHaveLength(1);
+
+    const metrics = readArtifactSync(path.join(metricsDir, 'Board_metrics.json'));
+    expect(metrics.kind).toBe('metrics-bundle');
+    expect(metrics.methods.find((m: any) => m.methodName === 'move').metrics.cyclomaticComplexity).toBe(2);
+  });
+
+  it('indexes binary bundles by Class.method so one method decodes on its own', async () => {
+    process.env.GREENCODE_ARTIFACT_FORMAT = 'binary';
+    try {
+      const { cfgDir } = await analyze('binary');
+      expect(fs.readdirSync(cfgDir)).toEqual(['Board_cfg.gcb']);
+
+      const doc = new BinaryDocument(fs.readFileSync(path.join(cfgDir, 'Board_cfg.gcb')));
+      expect(doc.kind).toBe('cfg');
+      expect(doc.keys()).toEqual(['Board.move', 'Board.scan', 'Square.dark']);
+      expect(doc.get('Square.dark').methodName).toBe('dark');
+    } finally {
+      delete process.env.GREENCODE_ARTIFACT_FORMAT;
+    }
+  });
+
+  it('is read back by the energy analyzer CFG index', async () => {
+    const { cfgDir } = await analyze('index');
+    const index = CFGIndex.loadSync([path.join(cfgDir, 'Board_cfg.json')]);
+
+    expect(index.files).toBe(1);
+    expect(index.size).toBe(3);
+    expect(index.get(methodKey('Board', 'scan'))!.cfg.loops).toHaveLength(1);
+  });
+});
@@ -0,0 +1,74 @@
+import fs from 'fs';
+import os from 'os';
+import path from 'path';
+import { pathToFileURL } from 'url';
+import { parseFolder, parseWithWorkers } from '../modules/static-analyzer/src/parser/BatchParser';
+
+process.env.GREENCODE_NO_CACHE = '1';
+
+const dir = fs.mkdtempSync(path.join(os.tmpdir(), 'greencode-parse-'));
+const workerUrl = pathToFileURL(path.join(process.cwd(), 'testing/fixtures/parseWorker.mjs'));
+
+/** A Java file whose size grows with `methods` */
+function javaFile(folder: string, name: string, methods: number): string {
+  fs.mkdirSync(folder, { recursive: true });
+  const file = path.join(folder, `${name}.java`);
+  const body = Array.from({ length: methods }, (_, i) => `  int m${i}(int x) { return x + ${i}; }`).join('\n');
+  fs.writeFileSync(file, `public class ${name} {\n${body}\n}\n`);
+  return file;
+}
+
+function collector() {
+  const parsed: Array<{ file: string; ast: any }> = [];
+  const onParsed = async (file: string, json: string) => {
+    parsed.push({ file: path.basename(file, '.java'), ast: JSON.parse(json) });
+  };
+  return { parsed, onParsed };
+}
+
+describe('Static Analyzer - batch parser pool', () => {
+  it('hands files out largest first and keeps going past a failed file', async () => {
+    const folder = path.join(dir, 'order');
+    const files = [javaFile(folder, 'Small', 1), javaFile(folder, 'Broken', 6), javaFile(folder, 'Big', 20), javaFile(folder, 'Mid', 8)];
+    const { parsed, onParsed } = collector();
+    const errors = vi.spyOn(console, 'error').mockImplementation(() => {});
+
+    await parseWithWorkers(files, 1, workerUrl, onParsed);
+
+    expect(parsed.map(p => p.file)).toEqual(['Big', 'Mid', 'Small']);
+    expect(errors.mock.calls.some(args => args.includes('syntax error'))).toBe(true);
+    errors.mockRestore();
+  });
+
+  it('re-parses a file in-process when its worker dies, without losing the others', async () => {
+    const folder = path.join(dir, 'crash');
+    const files = ['A', 'B', 'C', 'D', 'E'].map((name, i) => javaFile(folder, name, i + 1));
+    files.push(javaFile(folder, 'Crash', 3));
+    const { parsed, onParsed } = collector();
+    const errors = vi.spyOn(console, 'error').mockImplementation(() => {});
+
+    await parseWithWorkers(files, 3, workerUrl, onParsed);
+    errors.mockRestore();
+
+    expect(parsed.map(p => p.file).sort()).toEqual(['A', 'B', 'C', 'Crash', 'D', 'E']);
+    const crash = parsed.find(p => p.file === 'Crash')!.ast;
+    expect(crash.fromWorker).toBeUndefined();
+    expect(crash.classes.map((c: any) => c.name)).toEqual(['Crash']);
+    expect(crash.classes[0].methods).toHaveLength(3);
+    expect(parsed.filter(p => p.ast.fromWorker)).toHaveLength(5);
+  });
+
+  it('writes one compact AST file per source file', async () => {
+    const folder = path.join(dir, 'folder');
+    const outDir = path.join(dir, 'ast');
+    javaFile(folder, 'Board', 2);
+    javaFile(folder, 'Game', 1);
+
+    await parseFolder(folder, outDir, { format: 'json' });
+
+    expect(fs.readdirSync(outDir).sort()).toEqual(['Board.json', 'Game.json']);
+    const board = fs.readFileSync(path.join(outDir, 'Board.json'), 'utf8');
+    expect(board).not.toContain('\n');
+    expect(JSON.parse(board).classes[0].methods.map((m: any) => m.name)).toEqual(['m0', 'm1']);
+  });
+});
@@ -0,0 +1,88 @@
+import fs from 'fs';
+import os from 'os';
+import path from 'path';
+import {
+  RUNTIME_WEIGHT,
+  enhanceReport,
+  histogramFromSamples,
+  loadJavaBenchmarkResults,
+  samplesFromHistogram
+} from '../modules/energy-analyzer/src/analyzers/benchmarkAnalyzer';
+import { bootstrapQuantiles } from '../modules/energy-analyzer/src/history/historyStore';
+
+/** Deterministic samples around center, spread as a fraction of center */
+function samples(center: number, spread: number, n = 100): number[] {
+  return Array.from({ length: n }, (_, i) => center * (1 + spread * Math.sin(i * 12.9898)));
+}
+
+function staticReport(methodName: string, energyScore: number) {
+  return { className: 'Engine', methodName, energyScore, cpuScore: energyScore, memScore: 0, ioScore: 0, loopCount: 1 };
+}
+
+function benchmark(methodName: string, data: number[]) {
+  const sorted = [...data].sort((a, b) => a - b);
+  return {
+    className: 'Engine',
+    methodName,
+    medianMs: sorted[sorted.length >> 1],
+    meanMs: sorted.reduce((s, v) => s + v, 0) / sorted.length,
+    runs: sorted.length,
+    histogram: histogramFromSamples(data)
+  };
+}
+
+describe('Energy Analyzer - Benchmark uncertainty', () => {
+  it('keeps samples in a compact histogram to within 1%', () => {
+    const data = samples(10, 0.2);
+    const h = histogramFromSamples(data);
+    expect(h.buckets.length).toBeLessThan(data.length);
+
+    const restored = samplesFromHistogram(h).sort((a, b) => a - b);
+    const sorted = [...data].sort((a, b) => a - b);
+    expect(restored).toHaveLength(100);
+    restored.forEach((v, i) => expect(Math.abs(v / sorted[i] - 1)).toBeLessThan(0.011));
+  });
+
+  it('bootstraps deterministic intervals for median and p95', () => {
+    const data = samples(10, 0.2);
+    const a = bootstrapQuantiles(data, [0.5, 0.95], 7, 500);
+    expect(bootstrapQuantiles(data, [0.5, 0.95], 7, 500)).toEqual(a);
+    expect(a[0].ciLow).toBeLessThan(a[0].estimate);
+    expect(a[0].ciHigh).toBeGreaterThan(a[0].estimate);
+    expect(a[1].estimate).toBeGreaterThan(a[0].estimate);
+  });
+
+  it('trusts precise timings and discounts noisy ones', () => {
+    const precise = enhanceReport(staticReport('stable', 0.5), benchmark('stable', samples(10, 0.01)));
+    const noisy = enhanceReport(staticReport('noisy', 0.5), benchmark('noisy', samples(10, 0.9, 20)));
+
+    expect(precise.runtimeWeight).toBeGreaterThan(0.39);
+    expect(noisy.runtimeWeight).toBeLessThan(RUNTIME_WEIGHT / 2);
+    expect(noisy.medianCI![1] - noisy.medianCI![0]).toBeGreaterThan(precise.medianCI![1] - precise.medianCI![0]);
+    expect(noisy.p95CI).toHaveLength(2);
+
+    const [low, high] = noisy.combinedEnergyInterval!;
+    expect(low).toBeLessThan(noisy.combinedEnergyScore);
+    expect(high).toBeGreaterThan(noisy.combinedEnergyScore);
+  });
+
+  it('does not let a noisy measurement overturn the static ranking', () => {
+    // Static analysis ranks `solve` above `render`; render's only evidence is a very noisy benchmark
+    const solve = enhanceReport(staticReport('solve', 0.6), benchmark('solve', samples(10, 0.01)));
+    const render = enhanceReport(staticReport('render', 0.4), benchmark('render', samples(60, 0.95)));
+    expect(solve.combinedEnergyScore).toBeGreaterThan(render.combinedEnergyScore);
+  });
+
+  it('falls back to the full runtime weight without samples', () => {
+    const r = enhanceReport(staticReport('legacy', 0.5), { className: 'Engine', methodName: 'legacy', medianMs: 10, meanMs: 10, runs: 5 });
+    expect(r.runtimeWeight).toBe(RUNTIME_WEIGHT);
+    expect(r.medianCI).toBeUndefined();
+  });
+
+  it('expands runner histograms into samples when loading results', () => {
+    const file = path.join(fs.mkdtempSync(path.join(os.tmpdir(), 'greencode-bench-')), 'results.json');
+    fs.writeFileSync(file, JSON.stringify([benchmark('stable', samples(10, 0.05))]));
+    const [loaded] = loadJavaBenchmarkResults(file);
+    expect(loaded.samplesMs).toHaveLength(100);
+  });
+});
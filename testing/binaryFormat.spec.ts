@@ -0,0 +1,57 @@
+import {
+  BinaryDocument,
+  decode,
+  encode,
+  isBinaryArtifact,
+  parseArtifact,
+  serializeArtifact
+} from '../shared/binaryFormat';
+
+const ast = {
+  file: '/project/Calculator.java',
+  classes: [
+    {
+      type: 'Class',
+      name: 'Calculator',
+      methods: [
+        { name: 'add', params: [{ type: 'int', name: 'a' }], loops: ['for'], totalLoopCount: 1 },
+        { name: 'add', params: [], loops: [], ratio: 0.25, offset: -3, big: 2 ** 40 }
+      ],
+      fields: ['private int total;']
+    }
+  ]
+};
+
+describe('Shared - Binary artifact format', () => {
+  it('round-trips JSON values exactly', () => {
+    const buf = encode(ast, 'ast');
+    expect(isBinaryArtifact(buf)).toBe(true);
+    expect(decode(buf)).toEqual(ast);
+  });
+
+  it('drops undefined members and non-finite numbers like JSON', () => {
+    const value = { a: undefined, b: [NaN, Infinity], c: null };
+    expect(decode(encode(value))).toEqual(JSON.parse(JSON.stringify(value)));
+  });
+
+  it('indexes classes and methods, suffixing overloads', () => {
+    const doc = new BinaryDocument(encode(ast, 'ast'));
+    expect(doc.kind).toBe('ast');
+    expect(doc.keys()).toEqual(['Calculator', 'Calculator.add', 'Calculator.add#2']);
+    expect(doc.get('Calculator.add#2')).toEqual(ast.classes[0].methods[1]);
+    expect(doc.get('Missing.method')).toBeUndefined();
+  });
+
+  it('is much smaller than pretty-printed JSON', () => {
+    const json = serializeArtifact('Calculator', ast, 'ast', 'json');
+    const bin = serializeArtifact('Calculator', ast, 'ast', 'binary');
+    expect(json.fileName).toBe('Calculator.json');
+    expect(bin.fileName).toBe('Calculator.gcb');
+    expect(bin.data.length).toBeLessThan(json.data.length / 2);
+  });
+
+  it('reads either format from a buffer', () => {
+    expect(parseArtifact(Buffer.from(JSON.stringify(ast)))).toEqual(ast);
+    expect(parseArtifact(encode(ast, 'ast'))).toEqual(ast);
+  });
+});
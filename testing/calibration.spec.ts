@@ -0,0 +1,114 @@
+import fs from 'fs';
+import os from 'os';
+import path from 'path';
+import {
+  EnergyModel,
+  TrainingSample,
+  collectTrainingSamples,
+  fitEnergyModel,
+  invert,
+  loadModel,
+  methodFeatures,
+  predictMedianMs,
+  saveModel
+} from '../modules/energy-analyzer/src/estimators/calibratedModel';
+import { appendRun, buildRun } from '../modules/energy-analyzer/src/history/historyStore';
+
+/** Synthetic fleet: time grows with loops and allocations, with deterministic noise */
+function samples(n: number, project = 'chess'): TrainingSample[] {
+  return Array.from({ length: n }, (_, i) => {
+    const loopCount = i % 5;
+    const objectCreations = (i * 7) % 11;
+    const noise = 0.05 * Math.sin(i * 12.9898);
+    const logMs = -1 + 1.5 * Math.log1p(loopCount) + 0.6 * Math.log1p(objectCreations) + noise;
+    return {
+      project,
+      key: `c${i}.m`,
+      features: methodFeatures({ loopCount, objectCreations, cyclomatic: 1 + (i % 3), energyScore: 0.2 }),
+      medianMs: Math.exp(logMs)
+    };
+  });
+}
+
+describe('Energy Analyzer - Calibrated energy model', () => {
+  it('turns report metrics into numeric features', () => {
+    const f = methodFeatures({ loopCount: 2, recursion: true, energyScore: 0.4 });
+    expect(f.loopCount).toBe(2);
+    expect(f.recursion).toBe(1);
+    expect(f.dbCalls).toBe(0);
+    expect(f.inclusiveEnergyScore).toBe(0.4);
+  });
+
+  it('records static features column-wise in history runs', () => {
+    const run = buildRun('chess', 'real-jmh-execution', [
+      { className: 'Board', methodName: 'move', medianMs: 2, meanMs: 2, runs: 10 },
+      { className: 'Board', methodName: 'undo', medianMs: 1, meanMs: 1, runs: 10 }
+    ], new Map(), new Map([['board.move', { loopCount: 1, cyclomatic: 3 }]]));
+    expect(run.featureNames).toEqual(['loopCount', 'cyclomatic']);
+    expect(run.features).toEqual([[1, 3], null]);
+
+    expect(buildRun('chess', 'real-jmh-execution', []).features).toBeUndefined();
+  });
+
+  it('inverts a small matrix', () => {
+    const inv = invert([[4, 7], [2, 6]]);
+    expect(inv[0][0]).toBeCloseTo(0.6);
+    expect(inv[0][1]).toBeCloseTo(-0.7);
+    expect(inv[1][0]).toBeCloseTo(-0.2);
+    expect(inv[1][1]).toBeCloseTo(0.4);
+  });
+
+  it('fits measured timings and brackets them with prediction intervals', () => {
+    const model = fitEnergyModel(samples(60), 3);
+    expect(model.formatVersion).toBe(1);
+    expect(model.training.samples).toBe(60);
+    expect(model.training.r2).toBeGreaterThan(0.95);
+
+    const truth = Math.exp(-1 + 1.5 * Math.log1p(3) + 0.6 * Math.log1p(4));
+    const p = predictMedianMs(model, methodFeatures({ loopCount: 3, objectCreations: 4, cyclomatic: 2, energyScore: 0.2 }));
+    expect(p.medianMs / truth).toBeGreaterThan(0.85);
+    expect(p.medianMs / truth).toBeLessThan(1.15);
+    expect(p.low).toBeLessThan(truth);
+    expect(p.high).toBeGreaterThan(truth);
+
+    // Far outside the training data the interval widens
+    const far = predictMedianMs(model, methodFeatures({ loopCount: 40, objectCreations: 4, cyclomatic: 2, energyScore: 0.2 }));
+    expect(far.high / far.low).toBeGreaterThan(p.high / p.low);
+  });
+
+  it('refuses to fit on too few measurements', () => {
+    expect(() => fitEnergyModel(samples(5), 1)).toThrow(/at least 10/);
+  });
+
+  it('trains across project histories, skipping estimates and collapsing repeats', () => {
+    const dir = fs.mkdtempSync(path.join(os.tmpdir(), 'greencode-history-'));
+    const results = [{ className: 'Board', methodName: 'move', medianMs: 2, meanMs: 2, runs: 10 }];
+    const features = new Map([['board.move', { loopCount: 1 }]]);
+
+    appendRun(path.join(dir, 'chess.ndjson'), buildRun('chess', 'real-jmh-execution', results, new Map(), features));
+    appendRun(path.join(dir, 'chess.ndjson'), buildRun('chess', 'real-jmh-execution',
+      [{ ...results[0], medianMs: 4 }], new Map(), features));
+    appendRun(path.join(dir, 'chess.ndjson'), buildRun('chess', 'complexity-estimated',
+      [{ ...results[0], medianMs: 100 }], new Map(), features));
+    appendRun(path.join(dir, 'shop.ndjson'), buildRun('shop', 'provided file', results, new Map(), features));
+
+    const { samples: all, runs } = collectTrainingSamples(dir);
+    expect(runs).toBe(3);
+    expect(all).toHaveLength(2);
+    expect(all.find(s => s.project === 'chess')!.medianMs).toBe(3);
+
+    expect(collectTrainingSamples(dir, ['shop']).samples).toHaveLength(1);
+  });
+
+  it('saves a versioned model and rejects other versions', () => {
+    const dir = fs.mkdtempSync(path.join(os.tmpdir(), 'greencode-model-'));
+    const model = fitEnergyModel(samples(30), 1);
+    const modelPath = path.join(dir, 'energy-model.json');
+    saveModel(model, modelPath);
+    expect(loadModel(modelPath).modelId).toBe(model.modelId);
+
+    const future: EnergyModel = { ...model, formatVersion: 99 };
+    fs.writeFileSync(modelPath, JSON.stringify(future));
+    expect(() => loadModel(modelPath)).toThrow(/version 99/);
+  });
+});
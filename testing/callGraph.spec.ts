@@ -0,0 +1,112 @@
+import { applyCallGraph, buildCallGraph, propagateInclusiveCost, stronglyConnectedComponents } from '../modules/energy-analyzer/src/core/callGraph';
+import { computeScoresFromMetrics } from '../modules/energy-analyzer/src/core/orchestrator';
+
+const files: any[] = [
+  {
+    fileName: 'Game.java',
+    classes: [
+      {
+        name: 'Shape',
+        fields: [],
+        methods: [{ name: 'area', invocations: [] }]
+      },
+      {
+        name: 'Square',
+        extends: 'Shape',
+        fields: [],
+        methods: [{ name: 'scale', invocations: [{ name: 'area' }] }]
+      },
+      {
+        name: 'Board',
+        fields: ['private final List<Square> squares;', 'private Square focus;'],
+        methods: [
+          {
+            name: 'render',
+            params: [{ name: 'other', type: 'Square' }],
+            localVariables: ['Shape s'],
+            flow: [{ type: 'for', id: 0, head: { init: 'int i=0', cond: 'i<8', update: 'i++' }, body: [] }],
+            invocations: [
+              { name: 'focus.scale', loop: 0 },
+              { name: 'other.area' },
+              { name: 's.area' },
+              { name: 'squares.size' },
+              { name: 'Parser.even' }
+            ]
+          }
+        ]
+      },
+      {
+        name: 'Parser',
+        fields: [],
+        methods: [
+          { name: 'even', invocations: [{ name: 'odd' }] },
+          { name: 'odd', invocations: [{ name: 'this.even' }] }
+        ]
+      }
+    ]
+  }
+];
+
+describe('Energy Analyzer - call graph', () => {
+  const graph = buildCallGraph(files);
+
+  it('resolves receivers through fields, parameters, locals and the class hierarchy', () => {
+    const render = graph.get('Board.render')!;
+    expect(render.edges.map(e => e.to).sort()).toEqual(['Parser.even', 'Shape.area', 'Square.scale']);
+    expect(render.unresolved).toBe(1); // squares.size() is a List call
+    expect(graph.get('Square.scale')!.edges).toEqual([{ to: 'Shape.area', weight: 1 }]);
+  });
+
+  it('weights call sites by the trip count of the enclosing loop', () => {
+    const render = graph.get('Board.render')!;
+    expect(render.edges.find(e => e.to === 'Square.scale')!.weight).toBe(8);
+    expect(render.edges.find(e => e.to === 'Shape.area')!.weight).toBe(2);
+  });
+
+  it('groups mutual recursion into one component, callees first', () => {
+    const components = stronglyConnectedComponents(graph);
+    const cycle = components.find(c => c.includes('Parser.even'))!;
+    expect([...cycle].sort()).toEqual(['Parser.even', 'Parser.odd']);
+    const order = components.flat();
+    expect(order.indexOf('Shape.area')).toBeLessThan(order.indexOf('Square.scale'));
+    expect(order.indexOf('Square.scale')).toBeLessThan(order.indexOf('Board.render'));
+  });
+
+  it('propagates inclusive cost bottom-up', () => {
+    const self = new Map([
+      ['Shape.area', 1],
+      ['Square.scale', 2],
+      ['Board.render', 5],
+      ['Parser.even', 1],
+      ['Parser.odd', 1]
+    ]);
+    const { inclusive, recursive } = propagateInclusiveCost(graph, self);
+    expect(inclusive.get('Square.scale')).toBe(3);
+    expect(inclusive.get('Parser.even')).toBe(2);
+    expect(inclusive.get('Parser.odd')).toBe(2);
+    // 5 + 8 x scale(3) + 2 x area(1) + even(2)
+    expect(inclusive.get('Board.render')).toBe(33);
+    expect([...recursive].sort()).toEqual(['Parser.even', 'Parser.odd']);
+  });
+
+  it('rescores methods the call graph finds on a cycle before summing inclusive cost', () => {
+    const metrics = {
+      loopCount: 0, cyclomatic: 1, nestingDepth: 1, objectCreations: 0, methodCalls: 1,
+      ioCalls: 0, dbCalls: 0, methodCallsInsideLoop: 0, recursion: false, conditionalsCount: 0
+    };
+    const report = (className: string, methodName: string): any =>
+      ({ className, methodName, loops: [], ...metrics, ...computeScoresFromMetrics(metrics) });
+    const even = report('Parser', 'even');
+    const odd = report('Parser', 'odd');
+    const before = even.energyScore;
+
+    applyCallGraph([even, odd], files);
+
+    const recursiveScore = computeScoresFromMetrics({ ...metrics, recursion: true }).energyScore;
+    expect(even.recursion).toBe(true);
+    expect(even.energyScore).toBe(recursiveScore);
+    expect(even.energyScore).toBeGreaterThan(before);
+    expect(even.selfEnergyScore).toBe(recursiveScore);
+    expect(even.inclusiveEnergyScore).toBe(Number((2 * recursiveScore).toFixed(4)));
+  });
+});
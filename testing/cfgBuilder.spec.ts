@@ -0,0 +1,66 @@
+import { buildCFG } from '../modules/static-analyzer/src/analysis/cfg/CFGBuilder';
+
+process.env.GREENCODE_NO_CACHE = '1';
+
+const stmt = (calls = 0) => ({ type: 'stmt', calls });
+const cyclomatic = (cfg: { nodes: unknown[]; edges: unknown[] }) => cfg.edges.length - cfg.nodes.length + 2;
+
+describe('Static Analyzer - CFG builder', () => {
+  it('builds a single path for straight-line code', () => {
+    const cfg = buildCFG({ name: 'plain', flow: [stmt(), stmt(2)] });
+    expect(cyclomatic(cfg)).toBe(1);
+    expect(cfg.loops).toEqual([]);
+    expect(cfg.nodes[cfg.entry].stmts).toBe(2);
+    expect(cfg.nodes[cfg.entry].calls).toBe(2);
+  });
+
+  it('adds true/false edges for if/else and joins the branches', () => {
+    const cfg = buildCFG({ name: 'branch', flow: [{ type: 'if', then: [stmt()], else: [stmt()] }, stmt()] });
+    expect(cyclomatic(cfg)).toBe(2);
+    const kinds = cfg.edges.map(e => e[2]);
+    expect(kinds).toContain('true');
+    expect(kinds).toContain('false');
+    // Every reachable block is dominated by the entry
+    expect(cfg.nodes.every(n => n.idom !== -1)).toBe(true);
+  });
+
+  it('finds nested natural loops and per-block loop depth', () => {
+    const cfg = buildCFG({
+      name: 'nested',
+      flow: [
+        { type: 'for', body: [{ type: 'while', body: [stmt(3)] }] },
+        { type: 'forEach', body: [stmt()] }
+      ]
+    });
+    expect(cfg.loops).toHaveLength(3);
+    expect(cfg.maxLoopDepth).toBe(2);
+    const inner = cfg.loops.find(l => l.depth === 2)!;
+    expect(cfg.loops[inner.parent].depth).toBe(1);
+    const hot = cfg.nodes.find(n => n.calls === 3)!;
+    expect(hot.loopDepth).toBe(2);
+    expect(cfg.edges.filter(e => e[2] === 'back')).toHaveLength(3);
+  });
+
+  it('treats the do-while body as the loop header', () => {
+    const cfg = buildCFG({ name: 'doLoop', flow: [{ type: 'doWhile', body: [stmt(), { type: 'if', then: [{ type: 'break' }] }] }] });
+    expect(cfg.loops).toHaveLength(1);
+    expect(cfg.nodes[cfg.loops[0].header].type).toBe('loopHeader');
+    expect(cyclomatic(cfg)).toBe(3);
+  });
+
+  it('does not report a loop whose body always returns', () => {
+    const cfg = buildCFG({ name: 'once', flow: [{ type: 'while', body: [{ type: 'return' }] }] });
+    expect(cfg.loops).toEqual([]);
+    expect(cfg.maxLoopDepth).toBe(0);
+  });
+
+  it('adds one exception edge per catch clause and routes returns through finally', () => {
+    const cfg = buildCFG({
+      name: 'guarded',
+      flow: [{ type: 'try', body: [stmt(), { type: 'return' }], catches: [[stmt()], [stmt()]], finally: [stmt()] }]
+    });
+    expect(cfg.edges.filter(e => e[2] === 'exception')).toHaveLength(2);
+    expect(cfg.edges.filter(e => e[2] === 'finally').length).toBeGreaterThanOrEqual(3);
+    expect(cfg.edges.some(e => e[2] === 'return' && e[1] === cfg.exit)).toBe(true);
+  });
+});
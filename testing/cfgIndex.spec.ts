@@ -0,0 +1,52 @@
+import fs from 'fs';
+import os from 'os';
+import path from 'path';
+import { CFGIndex, methodKey } from '../modules/energy-analyzer/src/core/cfgIndex';
+
+const dir = fs.mkdtempSync(path.join(os.tmpdir(), 'greencode-cfg-'));
+
+function bundle(fileName: string, methods: Array<[string, string]>): string {
+  const file = path.join(dir, `${fileName}_cfg.json`);
+  fs.writeFileSync(file, JSON.stringify({
+    kind: 'cfg-bundle',
+    fileName: `${fileName}.java`,
+    methods: methods.map(([className, methodName]) => ({ className, methodName, cfg: { methodName, nodes: [], edges: [] } }))
+  }));
+  return file;
+}
+
+const paths = [
+  bundle('Board', [['Board', 'move'], ['Board', 'render']]),
+  bundle('Game', [['Game', 'play'], ['Board', 'move']]),
+  path.join(dir, 'Missing_cfg.json')
+];
+
+describe('Energy Analyzer - CFG index', () => {
+  it('indexes every bundle once, keeping the first CFG per method', async () => {
+    const index = await CFGIndex.load(paths, { concurrency: 2 });
+    expect(index.size).toBe(3);
+    expect(index.files).toBe(2);
+    expect(index.duplicates).toBe(1);
+    expect(index.failed).toBe(1);
+    expect(index.get(methodKey('Board', 'move'))!.cfgPath).toBe(paths[0]);
+  });
+
+  it('leaves only unclaimed methods for CFG-only reporting', () => {
+    const index = CFGIndex.loadSync(paths.slice(0, 2));
+    index.claim(methodKey('BOARD', 'Move'));
+    index.claim(methodKey('Game', 'play'));
+    expect(index.unclaimed().map(([, e]) => `${e.className}.${e.methodName}`)).toEqual(['Board.render']);
+  });
+
+  it('skips bundle entries without a method name instead of keying them "class.undefined"', () => {
+    const file = path.join(dir, 'Anon_cfg.json');
+    fs.writeFileSync(file, JSON.stringify({
+      kind: 'cfg-bundle',
+      methods: [{ className: 'Anon', cfg: { nodes: [], edges: [] } }, { className: 'Anon', methodName: 'run', cfg: { nodes: [], edges: [] } }]
+    }));
+    const index = CFGIndex.loadSync([file]);
+    expect(index.unnamed).toBe(1);
+    expect(index.size).toBe(1);
+    expect(index.get(methodKey('Anon', 'undefined'))).toBeUndefined();
+  });
+});
@@ -0,0 +1,122 @@
+import fs from 'fs';
+import os from 'os';
+import path from 'path';
+import { CallGraph, propagateInvocationRates } from '../modules/energy-analyzer/src/core/callGraph';
+import { loadDeploymentProfile, projectDeployment } from '../modules/energy-analyzer/src/estimators/deploymentProjection';
+
+function graphOf(edges: Record<string, Array<[string, number]>>): CallGraph {
+  const graph: CallGraph = new Map();
+  for (const [key, out] of Object.entries(edges)) {
+    const [className, methodName] = key.split('.');
+    graph.set(key, { key, className, methodName, unresolved: 0, edges: out.map(([to, weight]) => ({ to, weight })) });
+  }
+  return graph;
+}
+
+// Api.handle -> Service.load (x3) -> Repo.query (x2); Service.load -> Parser.even <-> Parser.odd
+const graph = graphOf({
+  'Api.handle': [['Service.load', 3]],
+  'Service.load': [['Repo.query', 2], ['Parser.even', 1]],
+  'Repo.query': [],
+  'Parser.even': [['Parser.odd', 1]],
+  'Parser.odd': [['Parser.even', 1]],
+  'Cache.unused': [['Repo.query', 1]]
+});
+
+function report(key: string, extra: Record<string, unknown>) {
+  const [className, methodName] = key.split('.');
+  return { className, methodName, energyScore: 0.2, staticEnergyScore: 0.2, selfEnergyScore: 0.2, inclusiveEnergyScore: 0.2, confidenceLevel: 'low', ...extra };
+}
+
+function reports() {
+  return [
+    // 0.2 utilization x 15 W x 10 ms = 0.03 J, a quarter of it the method's own
+    report('Api.handle', { confidenceLevel: 'high', medianMs: 10, inclusiveEnergyScore: 0.8 }),
+    report('Service.load', { predictedJoulesPerOp: 0.01 }),
+    report('Repo.query', { predictedJoulesPerOp: 0.05 }),
+    report('Parser.even', {}),
+    report('Parser.odd', { predictedJoulesPerOp: 0.001 }),
+    report('Cache.unused', { predictedJoulesPerOp: 1 })
+  ];
+}
+
+const profile = {
+  name: 'prod',
+  entryPoints: { 'api.HANDLE': 10, 'Missing.run': 5 },
+  carbonIntensityGPerKwh: 400,
+  costPerKwhUSD: 0.2,
+  pue: 1.5
+};
+
+describe('Energy Analyzer - deployment projection', () => {
+  it('pushes entry point call rates down the weighted call graph', () => {
+    const rates = propagateInvocationRates(graph, new Map([['Api.handle', 10]]));
+    expect(rates.get('Service.load')).toBe(30);
+    expect(rates.get('Repo.query')).toBe(60);
+    // A recursive group runs once per entry, not once per trip around the cycle
+    expect(rates.get('Parser.even')).toBe(30);
+    expect(rates.get('Parser.odd')).toBe(30);
+    expect(rates.get('Cache.unused') ?? 0).toBe(0);
+  });
+
+  it('converts joules per op and call rates to monthly kWh, CO2e and cost', () => {
+    const rs = reports();
+    const projection = projectDeployment(rs, graph, profile, 'real-jmh');
+    const query: any = rs[2];
+
+    // 0.05 J x 60 calls/s x 730 h x 3600 s / 3.6e6 J/kWh x 1.5 PUE
+    expect(query.callsPerSecond).toBe(60);
+    expect(query.joulesSource).toBe('predicted');
+    expect(query.projectedMonthly).toEqual({ kwh: 3.285, co2eKg: 1.314, usd: 0.657 });
+
+    expect(projection.unmatchedEntryPoints).toEqual(['Missing.run']);
+    expect(projection.projectedMethods).toBe(4);
+    expect(projection.unprojectedMethods).toBe(1);
+    expect((rs[5] as any).projectedMonthly).toBeUndefined();
+  });
+
+  it('totals and ranks savings on the methods\' own share so callees are not counted twice', () => {
+    const rs = reports();
+    const projection = projectDeployment(rs, graph, profile, 'real-jmh');
+    const handle: any = rs[0];
+
+    expect(handle.joulesSource).toBe('measured');
+    expect(handle.joulesPerOp).toBeCloseTo(0.03, 10);
+    expect(handle.projectedMonthly.kwh).toBeCloseTo(0.3285, 10);
+    expect(handle.projectedMonthlySelf.kwh).toBeCloseTo(0.3285 / 4, 4);
+
+    // (0.075 + 0.3 + 3 + 0.03) J/s of own work
+    expect(projection.totals.kwh).toBeCloseTo(3.405 * 0.73 * 1.5, 2);
+    expect(projection.classes['Repo']).toEqual({ kwh: 3.285, co2eKg: 1.314, usd: 0.657, methods: 1 });
+    expect(projection.classes['Parser'].methods).toBe(1);
+    expect(projection.topSavings.map(s => s.method)).toEqual(['Repo.query', 'Service.load', 'Api.handle', 'Parser.odd']);
+    expect(projection.topSavings[2].inclusive.kwh).toBeCloseTo(0.3285, 10);
+  });
+
+  it('marks benchmarks from an estimated source', () => {
+    const rs = reports();
+    projectDeployment(rs, graph, profile, 'complexity-estimated');
+    expect((rs[0] as any).joulesSource).toBe('estimated');
+  });
+
+  it('fills profile defaults and rejects invalid rates', () => {
+    const dir = fs.mkdtempSync(path.join(os.tmpdir(), 'greencode-deploy-'));
+    const file = path.join(dir, 'prod.json');
+
+    fs.writeFileSync(file, JSON.stringify({ entryPoints: { 'Api.handle': 2 } }));
+    expect(loadDeploymentProfile(file)).toEqual({
+      name: 'default',
+      entryPoints: { 'Api.handle': 2 },
+      carbonIntensityGPerKwh: 475,
+      costPerKwhUSD: 0.15,
+      pue: 1
+    });
+
+    fs.writeFileSync(file, JSON.stringify({ entryPoints: { 'Api.handle': -1 } }));
+    expect(() => loadDeploymentProfile(file)).toThrow(/Api.handle/);
+    fs.writeFileSync(file, JSON.stringify({ entryPoints: { 'Api.handle': 1 }, pue: 0 }));
+    expect(() => loadDeploymentProfile(file)).toThrow(/pue/);
+    fs.writeFileSync(file, JSON.stringify({ calls: {} }));
+    expect(() => loadDeploymentProfile(file)).toThrow(/entryPoints/);
+  });
+});
@@ -0,0 +1,144 @@
+import fs from 'fs';
+import os from 'os';
+import path from 'path';
+import { MethodIndexWriter, loadMethodIndex, signatureHash } from '../modules/energy-analyzer/src/report/methodIndex';
+import { diffMethodIndexes } from '../modules/energy-analyzer/src/report/energyDiff';
+
+function tmpDir() {
+  return fs.mkdtempSync(path.join(os.tmpdir(), 'greencode-diff-'));
+}
+
+function samples(scale: number) {
+  return Array.from({ length: 100 }, (_, i) => scale * (10 + (i % 10) * 0.1));
+}
+
+function report(key: string, extra: Record<string, unknown> = {}) {
+  const [className, methodName] = key.split('.');
+  return {
+    className,
+    methodName,
+    parameters: [{ name: 'n', type: 'int' }],
+    returnType: 'void',
+    isStatic: false,
+    sourceHash: 'h1',
+    staticEnergyScore: 0.4,
+    staticCpuScore: 0.5,
+    staticMemScore: 0.2,
+    staticIoScore: 0,
+    energyScore: 0.4,
+    combinedEnergyScore: 0.4,
+    confidenceLevel: 'low',
+    ...extra
+  };
+}
+
+function measured(key: string, scale: number, extra: Record<string, unknown> = {}) {
+  const s = samples(scale);
+  const sorted = [...s].sort((a, b) => a - b);
+  return {
+    report: report(key, { confidenceLevel: 'high', medianMs: sorted[50], p95Ms: sorted[95], ...extra }),
+    benchmark: { className: key.split('.')[0], methodName: key.split('.')[1], medianMs: sorted[50], meanMs: sorted[50], runs: 100, samplesMs: s }
+  };
+}
+
+function writeScan(entries: Array<{ report: any; benchmark?: any }>, project = 'demo') {
+  const dir = tmpDir();
+  const writer = new MethodIndexWriter(dir, { project, benchmarkSource: 'real-jmh-execution' });
+  for (const e of entries) writer.add(e.report, e.benchmark);
+  writer.close();
+  return dir;
+}
+
+describe('Energy Analyzer - scan diff', () => {
+  it('writes compact per-method records and reads them back from the output directory', () => {
+    const dir = writeScan([measured('Board.move', 1, { allocBytesPerOp: 48 }), { report: report('Board.undo') }]);
+    const index = loadMethodIndex(dir);
+
+    expect(index.project).toBe('demo');
+    expect(index.records.size).toBe(2);
+    const move = index.records.get('Board.move')!;
+    expect(move.medianMs).toBeCloseTo(10.5, 6);
+    expect(move.allocBytesPerOp).toBe(48);
+    expect(move.joulesSource).toBe('measured');
+    expect(move.samples!.counts.reduce((a, b) => a + b, 0)).toBe(100);
+    expect(index.records.get('Board.undo')!.medianMs).toBeUndefined();
+  });
+
+  it('hashes parameter types, return type and static-ness into the signature', () => {
+    const base = { parameters: [{ type: 'int' }], returnType: 'void', isStatic: false };
+    expect(signatureHash(base)).toBe(signatureHash({ ...base, parameters: [{ type: 'int' }] }));
+    expect(signatureHash(base)).not.toBe(signatureHash({ ...base, parameters: [{ type: 'long' }] }));
+    expect(signatureHash(base)).not.toBe(signatureHash({ ...base, isStatic: true }));
+    expect(signatureHash({})).toBeNull();
+  });
+
+  it('flags significant latency, allocation, joules and score changes', () => {
+    const baseline = writeScan([
+      measured('Board.move', 1),
+      measured('Board.undo', 1, { allocBytesPerOp: 100 }),
+      measured('Board.reset', 1),
+      { report: report('Board.render') },
+      { report: report('Board.legacy') },
+      { report: report('Board.resize') }
+    ]);
+    const current = writeScan([
+      measured('Board.move', 1.3, { sourceHash: 'h2' }),
+      measured('Board.undo', 1, { allocBytesPerOp: 400 }),
+      measured('Board.reset', 1),
+      { report: report('Board.render', { staticEnergyScore: 0.2, staticCpuScore: 0.25 }) },
+      { report: report('Board.resize', { parameters: [{ name: 'w', type: 'int' }, { name: 'h', type: 'int' }], staticEnergyScore: 0.7 }) },
+      { report: report('Board.shuffle') }
+    ]);
+
+    const diff = diffMethodIndexes(loadMethodIndex(baseline), loadMethodIndex(current));
+    expect(diff.added).toEqual(['Board.shuffle']);
+    expect(diff.removed).toEqual(['Board.legacy']);
+    expect(diff.signatureChanged).toEqual(['Board.resize']);
+    expect(diff.matched).toBe(5);
+    expect(diff.unchanged).toBe(1);
+    // Largest significant change first: resize's score +75%, render's -50%, move's joules +30%, then undo's allocations
+    expect(diff.methods.map(m => m.key)).toEqual(['Board.resize', 'Board.render', 'Board.move', 'Board.undo']);
+
+    // A new signature is flagged, not a reason to skip the comparison
+    const resize = diff.methods.find(m => m.key === 'Board.resize')!;
+    expect(resize.signatureChanged).toBe(true);
+    expect(resize.regressions).toEqual(['energyScore']);
+
+    const move = diff.methods.find(m => m.key === 'Board.move')!;
+    expect(move.sourceChanged).toBe(true);
+    expect(move.regressions).toEqual(['medianMs', 'p95Ms', 'joulesPerOp']);
+    expect(move.metrics.medianMs!.changePct).toBeCloseTo(30, 0);
+    expect(move.metrics.medianMs!.ciLowPct!).toBeGreaterThan(0);
+
+    const undo = diff.methods.find(m => m.key === 'Board.undo')!;
+    expect(undo.regressions).toEqual(['allocBytesPerOp']);
+    expect(undo.metrics.medianMs!.significant).toBe(false);
+
+    const render = diff.methods.find(m => m.key === 'Board.render')!;
+    expect(render.improvements).toEqual(['energyScore', 'cpuScore']);
+    expect(render.regressions).toEqual([]);
+    expect(render.signatureChanged).toBe(false);
+    expect(diff.regressedMethods).toBe(3);
+    expect(diff.improvedMethods).toBe(1);
+  });
+
+  it('does not call a latency change significant without samples on both sides', () => {
+    const baseline = writeScan([{ report: report('Board.move', { confidenceLevel: 'high', medianMs: 10 }) }]);
+    const current = writeScan([{ report: report('Board.move', { confidenceLevel: 'high', medianMs: 20 }) }]);
+
+    const diff = diffMethodIndexes(loadMethodIndex(baseline), loadMethodIndex(current), { includeUnchanged: true });
+    expect(diff.unchanged).toBe(1);
+    const median = diff.methods[0].metrics.medianMs!;
+    expect(median.changePct).toBe(100);
+    expect(median.significant).toBe(false);
+    expect(median.direction).toBe('unchanged');
+  });
+
+  it('rejects directories without an index and files that are not one', () => {
+    const dir = tmpDir();
+    expect(() => loadMethodIndex(dir)).toThrow(/method-index\.ndjson/);
+    const file = path.join(dir, 'other.ndjson');
+    fs.writeFileSync(file, '{"kind":"something-else"}\n');
+    expect(() => loadMethodIndex(file)).toThrow(/Not a method index/);
+  });
+});
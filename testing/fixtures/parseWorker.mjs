@@ -0,0 +1,17 @@
+/**
+ * Stand-in for the static analyzer's parseWorker in batchParser.spec.ts:
+ * same message protocol, no java-parser. Replies with a marker AST, fails
+ * Broken.java and kills its thread on Crash.java.
+ */
+import path from 'path';
+import { parentPort } from 'worker_threads';
+
+parentPort.on('message', ({ id, file }) => {
+  const name = path.basename(file, '.java');
+  if (name === 'Crash') process.exit(1);
+  if (name === 'Broken') {
+    parentPort.postMessage({ id, ok: false, error: 'syntax error' });
+    return;
+  }
+  parentPort.postMessage({ id, ok: true, json: JSON.stringify({ file, classes: [], fromWorker: true }) });
+});
@@ -0,0 +1,55 @@
+import {
+  bootstrapMedianChange,
+  buildRun,
+  detectChanges,
+  HistoryRun
+} from '../modules/energy-analyzer/src/history/historyStore';
+
+function samples(center: number, spread: number, n = 100): number[] {
+  // Deterministic spread around center
+  return Array.from({ length: n }, (_, i) => center + spread * Math.sin(i * 12.9898));
+}
+
+function run(medianMs: number, spread = 0.2, sourceHash = 'abc'): HistoryRun {
+  const data = samples(medianMs, spread);
+  return buildRun('chess', 'real-jmh-execution', [
+    { className: 'SpecialMoves', methodName: 'isCheckmate', medianMs, meanMs: medianMs, runs: data.length, samplesMs: data }
+  ], new Map([['specialmoves.ischeckmate', sourceHash]]));
+}
+
+describe('Energy Analyzer - Benchmark history', () => {
+  it('stores runs column-wise keyed by lowercased Class.method', () => {
+    const r = run(10);
+    expect(r.keys).toEqual(['specialmoves.ischeckmate']);
+    expect(r.medianMs).toEqual([10]);
+    expect(r.sourceHash).toEqual(['abc']);
+    expect(r.samplesMs[0]).toHaveLength(100);
+  });
+
+  it('bootstrap interval is deterministic for a seed and brackets the change', () => {
+    const a = bootstrapMedianChange(samples(10, 0.2), samples(11.5, 0.2), 42, 500);
+    const b = bootstrapMedianChange(samples(10, 0.2), samples(11.5, 0.2), 42, 500);
+    expect(a).toEqual(b);
+    expect(a.ciLow).toBeGreaterThan(0.1);
+    expect(a.ciHigh).toBeLessThan(0.2);
+  });
+
+  it('flags a 15% slowdown as a regression', () => {
+    const events = detectChanges([run(10), run(10.05), run(9.95)], run(11.5));
+    expect(events).toHaveLength(1);
+    expect(events[0].type).toBe('regression');
+    expect(events[0].changePct).toBeCloseTo(15, 0);
+    expect(events[0].sourceChanged).toBe(false);
+  });
+
+  it('reports improvements and whether the source changed', () => {
+    const events = detectChanges([run(10), run(10)], run(8, 0.2, 'def'));
+    expect(events[0].type).toBe('improvement');
+    expect(events[0].sourceChanged).toBe(true);
+  });
+
+  it('ignores changes within noise or below the minimum effect', () => {
+    expect(detectChanges([run(10), run(10)], run(10.2))).toHaveLength(0);
+    expect(detectChanges([], run(20))).toHaveLength(0);
+  });
+});
@@ -0,0 +1,55 @@
+import fs from 'fs';
+import os from 'os';
+import path from 'path';
+import {
+  artifactBase,
+  carryForward,
+  declaredClasses,
+  dependentBases
+} from '../modules/static-analyzer/src/core/Incremental';
+
+function scanDir(files: Record<string, unknown>): string {
+  const dir = fs.mkdtempSync(path.join(os.tmpdir(), 'greencode-scan-'));
+  for (const [name, value] of Object.entries(files)) {
+    fs.mkdirSync(path.dirname(path.join(dir, name)), { recursive: true });
+    fs.writeFileSync(path.join(dir, name), JSON.stringify(value));
+  }
+  return dir;
+}
+
+const previous = scanDir({
+  'ast/Board.json': { classes: [{ name: 'Board', methods: [] }] },
+  'ast/Game.json': {
+    classes: [{ name: 'Game', fields: ['private final Board board;'], methods: [{ name: 'play', invocations: [{ name: 'board.move' }] }] }]
+  },
+  'ast/Clock.json': { classes: [{ name: 'Clock', methods: [{ name: 'tick', invocations: [{ name: 'System.nanoTime' }] }] }] },
+  'cfg/Board_cfg.json': {},
+  'cfg/Game_cfg.json': {},
+  'metrics/Board_metrics.json': {},
+  'report/Board.json.report.json': {}
+});
+
+describe('Static Analyzer - incremental scans', () => {
+  it('maps every artifact back to its source file', () => {
+    expect(artifactBase('Board.gcb')).toBe('Board');
+    expect(artifactBase('Board_cfg.json')).toBe('Board');
+    expect(artifactBase('Board_metrics.gcb')).toBe('Board');
+    expect(artifactBase('Board.json.report.json')).toBe('Board');
+    expect(artifactBase('notes.txt')).toBe(null);
+  });
+
+  it('carries forward everything except the stale files', () => {
+    const out = fs.mkdtempSync(path.join(os.tmpdir(), 'greencode-out-'));
+    expect(carryForward(previous, out, new Set(['Board']))).toBe(3);
+    expect(fs.readdirSync(path.join(out, 'ast')).sort()).toEqual(['Clock.json', 'Game.json']);
+    expect(fs.readdirSync(path.join(out, 'cfg'))).toEqual(['Game_cfg.json']);
+    expect(fs.readdirSync(path.join(out, 'report'))).toEqual([]);
+  });
+
+  it('invalidates files that reference a changed class', () => {
+    const astDir = path.join(previous, 'ast');
+    const classes = declaredClasses(astDir, new Set(['Board']));
+    expect([...classes]).toEqual(['Board']);
+    expect([...dependentBases(astDir, classes, new Set(['Board']))]).toEqual(['Game']);
+  });
+});
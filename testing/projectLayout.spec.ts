@@ -0,0 +1,213 @@
+import fs from 'fs';
+import os from 'os';
+import path from 'path';
+import {
+  classCandidates,
+  detectProjectLayout,
+  indexModuleClasses,
+  locateClass,
+  moduleSourceRoots,
+  resolveOfflineClasspath
+} from '../modules/energy-analyzer/src/bench/projectLayout';
+import { generateCustomBenchmarkRunner, generateMavenPom } from '../modules/energy-analyzer/src/generators/jmhBenchmarkGenerator';
+
+function tmpDir() {
+  return fs.mkdtempSync(path.join(os.tmpdir(), 'greencode-layout-'));
+}
+
+function write(file: string, content = '') {
+  fs.mkdirSync(path.dirname(file), { recursive: true });
+  fs.writeFileSync(file, content);
+  return file;
+}
+
+function pom(body: string) {
+  return `<?xml version="1.0"?>\n<project>\n  <modelVersion>4.0.0</modelVersion>\n${body}\n</project>\n`;
+}
+
+function dependency(groupId: string, artifactId: string, extra = '') {
+  return `<dependency><groupId>${groupId}</groupId><artifactId>${artifactId}</artifactId>${extra}</dependency>`;
+}
+
+// Local Maven repository with util 1.2 (depends on slf4j-api) and a Gradle cache with lombok
+function repositories() {
+  const base = tmpDir();
+  const mavenRepo = path.join(base, 'm2');
+  const gradleCache = path.join(base, 'gradle');
+  const util = path.join(mavenRepo, 'com', 'acme', 'util', '1.2');
+  write(path.join(util, 'util-1.2.jar'));
+  write(path.join(util, 'util-1.2.pom'), pom(`
+  <groupId>com.acme</groupId><artifactId>util</artifactId><version>1.2</version>
+  <properties><slf4j.version>2.0.9</slf4j.version></properties>
+  <dependencies>
+    ${dependency('org.slf4j', 'slf4j-api', '<version>${slf4j.version}</version>')}
+    ${dependency('junit', 'junit', '<version>4.13.2</version><scope>test</scope>')}
+    ${dependency('com.acme', 'extras', '<version>1.0</version><optional>true</optional>')}
+  </dependencies>`));
+  write(path.join(mavenRepo, 'org', 'slf4j', 'slf4j-api', '2.0.9', 'slf4j-api-2.0.9.jar'));
+  write(path.join(gradleCache, 'org.projectlombok', 'lombok', '1.18.30', '0a1b2c', 'lombok-1.18.30.jar'));
+  return { mavenRepo, gradleCache };
+}
+
+function mavenProject() {
+  const root = tmpDir();
+  write(path.join(root, 'pom.xml'), pom(`
+  <groupId>com.demo</groupId><artifactId>root</artifactId><version>1.0</version><packaging>pom</packaging>
+  <properties><util.version>1.2</util.version></properties>
+  <modules><module>core</module><module>app</module></modules>
+  <dependencyManagement><dependencies>
+    ${dependency('com.acme', 'util', '<version>${util.version}</version>')}
+  </dependencies></dependencyManagement>`));
+  write(path.join(root, 'core', 'pom.xml'), pom(`
+  <parent><groupId>com.demo</groupId><artifactId>root</artifactId><version>1.0</version></parent>
+  <artifactId>core</artifactId>
+  <dependencies>
+    ${dependency('com.acme', 'util')}
+    ${dependency('junit', 'junit', '<version>4.13.2</version><scope>test</scope>')}
+  </dependencies>`));
+  write(path.join(root, 'app', 'pom.xml'), pom(`
+  <parent><groupId>com.demo</groupId><artifactId>root</artifactId><version>1.0</version></parent>
+  <artifactId>app</artifactId>
+  <dependencies>
+    ${dependency('com.demo', 'core', '<version>${project.version}</version>')}
+    ${dependency('com.missing', 'gone', '<version>9</version>')}
+  </dependencies>`));
+  write(path.join(root, 'core', 'src', 'main', 'java', 'com', 'demo', 'core', 'Board.java'), 'package com.demo.core;\npublic class Board {}\n');
+  write(path.join(root, 'core', 'src', 'test', 'java', 'com', 'demo', 'core', 'BoardTest.java'), 'package com.demo.core;\nclass BoardTest {}\n');
+  write(path.join(root, 'app', 'src', 'main', 'java', 'com', 'demo', 'app', 'Game.java'), 'package com.demo.app;\npublic class Game {}\n');
+  write(path.join(root, 'app', 'lib', 'vendor.jar'));
+  return root;
+}
+
+describe('Energy Analyzer - project layout and offline classpath', () => {
+  it('finds Maven modules, their main source roots and module dependencies', () => {
+    const root = mavenProject();
+    const layout = detectProjectLayout(root, repositories());
+
+    expect(layout.buildTool).toBe('maven');
+    expect(layout.modules.map(m => m.name)).toEqual(['.', 'core', 'app']);
+    const [parent, core, app] = layout.modules;
+    expect(parent.sourceRoots).toEqual([]);
+    expect(core.sourceRoots).toEqual([path.join(root, 'core', 'src', 'main', 'java')]);
+    expect(app.moduleDependencies).toEqual(['core']);
+    expect(moduleSourceRoots(layout, app)).toEqual([
+      path.join(root, 'app', 'src', 'main', 'java'),
+      path.join(root, 'core', 'src', 'main', 'java')
+    ]);
+  });
+
+  it('builds a classpath from local jars only, following managed versions and local POMs', () => {
+    const repos = repositories();
+    const root = mavenProject();
+    const layout = detectProjectLayout(root, repos);
+    const app = layout.modules.find(m => m.name === 'app')!;
+
+    const classpath = resolveOfflineClasspath(layout, app, repos);
+    expect(classpath.jars).toEqual([
+      path.join(repos.mavenRepo, 'com', 'acme', 'util', '1.2', 'util-1.2.jar'),
+      path.join(repos.mavenRepo, 'org', 'slf4j', 'slf4j-api', '2.0.9', 'slf4j-api-2.0.9.jar'),
+      path.join(root, 'app', 'lib', 'vendor.jar')
+    ]);
+    expect(classpath.missing).toEqual(['com.missing:gone:9']);
+  });
+
+  it('pins transitive versions with the module dependencyManagement and honors exclusions', () => {
+    const repos = repositories();
+    write(path.join(repos.mavenRepo, 'org', 'slf4j', 'slf4j-api', '2.0.12', 'slf4j-api-2.0.12.jar'));
+    const logging = path.join(repos.mavenRepo, 'com', 'acme', 'logging', '3.0');
+    write(path.join(logging, 'logging-3.0.jar'));
+    write(path.join(logging, 'logging-3.0.pom'), pom(`
+  <groupId>com.acme</groupId><artifactId>logging</artifactId><version>3.0</version>
+  <dependencies>
+    ${dependency('com.acme', 'util', '<version>1.2</version>')}
+    ${dependency('commons-io', 'commons-io', '<version>2.15.1</version>')}
+  </dependencies>`));
+    const root = tmpDir();
+    const exclusion = '<exclusions><exclusion><groupId>commons-io</groupId><artifactId>*</artifactId></exclusion></exclusions>';
+    write(path.join(root, 'pom.xml'), pom(`
+  <groupId>com.demo</groupId><artifactId>single</artifactId><version>1.0</version>
+  <dependencyManagement><dependencies>
+    ${dependency('org.slf4j', 'slf4j-api', '<version>2.0.12</version>')}
+  </dependencies></dependencyManagement>
+  <dependencies>
+    ${dependency('com.acme', 'logging', `<version>3.0</version>${exclusion}`)}
+  </dependencies>`));
+
+    const layout = detectProjectLayout(root, repos);
+    expect(layout.modules[0].dependencies[0].exclusions).toEqual(['commons-io:*']);
+    const classpath = resolveOfflineClasspath(layout, layout.modules[0], repos);
+    // util 1.2 asks for slf4j-api 2.0.9; the project manages it to 2.0.12
+    expect(classpath.jars.map(j => path.basename(j))).toEqual(['logging-3.0.jar', 'util-1.2.jar', 'slf4j-api-2.0.12.jar']);
+    expect(classpath.missing).toEqual([]);
+  });
+
+  it('reads Gradle includes and dependency configurations', () => {
+    const repos = repositories();
+    const root = tmpDir();
+    write(path.join(root, 'settings.gradle'), "rootProject.name = 'demo'\ninclude 'core', ':app'\nincludeBuild '../tools'\n");
+    write(path.join(root, 'core', 'build.gradle'), "dependencies {\n  implementation 'com.acme:util:1.2'\n}\n");
+    write(path.join(root, 'app', 'build.gradle.kts'), [
+      'dependencies {',
+      '    implementation(project(":core"))',
+      '    compileOnly("org.projectlombok:lombok:1.18.30")',
+      '    testImplementation("junit:junit:4.13.2")',
+      '}'
+    ].join('\n'));
+    write(path.join(root, 'app', 'src', 'main', 'java', 'Game.java'), 'public class Game {}\n');
+
+    const layout = detectProjectLayout(root, repos);
+    expect(layout.buildTool).toBe('gradle');
+    expect(layout.modules.map(m => m.name)).toEqual(['.', 'core', 'app']);
+    const app = layout.modules[2];
+    expect(app.moduleDependencies).toEqual(['core']);
+    expect(app.dependencies).toEqual([{ groupId: 'org.projectlombok', artifactId: 'lombok', version: '1.18.30', scope: 'provided' }]);
+
+    const classpath = resolveOfflineClasspath(layout, app, repos);
+    expect(classpath.jars.map(j => path.basename(j))).toEqual(['lombok-1.18.30.jar', 'util-1.2.jar', 'slf4j-api-2.0.9.jar']);
+    expect(classpath.missing).toEqual([]);
+  });
+
+  it('treats a folder without a build file as one module', () => {
+    const root = tmpDir();
+    write(path.join(root, 'Board.java'), 'public class Board {}\n');
+    const layout = detectProjectLayout(root, repositories());
+    expect(layout.buildTool).toBe('none');
+    expect(layout.modules).toHaveLength(1);
+    expect(layout.modules[0].sourceRoots).toEqual([root]);
+  });
+
+  it('locates classes by module and package for the generated benchmarks', () => {
+    const root = mavenProject();
+    const layout = detectProjectLayout(root, repositories());
+    const classes = indexModuleClasses(layout);
+
+    const board = locateClass(classes, 'Board')!;
+    expect(board.module.name).toBe('core');
+    expect(board.packageName).toBe('com.demo.core');
+    expect(locateClass(classes, 'com.demo.app.Game')!.module.name).toBe('app');
+    expect(locateClass(classes, 'BoardTest')).toBeNull();
+
+    const runner = generateCustomBenchmarkRunner([
+      { className: 'Board', methodName: 'move', parameters: [], returnType: 'void', isStatic: false, packageName: 'com.demo.core' }
+    ]);
+    expect(runner).toContain('import com.demo.core.Board;');
+    expect(generateMavenPom(undefined, ['util-1.2.jar'])).toContain('<systemPath>${project.basedir}/lib/util-1.2.jar</systemPath>');
+  });
+
+  it('narrows a simple name declared in several modules by method, else leaves it unlocated', () => {
+    const root = mavenProject();
+    write(path.join(root, 'core', 'src', 'main', 'java', 'com', 'demo', 'core', 'Board.java'),
+      'package com.demo.core;\npublic class Board {\n  public boolean move(String to) throws IllegalStateException {\n    return render();\n  }\n}\n');
+    write(path.join(root, 'app', 'src', 'main', 'java', 'com', 'demo', 'app', 'Board.java'),
+      'package com.demo.app;\npublic class Board {\n  public boolean render() {\n    return true;\n  }\n}\n');
+    const classes = indexModuleClasses(detectProjectLayout(root, repositories()));
+
+    expect(classCandidates(classes, 'Board')).toHaveLength(2);
+    expect(locateClass(classes, 'Board')).toBeNull();
+    expect(locateClass(classes, 'Board', 'move')!.module.name).toBe('core');
+    // move() calls render(); only app declares it
+    expect(locateClass(classes, 'Board', 'render')!.module.name).toBe('app');
+    expect(locateClass(classes, 'Board', 'reset')).toBeNull();
+    expect(locateClass(classes, 'com.demo.app.Board', 'move')!.module.name).toBe('app');
+  });
+});
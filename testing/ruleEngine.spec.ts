@@ -0,0 +1,95 @@
+import fs from 'fs';
+import path from 'path';
+import { RuleEngine } from '../modules/static-analyzer/src/rules/RuleEngine';
+
+const engine = new RuleEngine();
+
+const FIXTURES = path.join(process.cwd(), 'testing/fixtures');
+const readFixture = (file: string) => JSON.parse(fs.readFileSync(path.join(FIXTURES, file), 'utf-8'));
+
+// Per-rule violations of the legacy per-rule checks, keyed by file; exact repeats
+// (overloads of one method) are listed once, as the compiled engine reports them
+const golden: Record<string, Record<string, string[]>> = readFixture('ruleEngineGolden.json');
+
+/** Violations grouped by rule id, each group sorted, so the emission order does not matter */
+function byRule(violations: Array<{ ruleId: string; description: string; severity: string; location: string }>) {
+  const grouped: Record<string, string[]> = {};
+  for (const v of violations) {
+    (grouped[v.ruleId] ||= []).push(`${v.location} | ${v.severity} | ${v.description}`);
+  }
+  Object.values(grouped).forEach(list => list.sort());
+  return grouped;
+}
+
+describe('Static Analyzer - rule engine', () => {
+  it('finds every textual rule in one method, even when matches overlap', () => {
+    const method = {
+      name: 'run',
+      calls: ['stmt.executeQuery("SELECT * FROM t WHERE id=" + id)', 'Runtime.getRuntime().exec(cmd)', 'eval(x)']
+    };
+    const ids = engine.analyzeCode({ classes: [{ name: 'Db', methods: [method] }] }, 'Db.json').map(v => v.ruleId);
+    expect(ids.sort()).toEqual(['QS001', 'QS003', 'QS008']);
+  });
+
+  it('reports each violation once', () => {
+    const method = { name: 'pick', conditionals: ['switch'], modifiers: ['public'] };
+    const ast = { classes: [{ name: 'Menu', methods: [method, method] }] };
+    const violations = engine.analyzeCode(ast, 'Menu.json', {
+      fileName: 'Menu.json',
+      classes: [{ className: 'Menu', methods: [{ name: 'pick', cyclomaticComplexity: 12, nestingDepth: 1, functionSize: 5 }] }]
+    });
+    expect(violations.map(v => v.ruleId).sort()).toEqual(['QA003', 'QA006', 'QD001']);
+  });
+
+  it('matches the legacy per-rule checks, including each rule\'s case sensitivity', () => {
+    const ast = {
+      classes: [
+        {
+          name: 'Script',
+          methods: [
+            { name: 'run', calls: ['engine.eval(src)'], modifiers: ['public'] },
+            { name: 'shout', calls: ['engine.EVAL(src)'], modifiers: ['private'] },
+            { name: 'login', localVariables: ['String Password = "hunter2"', "String apiKey='k'"] },
+            { name: 'find', calls: ['db.query("select * from t where id=" + id)'] },
+            { name: 'spawn', calls: ['new processbuilder(cmd)', 'Runtime.getRuntime().exec(cmd)'] },
+            { name: 'route', conditionals: ['switch'], conditionalsTree: [{ type: 'case' }], modifiers: ['public'], javadoc: 'x' },
+            { name: 'pick', conditionals: ['switch'], conditionalsTree: [{ type: 'if', thenBlock: [{ type: 'default' }] }] }
+          ]
+        },
+        { name: 'Helper', methods: [{ name: 'quiet', calls: ['log.info("ok")'] }] }
+      ]
+    };
+    const metrics = {
+      fileName: 'Script.json',
+      classes: [
+        {
+          className: 'Script',
+          methods: [
+            { name: 'run', cyclomaticComplexity: 11, nestingDepth: 5, functionSize: 51 },
+            { name: '', cyclomaticComplexity: 2, nestingDepth: 1, functionSize: 3 }
+          ]
+        },
+        { className: 'Helper', methods: [{ name: 'quiet', cyclomaticComplexity: 1, nestingDepth: 1, functionSize: 1 }] }
+      ]
+    };
+
+    const expected = golden['Script.json'];
+    expect(byRule(engine.analyzeCode(ast, 'Script.json', metrics))).toEqual(expected);
+    expect(Object.keys(expected).sort()).toEqual(['QA003', 'QA004', 'QA006', 'QA007', 'QA008', 'QD001', 'QS001', 'QS002', 'QS003', 'QS008']);
+    // eval( is case-sensitive: only run(), not shout()
+    expect(expected.QS001).toHaveLength(1);
+    expect(expected.QS001[0]).toContain('Dangerous eval() usage in Script.run()');
+  });
+
+  it('matches the legacy violations on the parsed sample sources', () => {
+    const files = Object.keys(golden).filter(file => file !== 'Script.json');
+    expect(files).toHaveLength(7);
+
+    for (const file of files) {
+      const name = file.replace(/\.json$/, '');
+      const ast = { classes: readFixture(`astGolden/${name}.ast.json`) };
+      const metrics = readFixture(`astGolden/${name}.metrics.json`);
+      expect(byRule(engine.analyzeCode(ast, file, metrics)), file).toEqual(golden[file]);
+    }
+  });
+});
@@ -0,0 +1,102 @@
+import fs from 'fs';
+import os from 'os';
+import path from 'path';
+import { CFGIndex } from '../modules/energy-analyzer/src/core/cfgIndex';
+import { mergeReport, scoreProject } from '../modules/energy-analyzer/src/core/scoringPool';
+
+const report = (className: string, methodName: string, energyScore: number): any => ({ className, methodName, energyScore });
+
+describe('Energy Analyzer - scoring pool merge', () => {
+  it('keeps one report per Class.method, preferring the higher energy score', () => {
+    const merged = new Map();
+    mergeReport(merged, report('Board', 'move', 0.2));
+    mergeReport(merged, report('Board', 'move', 0.5));
+    mergeReport(merged, report('Board', 'move', 0.3));
+    mergeReport(merged, report('Game', 'move', 0.1));
+    expect([...merged.keys()]).toEqual(['Board.move', 'Game.move']);
+    expect(merged.get('Board.move').energyScore).toBe(0.5);
+  });
+});
+
+describe('Energy Analyzer - scoring pool workers', () => {
+  const dir = fs.mkdtempSync(path.join(os.tmpdir(), 'greencode-pool-'));
+
+  // A straight line, or a single loop with `calls` calls in its body
+  const cfg = (methodName: string, calls: number) => ({
+    methodName,
+    nodes: calls === 0
+      ? [{ id: 0 }, { id: 1 }]
+      : [{ id: 0 }, { id: 1, calls, loopDepth: 1 }, { id: 2 }],
+    edges: calls === 0 ? [[0, 1]] : [[0, 1], [1, 1], [1, 2]],
+    loops: calls === 0 ? [] : [{ header: 1, parent: -1, depth: 1, blocks: [1] }],
+    maxLoopDepth: calls === 0 ? 0 : 1
+  });
+
+  const astPaths: string[] = [];
+  const cfgPaths: string[] = [];
+  for (let f = 0; f < 6; f++) {
+    const className = `Service${f}`;
+    const methods = Array.from({ length: 4 }, (_, i) => ({
+      name: `op${i}`,
+      params: [{ name: 'items', type: 'List<String>' }],
+      loops: i % 2 ? ['for'] : [],
+      invocations: Array.from({ length: i + f }, (_, c) => ({ name: `items.get${c}`, ...(i % 2 ? { loop: 0 } : {}) })),
+      allocations: f
+    }));
+    // Service0.op0 appears in every file: the merged report must not depend on which worker scored it
+    const classes = [{ name: className, fields: [], methods }, { name: 'Service0', fields: [], methods: [{ ...methods[1], name: 'op0' }] }];
+    const astPath = path.join(dir, `${className}.json`);
+    fs.writeFileSync(astPath, JSON.stringify({ fileName: `${className}.java`, classes }));
+    astPaths.push(astPath);
+
+    const cfgPath = path.join(dir, `${className}_cfg.json`);
+    fs.writeFileSync(cfgPath, JSON.stringify({
+      kind: 'cfg-bundle',
+      fileName: `${className}.java`,
+      methods: [
+        ...methods.map((m, i) => ({ className, methodName: m.name, cfg: cfg(m.name, i % 2 ? f + 1 : 0) })),
+        // Not in any AST: scored as a CFG-only method
+        { className, methodName: 'generated', cfg: cfg('generated', f) }
+      ]
+    }));
+    cfgPaths.push(cfgPath);
+  }
+
+  const sorted = (reports: Map<string, any>) => [...reports.entries()].sort(([a], [b]) => a.localeCompare(b));
+
+  it('merges worker output into the same reports as serial scoring', async () => {
+    const errors = vi.spyOn(console, 'error');
+    const log = vi.spyOn(console, 'log');
+
+    const serial = await scoreProject(astPaths, CFGIndex.loadSync(cfgPaths), undefined, { workers: 1 });
+    const pooled = await scoreProject(astPaths, CFGIndex.loadSync(cfgPaths), undefined, { workers: 3 });
+
+    expect(log.mock.calls.some(([line]) => String(line).includes('Scoring with 3 workers'))).toBe(true);
+    // A worker that failed or died would have its batch rescored in-process and still match
+    expect(errors).not.toHaveBeenCalled();
+    errors.mockRestore();
+    log.mockRestore();
+
+    expect(serial.reports.size).toBe(6 * 5);
+    expect(pooled.scored).toBe(serial.scored);
+    expect(pooled.processedFiles).toBe(6);
+    expect(pooled.failedFiles).toBe(0);
+    expect(sorted(pooled.reports)).toEqual(sorted(serial.reports));
+  }, 60000);
+
+  it('streams each Class.method once, from the first AST file that has it', async () => {
+    const streamed: any[] = [];
+    const result = await scoreProject(astPaths, CFGIndex.loadSync(cfgPaths), undefined, {
+      workers: 3,
+      onReports: reports => streamed.push(...reports)
+    });
+    const firstFile = await scoreProject(astPaths.slice(0, 1), CFGIndex.loadSync(cfgPaths), undefined, { workers: 1 });
+
+    const keys = streamed.map(r => `${r.className}.${r.methodName}`);
+    expect(result.reports.size).toBe(0);
+    expect(keys).toHaveLength(6 * 5);
+    expect(new Set(keys).size).toBe(keys.length);
+    // Not whichever batch came back first, and not the highest score either
+    expect(streamed.find(r => r.className === 'Service0' && r.methodName === 'op0')).toEqual(firstFile.reports.get('Service0.op0'));
+  }, 60000);
+});
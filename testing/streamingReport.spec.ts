@@ -0,0 +1,82 @@
+import fs from 'fs';
+import os from 'os';
+import path from 'path';
+import { RunningStats, TDigest, TopK } from '../modules/energy-analyzer/src/report/streamingStats';
+import { ReportStream } from '../modules/energy-analyzer/src/report/reportStream';
+
+function report(className: string, methodName: string, score: number, extra: Record<string, unknown> = {}) {
+  return {
+    className,
+    methodName,
+    loopCount: score > 0.5 ? 1 : 0,
+    nestingDepth: 1,
+    recursion: false,
+    cpuScore: score,
+    memScore: 0,
+    ioScore: 0,
+    energyScore: score,
+    staticEnergyScore: score,
+    combinedEnergyScore: score,
+    confidenceLevel: 'low',
+    ...extra
+  };
+}
+
+describe('Energy Analyzer - Streaming reports', () => {
+  it('computes mean and variance in one pass', () => {
+    const values = [2, 4, 4, 4, 5, 5, 7, 9];
+    const stats = new RunningStats();
+    values.forEach(v => stats.add(v));
+    expect(stats.count).toBe(8);
+    expect(stats.mean).toBeCloseTo(5);
+    expect(stats.variance).toBeCloseTo(32 / 7);
+    expect(stats.min).toBe(2);
+    expect(stats.max).toBe(9);
+    expect(stats.total).toBeCloseTo(40);
+  });
+
+  it('estimates percentiles with a bounded number of centroids', () => {
+    const digest = new TDigest(100);
+    // Deterministic shuffle of 0..99999
+    for (let i = 0; i < 100000; i++) digest.add((i * 7919) % 100000);
+    expect(digest.count).toBe(100000);
+    expect(digest.centroids).toBeLessThan(200);
+    expect(Math.abs(digest.quantile(0.5) - 50000)).toBeLessThan(1000);
+    expect(Math.abs(digest.quantile(0.99) - 99000)).toBeLessThan(300);
+    expect(digest.quantile(0)).toBe(0);
+    expect(digest.quantile(1)).toBe(99999);
+  });
+
+  it('keeps the k highest scores in order', () => {
+    const top = new TopK<string>(3);
+    [['a', 0.1], ['b', 0.9], ['c', 0.5], ['d', 0.7], ['e', 0.2]].forEach(([name, score]) => top.add(score as number, name as string));
+    expect(top.values()).toEqual(['b', 'd', 'c']);
+  });
+
+  it('appends NDJSON and per-class files and summarizes without holding reports', () => {
+    const dir = fs.mkdtempSync(path.join(os.tmpdir(), 'greencode-stream-'));
+    fs.writeFileSync(path.join(dir, 'Stale-energy-report.ndjson'), 'old\n');
+
+    // Tiny flush threshold: every write reaches disk
+    const stream = new ReportStream(dir, { perClass: true, flushBytes: 1 });
+    stream.write(report('Board', 'move', 0.8));
+    stream.write(report('Board', 'undo', 0.2));
+    stream.write(report('Clock', 'tick', 0.4, { confidenceLevel: 'high', medianMs: 3 }));
+    const summary = stream.close({ benchmarkSource: 'provided file' });
+
+    const lines = fs.readFileSync(path.join(dir, 'method-reports.ndjson'), 'utf8').trim().split('\n');
+    expect(lines).toHaveLength(3);
+    expect(JSON.parse(lines[0]).methodName).toBe('move');
+    expect(fs.readFileSync(path.join(dir, 'Board-energy-report.ndjson'), 'utf8').trim().split('\n')).toHaveLength(2);
+    expect(fs.existsSync(path.join(dir, 'Stale-energy-report.ndjson'))).toBe(false);
+
+    expect(summary.totalMethods).toBe(3);
+    expect(summary.totalClasses).toBe(2);
+    expect(summary.benchmarkSource).toBe('provided file');
+    expect(summary.energyDistribution).toEqual({ highEnergy: 1, mediumEnergy: 1, lowEnergy: 1 });
+    expect(summary.performanceMetrics!.methodsWithBenchmarks).toBe(1);
+    expect(summary.topEnergyConsumers[0].methodName).toBe('move');
+    expect(summary.classes.Board.methods).toBe(2);
+    expect(JSON.parse(fs.readFileSync(path.join(dir, 'stream-summary.json'), 'utf8')).totalMethods).toBe(3);
+  });
+});
@@ -0,0 +1,99 @@
+import {
+  analyzeLoopCost,
+  classifyTripCount,
+  complexityLabel,
+  loopCostContext
+} from '../modules/energy-analyzer/src/analyzers/tripCount';
+import { computeScoresFromMetrics } from '../modules/energy-analyzer/src/core/orchestrator';
+
+const ctx = loopCostContext([{ name: 'items' }, { name: 'n' }], [
+  'private static final int SIZE = 8;',
+  'private Map<String, Integer> counts;'
+]);
+
+/** Minimal CFG: one header block per loop, `parents[i]` indexes the enclosing loop */
+function cfgWithLoops(heads: object[], parents: number[]) {
+  return {
+    methodName: 'm',
+    nodes: heads.map((head, id) => ({ id, head })),
+    edges: [],
+    loops: parents.map((parent, i) => ({ header: i, parent, depth: 0, blocks: [i] })),
+    maxLoopDepth: 0
+  };
+}
+
+describe('Energy Analyzer - loop trip counts', () => {
+  it('reads parameter names, field names and final int constants', () => {
+    expect(ctx.params).toEqual(['items', 'n']);
+    expect(ctx.fields).toEqual(['SIZE', 'counts']);
+    expect(ctx.constants).toEqual({ SIZE: 8 });
+  });
+
+  it('computes constant trip counts from literal and constant bounds', () => {
+    expect(classifyTripCount({ init: 'int i=2', cond: 'i<6', update: 'i++' }, ctx)).toEqual({ kind: 'constant', value: 4 });
+    expect(classifyTripCount({ init: 'int i=0', cond: 'i<=SIZE', update: 'i+=2' }, ctx)).toEqual({ kind: 'constant', value: 5 });
+    expect(classifyTripCount({ init: 'int i=7', cond: 'i>=0', update: 'i--' }, ctx)).toEqual({ kind: 'constant', value: 8 });
+    expect(classifyTripCount({ iterable: 'List.of(a,b,f(c,d))' }, ctx)).toEqual({ kind: 'constant', value: 3 });
+  });
+
+  it('separates parameter/field bounds from local data', () => {
+    expect(classifyTripCount({ init: 'int i=0', cond: 'i<items.size()', update: 'i++' }, ctx).kind).toBe('bounded');
+    expect(classifyTripCount({ iterable: 'this.counts.keySet()' }, ctx).kind).toBe('bounded');
+    expect(classifyTripCount({ iterable: 'result.keySet()' }, ctx).kind).toBe('data');
+    expect(classifyTripCount({ cond: 'it.hasNext()' }, ctx).kind).toBe('data');
+    expect(classifyTripCount({ cond: 'running' }, ctx).kind).toBe('unknown');
+    expect(classifyTripCount({ init: 'int i=1', cond: 'i<n', update: 'i*=2' }, ctx)).toEqual({
+      kind: 'bounded',
+      bound: 'n',
+      logarithmic: true
+    });
+  });
+
+  it('multiplies nested constant loops without raising the degree', () => {
+    const scan = { init: 'int r=0', cond: 'r<8', update: 'r++' };
+    const cost = analyzeLoopCost(cfgWithLoops([scan, { ...scan, init: 'int c=0', cond: 'c<8', update: 'c++' }], [-1, 0]), ctx)!;
+    expect(cost.loops.map(l => l.executions)).toEqual([8, 64]);
+    expect(cost.iterations).toBe(72);
+    expect(complexityLabel(cost.degree)).toBe('O(1)');
+  });
+
+  it('scores nested data-dependent loops as quadratic', () => {
+    const outer = { iterable: 'result.keySet()' };
+    const inner = { iterable: 'result.keySet()' };
+    const cost = analyzeLoopCost(cfgWithLoops([outer, inner], [-1, 0]), ctx)!;
+    expect(complexityLabel(cost.degree)).toBe('O(n^2)');
+    const single = analyzeLoopCost(cfgWithLoops([outer], [-1]), ctx)!;
+    expect(single.weight).toBeCloseTo(1, 5);
+    expect(cost.weight).toBeGreaterThan(2.5);
+  });
+
+  it('lets the loop weight raise cpuScore and energyScore without saturating', () => {
+    const metrics = {
+      loopCount: 1, cyclomatic: 2, nestingDepth: 1, objectCreations: 0, methodCalls: 2,
+      ioCalls: 0, dbCalls: 0, methodCallsInsideLoop: 0, recursion: false, conditionalsCount: 1
+    };
+    const trivial = computeScoresFromMetrics({ ...metrics, loopCount: 0 });
+    const linear = computeScoresFromMetrics({ ...metrics, loopWeight: 1 });
+    const quadratic = computeScoresFromMetrics({ ...metrics, loopWeight: 3 });
+
+    expect(trivial.cpuScore).toBeGreaterThan(0);
+    expect(linear.cpuScore).toBeGreaterThan(trivial.cpuScore);
+    expect(quadratic.cpuScore).toBeGreaterThan(linear.cpuScore);
+    expect(quadratic.cpuScore).toBeLessThan(1);
+    expect(quadratic.energyScore).toBeGreaterThan(linear.energyScore);
+  });
+
+  it('adds the DB-in-loop penalty from the weighted loops', () => {
+    const metrics = {
+      loopCount: 0, cyclomatic: 1, nestingDepth: 1, objectCreations: 0, methodCalls: 1,
+      ioCalls: 0, dbCalls: 1, methodCallsInsideLoop: 1, recursion: false, conditionalsCount: 0
+    };
+    // The CFG found a loop the AST loop list missed
+    expect(computeScoresFromMetrics({ ...metrics, loopWeight: 1 }).ioScore)
+      .toBeGreaterThan(computeScoresFromMetrics(metrics).ioScore);
+  });
+
+  it('returns null for CFGs without loop analysis', () => {
+    expect(analyzeLoopCost({ methodName: 'm', nodes: [], edges: [] }, ctx)).toBe(null);
+  });
+});
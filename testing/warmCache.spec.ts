@@ -0,0 +1,111 @@
+import fs from 'fs';
+import os from 'os';
+import path from 'path';
+import { ArtifactCache, FileCache } from '../modules/energy-analyzer/src/core/warmCache';
+import { HistoryCache, appendRun, loadHistory } from '../modules/energy-analyzer/src/history/historyStore';
+import { CFGIndex } from '../modules/energy-analyzer/src/core/cfgIndex';
+
+function tmpDir() {
+  return fs.mkdtempSync(path.join(os.tmpdir(), 'greencode-warm-'));
+}
+
+function run(runId: string) {
+  return {
+    v: 1,
+    runId,
+    timestamp: '2026-01-01T00:00:00Z',
+    project: 'demo',
+    benchmarkSource: 'provided file',
+    keys: ['board.move'],
+    classNames: ['Board'],
+    methodNames: ['move'],
+    sourceHash: [null],
+    medianMs: [1],
+    p95Ms: [null],
+    samplesMs: [null]
+  };
+}
+
+function bundle(methods: string[]) {
+  return { kind: 'cfg-bundle', methods: methods.map(m => ({ className: 'Board', methodName: m, cfg: { methodName: m, nodes: [], edges: [] } })) };
+}
+
+describe('Energy Analyzer - Warm caches', () => {
+  it('reuses parsed artifacts with the same content across directories', async () => {
+    const cache = new ArtifactCache();
+    const a = path.join(tmpDir(), 'Board_cfg.json');
+    const b = path.join(tmpDir(), 'Board_cfg.json');
+    fs.writeFileSync(a, JSON.stringify(bundle(['move'])));
+    fs.writeFileSync(b, JSON.stringify(bundle(['move'])));
+
+    const first = await cache.load(a);
+    expect(await cache.load(b)).toBe(first);
+    expect(cache.stats()).toEqual({ entries: 1, bytes: fs.statSync(a).size, hits: 1, misses: 1 });
+
+    fs.writeFileSync(b, JSON.stringify(bundle(['move', 'undo'])));
+    expect((await cache.load(b)).methods).toHaveLength(2);
+    expect(cache.misses).toBe(2);
+  });
+
+  it('evicts the least recently used artifacts past its byte budget', async () => {
+    const dir = tmpDir();
+    const files = ['a', 'b', 'c'].map(m => {
+      const file = path.join(dir, `${m}.json`);
+      fs.writeFileSync(file, JSON.stringify(bundle([m])));
+      return file;
+    });
+    const cache = new ArtifactCache(fs.statSync(files[0]).size * 2);
+    await cache.load(files[0]);
+    await cache.load(files[1]);
+    await cache.load(files[0]);
+    await cache.load(files[2]);
+    expect(cache.size).toBe(2);
+
+    await cache.load(files[0]);
+    expect(cache.hits).toBe(2);
+  });
+
+  it('builds the CFG index through a custom loader', async () => {
+    const file = path.join(tmpDir(), 'Board_cfg.json');
+    fs.writeFileSync(file, JSON.stringify(bundle(['move', 'undo'])));
+    const cache = new ArtifactCache();
+
+    await CFGIndex.load([file], { loader: p => cache.load(p) });
+    const index = await CFGIndex.load([file], { loader: p => cache.load(p) });
+    expect(index.size).toBe(2);
+    expect(cache.hits).toBe(1);
+  });
+
+  it('reloads a file only when it changes', () => {
+    const file = path.join(tmpDir(), 'model.json');
+    fs.writeFileSync(file, '1');
+    let reads = 0;
+    const cache = new FileCache(p => { reads++; return fs.readFileSync(p, 'utf8'); });
+    expect(cache.get(file)).toBe('1');
+    expect(cache.get(file)).toBe('1');
+    fs.writeFileSync(file, '22');
+    expect(cache.get(file)).toBe('22');
+    expect(reads).toBe(2);
+  });
+
+  it('reads only appended history and waits for a torn line to complete', () => {
+    const file = path.join(tmpDir(), 'demo.ndjson');
+    const cache = new HistoryCache();
+    expect(cache.load(file)).toEqual([]);
+
+    appendRun(file, run('r1'));
+    expect(cache.load(file).map(r => r.runId)).toEqual(['r1']);
+
+    // Another process is midway through an append
+    const line = JSON.stringify(run('r2'));
+    fs.appendFileSync(file, line.slice(0, 20));
+    expect(cache.load(file).map(r => r.runId)).toEqual(['r1']);
+    fs.appendFileSync(file, line.slice(20) + '\n');
+    expect(cache.load(file).map(r => r.runId)).toEqual(['r1', 'r2']);
+    expect(cache.load(file)).toEqual(loadHistory(file));
+
+    // Rewritten shorter: read from the start again
+    fs.writeFileSync(file, JSON.stringify(run('r3')) + '\n');
+    expect(cache.load(file).map(r => r.runId)).toEqual(['r3']);
+  });
+});
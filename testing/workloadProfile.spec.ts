@@ -0,0 +1,108 @@
+import fs from 'fs';
+import os from 'os';
+import path from 'path';
+import { applyWorkloadProfile, loadWorkloadProfile } from '../modules/energy-analyzer/src/analyzers/workloadProfile';
+
+function report(className: string, methodName: string, energyScore: number, inclusiveEnergyScore = energyScore) {
+  return {
+    className,
+    methodName,
+    loopCount: 0,
+    loops: [],
+    conditionalsCount: 0,
+    methodCalls: 0,
+    objectCreations: 0,
+    ioCalls: 0,
+    dbCalls: 0,
+    methodCallsInsideLoop: 0,
+    recursion: false,
+    cyclomatic: 1,
+    nestingDepth: 0,
+    cpuScore: energyScore,
+    memScore: 0,
+    ioScore: 0,
+    energyScore,
+    selfEnergyScore: energyScore,
+    inclusiveEnergyScore
+  };
+}
+
+function profile(stacks: Array<[string[], number]>) {
+  return {
+    kind: 'workload-profile' as const,
+    version: 1,
+    mainClass: 'app.Main',
+    intervalMs: 2,
+    wallMs: 200,
+    cpuMs: 190,
+    samples: stacks.reduce((s, [, n]) => s + n, 0),
+    stacks: stacks.map(([frames, count]) => ({ frames, count }))
+  };
+}
+
+describe('Energy Analyzer - Workload profile', () => {
+  it('splits a run into self and inclusive shares', () => {
+    const reports = [report('Main', 'main', 0.1, 0.9), report('Solver', 'solve', 0.5), report('Io', 'load', 0.5)];
+    const summary = applyWorkloadProfile(reports, profile([
+      [['Main.main', 'Solver.solve'], 60],
+      [['Main.main', 'Io.load'], 30],
+      [['Main.main'], 10]
+    ]));
+
+    const [main, solve, load] = reports;
+    expect(main.timeShare).toBe(1);
+    expect(main.selfTimeShare).toBeCloseTo(0.1);
+    expect(solve.timeShare).toBeCloseTo(0.6);
+    expect(solve.amdahlSpeedup).toBeCloseTo(2.5);
+    expect(load.energyShare).toBeCloseTo(15 / (30 + 15 + 1));
+    expect(summary.coverage).toBe(1);
+    expect(summary.samples).toBe(100);
+  });
+
+  it('weights samples by the energy of the executing method', () => {
+    const reports = [report('Main', 'main', 0.1, 1), report('Math', 'crunch', 0.9), report('Net', 'wait', 0.1)];
+    applyWorkloadProfile(reports, profile([
+      [['Main.main', 'Math.crunch'], 50],
+      [['Main.main', 'Net.wait'], 50]
+    ]));
+    expect(reports[1].timeShare).toBeCloseTo(reports[2].timeShare!);
+    expect(reports[1].energyShare).toBeCloseTo(0.9);
+    expect(reports[1].maxSavingPct).toBeCloseTo(90);
+  });
+
+  it('ranks methods by achievable saving in their own code', () => {
+    // main is on every stack but does little itself; the callee holds the cost
+    const reports = [report('Main', 'main', 0.1, 0.8), report('Board', 'score', 0.7), report('Board', 'unused', 0.9)];
+    const summary = applyWorkloadProfile(reports, profile([
+      [['Main.main', 'Board.score'], 80],
+      [['Main.main'], 20]
+    ]));
+
+    expect(summary.priorities.map(p => p.method)).toEqual(['Board.score', 'Main.main']);
+    expect(summary.priorities[0].rank).toBe(1);
+    expect(summary.priorities[0].criticality).toBeGreaterThan(summary.priorities[1].criticality);
+    expect(reports[2].criticality).toBe(0);
+    expect(summary.profiledMethods).toBe(2);
+  });
+
+  it('counts recursive frames once and charges library time to the caller', () => {
+    const reports = [report('Tree', 'walk', 0.4)];
+    const summary = applyWorkloadProfile(reports, profile([
+      [['Tree.walk', 'Tree.walk', 'Tree.walk'], 40],
+      [[], 10]
+    ]));
+    expect(reports[0].timeShare).toBeCloseTo(0.8);
+    expect(reports[0].selfTimeShare).toBeCloseTo(0.8);
+    expect(summary.coverage).toBeCloseTo(0.8);
+  });
+
+  it('rejects files that are not workload profiles', () => {
+    const dir = fs.mkdtempSync(path.join(os.tmpdir(), 'greencode-workload-'));
+    const good = path.join(dir, 'workload-profile.json');
+    const bad = path.join(dir, 'other.json');
+    fs.writeFileSync(good, JSON.stringify(profile([[['Main.main'], 1]])));
+    fs.writeFileSync(bad, JSON.stringify({ stacks: [] }));
+    expect(loadWorkloadProfile(good).mainClass).toBe('app.Main');
+    expect(() => loadWorkloadProfile(bad)).toThrow();
+  });
+});